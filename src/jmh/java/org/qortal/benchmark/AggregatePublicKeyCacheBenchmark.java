@@ -0,0 +1,74 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.crypto.AggregatePublicKeyCache;
+import org.qortal.crypto.Crypto;
+import org.qortal.crypto.Qortal25519Extras;
+import org.qortal.transform.Transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of online accounts' public keys, from scratch versus incrementally from previous block's aggregate.
+ * <p>
+ * Each invocation moves on to the next block, where a few accounts have gone offline and a few others have come online.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatePublicKeyCacheBenchmark {
+
+	private static final int BLOCK_COUNT = 100;
+
+	@Param({"100", "1000"})
+	public int accountCount;
+
+	/** How many accounts go offline, and come online, each block */
+	@Param({"10"})
+	public int churn;
+
+	private List<byte[]> publicKeys;
+	private int block;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0L);
+
+		int keyCount = this.accountCount + BLOCK_COUNT * this.churn;
+		this.publicKeys = new ArrayList<>(keyCount);
+
+		for (int i = 0; i < keyCount; ++i) {
+			byte[] privateKey = new byte[Transformer.PRIVATE_KEY_LENGTH];
+			random.nextBytes(privateKey);
+
+			this.publicKeys.add(Crypto.toPublicKey(privateKey));
+		}
+
+		AggregatePublicKeyCache.getInstance().clear();
+		this.block = 0;
+	}
+
+	@Benchmark
+	public byte[] aggregateFromScratch() {
+		return Qortal25519Extras.aggregatePublicKeys(this.nextOnlineKeys());
+	}
+
+	@Benchmark
+	public byte[] aggregateIncrementally() {
+		return AggregatePublicKeyCache.getInstance().aggregate(this.nextOnlineKeys());
+	}
+
+	private List<byte[]> nextOnlineKeys() {
+		int from = this.block * this.churn;
+		this.block = (this.block + 1) % BLOCK_COUNT;
+
+		return this.publicKeys.subList(from, from + this.accountCount);
+	}
+
+}
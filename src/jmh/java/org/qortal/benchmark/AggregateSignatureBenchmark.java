@@ -0,0 +1,69 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.crypto.Crypto;
+import org.qortal.crypto.Qortal25519Extras;
+import org.qortal.transform.Transformer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Aggregation, and verification, of online accounts' signatures, as included in every block. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregateSignatureBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int accountCount;
+
+	private byte[] message;
+	private List<byte[]> publicKeys;
+	private List<byte[]> signatures;
+	private byte[] aggregatePublicKey;
+	private byte[] aggregateSignature;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0L);
+
+		// Online accounts sign the timestamp
+		this.message = new byte[8];
+		random.nextBytes(this.message);
+
+		this.publicKeys = new ArrayList<>(this.accountCount);
+		this.signatures = new ArrayList<>(this.accountCount);
+
+		for (int i = 0; i < this.accountCount; ++i) {
+			byte[] privateKey = new byte[Transformer.PRIVATE_KEY_LENGTH];
+			random.nextBytes(privateKey);
+
+			this.publicKeys.add(Crypto.toPublicKey(privateKey));
+			this.signatures.add(Qortal25519Extras.signForAggregation(privateKey, this.message));
+		}
+
+		this.aggregatePublicKey = Qortal25519Extras.aggregatePublicKeys(this.publicKeys);
+		this.aggregateSignature = Qortal25519Extras.aggregateSignatures(this.signatures);
+	}
+
+	@Benchmark
+	public byte[] aggregatePublicKeys() {
+		return Qortal25519Extras.aggregatePublicKeys(this.publicKeys);
+	}
+
+	@Benchmark
+	public byte[] aggregateSignatures() {
+		return Qortal25519Extras.aggregateSignatures(this.signatures);
+	}
+
+	@Benchmark
+	public boolean verifyAggregated() {
+		return Qortal25519Extras.verifyAggregated(this.aggregatePublicKey, this.aggregateSignature, this.message);
+	}
+
+}
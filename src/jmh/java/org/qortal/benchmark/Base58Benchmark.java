@@ -0,0 +1,42 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.utils.Base58;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Base58 encoding of keys (32 bytes) and signatures (64 bytes), as used throughout API and logging. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base58Benchmark {
+
+	@Param({"32", "64"})
+	public int length;
+
+	private byte[] bytes;
+	private String encoded;
+
+	@Setup
+	public void setup() {
+		this.bytes = new byte[this.length];
+		new Random(0L).nextBytes(this.bytes);
+
+		this.encoded = Base58.encode(this.bytes);
+	}
+
+	@Benchmark
+	public String encode() {
+		return Base58.encode(this.bytes);
+	}
+
+	@Benchmark
+	public byte[] decode() {
+		return Base58.decode(this.encoded);
+	}
+
+}
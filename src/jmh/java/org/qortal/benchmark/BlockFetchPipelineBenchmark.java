@@ -0,0 +1,106 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.block.Block;
+import org.qortal.controller.BlockFetchPipeline;
+import org.qortal.data.block.BlockData;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetching blocks from peers with simulated round-trip latency, one request at a time
+ * compared with several requests in flight, spread across sync peer and helper peers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockFetchPipelineBenchmark {
+
+	private static final int BLOCK_COUNT = 20;
+	/** Simulated round-trip time to peer */
+	private static final long LATENCY = 20L; // ms
+
+	@Param({"1", "8"})
+	public int maxInFlight;
+
+	@Param({"0", "2"})
+	public int helperPeerCount;
+
+	private final Map<ByteArray, Block> blocksBySignature = new HashMap<>();
+	private final List<byte[]> signatures = new ArrayList<>();
+
+	private ExecutorService executor;
+	private Peer syncPeer;
+	private List<Peer> helperPeers;
+	private BlockFetchPipeline.BlockFetcher fetcher;
+
+	@Setup
+	public void setup() throws DataException {
+		Common.useDefaultSettings();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			for (int i = 0; i < BLOCK_COUNT; ++i) {
+				BlockData blockData = BlockUtils.mintBlock(repository).getBlockData();
+
+				// Load transactions now, as fetcher shouldn't use repository
+				Block block = new Block(repository, blockData);
+				block.getTransactions();
+
+				this.blocksBySignature.put(ByteArray.wrap(blockData.getSignature()), block);
+				this.signatures.add(blockData.getSignature());
+			}
+		}
+
+		this.executor = Executors.newCachedThreadPool();
+
+		this.syncPeer = newPeer(1);
+		this.helperPeers = new ArrayList<>();
+		for (int i = 0; i < this.helperPeerCount; ++i)
+			this.helperPeers.add(newPeer(2 + i));
+
+		this.fetcher = (peer, signature) -> {
+			Thread.sleep(LATENCY);
+			return this.blocksBySignature.get(ByteArray.wrap(signature));
+		};
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.executor.shutdownNow();
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public int fetchBlocks() throws InterruptedException {
+		int transactionCount = 0;
+
+		try (BlockFetchPipeline pipeline = new BlockFetchPipeline(this.syncPeer, this.helperPeers, this.fetcher, this.executor, this.maxInFlight, Long.MAX_VALUE)) {
+			pipeline.prefetch(this.signatures);
+
+			for (byte[] signature : this.signatures)
+				transactionCount += pipeline.take(signature).getBlockData().getTransactionCount();
+		}
+
+		return transactionCount;
+	}
+
+	private static Peer newPeer(int index) {
+		return new Peer(new PeerData(PeerAddress.fromString("127.0.0." + index + ":12392")));
+	}
+
+}
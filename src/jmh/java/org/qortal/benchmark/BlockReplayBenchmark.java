@@ -0,0 +1,140 @@
+package org.qortal.benchmark;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openjdk.jmh.annotations.*;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.block.Block;
+import org.qortal.block.Block.ValidationResult;
+import org.qortal.block.BlockChain;
+import org.qortal.data.block.BlockData;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.transaction.Transaction;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.block.BlockTransformation;
+import org.qortal.transform.block.BlockTransformer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays serialized blocks, as if received during synchronization,
+ * with isValid() then process() compared with validateAndProcess().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockReplayBenchmark {
+
+	private static final int BLOCK_COUNT = 20;
+	private static final int TRANSACTIONS_PER_ACCOUNT = 5;
+
+	@Param({"false", "true"})
+	public boolean singlePass;
+
+	private Repository repository;
+	private int startHeight;
+	private List<byte[]> blocksBytes;
+
+	@Setup
+	public void setup() throws DataException, IllegalAccessException, TransformationException {
+		// No reference checking, so each account can have several transactions per block
+		Common.useSettings("test-settings-v2-disable-reference.json");
+
+		// Batch reward distribution, so most blocks aren't reward-distribution blocks
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchStartHeight", 0, true);
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchSize", 1000, true);
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchAccountsBlockCount", 3, true);
+
+		this.repository = RepositoryManager.getRepository();
+
+		// Mint one block so we start from a non-genesis block
+		BlockUtils.mintBlock(this.repository);
+		this.startHeight = this.repository.getBlockRepository().getBlockchainHeight();
+
+		List<PrivateKeyAccount> accounts = Arrays.asList(
+				Common.getTestAccount(this.repository, "alice"),
+				Common.getTestAccount(this.repository, "bob"),
+				Common.getTestAccount(this.repository, "chloe"),
+				Common.getTestAccount(this.repository, "dilbert"));
+
+		for (int i = 0; i < BLOCK_COUNT; ++i) {
+			for (PrivateKeyAccount account : accounts)
+				for (int t = 0; t < TRANSACTIONS_PER_ACCOUNT; ++t) {
+					TransactionData transactionData = TransactionUtils.randomTransaction(this.repository, account, TransactionType.PAYMENT, true);
+					TransactionUtils.signAndImportValid(this.repository, transactionData, account);
+				}
+
+			BlockUtils.mintBlock(this.repository);
+		}
+
+		final int endHeight = this.repository.getBlockRepository().getBlockchainHeight();
+
+		// Serialize blocks, as if sent by a peer
+		this.blocksBytes = new ArrayList<>();
+		for (int height = this.startHeight + 1; height <= endHeight; ++height) {
+			BlockData blockData = this.repository.getBlockRepository().fromHeight(height);
+			this.blocksBytes.add(BlockTransformer.toBytes(new Block(this.repository, blockData)));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void orphanBlocks() throws DataException {
+		BlockUtils.orphanToBlock(this.repository, this.startHeight);
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		Common.closeRepository();
+	}
+
+	/** Applies serialized blocks, in the same way as Synchronizer. */
+	@Benchmark
+	public void replayBlocks() throws DataException, TransformationException {
+		int height = this.startHeight;
+		for (byte[] blockBytes : this.blocksBytes) {
+			BlockTransformation blockInfo = BlockTransformer.fromBytes(blockBytes);
+			BlockData blockData = blockInfo.getBlockData();
+			blockData.setHeight(++height);
+
+			Block block = new Block(this.repository, blockData, blockInfo.getTransactions(), blockInfo.getAtStates());
+
+			for (Transaction transaction : block.getTransactions())
+				transaction.setInitialApprovalStatus();
+
+			block.preProcess();
+
+			ValidationResult validationResult;
+			if (this.singlePass) {
+				validationResult = block.validateAndProcess();
+			} else {
+				validationResult = block.isValid();
+
+				if (validationResult == ValidationResult.OK) {
+					for (Transaction transaction : block.getTransactions())
+						this.repository.getTransactionRepository().save(transaction.getTransactionData());
+
+					block.process();
+				}
+			}
+
+			if (validationResult != ValidationResult.OK)
+				throw new IllegalStateException(String.format("Replayed block %d invalid: %s", height, validationResult.name()));
+
+			this.repository.saveChanges();
+		}
+	}
+
+}
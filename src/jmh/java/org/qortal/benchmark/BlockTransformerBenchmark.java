@@ -0,0 +1,80 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.block.Block;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.block.BlockTransformation;
+import org.qortal.transform.block.BlockTransformer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Block serialization, as used when sending blocks to peers, and deserialization of received blocks. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockTransformerBenchmark {
+
+	@Param({"0", "25"})
+	public int transactionsPerAccount;
+
+	private Repository repository;
+	private Block block;
+	private byte[] blockBytes;
+
+	@Setup
+	public void setup() throws DataException, TransformationException {
+		// No reference checking, so each account can have several transactions per block
+		Common.useSettings("test-settings-v2-disable-reference.json");
+
+		this.repository = RepositoryManager.getRepository();
+
+		List<PrivateKeyAccount> accounts = Arrays.asList(
+				Common.getTestAccount(this.repository, "alice"),
+				Common.getTestAccount(this.repository, "bob"),
+				Common.getTestAccount(this.repository, "chloe"),
+				Common.getTestAccount(this.repository, "dilbert"));
+
+		for (PrivateKeyAccount account : accounts)
+			for (int t = 0; t < this.transactionsPerAccount; ++t) {
+				TransactionData transactionData = TransactionUtils.randomTransaction(this.repository, account, TransactionType.PAYMENT, true);
+				TransactionUtils.signAndImportValid(this.repository, transactionData, account);
+			}
+
+		this.block = new Block(this.repository, BlockUtils.mintBlock(this.repository).getBlockData());
+		// Load transactions now, so benchmark doesn't include repository fetches
+		this.block.getTransactions();
+
+		this.blockBytes = BlockTransformer.toBytes(this.block);
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public byte[] toBytes() throws TransformationException {
+		return BlockTransformer.toBytes(this.block);
+	}
+
+	@Benchmark
+	public BlockTransformation fromBytes() throws TransformationException {
+		return BlockTransformer.fromBytes(this.blockBytes);
+	}
+
+}
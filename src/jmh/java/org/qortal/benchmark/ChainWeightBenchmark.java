@@ -0,0 +1,69 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.block.Block;
+import org.qortal.data.block.BlockSummaryData;
+import org.qortal.repository.DataException;
+import org.qortal.test.common.Common;
+import org.qortal.transform.Transformer;
+import org.qortal.transform.block.BlockTransformer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Chain weight of a peer's block summaries, as calculated by Synchronizer when comparing chains. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChainWeightBenchmark {
+
+	private static final int COMMON_BLOCK_HEIGHT = 100_000;
+
+	@Param({"10", "100", "1000"})
+	public int blockCount;
+
+	private byte[] commonBlockSignature;
+	private List<BlockSummaryData> blockSummaries;
+
+	@Setup
+	public void setup() throws DataException {
+		// Also sets NTP offset, needed by Block.calcChainWeight()
+		Common.useDefaultSettings();
+
+		Random random = new Random(0L);
+
+		this.commonBlockSignature = new byte[BlockTransformer.BLOCK_SIGNATURE_LENGTH];
+		random.nextBytes(this.commonBlockSignature);
+
+		this.blockSummaries = new ArrayList<>(this.blockCount);
+		for (int i = 1; i <= this.blockCount; ++i) {
+			byte[] signature = new byte[BlockTransformer.BLOCK_SIGNATURE_LENGTH];
+			random.nextBytes(signature);
+
+			byte[] minterPublicKey = new byte[Transformer.PUBLIC_KEY_LENGTH];
+			random.nextBytes(minterPublicKey);
+
+			BlockSummaryData blockSummary = new BlockSummaryData(COMMON_BLOCK_HEIGHT + i, signature, minterPublicKey, random.nextInt(5000));
+			blockSummary.setMinterLevel(random.nextInt(10) + 1);
+
+			this.blockSummaries.add(blockSummary);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public BigInteger calcChainWeight() {
+		return Block.calcChainWeight(COMMON_BLOCK_HEIGHT, this.commonBlockSignature, this.blockSummaries, COMMON_BLOCK_HEIGHT + this.blockCount);
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.controller.OnlineAccountsManager;
+import org.qortal.crypto.MemoryPoW;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory-hard proof-of-work, as computed for, and verified on, every online account signature.
+ * <p>
+ * Mainnet difficulty takes seconds per compute so lower difficulties are used here;
+ * verification cost doesn't depend on difficulty.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryPoWBenchmark {
+
+	private static final int WORK_BUFFER_LENGTH = OnlineAccountsManager.POW_BUFFER_SIZE;
+
+	@Param({"5", "10"})
+	public int difficulty;
+
+	private byte[] data;
+	private int nonce;
+
+	@Setup
+	public void setup() {
+		this.data = new byte[256];
+		new Random(0L).nextBytes(this.data);
+
+		this.nonce = MemoryPoW.compute2(this.data, WORK_BUFFER_LENGTH, this.difficulty);
+	}
+
+	@Benchmark
+	public Integer compute2() {
+		return MemoryPoW.compute2(this.data, WORK_BUFFER_LENGTH, this.difficulty);
+	}
+
+	@Benchmark
+	public boolean verify2() {
+		return MemoryPoW.verify2(this.data, WORK_BUFFER_LENGTH, this.difficulty, this.nonce);
+	}
+
+}
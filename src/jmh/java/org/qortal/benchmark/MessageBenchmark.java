@@ -0,0 +1,89 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.data.network.OnlineAccountData;
+import org.qortal.network.message.*;
+import org.qortal.repository.DataException;
+import org.qortal.test.common.Common;
+import org.qortal.transform.Transformer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Decoding of complete network messages, including checksum verification, as done for every received message. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+	private static final int ONLINE_ACCOUNTS_COUNT = 1000;
+	private static final int ARBITRARY_DATA_LENGTH = 512 * 1024;
+
+	@Param({"PING", "ONLINE_ACCOUNTS_V3", "ARBITRARY_DATA"})
+	public MessageType messageType;
+
+	private ByteBuffer readOnlyBuffer;
+
+	@Setup
+	public void setup() throws DataException, MessageException {
+		// Message magic depends on settings
+		Common.useDefaultSettings();
+
+		Random random = new Random(0L);
+		Message message;
+
+		switch (this.messageType) {
+			case ONLINE_ACCOUNTS_V3: {
+				long timestamp = System.currentTimeMillis();
+				List<OnlineAccountData> onlineAccounts = new ArrayList<>(ONLINE_ACCOUNTS_COUNT);
+
+				for (int i = 0; i < ONLINE_ACCOUNTS_COUNT; ++i) {
+					byte[] signature = new byte[Transformer.SIGNATURE_LENGTH];
+					random.nextBytes(signature);
+
+					byte[] publicKey = new byte[Transformer.PUBLIC_KEY_LENGTH];
+					random.nextBytes(publicKey);
+
+					onlineAccounts.add(new OnlineAccountData(timestamp, signature, publicKey, random.nextInt()));
+				}
+
+				message = new OnlineAccountsV3Message(onlineAccounts);
+				break;
+			}
+
+			case ARBITRARY_DATA: {
+				byte[] signature = new byte[Transformer.SIGNATURE_LENGTH];
+				random.nextBytes(signature);
+
+				byte[] data = new byte[ARBITRARY_DATA_LENGTH];
+				random.nextBytes(data);
+
+				message = new ArbitraryDataMessage(signature, data);
+				break;
+			}
+
+			default:
+				message = new PingMessage();
+				break;
+		}
+
+		this.readOnlyBuffer = ByteBuffer.wrap(message.toBytes()).asReadOnlyBuffer();
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public Message fromByteBuffer() throws MessageException {
+		return Message.fromByteBuffer(this.readOnlyBuffer.duplicate());
+	}
+
+}
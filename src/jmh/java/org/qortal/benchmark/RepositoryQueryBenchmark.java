@@ -0,0 +1,107 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.account.PublicKeyAccount;
+import org.qortal.data.account.AccountBalanceData;
+import org.qortal.data.account.AccountData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.repository.hsqldb.HSQLDBRepository;
+import org.qortal.test.common.Common;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent repository queries, with statements serialized through a single monitor, as with the old CHECKPOINT_LOCK,
+ * compared with statements only passing through the checkpoint gate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+	private static final String SQL = "SELECT account, asset_id, balance FROM AccountBalances WHERE asset_id = ? ORDER BY balance DESC LIMIT 20";
+	private static final int ACCOUNTS_COUNT = 20;
+	private static final int BALANCES_COUNT = 10000;
+
+	@Param({"false", "true"})
+	public boolean serialized;
+
+	private final Object serializingMonitor = new Object();
+
+	/** Each benchmark thread has its own repository session. */
+	@State(Scope.Thread)
+	public static class Session {
+		private HSQLDBRepository hsqldb;
+		private int assetId = 0;
+
+		@Setup
+		public void setup(RepositoryQueryBenchmark benchmark) throws DataException {
+			this.hsqldb = (HSQLDBRepository) RepositoryManager.getRepository();
+		}
+
+		@TearDown
+		public void tearDown() throws DataException {
+			this.hsqldb.close();
+		}
+
+		private boolean query() throws DataException, SQLException {
+			try (ResultSet resultSet = this.hsqldb.checkedExecute(SQL, this.assetId)) {
+				this.assetId ^= 1;
+				return resultSet != null;
+			}
+		}
+	}
+
+	@Setup
+	public void setup() throws DataException {
+		Common.useDefaultSettings();
+
+		try (final HSQLDBRepository hsqldb = (HSQLDBRepository) RepositoryManager.getRepository()) {
+			Random random = new Random(0L);
+
+			List<String> addresses = new ArrayList<>();
+			for (int a = 0; a < ACCOUNTS_COUNT; ++a) {
+				byte[] publicKey = new byte[32];
+				random.nextBytes(publicKey);
+
+				String address = new PublicKeyAccount(hsqldb, publicKey).getAddress();
+				hsqldb.getAccountRepository().ensureAccount(new AccountData(address));
+				addresses.add(address);
+			}
+
+			for (int i = 0; i < BALANCES_COUNT; ++i) {
+				String address = addresses.get(random.nextInt(addresses.size()));
+				hsqldb.getAccountRepository().save(new AccountBalanceData(address, random.nextInt(2), random.nextInt(100000)));
+			}
+
+			hsqldb.saveChanges();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public boolean query(Session session) throws DataException, SQLException {
+		if (this.serialized) {
+			synchronized (this.serializingMonitor) {
+				return session.query();
+			}
+		}
+
+		return session.query();
+	}
+
+}
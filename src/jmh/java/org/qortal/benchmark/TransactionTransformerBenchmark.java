@@ -0,0 +1,67 @@
+package org.qortal.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.transaction.Transaction;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.transaction.TransactionTransformer;
+
+import java.util.concurrent.TimeUnit;
+
+/** Transaction serialization round-trips, per transaction type. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionTransformerBenchmark {
+
+	@Param({"PAYMENT", "MULTI_PAYMENT", "MESSAGE", "CHAT", "REWARD_SHARE"})
+	public TransactionType transactionType;
+
+	private TransactionData transactionData;
+	private byte[] transactionBytes;
+
+	@Setup
+	public void setup() throws DataException, TransformationException {
+		Common.useDefaultSettings();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+
+			this.transactionData = TransactionUtils.randomTransaction(repository, alice, this.transactionType, true);
+			Transaction.fromData(repository, this.transactionData).sign(alice);
+		}
+
+		this.transactionBytes = TransactionTransformer.toBytes(this.transactionData);
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		Common.closeRepository();
+	}
+
+	@Benchmark
+	public byte[] toBytes() throws TransformationException {
+		return TransactionTransformer.toBytes(this.transactionData);
+	}
+
+	@Benchmark
+	public TransactionData fromBytes() throws TransformationException {
+		return TransactionTransformer.fromBytes(this.transactionBytes);
+	}
+
+	@Benchmark
+	public TransactionData roundTrip() throws TransformationException {
+		return TransactionTransformer.fromBytes(TransactionTransformer.toBytes(this.transactionData));
+	}
+
+}
@@ -21,6 +21,10 @@ public class NodeStatus {
 
 	public final int height;
 
+	public final int onlineAccountsImportQueueSize;
+	/** Online accounts verified per second, during most recent import batch */
+	public final double onlineAccountsVerificationRate;
+
 	public NodeStatus() {
 		this.isMintingPossible = OnlineAccountsManager.getInstance().hasActiveOnlineAccountSignatures();
 
@@ -30,6 +34,9 @@ public class NodeStatus {
 		this.numberOfConnections = Network.getInstance().getImmutableHandshakedPeers().size();
 
 		this.height = Controller.getInstance().getChainHeight();
+
+		this.onlineAccountsImportQueueSize = OnlineAccountsManager.getInstance().getImportQueueSize();
+		this.onlineAccountsVerificationRate = OnlineAccountsManager.getInstance().getImportVerificationRate();
 	}
 
 }
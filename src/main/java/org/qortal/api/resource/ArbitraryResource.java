@@ -291,6 +291,47 @@ public class ArbitraryResource {
 		return ArbitraryTransactionUtils.getStatus(service, name, identifier, build, true);
 	}
 
+	@GET
+	@Path("/publish/progress/{service}/{name}")
+	@Operation(
+			summary = "Get progress of compressing, encrypting and splitting resource with supplied service and name, ready for publishing",
+			description = "Returns percentage complete, or -1 if resource isn't currently being prepared",
+			responses = {
+					@ApiResponse(
+							content = @Content(mediaType = MediaType.TEXT_PLAIN, schema = @Schema(type = "number"))
+					)
+			}
+	)
+	@SecurityRequirement(name = "apiKey")
+	public int getDefaultPublishProgress(@HeaderParam(Security.API_KEY_HEADER) String apiKey,
+										@PathParam("service") Service service,
+										@PathParam("name") String name) {
+		Security.checkApiCallAllowed(request);
+
+		return this.getPublishProgress(service, name, null);
+	}
+
+	@GET
+	@Path("/publish/progress/{service}/{name}/{identifier}")
+	@Operation(
+			summary = "Get progress of compressing, encrypting and splitting resource with supplied service, name and identifier, ready for publishing",
+			description = "Returns percentage complete, or -1 if resource isn't currently being prepared",
+			responses = {
+					@ApiResponse(
+							content = @Content(mediaType = MediaType.TEXT_PLAIN, schema = @Schema(type = "number"))
+					)
+			}
+	)
+	@SecurityRequirement(name = "apiKey")
+	public int getPublishProgress(@HeaderParam(Security.API_KEY_HEADER) String apiKey,
+								 @PathParam("service") Service service,
+								 @PathParam("name") String name,
+								 @PathParam("identifier") String identifier) {
+		Security.checkApiCallAllowed(request);
+
+		return this.getPublishProgress(service, name, identifier);
+	}
+
 
 	@GET
 	@Path("/search")
@@ -1143,6 +1184,14 @@ public class ArbitraryResource {
 
 	// Shared methods
 
+	private int getPublishProgress(Service service, String name, String identifier) {
+		ArbitraryDataWriter arbitraryDataWriter = ArbitraryDataWriter.getInProgress(service, name, identifier);
+		if (arbitraryDataWriter == null) {
+			return -1;
+		}
+		return arbitraryDataWriter.getPercentComplete();
+	}
+
 	private String preview(String directoryPath, Service service) {
 		Security.checkApiCallAllowed(request);
 		ArbitraryTransactionData.Method method = ArbitraryTransactionData.Method.PUT;
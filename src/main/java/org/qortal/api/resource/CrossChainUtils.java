@@ -35,14 +35,15 @@ public class CrossChainUtils {
             LOGGER.warn("Problems getting block height before building server configuration infos");
         }
 
-        ChainableServer currentServer = blockchainProvider.getCurrentServer();
+        // Servers that are connected, for providers that pool connections to several servers
+        List<ChainableServer> currentServers = blockchainProvider.getConnectedServers();
 
         return new ServerConfigurationInfo(
-                buildInfos(blockchainProvider.getServers(), currentServer).stream()
+                buildInfos(blockchainProvider.getServers(), currentServers).stream()
                         .sorted(Comparator.comparing(ServerInfo::isCurrent).reversed())
                         .collect(Collectors.toList()),
-                buildInfos(blockchainProvider.getRemainingServers(), currentServer),
-                buildInfos(blockchainProvider.getUselessServers(), currentServer)
+                buildInfos(blockchainProvider.getRemainingServers(), currentServers),
+                buildInfos(blockchainProvider.getUselessServers(), currentServers)
             );
     }
 
@@ -52,17 +53,18 @@ public class CrossChainUtils {
                 server.getHostName(),
                 server.getPort(),
                 server.getConnectionType().toString(),
-                isCurrent);
+                isCurrent,
+                server.getResponseTimeHistogram().getBuckets());
 
     }
 
-    public static List<ServerInfo> buildInfos(Collection<ChainableServer> servers, ChainableServer currentServer) {
+    public static List<ServerInfo> buildInfos(Collection<ChainableServer> servers, Collection<ChainableServer> currentServers) {
 
         List<ServerInfo> infos = new ArrayList<>( servers.size() );
 
         for( ChainableServer server : servers )
         {
-            infos.add(buildInfo(server, server.equals(currentServer)));
+            infos.add(buildInfo(server, currentServers.contains(server)));
         }
 
         return infos;
@@ -0,0 +1,150 @@
+package org.qortal.api.websocket;
+
+import org.qortal.data.chat.ActiveChats;
+import org.qortal.data.chat.ActiveChats.DirectChat;
+import org.qortal.data.chat.ActiveChats.GroupChat;
+import org.qortal.data.transaction.ChatTransactionData;
+import org.qortal.group.Group;
+import org.qortal.repository.DataException;
+
+import java.util.*;
+
+import static org.qortal.data.chat.ChatMessage.Encoding;
+
+/**
+ * Incrementally maintained copy of one address's active chats, as returned by
+ * {@link org.qortal.repository.ChatRepository#getActiveChats(String, Encoding)}.
+ * <p>
+ * New CHAT transactions are applied in memory, producing a delta containing only the changed chats.
+ * Whether a transaction is of interest can be decided without repository access.
+ */
+public class ActiveChatsView {
+
+	@FunctionalInterface
+	public interface NameLookup {
+		/** Returns a registered name owned by <tt>address</tt>, or null. */
+		String getName(String address) throws DataException;
+	}
+
+	private final String address;
+	private final Encoding encoding;
+
+	private final Map<Integer, GroupChat> groupChats = new LinkedHashMap<>();
+	private final Map<String, DirectChat> directChats = new LinkedHashMap<>();
+
+	public ActiveChatsView(String address, Encoding encoding, ActiveChats activeChats) {
+		this.address = address;
+		this.encoding = encoding;
+
+		this.reset(activeChats);
+	}
+
+	/** Replaces view's contents, e.g. after a group-membership change. */
+	public synchronized void reset(ActiveChats activeChats) {
+		this.groupChats.clear();
+		for (GroupChat groupChat : activeChats.getGroups())
+			this.groupChats.put(groupChat.getGroupId(), groupChat);
+
+		this.directChats.clear();
+		for (DirectChat directChat : activeChats.getDirect())
+			this.directChats.put(directChat.getAddress(), directChat);
+	}
+
+	public synchronized ActiveChats getActiveChats() {
+		return new ActiveChats(new ArrayList<>(this.groupChats.values()), new ArrayList<>(this.directChats.values()));
+	}
+
+	/** Returns IDs of groups in view, including group-less chat. */
+	public synchronized Set<Integer> getGroupIds() {
+		return new HashSet<>(this.groupChats.keySet());
+	}
+
+	/** Returns whether <tt>chatTransactionData</tt> involves one of this view's chats. */
+	public synchronized boolean isAffectedBy(ChatTransactionData chatTransactionData) {
+		return this.isGroupChat(chatTransactionData) || this.isDirectChat(chatTransactionData);
+	}
+
+	/**
+	 * Applies new CHAT transaction to view.
+	 *
+	 * @return changed chats only, or null if view is unchanged
+	 */
+	public synchronized ActiveChats apply(ChatTransactionData chatTransactionData, NameLookup nameLookup) throws DataException {
+		List<GroupChat> changedGroupChats = new ArrayList<>(1);
+		List<DirectChat> changedDirectChats = new ArrayList<>(1);
+
+		String sender = chatTransactionData.getSender();
+		long timestamp = chatTransactionData.getTimestamp();
+
+		if (this.isGroupChat(chatTransactionData)) {
+			int groupId = chatTransactionData.getTxGroupId();
+			GroupChat groupChat = this.groupChats.get(groupId);
+
+			if (isNewer(groupChat.getTimestamp(), groupChat.getSignature(), chatTransactionData)) {
+				GroupChat newGroupChat = new GroupChat(groupId, groupChat.getGroupName(), timestamp, sender, nameLookup.getName(sender),
+						chatTransactionData.getSignature(), this.encoding, chatTransactionData.getData());
+
+				this.groupChats.put(groupId, newGroupChat);
+				changedGroupChats.add(newGroupChat);
+			}
+		}
+
+		if (this.isDirectChat(chatTransactionData)) {
+			boolean isOurs = sender.equals(this.address);
+			String otherAddress = isOurs ? chatTransactionData.getRecipient() : sender;
+			DirectChat directChat = this.directChats.get(otherAddress);
+
+			if (directChat == null || isNewer(directChat.getTimestamp(), null, chatTransactionData)) {
+				String senderName = nameLookup.getName(sender);
+
+				String otherName;
+				if (!isOurs)
+					otherName = senderName;
+				else if (directChat != null)
+					otherName = directChat.getName();
+				else
+					otherName = nameLookup.getName(otherAddress);
+
+				DirectChat newDirectChat = new DirectChat(otherAddress, otherName, timestamp, sender, senderName);
+
+				this.directChats.put(otherAddress, newDirectChat);
+				changedDirectChats.add(newDirectChat);
+			}
+		}
+
+		if (changedGroupChats.isEmpty() && changedDirectChats.isEmpty())
+			return null;
+
+		return new ActiveChats(changedGroupChats, changedDirectChats);
+	}
+
+	private boolean isGroupChat(ChatTransactionData chatTransactionData) {
+		int txGroupId = chatTransactionData.getTxGroupId();
+
+		// Group-less chat only counts if it has no recipient
+		if (txGroupId == Group.NO_GROUP)
+			return chatTransactionData.getRecipient() == null && this.groupChats.containsKey(Group.NO_GROUP);
+
+		// Otherwise any CHAT in one of our groups counts
+		return this.groupChats.containsKey(txGroupId);
+	}
+
+	private boolean isDirectChat(ChatTransactionData chatTransactionData) {
+		String recipient = chatTransactionData.getRecipient();
+		if (recipient == null)
+			return false;
+
+		return recipient.equals(this.address) || chatTransactionData.getSender().equals(this.address);
+	}
+
+	private static boolean isNewer(Long latestTimestamp, byte[] latestSignature, ChatTransactionData chatTransactionData) {
+		if (latestTimestamp == null)
+			return true;
+
+		if (latestSignature != null && Arrays.equals(latestSignature, chatTransactionData.getSignature()))
+			return false;
+
+		return chatTransactionData.getTimestamp() >= latestTimestamp;
+	}
+
+}
@@ -7,16 +7,22 @@ import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
 import org.qortal.controller.ChatNotifier;
 import org.qortal.crypto.Crypto;
 import org.qortal.data.chat.ActiveChats;
+import org.qortal.data.naming.NameData;
 import org.qortal.data.transaction.ChatTransactionData;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
+import org.qortal.utils.Pair;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.qortal.data.chat.ChatMessage.Encoding;
@@ -30,6 +36,9 @@ public class ActiveChatsWebSocket extends ApiWebSocket {
 		factory.register(ActiveChatsWebSocket.class);
 	}
 
+	/** Sender name of most recently notified CHAT, shared by all sessions notified about it */
+	private static final AtomicReference<Pair<ChatTransactionData, String>> latestSenderName = new AtomicReference<>();
+
 	@OnWebSocketConnect
 	@Override
 	public void onWebSocketConnect(Session session) {
@@ -41,12 +50,72 @@ public class ActiveChatsWebSocket extends ApiWebSocket {
 			return;
 		}
 
-		AtomicReference<String> previousOutput = new AtomicReference<>(null);
+		Encoding encoding = getTargetEncoding(session);
+
+		// Register before initial fetch, holding back notifications until view exists, then replaying them
+		AtomicReference<ActiveChatsView> activeChatsView = new AtomicReference<>(null);
+		List<ChatTransactionData> pendingNotifications = new ArrayList<>();
+		AtomicBoolean isGroupMembershipChangePending = new AtomicBoolean(false);
+
+		ChatNotifier.Listener listener = new ChatNotifier.Listener() {
+			@Override
+			public void notify(ChatTransactionData chatTransactionData) {
+				synchronized (pendingNotifications) {
+					if (activeChatsView.get() == null) {
+						pendingNotifications.add(chatTransactionData);
+						return;
+					}
+				}
+
+				onNotify(session, chatTransactionData, activeChatsView.get());
+			}
+
+			@Override
+			public void notifyGroupMembershipChange(Set<String> addresses) {
+				if (!addresses.contains(address))
+					return;
+
+				synchronized (pendingNotifications) {
+					if (activeChatsView.get() == null) {
+						isGroupMembershipChangePending.set(true);
+						return;
+					}
+				}
+
+				onGroupMembershipChange(session, address, encoding, activeChatsView.get());
+			}
+		};
+		ChatNotifier.getInstance().register(session, listener, Collections.emptyList(), List.of(address));
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ActiveChats activeChats = repository.getChatRepository().getActiveChats(address, encoding);
+			ActiveChatsView view = new ActiveChatsView(address, encoding, activeChats);
+
+			// Now we know our groups, we can receive their CHATs too
+			ChatNotifier.getInstance().setGroupIds(session, view.getGroupIds());
+
+			// Group CHATs imported before we subscribed to their groups weren't notified, so fetch again
+			repository.discardChanges();
+			activeChats = repository.getChatRepository().getActiveChats(address, encoding);
+			view.reset(activeChats);
+
+			// Replay anything notified meanwhile, before any later notifications, sending only what is newer than fetch
+			synchronized (pendingNotifications) {
+				activeChatsView.set(view);
+
+				sendActiveChats(session, activeChats);
 
-		ChatNotifier.Listener listener = chatTransactionData -> onNotify(session, chatTransactionData, address, previousOutput);
-		ChatNotifier.getInstance().register(session, listener);
+				for (ChatTransactionData chatTransactionData : pendingNotifications)
+					onNotify(session, chatTransactionData, view);
+				pendingNotifications.clear();
 
-		this.onNotify(session, null, address, previousOutput);
+				if (isGroupMembershipChangePending.get())
+					onGroupMembershipChange(session, address, encoding, view);
+			}
+		} catch (DataException e) {
+			// Not a good start
+			session.close(4001, "Couldn't fetch initial active chats from repository");
+		}
 	}
 
 	@OnWebSocketClose
@@ -67,34 +136,72 @@ public class ActiveChatsWebSocket extends ApiWebSocket {
 		}
 	}
 
-	private void onNotify(Session session, ChatTransactionData chatTransactionData, String ourAddress, AtomicReference<String> previousOutput) {
-		// If CHAT has a recipient (i.e. direct message, not group-based) and we're neither sender nor recipient, then it's of no interest
-		if (chatTransactionData != null) {
-			String recipient = chatTransactionData.getRecipient();
+	private void onNotify(Session session, ChatTransactionData chatTransactionData, ActiveChatsView activeChatsView) {
+		// Sessions not involved with this CHAT can tell without using the repository
+		if (activeChatsView == null || !activeChatsView.isAffectedBy(chatTransactionData))
+			return;
 
-			if (recipient != null && (!recipient.equals(ourAddress) && !chatTransactionData.getSender().equals(ourAddress)))
+		try {
+			// Only send chats that have changed
+			ActiveChats changedChats = activeChatsView.apply(chatTransactionData, address -> getName(chatTransactionData, address));
+			if (changedChats == null)
 				return;
+
+			sendActiveChats(session, changedChats);
+		} catch (DataException e) {
+			// No output this time?
 		}
+	}
+
+	private void onGroupMembershipChange(Session session, String ourAddress, Encoding encoding, ActiveChatsView activeChatsView) {
+		if (activeChatsView == null)
+			return;
 
+		// Groups may have been removed, so send everything
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			ActiveChats activeChats = repository.getChatRepository().getActiveChats(ourAddress, getTargetEncoding(session));
+			ActiveChats activeChats = repository.getChatRepository().getActiveChats(ourAddress, encoding);
+			activeChatsView.reset(activeChats);
+			ChatNotifier.getInstance().setGroupIds(session, activeChatsView.getGroupIds());
 
-			StringWriter stringWriter = new StringWriter();
+			sendActiveChats(session, activeChats);
+		} catch (DataException e) {
+			// No output this time?
+		}
+	}
 
-			marshall(stringWriter, activeChats);
+	private void sendActiveChats(Session session, ActiveChats activeChats) {
+		StringWriter stringWriter = new StringWriter();
 
-			// Only output if something has changed
-			String output = stringWriter.toString();
-			if (output.equals(previousOutput.get()))
-				return;
+		try {
+			marshall(stringWriter, activeChats);
 
-			previousOutput.set(output);
-			session.getRemote().sendStringByFuture(output);
-		} catch (DataException | IOException | WebSocketException e) {
+			sendNotification(session, stringWriter.toString());
+		} catch (IOException | WebSocketException e) {
 			// No output this time?
 		}
 	}
 
+	private static String getName(ChatTransactionData chatTransactionData, String address) throws DataException {
+		// Every interested session asks for sender's name, so only look it up once per CHAT
+		boolean isSender = address.equals(chatTransactionData.getSender());
+		if (isSender) {
+			Pair<ChatTransactionData, String> senderName = latestSenderName.get();
+			if (senderName != null && senderName.getA() == chatTransactionData)
+				return senderName.getB();
+		}
+
+		String name;
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			List<NameData> names = repository.getNameRepository().getNamesByOwner(address);
+			name = names.isEmpty() ? null : names.get(0).getName();
+		}
+
+		if (isSender)
+			latestSenderName.set(new Pair<>(chatTransactionData, name));
+
+		return name;
+	}
+
 	private Encoding getTargetEncoding(Session session) {
 		// Default to Base58 if not specified, for backwards support
 		Map<String, List<String>> queryParams = session.getUpgradeRequest().getParameterMap();
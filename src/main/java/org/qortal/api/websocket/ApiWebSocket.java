@@ -2,6 +2,8 @@ package org.qortal.api.websocket;
 
 import org.eclipse.jetty.http.pathmap.UriTemplatePathSpec;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.servlet.ServletUpgradeRequest;
 import org.eclipse.jetty.websocket.servlet.WebSocketServlet;
 import org.eclipse.persistence.jaxb.JAXBContextFactory;
@@ -22,6 +24,25 @@ abstract class ApiWebSocket extends WebSocketServlet {
 
 	private static final Map<Class<? extends ApiWebSocket>, List<Session>> SESSIONS_BY_CLASS = new HashMap<>();
 
+	/** How long client can go without accepting any pending notification before being disconnected (ms) */
+	private static final long NOTIFICATION_SEND_TIMEOUT = 5_000L;
+
+	/** Maximum notifications still being written to a client before it is disconnected */
+	private static final int MAX_IN_FLIGHT_NOTIFICATIONS = 20;
+
+	private static class NotificationState {
+		private int inFlight;
+		private long lastProgress;
+
+		private synchronized void onWriteDone() {
+			this.inFlight--;
+			this.lastProgress = System.currentTimeMillis();
+		}
+	}
+
+	/** Notification progress per session, dropped once session is garbage */
+	private static final Map<Session, NotificationState> NOTIFICATION_STATES = new WeakHashMap<>();
+
 	protected static String getPathInfo(Session session) {
 		ServletUpgradeRequest upgradeRequest = (ServletUpgradeRequest) session.getUpgradeRequest();
 		return upgradeRequest.getHttpServletRequest().getPathInfo();
@@ -45,6 +66,48 @@ abstract class ApiWebSocket extends WebSocketServlet {
 		}
 	}
 
+	/**
+	 * Sends <tt>text</tt> without waiting for it to be written.
+	 * <p>
+	 * Used when delivering notifications, so a stalled client doesn't hold up the calling thread.
+	 * Client is disconnected if it has too many notifications still being written,
+	 * or hasn't accepted any of them for too long.
+	 */
+	protected static void sendNotification(Session session, String text) throws IOException {
+		NotificationState notificationState;
+		synchronized (NOTIFICATION_STATES) {
+			notificationState = NOTIFICATION_STATES.computeIfAbsent(session, k -> new NotificationState());
+		}
+
+		final long now = System.currentTimeMillis();
+
+		synchronized (notificationState) {
+			boolean isStalled = notificationState.inFlight > 0 && now - notificationState.lastProgress > NOTIFICATION_SEND_TIMEOUT;
+
+			if (isStalled || notificationState.inFlight >= MAX_IN_FLIGHT_NOTIFICATIONS) {
+				session.close(StatusCode.POLICY_VIOLATION, "too slow");
+				throw new IOException("Websocket client not accepting notifications");
+			}
+
+			if (notificationState.inFlight == 0)
+				notificationState.lastProgress = now;
+
+			notificationState.inFlight++;
+		}
+
+		session.getRemote().sendString(text, new WriteCallback() {
+			@Override
+			public void writeSuccess() {
+				notificationState.onWriteDone();
+			}
+
+			@Override
+			public void writeFailed(Throwable x) {
+				notificationState.onWriteDone();
+			}
+		});
+	}
+
 	protected static void marshall(Writer writer, Object object) throws IOException {
 		Marshaller marshaller = createMarshaller(object.getClass());
 
@@ -66,7 +66,7 @@ public class ChatMessagesWebSocket extends ApiWebSocket {
 			}
 
 			ChatNotifier.Listener listener = chatTransactionData -> onNotify(session, chatTransactionData, txGroupId);
-			ChatNotifier.getInstance().register(session, listener);
+			ChatNotifier.getInstance().register(session, listener, List.of(txGroupId), Collections.emptyList());
 
 			return;
 		}
@@ -97,8 +97,9 @@ public class ChatMessagesWebSocket extends ApiWebSocket {
 			return;
 		}
 
+		// Any CHAT involving both addresses involves the first one, so that's enough for routing
 		ChatNotifier.Listener listener = chatTransactionData -> onNotify(session, chatTransactionData, involvingAddresses);
-		ChatNotifier.getInstance().register(session, listener);
+		ChatNotifier.getInstance().register(session, listener, Collections.emptyList(), List.of(involvingAddresses.get(0)));
 	}
 
 	@OnWebSocketClose
@@ -120,10 +121,6 @@ public class ChatMessagesWebSocket extends ApiWebSocket {
 	}
 
 	private void onNotify(Session session, ChatTransactionData chatTransactionData, int txGroupId) {
-		if (chatTransactionData == null)
-			// There has been a group-membership change, but we're not interested
-			return;
-
 		// We only want group-based messages with our txGroupId
 		if (chatTransactionData.getRecipient() != null || chatTransactionData.getTxGroupId() != txGroupId)
 			return;
@@ -132,9 +129,6 @@ public class ChatMessagesWebSocket extends ApiWebSocket {
 	}
 
 	private void onNotify(Session session, ChatTransactionData chatTransactionData, List<String> involvingAddresses) {
-		if (chatTransactionData == null)
-			return;
-
 		// We only want direct/non-group messages where sender/recipient match our addresses
 		String recipient = chatTransactionData.getRecipient();
 		if (recipient == null)
@@ -154,7 +148,7 @@ public class ChatMessagesWebSocket extends ApiWebSocket {
 		try {
 			marshall(stringWriter, chatMessages);
 
-			session.getRemote().sendStringByFuture(stringWriter.toString());
+			sendNotification(session, stringWriter.toString());
 		} catch (IOException | WebSocketException e) {
 			// No output this time?
 		}
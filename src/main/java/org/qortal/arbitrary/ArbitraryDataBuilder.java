@@ -220,6 +220,9 @@ public class ArbitraryDataBuilder {
             boolean isFinalLayer = (i == paths.size() - 1);
             combiner.setShouldValidateHashes(isFinalLayer || validateAllLayers);
 
+            // Previous state is cleaned up after combining, so it can be moved into place rather than copied
+            combiner.setCanMovePathBefore(true);
+
             // Now combine this layer with the last, and set the output path to the "before" path for the next cycle
             combiner.combine();
             combiner.cleanup();
@@ -25,6 +25,7 @@ public class ArbitraryDataCombiner {
     private final Path pathAfter;
     private final byte[] signatureBefore;
     private boolean shouldValidateHashes;
+    private boolean canMovePathBefore;
     private Path finalPath;
     private ArbitraryDataMetadataPatch metadata;
 
@@ -135,6 +136,7 @@ public class ArbitraryDataCombiner {
 
     private void process() throws IOException, DataException {
         ArbitraryDataMerge merge = new ArbitraryDataMerge(this.pathBefore, this.pathAfter);
+        merge.setCanMovePathBefore(this.canMovePathBefore);
         merge.compute();
         this.finalPath = merge.getMergePath();
     }
@@ -163,6 +165,11 @@ public class ArbitraryDataCombiner {
         this.shouldValidateHashes = shouldValidateHashes;
     }
 
+    /** Allows pathBefore to be moved, rather than copied, when merging, as it will be deleted by {@link #cleanup()} anyway. */
+    public void setCanMovePathBefore(boolean canMovePathBefore) {
+        this.canMovePathBefore = canMovePathBefore;
+    }
+
     public Path getFinalPath() {
         return this.finalPath;
     }
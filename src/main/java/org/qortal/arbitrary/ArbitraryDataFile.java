@@ -3,6 +3,7 @@ package org.qortal.arbitrary;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.arbitrary.metadata.ArbitraryDataTransactionMetadata;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
 import org.qortal.crypto.Crypto;
 import org.qortal.data.transaction.ArbitraryTransactionData;
 import org.qortal.repository.DataException;
@@ -121,6 +122,10 @@ public class ArbitraryDataFile {
             this.delete();
             throw new DataException(String.format("Unable to write data with hash %s: %s", this.hash58, e.getMessage()));
         }
+
+        if (!this.useTemporaryFile) {
+            ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(outputFilePath);
+        }
     }
 
     public static ArbitraryDataFile fromHash58(String hash58, byte[] signature) throws DataException {
@@ -189,6 +194,7 @@ public class ArbitraryDataFile {
                     // Wrong path, so relocate (but don't cleanup, as the source folder may still be needed by the caller)
                     Path dest = arbitraryDataFile.getFilePath();
                     FilesystemUtils.moveFile(path, dest, false);
+                    ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(dest);
                 }
                 return arbitraryDataFile;
 
@@ -211,7 +217,9 @@ public class ArbitraryDataFile {
         sourcePath = sourcePath.toAbsolutePath();
         Path destPath = outputFilePath.toAbsolutePath();
         try {
-            return Files.copy(sourcePath, destPath, StandardCopyOption.REPLACE_EXISTING);
+            Path copiedPath = Files.copy(sourcePath, destPath, StandardCopyOption.REPLACE_EXISTING);
+            ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(copiedPath);
+            return copiedPath;
         } catch (IOException e) {
             throw new DataException(String.format("Unable to copy file %s to data directory %s", sourcePath, destPath));
         }
@@ -284,7 +292,7 @@ public class ArbitraryDataFile {
         }
     }
 
-    private void addChunk(ArbitraryDataFileChunk chunk) {
+    protected void addChunk(ArbitraryDataFileChunk chunk) {
         this.chunks.add(chunk);
     }
 
@@ -398,6 +406,48 @@ public class ArbitraryDataFile {
         return false;
     }
 
+    /**
+     * Returns stream of complete file's data, read from the complete file if it exists, otherwise from its chunks in order.
+     * <p>
+     * Unlike {@link #join()}, no joined copy of the complete file is written to disk.
+     *
+     * @return stream, or null if neither the complete file nor all its chunks exist
+     */
+    public InputStream openInputStream() throws IOException {
+        if (this.exists()) {
+            return new BufferedInputStream(new FileInputStream(this.filePath.toFile()), 65536);
+        }
+
+        if (this.chunks == null || this.chunks.isEmpty()) {
+            return null;
+        }
+        for (ArbitraryDataFileChunk chunk : this.chunks) {
+            if (!chunk.exists()) {
+                return null;
+            }
+        }
+
+        // Open each chunk only when needed
+        final Iterator<ArbitraryDataFileChunk> iterator = new ArrayList<>(this.chunks).iterator();
+        Enumeration<InputStream> chunkInputStreams = new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                try {
+                    return new FileInputStream(iterator.next().filePath.toFile());
+                } catch (FileNotFoundException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return new BufferedInputStream(new SequenceInputStream(chunkInputStreams), 65536);
+    }
+
     public boolean delete() {
         // Delete the complete file
         // ... but only if it's inside the Qortal data or temp directory
@@ -405,6 +455,7 @@ public class ArbitraryDataFile {
             if (Files.exists(this.filePath)) {
                 try {
                     Files.delete(this.filePath);
+                    ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileDeleted(this.filePath);
                     this.cleanupFilesystem();
                     LOGGER.debug("Deleted file {}", this.filePath);
                     return true;
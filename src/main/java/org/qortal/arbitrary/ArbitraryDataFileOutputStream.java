@@ -0,0 +1,211 @@
+package org.qortal.arbitrary;
+
+import org.qortal.arbitrary.ArbitraryDataFile.ValidationResult;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
+import org.qortal.repository.DataException;
+import org.qortal.utils.Base58;
+import org.qortal.utils.FilesystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes data straight into an {@link ArbitraryDataFile} and its chunks, in a single pass.
+ * <p>
+ * The complete file is written to <tt>filePath</tt> while it is being hashed. Each chunk is hashed as it is written,
+ * then saved to the data directory, so the complete file doesn't need to be re-read to split it afterwards.
+ * <p>
+ * Once closed, the complete file is moved into the data directory and is available via {@link #getArbitraryDataFile()}.
+ * As with {@link ArbitraryDataFile#split(int)}, data no larger than <tt>chunkSize</tt> isn't split into chunks.
+ * <p>
+ * If writing fails, callers must call {@link #abort()} instead of closing, so that partial output is discarded.
+ */
+public class ArbitraryDataFileOutputStream extends OutputStream {
+
+    private final Path filePath;
+    private final byte[] signature;
+
+    private final OutputStream fileOutputStream;
+    private final MessageDigest fileDigest;
+    private final MessageDigest chunkDigest;
+
+    private final byte[] chunkBuffer;
+    private int chunkLength = 0;
+    private final List<ArbitraryDataFileChunk> chunks = new ArrayList<>();
+
+    private boolean closed = false;
+    private boolean aborted = false;
+    private ArbitraryDataFile arbitraryDataFile;
+
+    public ArbitraryDataFileOutputStream(Path filePath, int chunkSize, byte[] signature) throws IOException {
+        this.filePath = filePath;
+        this.signature = signature;
+
+        try {
+            this.fileDigest = MessageDigest.getInstance("SHA-256");
+            this.chunkDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 message digest not available");
+        }
+
+        this.chunkBuffer = new byte[chunkSize];
+        this.fileOutputStream = new BufferedOutputStream(new FileOutputStream(filePath.toFile()));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+
+        this.fileOutputStream.write(b, off, len);
+        this.fileDigest.update(b, off, len);
+
+        while (len > 0) {
+            // Only save a full chunk once we know more data follows, as data that fits in one chunk isn't split
+            if (this.chunkLength == this.chunkBuffer.length) {
+                this.saveChunk();
+            }
+
+            int length = Math.min(len, this.chunkBuffer.length - this.chunkLength);
+            System.arraycopy(b, off, this.chunkBuffer, this.chunkLength, length);
+            this.chunkDigest.update(b, off, length);
+
+            this.chunkLength += length;
+            off += length;
+            len -= length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.fileOutputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            this.fileOutputStream.close();
+
+            // Save final chunk, unless everything fitted into a single chunk
+            if (!this.chunks.isEmpty() && this.chunkLength > 0) {
+                this.saveChunk();
+            }
+
+            ArbitraryDataFile arbitraryDataFile = ArbitraryDataFile.fromHash(this.fileDigest.digest(), this.signature);
+
+            // Move complete file into the data directory
+            Path outputFilePath = ArbitraryDataFile.getOutputFilePath(arbitraryDataFile.getHash58(), this.signature, true);
+            FilesystemUtils.moveFile(this.filePath, outputFilePath, false);
+            ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(outputFilePath);
+
+            for (ArbitraryDataFileChunk chunk : this.chunks) {
+                arbitraryDataFile.addChunk(chunk);
+            }
+
+            this.arbitraryDataFile = arbitraryDataFile;
+
+        } catch (DataException | IOException e) {
+            this.discard();
+            throw new IOException(String.format("Unable to save file %s: %s", this.filePath, e.getMessage()));
+        }
+    }
+
+    /**
+     * Discards everything written so far: the partial complete file and any chunks already saved.
+     * <p>
+     * The complete file isn't moved into the data directory. Further writes fail and closing does nothing.
+     * If the stream was already closed successfully, the resulting file and its chunks are deleted.
+     */
+    public void abort() {
+        if (this.aborted) {
+            return;
+        }
+
+        if (!this.closed) {
+            this.closed = true;
+
+            try {
+                this.fileOutputStream.close();
+            } catch (IOException e) {
+                // Deleting the file below is all that matters
+            }
+        }
+
+        this.discard();
+    }
+
+    private void discard() {
+        this.aborted = true;
+
+        try {
+            Files.deleteIfExists(this.filePath);
+        } catch (IOException e) {
+            // Temp file will be cleaned up along with the rest of the temp directory
+        }
+
+        if (this.arbitraryDataFile != null) {
+            // Deletes chunks too, as they were added to file
+            this.arbitraryDataFile.deleteAll(false);
+            this.arbitraryDataFile = null;
+        } else {
+            for (ArbitraryDataFileChunk chunk : this.chunks) {
+                chunk.delete();
+            }
+        }
+
+        this.chunks.clear();
+    }
+
+    /** Returns file with its chunks, or null if stream hasn't been closed successfully. */
+    public ArbitraryDataFile getArbitraryDataFile() {
+        return this.arbitraryDataFile;
+    }
+
+    /** Returns number of chunks saved so far. */
+    public int getChunkCount() {
+        return this.chunks.size();
+    }
+
+    private void saveChunk() throws IOException {
+        String hash58 = Base58.encode(this.chunkDigest.digest());
+
+        try {
+            Path chunkFilePath = ArbitraryDataFile.getOutputFilePath(hash58, this.signature, true);
+            try (FileOutputStream outputStream = new FileOutputStream(chunkFilePath.toFile())) {
+                outputStream.write(this.chunkBuffer, 0, this.chunkLength);
+            }
+            ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(chunkFilePath);
+
+            ArbitraryDataFileChunk chunk = ArbitraryDataFileChunk.fromHash58(hash58, this.signature);
+            if (chunk.isValid() != ValidationResult.OK) {
+                throw new IOException(String.format("Chunk %s is invalid", chunk));
+            }
+            this.chunks.add(chunk);
+
+        } catch (DataException e) {
+            throw new IOException(String.format("Unable to save chunk %s: %s", hash58, e.getMessage()));
+        }
+
+        this.chunkLength = 0;
+    }
+
+}
@@ -30,6 +30,11 @@ public class ArbitraryDataMerge {
     private String identifier;
     private ArbitraryDataMetadataPatch metadata;
 
+    /** Whether previous state can be moved, rather than copied, into merge path, as caller no longer needs it */
+    private boolean canMovePathBefore = false;
+    /** Where to find previous state's files, i.e. <tt>pathBefore</tt>, or <tt>mergePath</tt> if moved there */
+    private Path previousStatePath;
+
     public ArbitraryDataMerge(Path pathBefore, Path pathAfter) {
         this.pathBefore = pathBefore;
         this.pathAfter = pathAfter;
@@ -74,7 +79,20 @@ public class ArbitraryDataMerge {
     }
 
     private void copyPreviousStateToMergePath() throws IOException {
+        if (this.canMovePathBefore && FilesystemUtils.pathInsideDataOrTempPath(this.pathBefore)) {
+            try {
+                // Rename instead of copying every file
+                Files.move(this.pathBefore, this.mergePath, StandardCopyOption.REPLACE_EXISTING);
+                this.previousStatePath = this.mergePath;
+                return;
+            } catch (IOException e) {
+                // Probably on a different filesystem, so fall back to copying
+                LOGGER.debug("Unable to move {} to {}: {}", this.pathBefore, this.mergePath, e.getMessage());
+            }
+        }
+
         ArbitraryDataMerge.copyDirPathToBaseDir(this.pathBefore, this.mergePath, Paths.get(""));
+        this.previousStatePath = this.pathBefore;
     }
 
     private void loadMetadata() throws IOException, DataException {
@@ -107,7 +125,7 @@ public class ArbitraryDataMerge {
     private void applyPatch(ModifiedPath modifiedPath) throws IOException, DataException {
         if (modifiedPath.getDiffType() == DiffType.UNIFIED_DIFF) {
             // Create destination file from patch
-            UnifiedDiffPatch unifiedDiffPatch = new UnifiedDiffPatch(pathBefore, pathAfter, mergePath);
+            UnifiedDiffPatch unifiedDiffPatch = new UnifiedDiffPatch(this.previousStatePath, pathAfter, mergePath);
             unifiedDiffPatch.apply(modifiedPath.getPath());
         }
         else if (modifiedPath.getDiffType() == DiffType.COMPLETE_FILE) {
@@ -173,6 +191,14 @@ public class ArbitraryDataMerge {
         }
     }
 
+    /**
+     * Allows previous state to be moved into the merge path, instead of being copied, when it is in the data or temp path.
+     * Only set this if <tt>pathBefore</tt> is no longer needed once merged.
+     */
+    public void setCanMovePathBefore(boolean canMovePathBefore) {
+        this.canMovePathBefore = canMovePathBefore;
+    }
+
     public Path getMergePath() {
         return this.mergePath;
     }
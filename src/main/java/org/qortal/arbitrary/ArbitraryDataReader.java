@@ -9,7 +9,6 @@ import org.qortal.arbitrary.exception.MissingDataException;
 import org.qortal.arbitrary.misc.Service;
 import org.qortal.controller.arbitrary.ArbitraryDataBuildManager;
 import org.qortal.controller.arbitrary.ArbitraryDataManager;
-import org.qortal.crypto.AES;
 import org.qortal.data.transaction.ArbitraryTransactionData;
 import org.qortal.data.transaction.ArbitraryTransactionData.Compression;
 import org.qortal.data.transaction.ArbitraryTransactionData.DataType;
@@ -20,18 +19,19 @@ import org.qortal.settings.Settings;
 import org.qortal.transform.Transformer;
 import org.qortal.utils.*;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.File;
-import java.io.IOException;
-import java.io.InvalidObjectException;
+import java.io.*;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collections;
@@ -55,6 +55,10 @@ public class ArbitraryDataReader {
     private final Path workingPath;
     private final Path uncompressedPath;
 
+    // Data file read from chunks, when the complete file isn't available, and its expected hash
+    private ArbitraryDataFile chunkedDataFile;
+    private byte[] expectedDigest;
+
     // Stats (available for synchronous builds only)
     private int layerCount;
     private byte[] latestSignature;
@@ -187,8 +191,7 @@ public class ArbitraryDataReader {
             this.preExecute();
             this.deleteExistingFiles();
             this.fetch();
-            this.decrypt();
-            this.uncompress();
+            this.decryptAndUncompress();
             this.validate();
 
         } catch (DataNotPublishedException e) {
@@ -427,6 +430,16 @@ public class ArbitraryDataReader {
 
         // Data hashes need some extra processing
         if (transactionData.getDataType() == DataType.DATA_HASH) {
+            if (!arbitraryDataFile.exists() && arbitraryDataFile.chunkCount() > 0 && arbitraryDataFile.allChunksExist()) {
+                // We have all the chunks but not the complete file, so read straight from the chunks,
+                // instead of joining them. The complete hash is checked while reading.
+                this.validateChunksSize(arbitraryDataFile, transactionData);
+                this.chunkedDataFile = arbitraryDataFile;
+                this.expectedDigest = transactionData.getData();
+                this.filePath = arbitraryDataFile.getFilePath();
+                return;
+            }
+
             if (arbitraryDataFile.allChunksExist() && !arbitraryDataFile.exists()) {
                 // We have all the chunks but not the complete file, so join them
                 arbitraryDataFile.join();
@@ -451,100 +464,162 @@ public class ArbitraryDataReader {
         this.filePath = arbitraryDataFile.getFilePath();
     }
 
-    private void decrypt() throws DataException {
+    private void validateChunksSize(ArbitraryDataFile arbitraryDataFile, ArbitraryTransactionData transactionData) throws DataException {
+        long size = 0;
         try {
-            // First try with explicit parameters (CBC mode with PKCS5 padding)
-            this.decryptUsingAlgo("AES/CBC/PKCS5Padding");
-
-        } catch (DataException e) {
-            LOGGER.info("Unable to decrypt using specific parameters: {}", e.getMessage());
-            // Something went wrong, so fall back to default AES params (necessary for legacy resource support)
-            this.decryptUsingAlgo("AES");
+            for (ArbitraryDataFileChunk chunk : arbitraryDataFile.getChunks()) {
+                size += Files.size(chunk.getFilePath());
+            }
+        } catch (IOException e) {
+            throw new DataException(String.format("Couldn't get chunks size for transaction %s", Base58.encode(transactionData.getSignature())));
+        }
 
-            // TODO: delete files and block this resource if privateDataEnabled is false and the second attempt fails too
+        // Ensure the chunks' total size matches the size reported by the transaction
+        if (size != transactionData.getSize()) {
+            throw new DataException(String.format("File size mismatch for transaction %s", Base58.encode(transactionData.getSignature())));
         }
     }
 
-    private void decryptUsingAlgo(String algorithm) throws DataException {
+    /**
+     * Decrypts and uncompresses data in a single pass, from the complete file or its chunks straight into
+     * the uncompressed directory, without writing any intermediate files.
+     */
+    private void decryptAndUncompress() throws IOException, DataException {
+        if (this.filePath != null && Files.isDirectory(this.filePath)) {
+            // Already a directory - nothing to decrypt or uncompress
+            // We still need to move the directory to its final destination if it's not already there
+            this.moveFilePathToFinalDestination();
+            return;
+        }
+
         // Decrypt if we have the secret key.
         byte[] secret = this.secret58 != null ? Base58.decode(this.secret58) : null;
-        if (secret != null && secret.length == Transformer.AES256_LENGTH) {
-            try {
-                LOGGER.debug("Decrypting {} using algorithm {}...", this.arbitraryDataResource, algorithm);
-                Path unencryptedPath = Paths.get(this.workingPath.toString(), "zipped.zip");
-                SecretKey aesKey = new SecretKeySpec(secret, 0, secret.length, "AES");
-                AES.decryptFile(algorithm, aesKey, this.filePath.toString(), unencryptedPath.toString());
-                LOGGER.debug("Finished decrypting {} using algorithm {}", this.arbitraryDataResource, algorithm);
-
-                // Replace filePath pointer with the encrypted file path
-                // Don't delete the original ArbitraryDataFile, as this is handled in the cleanup phase
-                this.filePath = unencryptedPath;
-
-            } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | NoSuchPaddingException
-                    | BadPaddingException | IllegalBlockSizeException | IOException | InvalidKeyException e) {
-                LOGGER.info(String.format("Exception when decrypting %s using algorithm %s", this.arbitraryDataResource, algorithm), e);
-                throw new DataException(String.format("Unable to decrypt file at path %s using algorithm %s: %s", this.filePath, algorithm, e.getMessage()));
-            }
-        } else {
+        if (secret == null || secret.length != Transformer.AES256_LENGTH) {
             // Assume it is unencrypted. This will be the case when we have built a custom path by combining
             // multiple decrypted archives into a single state.
+            this.readAndUncompress(null, null);
+            return;
+        }
+
+        try {
+            // First try with explicit parameters (CBC mode with PKCS5 padding)
+            this.readAndUncompress("AES/CBC/PKCS5Padding", secret);
+
+        } catch (HashMismatchException e) {
+            throw e;
+
+        } catch (DataException e) {
+            LOGGER.info("Unable to decrypt using specific parameters: {}", e.getMessage());
+            // Something went wrong, so fall back to default AES params (necessary for legacy resource support)
+            this.deleteExistingFiles();
+            this.readAndUncompress("AES", secret);
+
+            // TODO: delete files and block this resource if privateDataEnabled is false and the second attempt fails too
         }
     }
 
-    private void uncompress() throws IOException, DataException {
-        if (this.filePath == null || !Files.exists(this.filePath)) {
+    private void readAndUncompress(String algorithm, byte[] secret) throws IOException, DataException {
+        InputStream dataInputStream = this.chunkedDataFile != null
+                ? this.chunkedDataFile.openInputStream()
+                : this.openFilePathInputStream();
+        if (dataInputStream == null) {
             throw new DataException("Can't uncompress non-existent file path");
         }
-        File file = new File(this.filePath.toString());
-        if (file.isDirectory()) {
-            // Already a directory - nothing to uncompress
-            // We still need to copy the directory to its final destination if it's not already there
-            this.moveFilePathToFinalDestination();
-            return;
-        }
+
+        MessageDigest digest = null;
+
+        // Extract somewhere else first, only moving into place once the complete hash has been checked,
+        // so that files from unverified data are never left in the uncompressed path
+        Path extractionPath = Paths.get(this.workingPath.toString(), "extracting");
+        Path extractedPath = Paths.get(extractionPath.toString(), this.uncompressedPath.getFileName().toString());
 
         try {
-            // Default to ZIP compression - this is needed for previews
-            Compression compression = transactionData != null ? transactionData.getCompression() : Compression.ZIP;
-
-            // Handle each type of compression
-            if (compression == Compression.ZIP) {
-                LOGGER.debug("Unzipping {}...", this.arbitraryDataResource);
-                ZipUtils.unzip(this.filePath.toString(), this.uncompressedPath.getParent().toString());
-                LOGGER.debug("Finished unzipping {}", this.arbitraryDataResource);
-            }
-            else if (compression == Compression.NONE) {
-                Files.createDirectories(this.uncompressedPath);
-                Path finalPath = Paths.get(this.uncompressedPath.toString(), "data");
-                this.filePath.toFile().renameTo(finalPath.toFile());
-            }
-            else {
-                throw new DataException(String.format("Unrecognized compression type: %s", transactionData.getCompression()));
-            }
-        } catch (IOException e) {
-            throw new DataException(String.format("Unable to unzip file: %s", e.getMessage()));
-        }
+            FileUtils.deleteDirectory(extractionPath.toFile());
 
-        if (!this.uncompressedPath.toFile().exists()) {
-            throw new DataException(String.format("Unable to unzip file: %s", this.filePath));
-        }
+            try (InputStream rawInputStream = dataInputStream) {
+                InputStream inputStream = rawInputStream;
 
-        // Delete original compressed file
-        if (FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
-            if (Files.exists(this.filePath)) {
-                try {
-                    Files.delete(this.filePath);
-                } catch (IOException e) {
-                    // Ignore failures as this isn't an essential step
-                    LOGGER.info("Unable to delete file at path {}", this.filePath);
+                if (this.expectedDigest != null) {
+                    digest = MessageDigest.getInstance("SHA-256");
+                    inputStream = new DigestInputStream(inputStream, digest);
                 }
+
+                if (algorithm != null) {
+                    LOGGER.debug("Decrypting {} using algorithm {}...", this.arbitraryDataResource, algorithm);
+
+                    // Read the initialization vector from the first 16 bytes of the file
+                    byte[] iv = inputStream.readNBytes(16);
+                    Cipher cipher = Cipher.getInstance(algorithm);
+                    SecretKey aesKey = new SecretKeySpec(secret, 0, secret.length, "AES");
+                    cipher.init(Cipher.DECRYPT_MODE, aesKey, new IvParameterSpec(iv));
+
+                    inputStream = new CipherInputStream(inputStream, cipher);
+                }
+
+                this.uncompress(inputStream, extractedPath);
+
+                // Read anything the unzipper didn't need, so that padding is checked and the complete file is hashed
+                inputStream.transferTo(OutputStream.nullOutputStream());
+
+                if (algorithm != null) {
+                    LOGGER.debug("Finished decrypting {} using algorithm {}", this.arbitraryDataResource, algorithm);
+                }
+
+            } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | NoSuchPaddingException
+                    | InvalidKeyException | IOException | UncheckedIOException e) {
+                String message = algorithm != null
+                        ? String.format("Unable to decrypt file at path %s using algorithm %s: %s", this.filePath, algorithm, e.getMessage())
+                        : String.format("Unable to uncompress file at path %s: %s", this.filePath, e.getMessage());
+                throw new DataException(message);
+            }
+
+            // Ensure the complete hash matches the chunks
+            if (digest != null && !Arrays.equals(digest.digest(), this.expectedDigest)) {
+                throw new HashMismatchException("Unable to validate complete file hash");
             }
+
+            if (!extractedPath.toFile().exists()) {
+                throw new DataException(String.format("Unable to unzip file: %s", this.filePath));
+            }
+
+            FileUtils.deleteDirectory(this.uncompressedPath.toFile());
+            Files.move(extractedPath, this.uncompressedPath);
+        } finally {
+            FileUtils.deleteDirectory(extractionPath.toFile());
         }
 
         // Replace filePath pointer with the uncompressed file path
         this.filePath = this.uncompressedPath;
     }
 
+    private InputStream openFilePathInputStream() throws IOException {
+        if (this.filePath == null || !Files.exists(this.filePath)) {
+            return null;
+        }
+        return new BufferedInputStream(Files.newInputStream(this.filePath), 65536);
+    }
+
+    /** Uncompresses into <tt>outputPath</tt>, which takes the place of the uncompressed path. */
+    private void uncompress(InputStream inputStream, Path outputPath) throws IOException, DataException {
+        // Default to ZIP compression - this is needed for previews
+        Compression compression = transactionData != null ? transactionData.getCompression() : Compression.ZIP;
+
+        // Handle each type of compression
+        if (compression == Compression.ZIP) {
+            LOGGER.debug("Unzipping {}...", this.arbitraryDataResource);
+            ZipUtils.unzip(inputStream, outputPath.getParent().toString());
+            LOGGER.debug("Finished unzipping {}", this.arbitraryDataResource);
+        }
+        else if (compression == Compression.NONE) {
+            Files.createDirectories(outputPath);
+            Path finalPath = Paths.get(outputPath.toString(), "data");
+            Files.copy(inputStream, finalPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        else {
+            throw new DataException(String.format("Unrecognized compression type: %s", transactionData.getCompression()));
+        }
+    }
+
     private void validate() throws IOException, DataException {
         if (this.service.isValidationRequired()) {
             LOGGER.debug("Validating {}...", this.arbitraryDataResource);
@@ -566,12 +641,27 @@ public class ArbitraryDataReader {
             }
             // Ensure destination directory doesn't exist
             FileUtils.deleteDirectory(dest);
-            // Move files to destination
-            FilesystemUtils.copyAndReplaceDirectory(source.toString(), dest.toString());
+
+            // Rename built directory into place if we can, as it would be deleted after copying anyway
+            boolean moved = false;
+            if (FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
+                try {
+                    Files.move(this.filePath, this.uncompressedPath);
+                    moved = true;
+                } catch (IOException e) {
+                    // Probably on a different filesystem, so fall back to copying
+                    LOGGER.debug("Unable to move {} to {}: {}", this.filePath, this.uncompressedPath, e.getMessage());
+                }
+            }
+
+            if (!moved) {
+                // Move files to destination
+                FilesystemUtils.copyAndReplaceDirectory(source.toString(), dest.toString());
+            }
 
             try {
                 // Delete existing
-                if (FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
+                if (!moved && FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
                     File directory = new File(this.filePath.toString());
                     FileUtils.deleteDirectory(directory);
                 }
@@ -595,6 +685,16 @@ public class ArbitraryDataReader {
     }
 
 
+    /** Complete file's data didn't match its expected hash, so there's no point trying to decrypt it another way */
+    private static class HashMismatchException extends DataException {
+        private static final long serialVersionUID = 1L;
+
+        public HashMismatchException(String message) {
+            super(message);
+        }
+    }
+
+
     public void setTransactionData(ArbitraryTransactionData transactionData) {
         this.transactionData = transactionData;
     }
@@ -7,6 +7,8 @@ import org.qortal.arbitrary.exception.DataNotPublishedException;
 import org.qortal.arbitrary.metadata.ArbitraryDataTransactionMetadata;
 import org.qortal.arbitrary.misc.Service;
 import org.qortal.controller.arbitrary.ArbitraryDataBuildManager;
+import org.qortal.controller.arbitrary.ArbitraryDataFileManager;
+import org.qortal.controller.arbitrary.ArbitraryDataFileSwarm;
 import org.qortal.controller.arbitrary.ArbitraryDataManager;
 import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
 import org.qortal.data.arbitrary.ArbitraryResourceData;
@@ -125,7 +127,9 @@ public class ArbitraryDataResource {
         // Check if we have all data locally for this resource
         if (!this.allFilesDownloaded(repository)) {
             if (this.isDownloading(repository)) {
-                return new ArbitraryResourceStatus(Status.DOWNLOADING, this.localChunkCount, this.totalChunkCount);
+                ArbitraryResourceStatus downloadingStatus = new ArbitraryResourceStatus(Status.DOWNLOADING, this.localChunkCount, this.totalChunkCount);
+                this.addDownloadStats(downloadingStatus);
+                return downloadingStatus;
             }
             else if (this.isDataPotentiallyAvailable(repository)) {
                 return new ArbitraryResourceStatus(Status.PUBLISHED, this.localChunkCount, this.totalChunkCount);
@@ -361,10 +365,12 @@ public class ArbitraryDataResource {
                 if (lastRequestTime > 0 && now - lastRequestTime < 30 * 1000L) {
                     return true;
                 }
-            }
 
-            // FUTURE: we may want to check for file hashes (including the metadata file hash) in
-            // ArbitraryDataManager.arbitraryDataFileRequests and return true if one is found.
+                // Also treat it as "downloading" if there are peers offering us chunks
+                if (ArbitraryDataFileManager.getInstance().isDownloading(transactionData.getSignature())) {
+                    return true;
+                }
+            }
 
             return false;
 
@@ -373,6 +379,29 @@ public class ArbitraryDataResource {
         }
     }
 
+    /**
+     * Add combined download throughput, across all of this resource's transactions, to passed status
+     */
+    private void addDownloadStats(ArbitraryResourceStatus status) {
+        Long now = NTP.getTime();
+        if (now == null || this.transactions == null) {
+            return;
+        }
+
+        long downloadRate = 0;
+        int downloadPeerCount = 0;
+
+        for (ArbitraryTransactionData transactionData : new ArrayList<>(this.transactions)) {
+            ArbitraryDataFileSwarm swarm = ArbitraryDataFileManager.getInstance().getSwarm(transactionData.getSignature());
+            if (swarm != null) {
+                downloadRate += swarm.getBytesPerSecond(now);
+                downloadPeerCount = Math.max(downloadPeerCount, swarm.getPeerCount());
+            }
+        }
+
+        status.setDownloadStats(downloadRate, downloadPeerCount);
+    }
+
 
     /**
      * Fetch relevant arbitrary transactions for resource
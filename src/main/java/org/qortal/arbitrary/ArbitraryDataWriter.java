@@ -20,12 +20,12 @@ import org.qortal.utils.Base58;
 import org.qortal.utils.FilesystemUtils;
 import org.qortal.utils.ZipUtils;
 
-import javax.crypto.BadPaddingException;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.FileNameMap;
 import java.net.URLConnection;
 import java.nio.file.Files;
@@ -36,14 +36,21 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipOutputStream;
 
 public class ArbitraryDataWriter {
 
     private static final Logger LOGGER = LogManager.getLogger(ArbitraryDataWriter.class);
 
+    /** Writers currently saving, keyed by resource, so that progress can be reported */
+    private static final Map<String, ArbitraryDataWriter> IN_PROGRESS = new ConcurrentHashMap<>();
+
     private Path filePath;
     private final String name;
     private final Service service;
@@ -66,9 +73,12 @@ public class ArbitraryDataWriter {
 
     // Intermediate paths to cleanup
     private Path workingPath;
-    private Path compressedPath;
     private Path encryptedPath;
 
+    // Progress, in bytes of input data
+    private volatile long totalBytes = 0;
+    private final AtomicLong bytesProcessed = new AtomicLong();
+
     public ArbitraryDataWriter(Path filePath, String name, Service service, String identifier, Method method, Compression compression,
                                String title, String description, List<String> tags, Category category) {
         this.filePath = filePath;
@@ -93,18 +103,24 @@ public class ArbitraryDataWriter {
     }
 
     public void save() throws IOException, DataException, InterruptedException, MissingDataException {
+        String progressKey = this.getProgressKey();
+        if (progressKey != null) {
+            IN_PROGRESS.put(progressKey, this);
+        }
+
         try {
             this.preExecute();
             this.validateService();
             this.buildFileList();
             this.process();
-            this.compress();
-            this.encrypt();
-            this.split();
+            this.compressEncryptAndSplit();
             this.createMetadataFile();
             this.validate();
 
         } finally {
+            if (progressKey != null) {
+                IN_PROGRESS.remove(progressKey, this);
+            }
             this.postExecute();
         }
     }
@@ -259,67 +275,79 @@ public class ArbitraryDataWriter {
         }
     }
 
-    private void compress() throws InterruptedException, DataException {
-        // Compress the data if requested
-        if (this.compression != Compression.NONE) {
-            this.compressedPath = Paths.get(this.workingPath.toString(), "data.zip");
-            try {
+    private void compressEncryptAndSplit() throws InterruptedException, DataException {
+        // Compress (if requested), encrypt, and split into chunks, in a single pass without intermediate files
+        this.encryptedPath = Paths.get(this.workingPath.toString(), "data.zip.encrypted");
+        this.totalBytes = FileUtils.sizeOf(this.filePath.toFile());
 
-                if (this.compression == Compression.ZIP) {
-                    LOGGER.info("Compressing...");
-                    String enclosingFolderName = "data";
-                    ZipUtils.zip(this.filePath.toString(), this.compressedPath.toString(), enclosingFolderName);
-                }
-                else {
-                    throw new DataException(String.format("Unknown compression type specified: %s", compression.toString()));
-                }
-                // FUTURE: other compression types
+        try {
+            LOGGER.info("Compressing, encrypting and splitting...");
+            this.aesKey = AES.generateKey(256);
+
+            // We don't have a signature yet, so use null to put the file in a generic folder
+            ArbitraryDataFileOutputStream dataFileOutputStream = new ArbitraryDataFileOutputStream(this.encryptedPath, this.chunkSize, null);
 
-                // Delete the input directory
-                if (FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
-                    File directory = new File(this.filePath.toString());
-                    FileUtils.deleteDirectory(directory);
+            try {
+                OutputStream encryptedOutputStream = AES.encryptingOutputStream("AES/CBC/PKCS5Padding", this.aesKey, AES.generateIv(), dataFileOutputStream);
+
+                switch (this.compression) {
+                    case ZIP:
+                        // Count uncompressed bytes, so progress can be compared with total size of input files
+                        ZipOutputStream zipOutputStream = new ZipOutputStream(encryptedOutputStream) {
+                            @Override
+                            public synchronized void write(byte[] b, int off, int len) throws IOException {
+                                super.write(b, off, len);
+                                ArbitraryDataWriter.this.bytesProcessed.addAndGet(len);
+                            }
+                        };
+                        String enclosingFolderName = "data";
+                        boolean isSingleFile = this.filePath.toFile().isFile();
+                        ZipUtils.zip(this.filePath.toFile(), enclosingFolderName, zipOutputStream, isSingleFile);
+                        zipOutputStream.finish();
+                        break;
+
+                    case NONE:
+                        try (InputStream inputStream = Files.newInputStream(this.filePath)) {
+                            byte[] buffer = new byte[65536];
+                            int bytesRead;
+                            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                                encryptedOutputStream.write(buffer, 0, bytesRead);
+                                this.bytesProcessed.addAndGet(bytesRead);
+                            }
+                        }
+                        break;
+
+                    // FUTURE: other compression types
+                    default:
+                        throw new DataException(String.format("Unknown compression type specified: %s", compression.toString()));
                 }
-                // Replace filePath pointer with the zipped file path
-                this.filePath = this.compressedPath;
 
-            } catch (IOException | DataException e) {
-                throw new DataException("Unable to zip directory", e);
+                // Writes final cipher block, then moves complete file into the data directory
+                encryptedOutputStream.close();
+            } catch (Exception e) {
+                // Don't leave partial output behind, or count it as stored data
+                dataFileOutputStream.abort();
+                throw e;
             }
-        }
-    }
 
-    private void encrypt() throws DataException {
-        this.encryptedPath = Paths.get(this.workingPath.toString(), "data.zip.encrypted");
-        try {
-            // Encrypt the file with AES
-            LOGGER.info("Encrypting...");
-            this.aesKey = AES.generateKey(256);
-            AES.encryptFile("AES/CBC/PKCS5Padding", this.aesKey, this.filePath.toString(), this.encryptedPath.toString());
+            this.arbitraryDataFile = dataFileOutputStream.getArbitraryDataFile();
+            if (this.arbitraryDataFile == null) {
+                throw new IOException("No file available after splitting");
+            }
+
+            int chunkCount = this.arbitraryDataFile.chunkCount();
+            if (chunkCount > 0) {
+                LOGGER.info(String.format("Successfully split into %d chunk%s", chunkCount, (chunkCount == 1 ? "" : "s")));
+            }
 
-            // Delete the input file
+            // Delete the input file or directory
             if (FilesystemUtils.pathInsideDataOrTempPath(this.filePath)) {
-                Files.delete(this.filePath);
+                FileUtils.forceDelete(this.filePath.toFile());
             }
-            // Replace filePath pointer with the encrypted file path
-            this.filePath = this.encryptedPath;
 
         } catch (NoSuchAlgorithmException | InvalidAlgorithmParameterException | NoSuchPaddingException
-                | BadPaddingException | IllegalBlockSizeException | IOException | InvalidKeyException e) {
-            throw new DataException(String.format("Unable to encrypt file %s: %s", this.filePath, e.getMessage()));
-        }
-    }
-
-    private void split() throws IOException, DataException {
-        // We don't have a signature yet, so use null to put the file in a generic folder
-        this.arbitraryDataFile = ArbitraryDataFile.fromPath(this.filePath, null);
-        if (this.arbitraryDataFile == null) {
-            throw new IOException("No file available when trying to split");
-        }
-
-        int chunkCount = this.arbitraryDataFile.split(this.chunkSize);
-        if (chunkCount > 0) {
-            LOGGER.info(String.format("Successfully split into %d chunk%s", chunkCount, (chunkCount == 1 ? "" : "s")));
+                | IOException | InvalidKeyException e) {
+            throw new DataException(String.format("Unable to compress and encrypt %s: %s", this.filePath, e.getMessage()));
         }
     }
 
@@ -400,12 +428,6 @@ public class ArbitraryDataWriter {
 
     private void cleanupFilesystem() throws IOException {
         // Clean up
-        if (FilesystemUtils.pathInsideDataOrTempPath(this.compressedPath)) {
-            File zippedFile = new File(this.compressedPath.toString());
-            if (zippedFile.exists()) {
-                zippedFile.delete();
-            }
-        }
         if (FilesystemUtils.pathInsideDataOrTempPath(this.encryptedPath)) {
             File encryptedFile = new File(this.encryptedPath.toString());
             if (encryptedFile.exists()) {
@@ -425,6 +447,46 @@ public class ArbitraryDataWriter {
     }
 
 
+    /** Returns writer currently saving resource, or null if none. */
+    public static ArbitraryDataWriter getInProgress(Service service, String name, String identifier) {
+        return IN_PROGRESS.get(getProgressKey(service, name, identifier));
+    }
+
+    private String getProgressKey() {
+        if (this.name == null) {
+            // Previews aren't associated with a resource
+            return null;
+        }
+        return getProgressKey(this.service, this.name, this.identifier);
+    }
+
+    private static String getProgressKey(Service service, String name, String identifier) {
+        // Same as ArbitraryDataResource's unique key
+        if (identifier == null || identifier.equals("") || identifier.equals("default")) {
+            identifier = null;
+        }
+        return String.format("%s-%s-%s", service, name, identifier).toLowerCase();
+    }
+
+    /** Returns total size, in bytes, of input data, or 0 if not yet known. */
+    public long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /** Returns number of bytes of input data compressed, encrypted and split so far. */
+    public long getBytesProcessed() {
+        return this.bytesProcessed.get();
+    }
+
+    /** Returns percentage of input data compressed, encrypted and split so far. */
+    public int getPercentComplete() {
+        long totalBytes = this.totalBytes;
+        if (totalBytes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100L, this.bytesProcessed.get() * 100L / totalBytes);
+    }
+
     public ArbitraryDataFile getArbitraryDataFile() {
         return this.arbitraryDataFile;
     }
@@ -3,6 +3,7 @@ package org.qortal.arbitrary.metadata;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.JSONException;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
 import org.qortal.repository.DataException;
 
 import java.io.BufferedWriter;
@@ -63,10 +64,13 @@ public class ArbitraryDataMetadata {
         writer.write(this.jsonString);
         writer.newLine();
         writer.close();
+
+        ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(this.filePath);
     }
 
     public void delete() throws IOException {
         Files.delete(this.filePath);
+        ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileDeleted(this.filePath);
     }
 
 
@@ -2,6 +2,7 @@ package org.qortal.arbitrary.metadata;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
 import org.qortal.repository.DataException;
 
 import java.io.BufferedWriter;
@@ -59,6 +60,8 @@ public class ArbitraryDataQortalMetadata extends ArbitraryDataMetadata {
         writer.write(this.jsonString);
         writer.newLine();
         writer.close();
+
+        ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(patchPath);
     }
 
     @Override
@@ -0,0 +1,93 @@
+package org.qortal.at;
+
+import org.qortal.data.at.ATData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.utils.ByteArray;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which ATs are due to run in a new block, loading only those.
+ * <p>
+ * ATs sleeping until a later height are skipped by the repository without fetching their code.
+ * ATs sleeping until a message (or height) are checked using {@link QortalATAPI#willExecute(int)}
+ * before their code is fetched.
+ * <p>
+ * Code bytes are cached by code hash, as many ATs, e.g. trade ATs, share the same code.
+ */
+public class ATScheduler {
+
+	// Number of distinct AT programs, not number of ATs
+	private static final int MAX_CACHE_ENTRIES = 200;
+
+	@SuppressWarnings("serial")
+	private static final Map<ByteArray, byte[]> CODE_BYTES_CACHE = new LinkedHashMap<>(MAX_CACHE_ENTRIES + 1, 0.75F, true) {
+		// This method is called just after a new entry has been added
+		@Override
+		public boolean removeEldestEntry(Map.Entry<ByteArray, byte[]> eldest) {
+			return size() > MAX_CACHE_ENTRIES;
+		}
+	};
+
+	private ATScheduler() {
+	}
+
+	/**
+	 * Returns ATs that will execute in block at <tt>blockHeight</tt>, ordered by earliest creation first.
+	 * <p>
+	 * Skipped ATs are exactly those that {@link AT#run(int, long)} would not have executed.
+	 * Returned ATData include code bytes.
+	 */
+	public static List<ATData> getDueATs(Repository repository, int blockHeight, long blockTimestamp) throws DataException {
+		// CIYAM sleep-until-height checks use current blockchain height, not new block's height
+		int blockchainHeight = repository.getBlockRepository().getBlockchainHeight();
+
+		List<ATData> awakeATs = repository.getATRepository().getAllExecutableATsAwakeAt(blockchainHeight);
+		List<ATData> dueATs = new ArrayList<>(awakeATs.size());
+
+		for (ATData atData : awakeATs) {
+			if (atData.getSleepUntilMessageTimestamp() != null) {
+				QortalATAPI api = new QortalATAPI(repository, atData, blockTimestamp);
+
+				if (!api.willExecute(blockHeight))
+					continue;
+			}
+
+			byte[] codeBytes = getCodeBytes(repository, atData.getCodeHash());
+			if (codeBytes == null)
+				throw new DataException(String.format("Missing code for AT %s", atData.getATAddress()));
+
+			dueATs.add(new ATData(atData.getATAddress(), atData.getCreatorPublicKey(), atData.getCreation(), atData.getVersion(),
+					atData.getAssetId(), codeBytes, atData.getCodeHash(), atData.getIsSleeping(), atData.getSleepUntilHeight(),
+					atData.getIsFinished(), atData.getHadFatalError(), atData.getIsFrozen(), atData.getFrozenBalance(),
+					atData.getSleepUntilMessageTimestamp()));
+		}
+
+		return dueATs;
+	}
+
+	private static byte[] getCodeBytes(Repository repository, byte[] codeHash) throws DataException {
+		ByteArray key = ByteArray.wrap(codeHash);
+
+		synchronized (CODE_BYTES_CACHE) {
+			byte[] codeBytes = CODE_BYTES_CACHE.get(key);
+			if (codeBytes != null)
+				return codeBytes;
+		}
+
+		byte[] codeBytes = repository.getATRepository().getCodeBytes(codeHash);
+		if (codeBytes == null)
+			return null;
+
+		synchronized (CODE_BYTES_CACHE) {
+			CODE_BYTES_CACHE.put(key, codeBytes);
+		}
+
+		return codeBytes;
+	}
+
+}
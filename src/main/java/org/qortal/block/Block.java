@@ -12,11 +12,14 @@ import org.qortal.account.PrivateKeyAccount;
 import org.qortal.account.PublicKeyAccount;
 import org.qortal.asset.Asset;
 import org.qortal.at.AT;
+import org.qortal.at.ATScheduler;
 import org.qortal.block.BlockChain.AccountLevelShareBin;
 import org.qortal.block.BlockChain.BlockTimingByHeight;
 import org.qortal.controller.OnlineAccountsManager;
+import org.qortal.crypto.AggregatePublicKeyCache;
 import org.qortal.crypto.Crypto;
 import org.qortal.crypto.Qortal25519Extras;
+import org.qortal.crypto.SignatureVerification;
 import org.qortal.data.account.*;
 import org.qortal.data.at.ATData;
 import org.qortal.data.at.ATStateData;
@@ -128,6 +131,14 @@ public class Block {
 	/** Cached online accounts validation decision, to avoid revalidating when true */
 	private boolean onlineAccountsAlreadyValid = false;
 
+	/** Whether areTransactionsValid() can keep, instead of rolling back, its test-processed transactions. Set by validateAndProcess(). */
+	private boolean keepValidatedTransactions = false;
+	/** Whether block's transactions were processed, and kept, during validation, so process() mustn't process them again. */
+	private boolean transactionsProcessedDuringValidation = false;
+
+	/** Cached result of verifying minter signature. Use <tt>isMinterSignatureValid()</tt> to access. */
+	private volatile SignatureVerification minterSignatureVerification = null;
+
 	@FunctionalInterface
 	private interface BlockRewardDistributor {
 		long distribute(long amount, Map<String, Long> balanceChanges) throws DataException;
@@ -1015,7 +1026,7 @@ public class Block {
 	public boolean isSignatureValid() {
 		try {
 			// Check minter's signature first
-			if (!this.minter.verify(this.blockData.getMinterSignature(), BlockTransformer.getBytesForMinterSignature(this.blockData)))
+			if (!this.isMinterSignatureValid())
 				return false;
 
 			// Check transactions signature
@@ -1028,6 +1039,30 @@ public class Block {
 		return true;
 	}
 
+	/**
+	 * Returns whether block's minter signature is valid, caching result.
+	 * <p>
+	 * Safe to call ahead of time, e.g. from another thread while block's transactions signatures are also being verified.
+	 */
+	public boolean isMinterSignatureValid() {
+		byte[] minterSignature = this.blockData.getMinterSignature();
+		if (minterSignature == null)
+			return false;
+
+		byte[] bytesForMinterSignature = BlockTransformer.getBytesForMinterSignature(this.blockData);
+
+		// Only reuse result if neither signature nor signed bytes have changed since
+		SignatureVerification verification = this.minterSignatureVerification;
+		if (verification != null && verification.isFor(minterSignature, bytesForMinterSignature))
+			return verification.isValid();
+
+		boolean isValid = this.minter.verify(minterSignature, bytesForMinterSignature);
+
+		this.minterSignatureVerification = new SignatureVerification(minterSignature, bytesForMinterSignature, isValid);
+
+		return isValid;
+	}
+
 	/**
 	 * Returns whether Block's timestamp is valid.
 	 * <p>
@@ -1183,12 +1218,14 @@ public class Block {
 		// Extract online accounts' timestamp signatures from block data. Only one signature if aggregated.
 		List<byte[]> onlineAccountsSignatures = BlockTransformer.decodeTimestampSignatures(encodedOnlineAccountSignatures);
 
-		// Aggregate all public keys
+		// Aggregate all public keys, mostly reusing previous block's aggregate
 		Collection<byte[]> publicKeys = onlineRewardShares.stream()
 				.map(RewardShareData::getRewardSharePublicKey)
 				.collect(Collectors.toList());
 
-		byte[] aggregatePublicKey = Qortal25519Extras.aggregatePublicKeys(publicKeys);
+		byte[] aggregatePublicKey = AggregatePublicKeyCache.getInstance().aggregate(publicKeys);
+		if (aggregatePublicKey == null)
+			return ValidationResult.ONLINE_ACCOUNT_SIGNATURE_INCORRECT;
 
 		byte[] aggregateSignature = onlineAccountsSignatures.get(0);
 
@@ -1270,8 +1307,77 @@ public class Block {
 		// Block is valid
     }
 
-	/** Returns whether block's transactions are valid. */
+	/**
+	 * Validates block and, if valid, saves block's transactions and processes block.
+	 * <p>
+	 * Equivalent to {@link #isValid()}, saving transactions, then {@link #process()},
+	 * except that, where possible, transactions test-processed during validation are kept,
+	 * instead of being rolled back and then processed all over again.
+	 * <p>
+	 * Intended for blocks received from peers during synchronization.
+	 * BlockMinter still uses isValid() then process(), as it validates blocks it might not process.
+	 *
+	 * @return ValidationResult.OK if block was valid and has been processed, or some other ValidationResult otherwise.
+	 * @throws DataException
+	 */
+	public ValidationResult validateAndProcess() throws DataException {
+		this.keepValidatedTransactions = this.canKeepValidatedTransactions();
+
+		try {
+			ValidationResult validationResult = this.isValid();
+			if (validationResult != ValidationResult.OK)
+				return validationResult;
+
+			// Save transactions attached to this block
+			for (Transaction transaction : this.getTransactions())
+				this.repository.getTransactionRepository().save(transaction.getTransactionData());
+
+			this.process();
+
+			return ValidationResult.OK;
+		} finally {
+			this.keepValidatedTransactions = false;
+			this.transactionsProcessedDuringValidation = false;
+		}
+	}
+
+	/**
+	 * Returns whether transactions test-processed during validation can be kept as-is by process().
+	 * <p>
+	 * Not possible if process() would change repository state <i>before</i> processing transactions,
+	 * e.g. block rewards and account levels on reward-distribution blocks, or one-off fixes/penalties at specific heights.
+	 * AT transactions also need processing in-order by process(), so are checked in areTransactionsValid().
+	 */
+	private boolean canKeepValidatedTransactions() throws DataException {
+		final int height = this.blockData.getHeight();
+		if (height <= 1)
+			return false;
+
+		// process() uses next blockchain height, so that's what validation needs to have used too
+		if (height != this.repository.getBlockRepository().getBlockchainHeight() + 1)
+			return false;
+
+		if (this.isRewardDistributionBlock())
+			return false;
+
+		BlockChain blockChain = BlockChain.getInstance();
+		return height != 212937
+				&& !InvalidNameRegistrationBlocks.isAffectedBlock(height)
+				&& height != blockChain.getSelfSponsorshipAlgoV1Height()
+				&& height != blockChain.getSelfSponsorshipAlgoV2Height()
+				&& height != blockChain.getSelfSponsorshipAlgoV3Height();
+	}
+
+	/**
+	 * Returns whether block's transactions are valid.
+	 * <p>
+	 * If called via validateAndProcess(), and block has no AT transactions,
+	 * then valid transactions' test-processing is kept, ready for process().
+	 */
 	private ValidationResult areTransactionsValid() throws DataException {
+		boolean keepTransactions = this.keepValidatedTransactions
+				&& this.getTransactions().stream().noneMatch(transaction -> transaction.getTransactionData().getType() == TransactionType.AT);
+
 		// We're about to (test-)process a batch of transactions,
 		// so create an account reference cache so get/set correct last-references.
 		try (AccountRefCache accountRefCache = new AccountRefCache(repository)) {
@@ -1352,13 +1458,22 @@ public class Block {
 					return ValidationResult.TRANSACTION_PROCESSING_FAILED;
 				}
 			}
+
+			if (keepTransactions) {
+				// All transactions valid, so commit new accounts' last-reference changes for process() to build upon
+				accountRefCache.commit();
+				this.transactionsProcessedDuringValidation = true;
+			}
 		} catch (DataException e) {
 			LOGGER.info("DataException during transaction validation", e);
 			return ValidationResult.TRANSACTION_INVALID;
 		} finally {
-			// Rollback repository changes made by test-processing transactions above
+			// Rollback repository changes made by test-processing transactions above, unless we're keeping them
 			try {
-				this.repository.rollbackToSavepoint();
+				if (this.transactionsProcessedDuringValidation)
+					this.repository.releaseSavepoint();
+				else
+					this.repository.rollbackToSavepoint();
 			} catch (DataException e) {
 				/*
 				 * Rollback failure most likely due to prior DataException, so discard this DataException. Prior DataException propagates to caller.
@@ -1467,8 +1582,8 @@ public class Block {
 		this.ourAtStates = new ArrayList<>();
 		this.ourAtFees = 0;
 
-		// Find all executable ATs, ordered by earliest creation date first
-		List<ATData> executableATs = this.repository.getATRepository().getAllExecutableATs();
+		// Find executable ATs that are due to run, ordered by earliest creation date first
+		List<ATData> executableATs = ATScheduler.getDueATs(this.repository, this.blockData.getHeight(), this.blockData.getTimestamp());
 
 		// Run each AT, appends AT-Transactions and corresponding AT states, to our lists
 		for (ATData atData : executableATs) {
@@ -1569,7 +1684,9 @@ public class Block {
 		// so create an account reference cache so get/set correct last-references.
 		try (AccountRefCache accountRefCache = new AccountRefCache(this.repository)) {
 			// Process transactions (we'll link them to this block after saving the block itself)
-			processTransactions();
+			// unless already processed, and kept, during validation
+			if (!this.transactionsProcessedDuringValidation)
+				processTransactions();
 
 			// Group-approval transactions
 			processGroupApprovalTransactions();
@@ -0,0 +1,213 @@
+package org.qortal.controller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qortal.block.Block;
+import org.qortal.network.Peer;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.block.BlockTransformer;
+import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Fetches blocks ahead of Synchronizer applying them, so sync speed isn't limited by one request/response round trip per block.
+ * <p>
+ * Block signatures, in chain order, are passed to {@link #prefetch(List)}. Up to <tt>maxInFlight</tt> <tt>GetBlockMessage</tt>
+ * requests are kept outstanding, spread across the sync peer and any other peers on the same chain.
+ * Received blocks are deserialized, and have their signatures pre-verified, by the fetcher, ahead of the apply loop.
+ * <p>
+ * Blocks fetched, or being fetched, but not yet taken, are limited to an estimated <tt>memoryBudget</tt> bytes,
+ * although there's always at least one request in flight.
+ * <p>
+ * If a helper peer fails to supply a block then it is requested from the sync peer instead.
+ * <p>
+ * Apart from the fetch tasks themselves, not thread-safe: only to be used by the synchronizing thread.
+ */
+public class BlockFetchPipeline implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(BlockFetchPipeline.class);
+
+	/** Estimated size of a block, until we've received some */
+	private static final long INITIAL_BLOCK_SIZE_ESTIMATE = 16 * 1024L; // bytes
+
+	@FunctionalInterface
+	public interface BlockFetcher {
+		/** Returns block, ready for pre-verification, with passed signature from peer, or null if peer failed to respond. */
+		Block fetchBlock(Peer peer, byte[] signature) throws InterruptedException;
+	}
+
+	private static class Request {
+		FutureTask<Block> future;
+		/** Estimated size of block at time of request, replaced by actual size once received */
+		volatile long size;
+
+		Request(long size) {
+			this.size = size;
+		}
+	}
+
+	private final Peer syncPeer;
+	/** Sync peer, followed by any helper peers */
+	private final List<Peer> peers;
+	private final BlockFetcher fetcher;
+	private final ExecutorService executor;
+	private final int maxInFlight;
+	private final long memoryBudget;
+
+	private final Deque<byte[]> unrequestedSignatures = new ArrayDeque<>();
+	/** Outstanding, or completed but not yet taken, requests in chain order */
+	private final Map<ByteArray, Request> requests = new LinkedHashMap<>();
+
+	private volatile long blockSizeEstimate = INITIAL_BLOCK_SIZE_ESTIMATE;
+	private int nextPeerIndex = 0;
+
+	public BlockFetchPipeline(Peer syncPeer, List<Peer> helperPeers, BlockFetcher fetcher, ExecutorService executor, int maxInFlight, long memoryBudget) {
+		this.syncPeer = syncPeer;
+
+		this.peers = new ArrayList<>(1 + helperPeers.size());
+		this.peers.add(syncPeer);
+		this.peers.addAll(helperPeers);
+
+		this.fetcher = fetcher;
+		this.executor = executor;
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.memoryBudget = memoryBudget;
+	}
+
+	/** Queues signatures, in chain order, of blocks to fetch ahead of calls to {@link #take(byte[])}. */
+	public void prefetch(List<byte[]> signatures) {
+		for (byte[] signature : signatures)
+			if (!this.requests.containsKey(ByteArray.wrap(signature)))
+				this.unrequestedSignatures.add(signature);
+
+		this.fillPipeline();
+	}
+
+	/**
+	 * Returns block with passed signature, waiting for it to arrive if necessary.
+	 * <p>
+	 * If block wasn't prefetched, e.g. because the caller has changed its mind about which blocks it wants,
+	 * then any prefetching is abandoned and the block is fetched directly from the sync peer.
+	 *
+	 * @return block, or null if no peer supplied it
+	 */
+	public Block take(byte[] signature) throws InterruptedException {
+		Request request = this.requests.remove(ByteArray.wrap(signature));
+
+		if (request == null) {
+			LOGGER.trace(() -> String.format("Block %.8s wasn't prefetched - abandoning prefetching", Base58.encode(signature)));
+			this.clear();
+
+			return this.fetchBlock(this.syncPeer, signature);
+		}
+
+		// Keep pipeline full while we wait
+		this.fillPipeline();
+
+		try {
+			return request.future.get();
+		} catch (ExecutionException e) {
+			LOGGER.debug(String.format("Failed to fetch block %.8s: %s", Base58.encode(signature), e.getCause().getMessage()));
+			return null;
+		} catch (CancellationException e) {
+			return null;
+		} finally {
+			// Budget freed by block we've just taken
+			this.fillPipeline();
+		}
+	}
+
+	/** Cancels any outstanding requests and forgets any queued signatures. */
+	public void clear() {
+		for (Request request : this.requests.values())
+			request.future.cancel(true);
+
+		this.requests.clear();
+		this.unrequestedSignatures.clear();
+	}
+
+	@Override
+	public void close() {
+		this.clear();
+	}
+
+	/** Returns number of requests outstanding, or completed but not yet taken. */
+	public int getRequestCount() {
+		return this.requests.size();
+	}
+
+	/** Returns estimated bytes of blocks fetched, or being fetched, but not yet taken. */
+	public long getReservedBytes() {
+		long reservedBytes = 0;
+
+		for (Request request : this.requests.values())
+			reservedBytes += request.size;
+
+		return reservedBytes;
+	}
+
+	private void fillPipeline() {
+		while (!this.unrequestedSignatures.isEmpty() && this.requests.size() < this.maxInFlight) {
+			// Always allow one request, even if over budget, so large blocks can still be fetched
+			if (!this.requests.isEmpty() && this.getReservedBytes() + this.blockSizeEstimate > this.memoryBudget)
+				return;
+
+			final byte[] signature = this.unrequestedSignatures.poll();
+			final Peer peer = this.peers.get(this.nextPeerIndex++ % this.peers.size());
+
+			final Request request = new Request(this.blockSizeEstimate);
+			request.future = new FutureTask<>(() -> {
+				Block block = this.fetchBlock(peer, signature);
+
+				request.size = block != null ? this.updateSizeEstimate(block) : 0;
+
+				return block;
+			});
+
+			try {
+				this.executor.execute(request.future);
+			} catch (RejectedExecutionException e) {
+				// Shutting down - take() will fetch directly
+				this.unrequestedSignatures.clear();
+				return;
+			}
+
+			this.requests.put(ByteArray.wrap(signature), request);
+		}
+	}
+
+	/** Fetches block from peer, falling back to sync peer if helper peer fails. */
+	private Block fetchBlock(Peer peer, byte[] signature) throws InterruptedException {
+		Block block = this.fetcher.fetchBlock(peer, signature);
+
+		// Make sure peer sent the block we asked for
+		if (block != null && !Arrays.equals(block.getSignature(), signature))
+			block = null;
+
+		if (block == null && peer != this.syncPeer) {
+			LOGGER.trace(() -> String.format("Helper peer %s failed to supply block %.8s - trying sync peer %s", peer, Base58.encode(signature), this.syncPeer));
+			return this.fetchBlock(this.syncPeer, signature);
+		}
+
+		return block;
+	}
+
+	/** Returns block's serialized size, updating running estimate of block size. */
+	private long updateSizeEstimate(Block block) {
+		long size;
+		try {
+			size = BlockTransformer.getDataLength(block);
+		} catch (TransformationException e) {
+			size = this.blockSizeEstimate;
+		}
+
+		// Exponentially-weighted moving average, favouring recent blocks
+		this.blockSizeEstimate = (this.blockSizeEstimate * 3 + size) / 4;
+
+		return size;
+	}
+
+}
@@ -1,23 +1,75 @@
 package org.qortal.controller;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
 import org.qortal.data.transaction.ChatTransactionData;
+import org.qortal.utils.DaemonThreadFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Routes new CHAT transactions, and group-membership changes, to interested websocket sessions.
+ * <p>
+ * Sessions subscribe to group IDs and/or addresses. A group CHAT (no recipient) is only delivered to sessions
+ * subscribed to its <tt>txGroupId</tt>. A direct CHAT is only delivered to sessions subscribed to its sender
+ * or its recipient, whatever its <tt>txGroupId</tt>. Listeners may still filter further.
+ * <p>
+ * Delivery is asynchronous, in order per session, using a bounded queue per session.
+ * A session whose queue overflows is disconnected, so a stalled client can't hold up the caller,
+ * e.g. transaction importing.
+ * <p>
+ * Delivery threads are shared by all sessions, so listeners must not block, e.g. waiting for a client to accept data.
+ */
 public class ChatNotifier {
 
+	private static final Logger LOGGER = LogManager.getLogger(ChatNotifier.class);
+
+	/** Maximum number of undelivered notifications per session before it is disconnected as too slow */
+	public static final int MAX_QUEUED_NOTIFICATIONS = 100;
+
+	private static final int DELIVERY_THREADS = 4;
+
 	private static ChatNotifier instance;
 
 	@FunctionalInterface
 	public interface Listener {
 		void notify(ChatTransactionData chatTransactionData);
+
+		/** Called when group membership of any of <tt>addresses</tt> has changed. */
+		default void notifyGroupMembershipChange(Set<String> addresses) {
+		}
+	}
+
+	private static class Subscriber {
+		private final Session session;
+		private final Listener listener;
+		private Set<Integer> groupIds;
+		private final Set<String> addresses;
+
+		private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(MAX_QUEUED_NOTIFICATIONS);
+		private final AtomicBoolean isDraining = new AtomicBoolean(false);
+
+		private Subscriber(Session session, Listener listener, Set<Integer> groupIds, Set<String> addresses) {
+			this.session = session;
+			this.listener = listener;
+			this.groupIds = groupIds;
+			this.addresses = addresses;
+		}
 	}
 
-	private final Map<Session, Listener> listenersBySession = new HashMap<>();
+	private final Object subscribersLock = new Object();
+	private final Map<Session, Subscriber> subscribersBySession = new HashMap<>();
+	private final Map<Integer, Set<Subscriber>> subscribersByGroupId = new HashMap<>();
+	private final Map<String, Set<Subscriber>> subscribersByAddress = new HashMap<>();
+
+	private final ExecutorService deliveryExecutor = Executors.newFixedThreadPool(DELIVERY_THREADS, new DaemonThreadFactory("Chat-notifier"));
 
 	private ChatNotifier() {
 	}
@@ -29,34 +81,145 @@ public class ChatNotifier {
 		return instance;
 	}
 
-	public void register(Session session, Listener listener) {
-		synchronized (this.listenersBySession) {
-			this.listenersBySession.put(session, listener);
+	/**
+	 * Registers <tt>listener</tt> for CHATs with any of <tt>groupIds</tt> as txGroupId,
+	 * or with any of <tt>addresses</tt> as sender or recipient.
+	 * <p>
+	 * Group-membership changes are delivered if they involve any of <tt>addresses</tt>.
+	 */
+	public void register(Session session, Listener listener, Collection<Integer> groupIds, Collection<String> addresses) {
+		Subscriber subscriber = new Subscriber(session, listener, new HashSet<>(groupIds), new HashSet<>(addresses));
+
+		synchronized (this.subscribersLock) {
+			this.removeSubscriber(this.subscribersBySession.get(session));
+
+			this.subscribersBySession.put(session, subscriber);
+
+			for (Integer groupId : subscriber.groupIds)
+				this.subscribersByGroupId.computeIfAbsent(groupId, k -> new HashSet<>()).add(subscriber);
+
+			for (String address : subscriber.addresses)
+				this.subscribersByAddress.computeIfAbsent(address, k -> new HashSet<>()).add(subscriber);
+		}
+	}
+
+	/** Replaces group IDs that <tt>session</tt> is subscribed to, e.g. after group-membership change. */
+	public void setGroupIds(Session session, Collection<Integer> groupIds) {
+		synchronized (this.subscribersLock) {
+			Subscriber subscriber = this.subscribersBySession.get(session);
+			if (subscriber == null)
+				return;
+
+			for (Integer groupId : subscriber.groupIds)
+				removeFromIndex(this.subscribersByGroupId, groupId, subscriber);
+
+			subscriber.groupIds = new HashSet<>(groupIds);
+
+			for (Integer groupId : subscriber.groupIds)
+				this.subscribersByGroupId.computeIfAbsent(groupId, k -> new HashSet<>()).add(subscriber);
 		}
 	}
 
 	public void deregister(Session session) {
-		synchronized (this.listenersBySession) {
-			this.listenersBySession.remove(session);
+		synchronized (this.subscribersLock) {
+			this.removeSubscriber(this.subscribersBySession.remove(session));
 		}
 	}
 
 	public void onNewChatTransaction(ChatTransactionData chatTransactionData) {
-		for (Listener listener : getAllListeners())
-			listener.notify(chatTransactionData);
+		Set<Subscriber> subscribers = new HashSet<>();
+
+		synchronized (this.subscribersLock) {
+			String recipient = chatTransactionData.getRecipient();
+
+			if (recipient == null) {
+				// Group message
+				subscribers.addAll(this.subscribersByGroupId.getOrDefault(chatTransactionData.getTxGroupId(), Collections.emptySet()));
+			} else {
+				// Direct message, usually with txGroupId 0, which shouldn't reach every group 0 subscriber
+				subscribers.addAll(this.subscribersByAddress.getOrDefault(chatTransactionData.getSender(), Collections.emptySet()));
+				subscribers.addAll(this.subscribersByAddress.getOrDefault(recipient, Collections.emptySet()));
+			}
+		}
+
+		for (Subscriber subscriber : subscribers)
+			this.enqueue(subscriber, () -> subscriber.listener.notify(chatTransactionData));
+	}
+
+	public void onGroupMembershipChange(Set<String> addresses) {
+		Set<Subscriber> subscribers = new HashSet<>();
+
+		synchronized (this.subscribersLock) {
+			for (String address : addresses)
+				subscribers.addAll(this.subscribersByAddress.getOrDefault(address, Collections.emptySet()));
+		}
+
+		for (Subscriber subscriber : subscribers)
+			this.enqueue(subscriber, () -> subscriber.listener.notifyGroupMembershipChange(addresses));
+	}
+
+	private void enqueue(Subscriber subscriber, Runnable notification) {
+		if (!subscriber.queue.offer(notification)) {
+			this.disconnectSlowConsumer(subscriber);
+			return;
+		}
+
+		// Only one delivery task per session, to keep notifications in order
+		if (subscriber.isDraining.compareAndSet(false, true))
+			this.deliveryExecutor.execute(() -> this.drain(subscriber));
 	}
 
-	public void onGroupMembershipChange() {
-		for (Listener listener : getAllListeners())
-			listener.notify(null);
+	private void drain(Subscriber subscriber) {
+		do {
+			Runnable notification;
+			while ((notification = subscriber.queue.poll()) != null) {
+				try {
+					notification.run();
+				} catch (RuntimeException e) {
+					LOGGER.debug(() -> String.format("Websocket chat listener failed: %s", e.getMessage()));
+				}
+			}
+
+			subscriber.isDraining.set(false);
+
+			// Something might have been queued after our last poll() but before we cleared flag
+		} while (!subscriber.queue.isEmpty() && subscriber.isDraining.compareAndSet(false, true));
 	}
 
-	private Collection<Listener> getAllListeners() {
-		// Make a copy of listeners to both avoid concurrent modification
-		// and reduce synchronization time
-		synchronized (this.listenersBySession) {
-			return new ArrayList<>(this.listenersBySession.values());
+	private void disconnectSlowConsumer(Subscriber subscriber) {
+		synchronized (this.subscribersLock) {
+			// Already removed, e.g. by an earlier overflow?
+			if (this.subscribersBySession.get(subscriber.session) != subscriber)
+				return;
+
+			this.subscribersBySession.remove(subscriber.session);
+			this.removeSubscriber(subscriber);
 		}
+
+		LOGGER.debug("Disconnecting slow websocket chat client {}", subscriber.session.getRemoteAddress());
+		subscriber.queue.clear();
+		subscriber.session.close(StatusCode.POLICY_VIOLATION, "too slow");
+	}
+
+	private void removeSubscriber(Subscriber subscriber) {
+		if (subscriber == null)
+			return;
+
+		for (Integer groupId : subscriber.groupIds)
+			removeFromIndex(this.subscribersByGroupId, groupId, subscriber);
+
+		for (String address : subscriber.addresses)
+			removeFromIndex(this.subscribersByAddress, address, subscriber);
+	}
+
+	private static <K> void removeFromIndex(Map<K, Set<Subscriber>> index, K key, Subscriber subscriber) {
+		Set<Subscriber> subscribers = index.get(key);
+		if (subscribers == null)
+			return;
+
+		subscribers.remove(subscriber);
+		if (subscribers.isEmpty())
+			index.remove(key);
 	}
 
 }
@@ -96,7 +96,8 @@ public class Controller extends Thread {
 	private final String[] savedArgs;
 
 	private ExecutorService callbackExecutor = Executors.newFixedThreadPool(3);
-	private volatile boolean notifyGroupMembershipChange = false;
+	/** Addresses whose group membership has changed since last new/orphaned block */
+	private final Set<String> groupMembershipChangedAddresses = Collections.synchronizedSet(new HashSet<>());
 
 	/** Latest blocks on our chain. Note: tail/last is the latest block. */
 	private final Deque<BlockData> latestBlocks = new LinkedList<>();
@@ -907,7 +908,14 @@ public class Controller extends Thread {
 			if (repository == null)
 				return;
 
-			List<TransactionData> transactions = repository.getTransactionRepository().getUnconfirmedTransactions();
+			// Deadline is timestamp plus expiry period, so only transactions created at or before this can have expired
+			long expiredTimestamp = now - BlockChain.getInstance().getTransactionExpiryPeriod();
+			List<TransactionData> transactions = new ArrayList<>(repository.getTransactionRepository().getUnconfirmedTransactionsCreatedBefore(expiredTimestamp + 1));
+
+			// PRESENCE transactions have their own, shorter, lifetime so check newer ones too
+			for (TransactionData transactionData : repository.getTransactionRepository().getUnconfirmedTransactions(TransactionType.PRESENCE, null))
+				if (transactionData.getTimestamp() > expiredTimestamp)
+					transactions.add(transactionData);
 
 			int deletedCount = 0;
 			for (TransactionData transactionData : transactions) {
@@ -1034,18 +1042,18 @@ public class Controller extends Thread {
 
 	// Callbacks
 
-	public void onGroupMembershipChange(int groupId) {
+	public void onGroupMembershipChange(int groupId, String member) {
 		/*
 		 * We've likely been called in the middle of block processing,
-		 * so set a flag for now as other repository sessions won't 'see'
+		 * so record the member for now as other repository sessions won't 'see'
 		 * the group membership change until a call to repository.saveChanges().
 		 * 
 		 * Eventually, onNewBlock() will be executed and queue a callback task.
-		 * This callback task will check the flag and notify websocket listeners, etc.
+		 * This callback task will check the recorded members and notify websocket listeners, etc.
 		 * and those listeners will be post-saveChanges() and hence see the new
 		 * group membership state.
 		 */
-		this.notifyGroupMembershipChange = true;
+		this.groupMembershipChangedAddresses.add(member);
 	}
 
 	// Callbacks for/from network
@@ -1192,10 +1200,14 @@ public class Controller extends Thread {
 		// Notify listeners, trade-bot, etc.
 		EventBus.INSTANCE.notify(eventConstructor.apply(blockDataCopy));
 
-		if (this.notifyGroupMembershipChange) {
-			this.notifyGroupMembershipChange = false;
-			ChatNotifier.getInstance().onGroupMembershipChange();
+		Set<String> changedAddresses;
+		synchronized (this.groupMembershipChangedAddresses) {
+			changedAddresses = new HashSet<>(this.groupMembershipChangedAddresses);
+			this.groupMembershipChangedAddresses.clear();
 		}
+
+		if (!changedAddresses.isEmpty())
+			ChatNotifier.getInstance().onGroupMembershipChange(changedAddresses);
 	}
 
 	public static class NewTransactionEvent implements Event {
@@ -24,6 +24,7 @@ import org.qortal.repository.Repository;
 import org.qortal.repository.RepositoryManager;
 import org.qortal.settings.Settings;
 import org.qortal.utils.Base58;
+import org.qortal.utils.ByteArray;
 import org.qortal.utils.NTP;
 import org.qortal.utils.NamedThreadFactory;
 
@@ -76,15 +77,24 @@ public class OnlineAccountsManager {
     public static final int POW_DIFFICULTY_TESTNET = 5; // leading zero bits
 
     // IMPORTANT: if we ever need to dynamically modify the buffer size using a feature trigger, the
-    // pre-allocated buffer below will NOT work, and we should instead use a dynamically allocated
-    // one for the transition period.
-    private static long[] POW_VERIFY_WORK_BUFFER = new long[getPoWBufferSize() / 8];
+    // pre-allocated, per-verifier-thread, buffers below will NOT work, and we should instead use
+    // dynamically allocated ones for the transition period.
+    private static final ThreadLocal<long[]> POW_VERIFY_WORK_BUFFER = ThreadLocal.withInitial(() -> new long[getPoWBufferSize() / 8]);
+
+    /** Number of threads verifying signatures and mempow nonces of queued online accounts in parallel. */
+    private static final int VERIFIER_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    /** Maximum number of reward-share public keys looked up per repository query. */
+    private static final int REWARD_SHARE_LOOKUP_BATCH_SIZE = 500;
 
     private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4, new NamedThreadFactory("OnlineAccounts"));
+    private final ExecutorService verifierExecutor = Executors.newFixedThreadPool(VERIFIER_THREAD_COUNT, new NamedThreadFactory("OnlineAccountsVerifier"));
     private volatile boolean isStopping = false;
 
     private final Set<OnlineAccountData> onlineAccountsImportQueue = ConcurrentHashMap.newKeySet();
 
+    /** Online accounts verification rate (accounts per second) of most recent import queue batch. */
+    private volatile double importVerificationRate = 0.0;
+
     /**
      * Cache of 'current' online accounts, keyed by timestamp
      */
@@ -171,6 +181,7 @@ public class OnlineAccountsManager {
     public void shutdown() {
         isStopping = true;
         executor.shutdownNow();
+        verifierExecutor.shutdownNow();
     }
 
     // Testing support
@@ -203,6 +214,12 @@ public class OnlineAccountsManager {
         addAccounts(replacementAccounts);
     }
 
+    /** Adds online accounts to import queue, then processes queue immediately, instead of waiting for scheduled task. */
+    public void importOnlineAccounts(Collection<OnlineAccountData> onlineAccounts) {
+        this.onlineAccountsImportQueue.addAll(onlineAccounts);
+        this.processOnlineAccountsImportQueue();
+    }
+
     // Online accounts import queue
 
     private void processOnlineAccountsImportQueue() {
@@ -211,10 +228,15 @@ public class OnlineAccountsManager {
             return;
 
         LOGGER.debug("Processing online accounts import queue (size: {})", this.onlineAccountsImportQueue.size());
+        final long startTime = System.nanoTime();
 
         Set<OnlineAccountData> onlineAccountsToAdd = new HashSet<>();
         Set<OnlineAccountData> onlineAccountsToRemove = new HashSet<>();
         try (final Repository repository = RepositoryManager.getRepository()) {
+            final Long now = NTP.getTime();
+
+            // First pass: cheap checks, so only plausible entries go on to repository lookup and verification
+            List<OnlineAccountData> candidates = new ArrayList<>();
             for (OnlineAccountData onlineAccountData : this.onlineAccountsImportQueue) {
                 if (isStopping)
                     return;
@@ -227,17 +249,30 @@ public class OnlineAccountsManager {
                     continue;
                 }
 
-                boolean isValid = this.isValidCurrentAccount(repository, onlineAccountData);
-                if (isValid)
-                    onlineAccountsToAdd.add(onlineAccountData);
-
                 // Don't remove from the queue yet - we'll do this at the end of the process
                 // This prevents duplicates being added to the queue whilst it's being processed
                 onlineAccountsToRemove.add(onlineAccountData);
+
+                if (isValidCurrentTimestamp(onlineAccountData, now))
+                    candidates.add(onlineAccountData);
             }
+
+            // Second pass: batched reward-share lookups and minting-account checks
+            List<OnlineAccountData> mintingCandidates = this.filterMintingRewardShares(repository, candidates);
+
+            // Third pass: signatures and mempow nonces verified in parallel
+            onlineAccountsToAdd.addAll(this.verifyInParallel(mintingCandidates));
+
+            long elapsedNanos = System.nanoTime() - startTime;
+            if (!onlineAccountsToRemove.isEmpty() && elapsedNanos > 0)
+                this.importVerificationRate = onlineAccountsToRemove.size() * 1_000_000_000.0 / elapsedNanos;
         } catch (DataException e) {
             LOGGER.error("Repository issue while verifying online accounts", e);
 
+        } catch (InterruptedException e) {
+            // Probably shutting down
+            return;
+
         } finally {
             if (!onlineAccountsToAdd.isEmpty()) {
                 LOGGER.debug("Merging {} validated online accounts from import queue", onlineAccountsToAdd.size());
@@ -247,6 +282,114 @@ public class OnlineAccountsManager {
         }
     }
 
+    /**
+     * Returns candidates whose public key is a reward-share with a minting account that can still mint.
+     * <p>
+     * Reward-shares are fetched in batches, and each minting account is only checked once.
+     */
+    private List<OnlineAccountData> filterMintingRewardShares(Repository repository, List<OnlineAccountData> candidates) throws DataException {
+        Map<ByteArray, RewardShareData> rewardSharesByPublicKey = new HashMap<>();
+
+        List<byte[]> distinctPublicKeys = candidates.stream()
+                .map(OnlineAccountData::getPublicKey)
+                .map(ByteArray::wrap)
+                .distinct()
+                .map(byteArray -> byteArray.value)
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < distinctPublicKeys.size(); i += REWARD_SHARE_LOOKUP_BATCH_SIZE) {
+            if (isStopping)
+                return Collections.emptyList();
+
+            List<byte[]> batch = distinctPublicKeys.subList(i, Math.min(i + REWARD_SHARE_LOOKUP_BATCH_SIZE, distinctPublicKeys.size()));
+            for (RewardShareData rewardShareData : repository.getAccountRepository().getRewardSharesByPublicKeys(batch))
+                rewardSharesByPublicKey.put(ByteArray.wrap(rewardShareData.getRewardSharePublicKey()), rewardShareData);
+        }
+
+        Map<String, Boolean> canMintByMinter = new HashMap<>();
+        List<OnlineAccountData> mintingCandidates = new ArrayList<>(candidates.size());
+
+        for (OnlineAccountData onlineAccountData : candidates) {
+            byte[] rewardSharePublicKey = onlineAccountData.getPublicKey();
+
+            // Qortal: check online account is actually reward-share
+            RewardShareData rewardShareData = rewardSharesByPublicKey.get(ByteArray.wrap(rewardSharePublicKey));
+            if (rewardShareData == null) {
+                // Reward-share doesn't even exist - probably not a good sign
+                LOGGER.trace(() -> String.format("Rejecting unknown online reward-share public key %s", Base58.encode(rewardSharePublicKey)));
+                continue;
+            }
+
+            String minter = rewardShareData.getMinter();
+            Boolean canMint = canMintByMinter.get(minter);
+            if (canMint == null) {
+                canMint = new Account(repository, minter).canMint();
+                canMintByMinter.put(minter, canMint);
+            }
+
+            if (!canMint) {
+                // Minting-account component of reward-share can no longer mint - disregard
+                LOGGER.trace(() -> String.format("Rejecting online reward-share with non-minting account %s", minter));
+                continue;
+            }
+
+            mintingCandidates.add(onlineAccountData);
+        }
+
+        return mintingCandidates;
+    }
+
+    /**
+     * Verifies signatures and mempow nonces, spread across verifier threads, each with its own mempow work buffer.
+     *
+     * @return online accounts that passed verification
+     */
+    private List<OnlineAccountData> verifyInParallel(List<OnlineAccountData> candidates) throws InterruptedException {
+        if (candidates.isEmpty())
+            return Collections.emptyList();
+
+        final int chunkSize = (candidates.size() + VERIFIER_THREAD_COUNT - 1) / VERIFIER_THREAD_COUNT;
+
+        List<Callable<List<OnlineAccountData>>> tasks = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i += chunkSize) {
+            List<OnlineAccountData> chunk = candidates.subList(i, Math.min(i + chunkSize, candidates.size()));
+
+            tasks.add(() -> {
+                List<OnlineAccountData> verified = new ArrayList<>(chunk.size());
+
+                for (OnlineAccountData onlineAccountData : chunk) {
+                    if (isStopping)
+                        break;
+
+                    if (isValidSignatureAndPoW(onlineAccountData, POW_VERIFY_WORK_BUFFER.get()))
+                        verified.add(onlineAccountData);
+                }
+
+                return verified;
+            });
+        }
+
+        List<OnlineAccountData> verifiedAccounts = new ArrayList<>();
+        for (Future<List<OnlineAccountData>> future : this.verifierExecutor.invokeAll(tasks)) {
+            try {
+                verifiedAccounts.addAll(future.get());
+            } catch (ExecutionException e) {
+                LOGGER.error("Online accounts verification failed", e.getCause());
+            }
+        }
+
+        return verifiedAccounts;
+    }
+
+    public int getImportQueueSize() {
+        return this.onlineAccountsImportQueue.size();
+    }
+
+    /** Returns online accounts verification rate, in accounts per second, of most recent import queue batch. */
+    public double getImportVerificationRate() {
+        return this.importVerificationRate;
+    }
+
     /**
      * Check if supplied onlineAccountData is superior (i.e. has a nonce value) than existing record.
      * Two entries are considered equal even if the nonce differs, to prevent multiple variations
@@ -303,8 +446,7 @@ public class OnlineAccountsManager {
         return inplaceArray;
     }
 
-    private static boolean isValidCurrentAccount(Repository repository, OnlineAccountData onlineAccountData) throws DataException {
-        final Long now = NTP.getTime();
+    private static boolean isValidCurrentTimestamp(OnlineAccountData onlineAccountData, Long now) {
         if (now == null)
             return false;
 
@@ -323,6 +465,13 @@ public class OnlineAccountsManager {
             return false;
         }
 
+        return true;
+    }
+
+    /** Verifies aggregate-compatible signature and mempow nonce. Safe to call from multiple threads, given separate work buffers. */
+    private static boolean isValidSignatureAndPoW(OnlineAccountData onlineAccountData, long[] workBuffer) {
+        byte[] rewardSharePublicKey = onlineAccountData.getPublicKey();
+
         // Verify signature
         byte[] data = Longs.toByteArray(onlineAccountData.getTimestamp());
         boolean isSignatureValid = Qortal25519Extras.verifyAggregated(rewardSharePublicKey, onlineAccountData.getSignature(), data);
@@ -331,24 +480,9 @@ public class OnlineAccountsManager {
             return false;
         }
 
-        // Qortal: check online account is actually reward-share
-        RewardShareData rewardShareData = repository.getAccountRepository().getRewardShare(rewardSharePublicKey);
-        if (rewardShareData == null) {
-            // Reward-share doesn't even exist - probably not a good sign
-            LOGGER.trace(() -> String.format("Rejecting unknown online reward-share public key %s", Base58.encode(rewardSharePublicKey)));
-            return false;
-        }
-
-        Account mintingAccount = new Account(repository, rewardShareData.getMinter());
-        if (!mintingAccount.canMint()) {
-            // Minting-account component of reward-share can no longer mint - disregard
-            LOGGER.trace(() -> String.format("Rejecting online reward-share with non-minting account %s", mintingAccount.getAddress()));
-            return false;
-        }
-
         // Validate mempow
-        if (!getInstance().verifyMemoryPoW(onlineAccountData, POW_VERIFY_WORK_BUFFER)) {
-            LOGGER.trace(() -> String.format("Rejecting online reward-share for account %s due to invalid PoW nonce", mintingAccount.getAddress()));
+        if (!getInstance().verifyMemoryPoW(onlineAccountData, workBuffer)) {
+            LOGGER.trace(() -> String.format("Rejecting online reward-share %s due to invalid PoW nonce", Base58.encode(rewardSharePublicKey)));
             return false;
         }
 
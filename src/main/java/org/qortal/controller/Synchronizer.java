@@ -11,7 +11,6 @@ import org.qortal.data.block.BlockData;
 import org.qortal.data.block.BlockSummaryData;
 import org.qortal.data.block.CommonBlockData;
 import org.qortal.data.transaction.RewardShareTransactionData;
-import org.qortal.data.transaction.TransactionData;
 import org.qortal.event.Event;
 import org.qortal.event.EventBus;
 import org.qortal.network.Network;
@@ -25,12 +24,17 @@ import org.qortal.transaction.Transaction;
 import org.qortal.utils.Base58;
 import org.qortal.utils.ByteArray;
 import org.qortal.utils.NTP;
+import org.qortal.utils.NamedThreadFactory;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -56,6 +60,11 @@ public class Synchronizer extends Thread {
 	/** Maximum number of consecutive failed sync attempts before marking peer as misbehaved */
 	private static final int MAX_CONSECUTIVE_FAILED_SYNC_ATTEMPTS = 3;
 
+	/** Number of threads used to verify received blocks' signatures in parallel */
+	private static final int SIGNATURE_VERIFIER_THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+	/** Minimum number of transactions per signature verification task, to avoid scheduling overhead for small blocks */
+	private static final int MIN_SIGNATURES_PER_TASK = 16;
+
 
 	private boolean running;
 
@@ -87,6 +96,9 @@ public class Synchronizer extends Thread {
 	public Long timeValidBlockLastReceived = null;
 	public Long timeInvalidBlockLastReceived = null;
 
+	private final ExecutorService signatureVerifierExecutor = Executors.newFixedThreadPool(SIGNATURE_VERIFIER_THREAD_COUNT, new NamedThreadFactory("BlockSignatureVerifier"));
+	private final ExecutorService blockFetchExecutor = Executors.newCachedThreadPool(new NamedThreadFactory("BlockFetcher"));
+
 	private static Synchronizer instance;
 
 	public enum SynchronizationResult {
@@ -158,6 +170,8 @@ public class Synchronizer extends Thread {
 
 	public void shutdown() {
 		this.running = false;
+		this.signatureVerifierExecutor.shutdownNow();
+		this.blockFetchExecutor.shutdownNow();
 		this.interrupt();
 	}
 
@@ -1262,150 +1276,157 @@ public class Synchronizer extends Thread {
 		// from a small fork that didn't become part of the main chain. This causes the entire sync process to
 		// use syncToPeerChain(), resulting in potentially thousands of blocks being held in memory if the limit
 		// below isn't applied.
-		while (height < peerHeight && peerBlocks.size() <= MAXIMUM_COMMON_DELTA) {
-			if (Controller.isStopping())
-				return SynchronizationResult.SHUTTING_DOWN;
+		try (BlockFetchPipeline blockFetchPipeline = this.newBlockFetchPipeline(repository, peer)) {
+			blockFetchPipeline.prefetch(peerBlockSignatures);
+
+			while (height < peerHeight && peerBlocks.size() <= MAXIMUM_COMMON_DELTA) {
+				if (Controller.isStopping())
+					return SynchronizationResult.SHUTTING_DOWN;
 
-			// Ensure we don't request more than MAXIMUM_REQUEST_SIZE
-			int numberRequested = Math.min(numberSignaturesRequired, MAXIMUM_REQUEST_SIZE);
-
-			// Do we need more signatures?
-			if (peerBlockSignatures.isEmpty() && numberRequested > 0) {
-				LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
-						numberRequested, (numberRequested != 1 ? "s" : ""), height, Base58.encode(latestPeerSignature)));
-
-				peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
-
-				if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
-					LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
-							height, Base58.encode(latestPeerSignature)));
-
-					// Clear our cache of common block summaries for this peer, as they are likely to be invalid
-					CommonBlockData cachedCommonBlockData = peer.getCommonBlockData();
-					if (cachedCommonBlockData != null)
-						cachedCommonBlockData.setBlockSummariesAfterCommonBlock(null);
-
-                    // If we have already received newer blocks from this peer that what we have already, go ahead and apply them
-                    if (!peerBlocks.isEmpty()) {
-						final BlockData ourLatestBlockData = repository.getBlockRepository().getLastBlock();
-						final Block peerLatestBlock = peerBlocks.get(peerBlocks.size() - 1);
-						final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
-						if (ourLatestBlockData != null && peerLatestBlock != null && minLatestBlockTimestamp != null) {
-
-							// If our latest block is very old....
-							if (ourLatestBlockData.getTimestamp() < minLatestBlockTimestamp) {
-								// ... and we have received a block that is more recent than our latest block ...
-								if (peerLatestBlock.getBlockData().getTimestamp() > ourLatestBlockData.getTimestamp()) {
-									// ... then apply the blocks, as it takes us a step forward.
-									// This is particularly useful when starting up a node that was on a small fork when it was last shut down.
-									// In these cases, we now allow the node to sync forward, and get onto the main chain again.
-									// Without this, we would require that the node syncs ENTIRELY with this peer,
-									// and any problems downloading a block would cause all progress to be lost.
-									LOGGER.debug(String.format("Newly received blocks are %d ms newer than our latest block - so we will apply them", peerLatestBlock.getBlockData().getTimestamp() - ourLatestBlockData.getTimestamp()));
-									break;
+				// Ensure we don't request more than MAXIMUM_REQUEST_SIZE
+				int numberRequested = Math.min(numberSignaturesRequired, MAXIMUM_REQUEST_SIZE);
+
+				// Do we need more signatures?
+				if (peerBlockSignatures.isEmpty() && numberRequested > 0) {
+					LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
+							numberRequested, (numberRequested != 1 ? "s" : ""), height, Base58.encode(latestPeerSignature)));
+
+					peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
+
+					if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
+						LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
+								height, Base58.encode(latestPeerSignature)));
+
+						// Clear our cache of common block summaries for this peer, as they are likely to be invalid
+						CommonBlockData cachedCommonBlockData = peer.getCommonBlockData();
+						if (cachedCommonBlockData != null)
+							cachedCommonBlockData.setBlockSummariesAfterCommonBlock(null);
+
+	                    // If we have already received newer blocks from this peer that what we have already, go ahead and apply them
+	                    if (!peerBlocks.isEmpty()) {
+							final BlockData ourLatestBlockData = repository.getBlockRepository().getLastBlock();
+							final Block peerLatestBlock = peerBlocks.get(peerBlocks.size() - 1);
+							final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
+							if (ourLatestBlockData != null && peerLatestBlock != null && minLatestBlockTimestamp != null) {
+
+								// If our latest block is very old....
+								if (ourLatestBlockData.getTimestamp() < minLatestBlockTimestamp) {
+									// ... and we have received a block that is more recent than our latest block ...
+									if (peerLatestBlock.getBlockData().getTimestamp() > ourLatestBlockData.getTimestamp()) {
+										// ... then apply the blocks, as it takes us a step forward.
+										// This is particularly useful when starting up a node that was on a small fork when it was last shut down.
+										// In these cases, we now allow the node to sync forward, and get onto the main chain again.
+										// Without this, we would require that the node syncs ENTIRELY with this peer,
+										// and any problems downloading a block would cause all progress to be lost.
+										LOGGER.debug(String.format("Newly received blocks are %d ms newer than our latest block - so we will apply them", peerLatestBlock.getBlockData().getTimestamp() - ourLatestBlockData.getTimestamp()));
+										break;
+									}
 								}
 							}
-						}
-                    }
-					// Otherwise, give up and move on to the next peer, to avoid putting our chain into an outdated or incomplete state
-                    return SynchronizationResult.NO_REPLY;
-                }
+	                    }
+						// Otherwise, give up and move on to the next peer, to avoid putting our chain into an outdated or incomplete state
+	                    return SynchronizationResult.NO_REPLY;
+	                }
 
-				numberSignaturesRequired = peerHeight - height - peerBlockSignatures.size();
-				LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
-			}
+					numberSignaturesRequired = peerHeight - height - peerBlockSignatures.size();
+					LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
 
-			if (peerBlockSignatures.isEmpty()) {
-				LOGGER.trace(String.format("No more signatures or blocks to request from peer %s", peer));
-				break;
-			}
+					blockFetchPipeline.prefetch(peerBlockSignatures);
+				}
 
-			// Catch a block with an invalid signature before orphaning, so that we retain our existing valid candidate
-			if (this.containsInvalidBlockSignature(peerBlockSignatures)) {
-				LOGGER.info(String.format("Peer %s sent invalid block signature: %.8s", peer, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.INVALID_DATA;
-			}
+				if (peerBlockSignatures.isEmpty()) {
+					LOGGER.trace(String.format("No more signatures or blocks to request from peer %s", peer));
+					break;
+				}
 
-			// Final check to make sure the peer isn't out of date
-			if (peer.getChainTipData() != null) {
-				final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
-				final Long peerLastBlockTimestamp = peer.getChainTipData().getTimestamp();
-				if (peerLastBlockTimestamp == null || peerLastBlockTimestamp < minLatestBlockTimestamp) {
-					LOGGER.info(String.format("Peer %s is out of date, so abandoning sync attempt", peer));
-					return SynchronizationResult.CHAIN_TIP_TOO_OLD;
+				// Catch a block with an invalid signature before orphaning, so that we retain our existing valid candidate
+				if (this.containsInvalidBlockSignature(peerBlockSignatures)) {
+					LOGGER.info(String.format("Peer %s sent invalid block signature: %.8s", peer, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.INVALID_DATA;
+				}
+
+				// Final check to make sure the peer isn't out of date
+				if (peer.getChainTipData() != null) {
+					final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
+					final Long peerLastBlockTimestamp = peer.getChainTipData().getTimestamp();
+					if (peerLastBlockTimestamp == null || peerLastBlockTimestamp < minLatestBlockTimestamp) {
+						LOGGER.info(String.format("Peer %s is out of date, so abandoning sync attempt", peer));
+						return SynchronizationResult.CHAIN_TIP_TOO_OLD;
+					}
 				}
-			}
 
-			byte[] nextPeerSignature = peerBlockSignatures.get(0);
-			int nextHeight = height + 1;
-
-			LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", nextHeight, Base58.encode(nextPeerSignature), peer));
-			Block newBlock = this.fetchBlock(repository, peer, nextPeerSignature);
-
-			if (newBlock == null) {
-				LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
-						nextHeight, Base58.encode(nextPeerSignature)));
-
-				if (retryCount >= maxRetries) {
-					// If we have already received newer blocks from this peer that what we have already, go ahead and apply them
-					if (!peerBlocks.isEmpty()) {
-						final BlockData ourLatestBlockData = repository.getBlockRepository().getLastBlock();
-						final Block peerLatestBlock = peerBlocks.get(peerBlocks.size() - 1);
-						final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
-						if (ourLatestBlockData != null && peerLatestBlock != null && minLatestBlockTimestamp != null) {
-
-							// If our latest block is very old....
-							if (ourLatestBlockData.getTimestamp() < minLatestBlockTimestamp) {
-								// ... and we have received a block that is more recent than our latest block ...
-								if (peerLatestBlock.getBlockData().getTimestamp() > ourLatestBlockData.getTimestamp()) {
-									// ... then apply the blocks, as it takes us a step forward.
-									// This is particularly useful when starting up a node that was on a small fork when it was last shut down.
-									// In these cases, we now allow the node to sync forward, and get onto the main chain again.
-									// Without this, we would require that the node syncs ENTIRELY with this peer,
-									// and any problems downloading a block would cause all progress to be lost.
-									LOGGER.debug(String.format("Newly received blocks are %d ms newer than our latest block - so we will apply them", peerLatestBlock.getBlockData().getTimestamp() - ourLatestBlockData.getTimestamp()));
-									break;
+				byte[] nextPeerSignature = peerBlockSignatures.get(0);
+				int nextHeight = height + 1;
+
+				LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", nextHeight, Base58.encode(nextPeerSignature), peer));
+				Block newBlock = blockFetchPipeline.take(nextPeerSignature);
+
+				if (newBlock == null) {
+					LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
+							nextHeight, Base58.encode(nextPeerSignature)));
+
+					if (retryCount >= maxRetries) {
+						// If we have already received newer blocks from this peer that what we have already, go ahead and apply them
+						if (!peerBlocks.isEmpty()) {
+							final BlockData ourLatestBlockData = repository.getBlockRepository().getLastBlock();
+							final Block peerLatestBlock = peerBlocks.get(peerBlocks.size() - 1);
+							final Long minLatestBlockTimestamp = Controller.getMinimumLatestBlockTimestamp();
+							if (ourLatestBlockData != null && peerLatestBlock != null && minLatestBlockTimestamp != null) {
+
+								// If our latest block is very old....
+								if (ourLatestBlockData.getTimestamp() < minLatestBlockTimestamp) {
+									// ... and we have received a block that is more recent than our latest block ...
+									if (peerLatestBlock.getBlockData().getTimestamp() > ourLatestBlockData.getTimestamp()) {
+										// ... then apply the blocks, as it takes us a step forward.
+										// This is particularly useful when starting up a node that was on a small fork when it was last shut down.
+										// In these cases, we now allow the node to sync forward, and get onto the main chain again.
+										// Without this, we would require that the node syncs ENTIRELY with this peer,
+										// and any problems downloading a block would cause all progress to be lost.
+										LOGGER.debug(String.format("Newly received blocks are %d ms newer than our latest block - so we will apply them", peerLatestBlock.getBlockData().getTimestamp() - ourLatestBlockData.getTimestamp()));
+										break;
+									}
 								}
 							}
 						}
-					}
-					// Otherwise, give up and move on to the next peer, to avoid putting our chain into an outdated or incomplete state
-					return SynchronizationResult.NO_REPLY;
-
-				} else {
-					// Re-fetch signatures, in case the peer is now on a different fork
-					peerBlockSignatures.clear();
-					numberSignaturesRequired = peerHeight - height;
+						// Otherwise, give up and move on to the next peer, to avoid putting our chain into an outdated or incomplete state
+						return SynchronizationResult.NO_REPLY;
 
-					// Retry until retryCount reaches maxRetries
-					retryCount++;
-					int triesRemaining = maxRetries - retryCount;
-					LOGGER.info(String.format("Re-issuing request to peer %s (%d attempt%s remaining)", peer, triesRemaining, (triesRemaining != 1 ? "s" : "")));
-					continue;
+					} else {
+						// Re-fetch signatures, in case the peer is now on a different fork
+						peerBlockSignatures.clear();
+						blockFetchPipeline.clear();
+						numberSignaturesRequired = peerHeight - height;
+
+						// Retry until retryCount reaches maxRetries
+						retryCount++;
+						int triesRemaining = maxRetries - retryCount;
+						LOGGER.info(String.format("Re-issuing request to peer %s (%d attempt%s remaining)", peer, triesRemaining, (triesRemaining != 1 ? "s" : "")));
+						continue;
+					}
 				}
-			}
 
-			// Reset retryCount because the last request succeeded
-			retryCount = 0;
+				// Reset retryCount because the last request succeeded
+				retryCount = 0;
 
-			LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", nextHeight, Base58.encode(latestPeerSignature), peer));
+				LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", nextHeight, Base58.encode(latestPeerSignature), peer));
 
-			if (!newBlock.isSignatureValid()) {
-				LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
-						nextHeight, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.INVALID_DATA;
-			}
+				if (!newBlock.isSignatureValid()) {
+					LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
+							nextHeight, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.INVALID_DATA;
+				}
 
-			// Transactions are transmitted without approval status so determine that now
-			for (Transaction transaction : newBlock.getTransactions())
-				transaction.setInitialApprovalStatus();
+				// Transactions are transmitted without approval status so determine that now
+				for (Transaction transaction : newBlock.getTransactions())
+					transaction.setInitialApprovalStatus();
 
-			peerBlocks.add(newBlock);
+				peerBlocks.add(newBlock);
 
-			// Now that we've received this block, we can increase our height and move on to the next one
-			latestPeerSignature = nextPeerSignature;
-			peerBlockSignatures.remove(0);
-			++height;
+				// Now that we've received this block, we can increase our height and move on to the next one
+				latestPeerSignature = nextPeerSignature;
+				peerBlockSignatures.remove(0);
+				++height;
+			}
 		}
 
 		// Unwind to common block (unless common block is our latest block)
@@ -1440,7 +1461,8 @@ public class Synchronizer extends Thread {
 
 			newBlock.preProcess();
 
-			ValidationResult blockResult = newBlock.isValid();
+			// Validate block, then save its transactions and process it, without re-processing transactions if possible
+			ValidationResult blockResult = newBlock.validateAndProcess();
 			if (blockResult != ValidationResult.OK) {
 				LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
 						newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getSignature()), blockResult.name()));
@@ -1449,17 +1471,9 @@ public class Synchronizer extends Thread {
 				return SynchronizationResult.INVALID_DATA;
 			}
 
-			// Block is valid
+			// Block was valid
 			this.timeValidBlockLastReceived = NTP.getTime();
 
-			// Save transactions attached to this block
-			for (Transaction transaction : newBlock.getTransactions()) {
-				TransactionData transactionData = transaction.getTransactionData();
-				repository.getTransactionRepository().save(transactionData);
-			}
-
-			newBlock.process();
-
 			LOGGER.trace(String.format("Processed block height %d, sig %.8s", newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getBlockData().getSignature())));
 
 			repository.saveChanges();
@@ -1493,85 +1507,84 @@ public class Synchronizer extends Thread {
 		// Convert any block summaries from above into signatures to request from peer
 		List<byte[]> peerBlockSignatures = peerBlockSummaries.stream().map(BlockSummaryData::getSignature).collect(Collectors.toList());
 
-		while (ourHeight < peerHeight && ourHeight < maxBatchHeight) {
-			if (Controller.isStopping())
-				return SynchronizationResult.SHUTTING_DOWN;
+		try (BlockFetchPipeline blockFetchPipeline = this.newBlockFetchPipeline(repository, peer)) {
+			blockFetchPipeline.prefetch(peerBlockSignatures.subList(0, Math.min(peerBlockSignatures.size(), maxBatchHeight - ourHeight)));
 
-			// Do we need more signatures?
-			if (peerBlockSignatures.isEmpty()) {
-				int numberRequested = Math.min(maxBatchHeight - ourHeight, MAXIMUM_REQUEST_SIZE);
+			while (ourHeight < peerHeight && ourHeight < maxBatchHeight) {
+				if (Controller.isStopping())
+					return SynchronizationResult.SHUTTING_DOWN;
 
-				LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
-						numberRequested, (numberRequested != 1 ? "s": ""), ourHeight, Base58.encode(latestPeerSignature)));
+				// Do we need more signatures?
+				if (peerBlockSignatures.isEmpty()) {
+					int numberRequested = Math.min(maxBatchHeight - ourHeight, MAXIMUM_REQUEST_SIZE);
 
-				peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
+					LOGGER.trace(String.format("Requesting %d signature%s after height %d, sig %.8s",
+							numberRequested, (numberRequested != 1 ? "s": ""), ourHeight, Base58.encode(latestPeerSignature)));
 
-				if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
-					LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
-							ourHeight, Base58.encode(latestPeerSignature)));
-					return SynchronizationResult.NO_REPLY;
-				}
+					peerBlockSignatures = this.getBlockSignatures(peer, latestPeerSignature, numberRequested);
 
-				LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
-			}
+					if (peerBlockSignatures == null || peerBlockSignatures.isEmpty()) {
+						LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
+								ourHeight, Base58.encode(latestPeerSignature)));
+						return SynchronizationResult.NO_REPLY;
+					}
 
-			latestPeerSignature = peerBlockSignatures.get(0);
-			peerBlockSignatures.remove(0);
-			++ourHeight;
+					LOGGER.trace(String.format("Received %s signature%s", peerBlockSignatures.size(), (peerBlockSignatures.size() != 1 ? "s" : "")));
 
-			LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
-			Block newBlock = this.fetchBlock(repository, peer, latestPeerSignature);
-			LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
+					blockFetchPipeline.prefetch(peerBlockSignatures);
+				}
 
-			if (newBlock == null) {
-				LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
-						ourHeight, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.NO_REPLY;
-			}
+				latestPeerSignature = peerBlockSignatures.get(0);
+				peerBlockSignatures.remove(0);
+				++ourHeight;
 
-			if (!newBlock.isSignatureValid()) {
-				LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
-						ourHeight, Base58.encode(latestPeerSignature)));
-				return SynchronizationResult.INVALID_DATA;
-			}
+				LOGGER.trace(String.format("Fetching block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
+				Block newBlock = blockFetchPipeline.take(latestPeerSignature);
+				LOGGER.trace(String.format("Fetched block %d, sig %.8s from %s", ourHeight, Base58.encode(latestPeerSignature), peer));
 
-			// Transactions are transmitted without approval status so determine that now
-			for (Transaction transaction : newBlock.getTransactions())
-				transaction.setInitialApprovalStatus();
+				if (newBlock == null) {
+					LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
+							ourHeight, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.NO_REPLY;
+				}
 
-			newBlock.preProcess();
+				if (!newBlock.isSignatureValid()) {
+					LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
+							ourHeight, Base58.encode(latestPeerSignature)));
+					return SynchronizationResult.INVALID_DATA;
+				}
 
-			ValidationResult blockResult = newBlock.isValid();
-			if (blockResult != ValidationResult.OK) {
-				LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
-						ourHeight, Base58.encode(latestPeerSignature), blockResult.name()));
-				this.addInvalidBlockSignature(newBlock.getSignature());
-				this.timeInvalidBlockLastReceived = NTP.getTime();
-				return SynchronizationResult.INVALID_DATA;
-			}
+				// Transactions are transmitted without approval status so determine that now
+				for (Transaction transaction : newBlock.getTransactions())
+					transaction.setInitialApprovalStatus();
 
-			// Block is valid
-			this.timeValidBlockLastReceived = NTP.getTime();
+				newBlock.preProcess();
 
-			// Save transactions attached to this block
-			for (Transaction transaction : newBlock.getTransactions()) {
-				TransactionData transactionData = transaction.getTransactionData();
-				repository.getTransactionRepository().save(transactionData);
-			}
+				// Validate block, then save its transactions and process it, without re-processing transactions if possible
+				ValidationResult blockResult = newBlock.validateAndProcess();
+				if (blockResult != ValidationResult.OK) {
+					LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
+							ourHeight, Base58.encode(latestPeerSignature), blockResult.name()));
+					this.addInvalidBlockSignature(newBlock.getSignature());
+					this.timeInvalidBlockLastReceived = NTP.getTime();
+					return SynchronizationResult.INVALID_DATA;
+				}
 
-			newBlock.process();
+				// Block was valid
+				this.timeValidBlockLastReceived = NTP.getTime();
 
-			LOGGER.trace(String.format("Processed block height %d, sig %.8s", newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getBlockData().getSignature())));
+				LOGGER.trace(String.format("Processed block height %d, sig %.8s", newBlock.getBlockData().getHeight(), Base58.encode(newBlock.getBlockData().getSignature())));
 
-			repository.saveChanges();
+				repository.saveChanges();
 
-			synchronized (this.syncLock) {
-				if (peer.getChainTipData() != null) {
-					this.blocksRemaining = peer.getChainTipData().getHeight() - newBlock.getBlockData().getHeight();
+				synchronized (this.syncLock) {
+					if (peer.getChainTipData() != null) {
+						this.blocksRemaining = peer.getChainTipData().getHeight() - newBlock.getBlockData().getHeight();
+					}
 				}
-			}
 
-			Controller.getInstance().onNewBlock(newBlock.getBlockData());
+				Controller.getInstance().onNewBlock(newBlock.getBlockData());
+			}
 		}
 
 		return SynchronizationResult.OK;
@@ -1608,11 +1621,103 @@ public class Synchronizer extends Thread {
 		return signaturesMessage.getSignatures();
 	}
 
-	private Block fetchBlock(Repository repository, Peer peer, byte[] signature) throws InterruptedException {
+	/** Returns pipeline fetching blocks, with signatures pre-verified, from sync peer and any other peers on the same chain. */
+	private BlockFetchPipeline newBlockFetchPipeline(Repository repository, Peer peer) {
+		final int pipelineDepth = Settings.getInstance().getSyncBlockPipelineDepth();
+
+		List<Peer> helperPeers = this.getBlockFetchHelperPeers(peer);
+		if (helperPeers.size() > pipelineDepth - 1)
+			helperPeers = helperPeers.subList(0, Math.max(0, pipelineDepth - 1));
+
+		BlockFetchPipeline.BlockFetcher fetcher = (fetchPeer, signature) -> {
+			// Helper peers' failures fall back to sync peer, so only sync peer is penalised
+			Block block = this.fetchBlock(repository, fetchPeer, signature, fetchPeer == peer);
+
+			if (block != null)
+				this.preVerifySignatures(block);
+
+			return block;
+		};
+
+		return new BlockFetchPipeline(peer, helperPeers, fetcher, this.blockFetchExecutor,
+				pipelineDepth, Settings.getInstance().getSyncBlockPipelineMemoryBudget());
+	}
+
+	/** Returns other suitable peers with the same chain tip as sync peer, in random order. */
+	private List<Peer> getBlockFetchHelperPeers(Peer peer) {
+		final BlockSummaryData peerChainTipData = peer.getChainTipData();
+		if (peerChainTipData == null)
+			return Collections.emptyList();
+
+		List<Peer> helperPeers = new ArrayList<>(Network.getInstance().getImmutableHandshakedPeers());
+		helperPeers.remove(peer);
+
+		helperPeers.removeIf(Controller.hasMisbehaved);
+		helperPeers.removeIf(Controller.hasOldVersion);
+		helperPeers.removeIf(helperPeer -> helperPeer.getChainTipData() == null
+				|| !Arrays.equals(helperPeer.getChainTipData().getSignature(), peerChainTipData.getSignature()));
+
+		Collections.shuffle(helperPeers);
+
+		return helperPeers;
+	}
+
+	/**
+	 * Verifies Ed25519 signatures of block's minter and transactions in parallel, caching results.
+	 * <p>
+	 * Doesn't return validity - that's still determined by {@link Block#isSignatureValid()},
+	 * which will then find most, if not all, of the expensive work already done.
+	 */
+	private void preVerifySignatures(Block block) throws InterruptedException {
+		List<Transaction> transactions;
+		try {
+			transactions = block.getTransactions();
+		} catch (DataException e) {
+			// Leave for Block.isSignatureValid() to deal with
+			return;
+		}
+
+		final int chunkSize = Math.max(MIN_SIGNATURES_PER_TASK, (transactions.size() + SIGNATURE_VERIFIER_THREAD_COUNT - 1) / SIGNATURE_VERIFIER_THREAD_COUNT);
+
+		List<Callable<Boolean>> tasks = new ArrayList<>();
+		tasks.add(block::isMinterSignatureValid);
+
+		for (int i = 0; i < transactions.size(); i += chunkSize) {
+			final List<Transaction> chunk = transactions.subList(i, Math.min(i + chunkSize, transactions.size()));
+
+			tasks.add(() -> {
+				boolean allValid = true;
+
+				for (Transaction transaction : chunk)
+					// AT transactions are generated locally, not signed by creator
+					if (transaction.getTransactionData().getType() != Transaction.TransactionType.AT)
+						allValid &= transaction.isCreatorSignatureValid();
+
+				return allValid;
+			});
+		}
+
+		try {
+			// Results are cached in block/transactions; any exceptions will recur when checked properly
+			this.signatureVerifierExecutor.invokeAll(tasks);
+		} catch (RejectedExecutionException e) {
+			// Shutting down - leave for Block.isSignatureValid()
+		}
+	}
+
+	/**
+	 * Fetches block from peer.
+	 *
+	 * @param isSyncPeer whether <tt>peer</tt> is the peer we're syncing with, whose failed sync count is tracked
+	 */
+	private Block fetchBlock(Repository repository, Peer peer, byte[] signature, boolean isSyncPeer) throws InterruptedException {
 		Message getBlockMessage = new GetBlockMessage(signature);
 
 		Message message = peer.getResponse(getBlockMessage);
 		if (message == null) {
+			if (!isSyncPeer)
+				return null;
+
 			peer.getPeerData().incrementFailedSyncCount();
 			if (peer.getPeerData().getFailedSyncCount() >= MAX_CONSECUTIVE_FAILED_SYNC_ATTEMPTS) {
 				// Several failed attempts, so mark peer as misbehaved
@@ -1625,7 +1730,8 @@ public class Synchronizer extends Thread {
 		// Reset failed sync count now that we have a block response
 		// FUTURE: we could move this to the end of the sync process, but to reduce risk this can be done
 		// at a later stage. For now we are only defending against serialization errors or no responses.
-		peer.getPeerData().setFailedSyncCount(0);
+		if (isSyncPeer)
+			peer.getPeerData().setFailedSyncCount(0);
 
 		switch (message.getType()) {
 			case BLOCK: {
@@ -47,9 +47,6 @@ public class TransactionImporter extends Thread {
     /** Map of recent invalid unconfirmed transactions. Key is base58 transaction signature, value is do-not-request expiry timestamp. */
     private final Map<String, Long> invalidUnconfirmedTransactions = Collections.synchronizedMap(new HashMap<>());
 
-    /** Cached list of unconfirmed transactions, used when counting per creator. This is replaced regularly */
-    public static List<TransactionData> unconfirmedTransactionsCache = null;
-
 
     public static synchronized TransactionImporter getInstance() {
         if (instance == null) {
@@ -251,12 +248,6 @@ public class TransactionImporter extends Thread {
         int processedCount = 0;
         try (final Repository repository = RepositoryManager.getRepository()) {
 
-            // Use a single copy of the unconfirmed transactions list for each cycle, to speed up constant lookups
-            // when counting unconfirmed transactions by creator.
-            List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-            unconfirmedTransactions.removeIf(t -> t.getType() == Transaction.TransactionType.CHAT);
-            unconfirmedTransactionsCache = unconfirmedTransactions;
-
             // A list of signatures were imported in this round
             List<byte[]> newlyImportedSignatures = new ArrayList<>();
 
@@ -293,11 +284,6 @@ public class TransactionImporter extends Thread {
                         case OK: {
                             LOGGER.debug(() -> String.format("Imported %s transaction %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature())));
 
-                            // Add to the unconfirmed transactions cache
-                            if (transactionData.getType() != Transaction.TransactionType.CHAT && unconfirmedTransactionsCache != null) {
-                                unconfirmedTransactionsCache.add(transactionData);
-                            }
-
                             // Signature imported in this round
                             newlyImportedSignatures.add(transactionData.getSignature());
 
@@ -338,9 +324,6 @@ public class TransactionImporter extends Thread {
             } finally {
                 LOGGER.debug("Finished importing {} incoming transaction{}", processedCount, (processedCount == 1 ? "" : "s"));
                 blockchainLock.unlock();
-
-                // Clear the unconfirmed transaction cache so new data can be populated in the next cycle
-                unconfirmedTransactionsCache = null;
             }
         } catch (DataException e) {
             LOGGER.error("Repository issue while importing incoming transactions", e);
@@ -141,6 +141,9 @@ public class ArbitraryDataCacheManager extends Thread {
             // Skip if already built
             if (!needsArbitraryResourcesCacheRebuild(repository) && !forceRebuild) {
                 LOGGER.debug("Arbitrary resources cache already built");
+
+                // The search index may still need building, e.g. after upgrading
+                buildArbitrarySearchIndex(repository);
                 return false;
             }
 
@@ -194,6 +197,30 @@ public class ArbitraryDataCacheManager extends Thread {
         }
     }
 
+    private void buildArbitrarySearchIndex(Repository repository) throws DataException {
+        if (!repository.getArbitraryRepository().needsSearchIndexRebuild()) {
+            LOGGER.debug("Arbitrary search index already built");
+            return;
+        }
+
+        try {
+            LOGGER.info("Building arbitrary search index...");
+            SplashFrame.getInstance().updateStatus("Building QDN search index - please wait...");
+
+            repository.getArbitraryRepository().rebuildSearchIndex();
+            repository.saveChanges();
+
+            LOGGER.info("Completed build of arbitrary search index.");
+        }
+        catch (DataException e) {
+            LOGGER.info("Unable to build arbitrary search index: {}", e.getMessage());
+
+            // Throw an exception so that the node startup is halted, allowing for a retry next time.
+            repository.discardChanges();
+            throw new DataException("Build of arbitrary search index failed.");
+        }
+    }
+
     private boolean refreshArbitraryStatuses(Repository repository) throws DataException {
         try {
             LOGGER.info("Refreshing arbitrary resource statuses for locally hosted transactions...");
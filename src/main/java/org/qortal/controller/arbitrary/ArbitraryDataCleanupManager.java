@@ -386,6 +386,11 @@ public class ArbitraryDataCleanupManager extends Thread {
 			// If it's a file, we might be able to delete it
 			if (randomItem.isFile()) {
 
+				// The storage ledger isn't hosted data
+				if (randomItem.getName().startsWith(ArbitraryDataStorageLedger.LEDGER_FILENAME)) {
+					return false;
+				}
+
 				// If the parent directory contains an ".original" file, don't delete anything
 				// This indicates that the content was originally updated by this node and so
 				// could be the only copy that exists.
@@ -424,6 +429,7 @@ public class ArbitraryDataCleanupManager extends Thread {
 				LOGGER.info("Deleting random file {} because we have reached max storage capacity...", randomItem.toString());
 				boolean success = randomItem.delete();
 				if (success) {
+					ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileDeleted(randomItem.toPath());
 					try {
 						FilesystemUtils.safeDeleteEmptyParentDirectories(randomItem.toPath().getParent());
 					} catch (IOException e) {
@@ -553,6 +559,7 @@ public class ArbitraryDataCleanupManager extends Thread {
 		LOGGER.info("Deleting directory {} due to reason: {}", directory, reason);
 		try {
 			FilesystemUtils.safeDeleteDirectory(directory.toPath(), true);
+			ArbitraryDataStorageManager.getInstance().getStorageLedger().onDirectoryDeleted(directory.toPath());
 			return true;
 		} catch (IOException e) {
 			LOGGER.debug("Unable to delete directory: {}", directory);
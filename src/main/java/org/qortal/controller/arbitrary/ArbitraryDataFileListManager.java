@@ -6,7 +6,6 @@ import org.qortal.arbitrary.ArbitraryDataFile;
 import org.qortal.arbitrary.ArbitraryDataFileChunk;
 import org.qortal.controller.Controller;
 import org.qortal.data.arbitrary.ArbitraryDirectConnectionInfo;
-import org.qortal.data.arbitrary.ArbitraryFileListResponseInfo;
 import org.qortal.data.arbitrary.ArbitraryRelayInfo;
 import org.qortal.data.transaction.ArbitraryTransactionData;
 import org.qortal.data.transaction.TransactionData;
@@ -26,7 +25,6 @@ import org.qortal.utils.Triple;
 
 import java.util.*;
 
-import static org.qortal.controller.arbitrary.ArbitraryDataFileManager.MAX_FILE_HASH_RESPONSES;
 
 public class ArbitraryDataFileListManager {
 
@@ -468,19 +466,11 @@ public class ArbitraryDataFileListManager {
             if (!isRelayRequest || !Settings.getInstance().isRelayModeEnabled()) {
                 Long now = NTP.getTime();
 
-                if (ArbitraryDataFileManager.getInstance().arbitraryDataFileHashResponses.size() < MAX_FILE_HASH_RESPONSES) {
+                if (now != null) {
                     // Keep track of the hashes this peer reports to have access to
-                    for (byte[] hash : hashes) {
-                        String hash58 = Base58.encode(hash);
-
-                        // Treat null request hops as 100, so that they are able to be sorted (and put to the end of the list)
-                        int requestHops = arbitraryDataFileListMessage.getRequestHops() != null ? arbitraryDataFileListMessage.getRequestHops() : 100;
-
-                        ArbitraryFileListResponseInfo responseInfo = new ArbitraryFileListResponseInfo(hash58, signature58,
-                                peer, now, arbitraryDataFileListMessage.getRequestTime(), requestHops);
-
-                        ArbitraryDataFileManager.getInstance().arbitraryDataFileHashResponses.add(responseInfo);
-                    }
+                    // Treat null request hops as 100, so that they are sorted after peers that report hops
+                    int requestHops = arbitraryDataFileListMessage.getRequestHops() != null ? arbitraryDataFileListMessage.getRequestHops() : 100;
+                    ArbitraryDataFileManager.getInstance().addFileHashResponses(peer, signature, hashes, requestHops, now);
                 }
 
                 // Keep track of the source peer, for direct connections
@@ -6,7 +6,6 @@ import org.apache.logging.log4j.Logger;
 import org.qortal.arbitrary.ArbitraryDataFile;
 import org.qortal.controller.Controller;
 import org.qortal.data.arbitrary.ArbitraryDirectConnectionInfo;
-import org.qortal.data.arbitrary.ArbitraryFileListResponseInfo;
 import org.qortal.data.arbitrary.ArbitraryRelayInfo;
 import org.qortal.data.network.PeerData;
 import org.qortal.data.transaction.ArbitraryTransactionData;
@@ -21,8 +20,8 @@ import org.qortal.utils.ArbitraryTransactionUtils;
 import org.qortal.utils.Base58;
 import org.qortal.utils.NTP;
 
-import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
@@ -38,17 +37,23 @@ public class ArbitraryDataFileManager extends Thread {
     /**
      * Map to keep track of our in progress (outgoing) arbitrary data file requests
      */
-    public Map<String, Long> arbitraryDataFileRequests = Collections.synchronizedMap(new HashMap<>());
+    public Map<String, Long> arbitraryDataFileRequests = new ConcurrentHashMap<>();
 
     /**
-     * Map to keep track of hashes that we might need to relay
+     * Map to keep track of hashes that we might need to relay, indexed by hash58
      */
-    public List<ArbitraryRelayInfo> arbitraryRelayMap = Collections.synchronizedList(new ArrayList<>());
+    private final ArbitraryRelayMap arbitraryRelayMap = new ArbitraryRelayMap(ArbitraryDataManager.ARBITRARY_RELAY_TIMEOUT);
 
     /**
-     * List to keep track of any arbitrary data file hash responses
+     * Map to keep track of which peers can supply which chunks, keyed by transaction signature58
      */
-    public final List<ArbitraryFileListResponseInfo> arbitraryDataFileHashResponses = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, ArbitraryDataFileSwarm> arbitraryDataFileSwarms = new ConcurrentHashMap<>();
+
+    /**
+     * Locks held while saving received files, picked by hash, so that duplicate responses
+     * for the same chunk (e.g. from a swarm's hedged requests) aren't written concurrently
+     */
+    private final Object[] fileSaveLocks = new Object[FILE_SAVE_LOCK_COUNT];
 
     /**
      * List to keep track of peers potentially available for direct connections, based on recent requests
@@ -65,8 +70,16 @@ public class ArbitraryDataFileManager extends Thread {
 
     public static int MAX_FILE_HASH_RESPONSES = 1000;
 
+    /** Number of threads making chunk requests on behalf of swarms */
+    private static final int REQUEST_THREAD_COUNT = 16;
+
+    private static final int FILE_SAVE_LOCK_COUNT = 64;
+
 
     private ArbitraryDataFileManager() {
+        for (int i = 0; i < this.fileSaveLocks.length; ++i) {
+            this.fileSaveLocks[i] = new Object();
+        }
     }
 
     public static ArbitraryDataFileManager getInstance() {
@@ -82,7 +95,7 @@ public class ArbitraryDataFileManager extends Thread {
 
         try {
             // Use a fixed thread pool to execute the arbitrary data file requests
-            int threadCount = 5;
+            int threadCount = REQUEST_THREAD_COUNT;
             ExecutorService arbitraryDataFileRequestExecutor = Executors.newFixedThreadPool(threadCount);
             for (int i = 0; i < threadCount; i++) {
                 arbitraryDataFileRequestExecutor.execute(new ArbitraryDataFileRequestThread());
@@ -111,8 +124,8 @@ public class ArbitraryDataFileManager extends Thread {
         arbitraryDataFileRequests.entrySet().removeIf(entry -> entry.getValue() == null || entry.getValue() < requestMinimumTimestamp);
 
         final long relayMinimumTimestamp = now - ArbitraryDataManager.getInstance().ARBITRARY_RELAY_TIMEOUT;
-        arbitraryRelayMap.removeIf(entry -> entry == null || entry.getTimestamp() == null || entry.getTimestamp() < relayMinimumTimestamp);
-        arbitraryDataFileHashResponses.removeIf(entry -> entry.getTimestamp() < relayMinimumTimestamp);
+        arbitraryRelayMap.expire(now);
+        arbitraryDataFileSwarms.values().removeIf(swarm -> swarm.cleanup(relayMinimumTimestamp));
 
         final long directConnectionInfoMinimumTimestamp = now - ArbitraryDataManager.getInstance().ARBITRARY_DIRECT_CONNECTION_INFO_TIMEOUT;
         directConnectionInfo.removeIf(entry -> entry.getTimestamp() < directConnectionInfoMinimumTimestamp);
@@ -123,72 +136,129 @@ public class ArbitraryDataFileManager extends Thread {
 
 
 
-    // Fetch data files by hash
-
-    public boolean fetchArbitraryDataFiles(Repository repository,
-                                           Peer peer,
-                                           byte[] signature,
-                                           ArbitraryTransactionData arbitraryTransactionData,
-                                           List<byte[]> hashes) throws DataException {
+    // Fetch data files by hash, from swarms of peers
 
-        // Load data file(s)
-        ArbitraryDataFile arbitraryDataFile = ArbitraryDataFile.fromTransactionData(arbitraryTransactionData);
-        boolean receivedAtLeastOneFile = false;
+    /**
+     * Records that <tt>peer</tt> can supply chunks with passed hashes, for transaction with passed signature.
+     * Hashes that we already hold locally are ignored.
+     */
+    public void addFileHashResponses(Peer peer, byte[] signature, List<byte[]> hashes, int requestHops, long now) throws DataException {
+        if (this.getPendingFileHashResponseCount() >= MAX_FILE_HASH_RESPONSES) {
+            return;
+        }
 
-        // Now fetch actual data from this peer
+        List<String> missingHashes = new ArrayList<>(hashes.size());
         for (byte[] hash : hashes) {
+            if (!ArbitraryDataFile.fromHash(hash, signature).exists()) {
+                missingHashes.add(Base58.encode(hash));
+            }
+        }
+
+        if (missingHashes.isEmpty()) {
+            return;
+        }
+
+        String signature58 = Base58.encode(signature);
+        ArbitraryDataFileSwarm swarm = arbitraryDataFileSwarms.computeIfAbsent(signature58, ArbitraryDataFileSwarm::new);
+        swarm.addHashes(peer, missingHashes, requestHops, now);
+    }
+
+    private int getPendingFileHashResponseCount() {
+        return arbitraryDataFileSwarms.values().stream().mapToInt(ArbitraryDataFileSwarm::getPendingCount).sum();
+    }
+
+    /**
+     * Returns next chunk request to make, or null if there's nothing to request right now.
+     * Swarms with the fewest outstanding requests are served first, so that concurrent downloads share request threads.
+     */
+    public ArbitraryDataFileSwarm.ChunkRequest nextChunkRequest(long now) {
+        List<ArbitraryDataFileSwarm> swarms = new ArrayList<>(arbitraryDataFileSwarms.values());
+        swarms.sort(Comparator.comparingInt(ArbitraryDataFileSwarm::getOutstandingRequestCount));
+
+        for (ArbitraryDataFileSwarm swarm : swarms) {
             if (isStopping) {
-                return false;
+                return null;
             }
-            String hash58 = Base58.encode(hash);
-            if (!arbitraryDataFile.chunkExists(hash)) {
-                // Only request the file if we aren't already requesting it from someone else
-                if (!arbitraryDataFileRequests.containsKey(Base58.encode(hash))) {
-                    LOGGER.debug("Requesting data file {} from peer {}", hash58, peer);
-                    Long startTime = NTP.getTime();
-                    ArbitraryDataFile receivedArbitraryDataFile = fetchArbitraryDataFile(peer, null, arbitraryTransactionData, signature, hash, null);
-                    Long endTime = NTP.getTime();
-                    if (receivedArbitraryDataFile != null) {
-                        LOGGER.debug("Received data file {} from peer {}. Time taken: {} ms", receivedArbitraryDataFile.getHash58(), peer, (endTime-startTime));
-                        receivedAtLeastOneFile = true;
-
-                        // Remove this hash from arbitraryDataFileHashResponses now that we have received it
-                        arbitraryDataFileHashResponses.remove(hash58);
-                    }
-                    else {
-                        LOGGER.debug("Peer {} didn't respond with data file {} for signature {}. Time taken: {} ms", peer, Base58.encode(hash), Base58.encode(signature), (endTime-startTime));
 
-                        // Remove this hash from arbitraryDataFileHashResponses now that we have failed to receive it
-                        arbitraryDataFileHashResponses.remove(hash58);
+            ArbitraryDataFileSwarm.ChunkRequest request = swarm.nextRequest(now);
+            if (request != null) {
+                return request;
+            }
+        }
+
+        return null;
+    }
 
-                        // Stop asking for files from this peer
-                        break;
-                    }
-                }
-                else {
-                    LOGGER.trace("Already requesting data file {} for signature {} from peer {}", arbitraryDataFile, Base58.encode(signature), peer);
-                }
+    /**
+     * Fetches chunk from the peer chosen by its swarm, and reports the outcome back to the swarm.
+     *
+     * @return true if chunk was received
+     */
+    public boolean fetchArbitraryDataFile(ArbitraryDataFileSwarm.ChunkRequest request, ArbitraryTransactionData arbitraryTransactionData) throws DataException {
+        ArbitraryDataFileSwarm swarm = request.getSwarm();
+        Peer peer = request.getPeer();
+        String hash58 = request.getHash58();
+        byte[] hash = Base58.decode(hash58);
+        byte[] signature = arbitraryTransactionData.getSignature();
+
+        // Load data file(s)
+        ArbitraryDataFile arbitraryDataFile = ArbitraryDataFile.fromTransactionData(arbitraryTransactionData);
+
+        if (arbitraryDataFile.chunkExists(hash)) {
+            // We already have a local copy
+            swarm.onResponse(request, 0, request.getRequestTimestamp());
+            return false;
+        }
+
+        LOGGER.debug("Requesting data file {} from peer {}", hash58, peer);
+        Long startTime = NTP.getTime();
+        ArbitraryDataFile receivedArbitraryDataFile = null;
+        try {
+            receivedArbitraryDataFile = fetchArbitraryDataFile(peer, null, arbitraryTransactionData, signature, hash, null);
+        } finally {
+            Long endTime = NTP.getTime();
+            long receivedBytes = receivedArbitraryDataFile != null ? receivedArbitraryDataFile.size() : -1;
+            swarm.onResponse(request, receivedBytes, endTime != null ? endTime : request.getRequestTimestamp());
+
+            if (receivedArbitraryDataFile != null) {
+                LOGGER.debug("Received data file {} from peer {}. Time taken: {} ms", receivedArbitraryDataFile.getHash58(), peer, (endTime-startTime));
             }
             else {
-                // Remove this hash from arbitraryDataFileHashResponses because we have a local copy
-                arbitraryDataFileHashResponses.remove(hash58);
+                LOGGER.debug("Peer {} didn't respond with data file {} for signature {}. Time taken: {} ms", peer, hash58, Base58.encode(signature), (endTime-startTime));
             }
         }
 
-        if (receivedAtLeastOneFile) {
-            // Invalidate the hosted transactions cache as we are now hosting something new
-            ArbitraryDataStorageManager.getInstance().invalidateHostedTransactionsCache();
+        if (receivedArbitraryDataFile == null) {
+            return false;
+        }
 
-            // Check if we have all the files we need for this transaction
-            if (arbitraryDataFile.allFilesExist()) {
+        // Invalidate the hosted transactions cache as we are now hosting something new
+        ArbitraryDataStorageManager.getInstance().invalidateHostedTransactionsCache();
 
-                // We have all the chunks for this transaction, so we should invalidate the transaction's name's
-                // data cache so that it is rebuilt the next time we serve it
-                ArbitraryDataManager.getInstance().invalidateCache(arbitraryTransactionData);
-            }
+        // Check if we have all the files we need for this transaction
+        if (arbitraryDataFile.allFilesExist()) {
+
+            // We have all the chunks for this transaction, so we should invalidate the transaction's name's
+            // data cache so that it is rebuilt the next time we serve it
+            ArbitraryDataManager.getInstance().invalidateCache(arbitraryTransactionData);
         }
 
-        return receivedAtLeastOneFile;
+        return true;
+    }
+
+    /**
+     * Returns true if we're currently downloading chunks for transaction with passed signature.
+     */
+    public boolean isDownloading(byte[] signature) {
+        ArbitraryDataFileSwarm swarm = arbitraryDataFileSwarms.get(Base58.encode(signature));
+        return swarm != null && swarm.getRemainingChunkCount() > 0;
+    }
+
+    /**
+     * Returns swarm downloading chunks for transaction with passed signature, or null if there isn't one.
+     */
+    public ArbitraryDataFileSwarm getSwarm(byte[] signature) {
+        return arbitraryDataFileSwarms.get(Base58.encode(signature));
     }
 
     private ArbitraryDataFile fetchArbitraryDataFile(Peer peer, Peer requestingPeer, ArbitraryTransactionData arbitraryTransactionData, byte[] signature, byte[] hash, Message originalMessage) throws DataException {
@@ -200,7 +270,10 @@ public class ArbitraryDataFileManager extends Thread {
         // Fetch the file if it doesn't exist locally
         if (!fileAlreadyExists) {
             LOGGER.debug(String.format("Fetching data file %.8s from peer %s", hash58, peer));
-            arbitraryDataFileRequests.put(hash58, NTP.getTime());
+            Long requestTimestamp = NTP.getTime();
+            if (requestTimestamp != null) {
+                arbitraryDataFileRequests.put(hash58, requestTimestamp);
+            }
             Message getArbitraryDataFileMessage = new GetArbitraryDataFileMessage(signature, hash);
 
             Message response = null;
@@ -248,7 +321,12 @@ public class ArbitraryDataFileManager extends Thread {
             }
         }
         else {
-            arbitraryDataFile.save();
+            synchronized (this.fileSaveLocks[Math.floorMod(hash58.hashCode(), this.fileSaveLocks.length)]) {
+                // A duplicate request for the same file may have saved it while we were waiting for our response
+                if (fileAlreadyExists || !existingFile.exists()) {
+                    arbitraryDataFile.save();
+                }
+            }
         }
 
         // If this is a metadata file then we need to update the cache
@@ -444,34 +522,10 @@ public class ArbitraryDataFileManager extends Thread {
 
     // Relays
 
-    private List<ArbitraryRelayInfo> getRelayInfoListForHash(String hash58) {
-        synchronized (arbitraryRelayMap) {
-            return arbitraryRelayMap.stream()
-                    .filter(relayInfo -> Objects.equals(relayInfo.getHash58(), hash58))
-                    .collect(Collectors.toList());
-        }
-    }
-
     private ArbitraryRelayInfo getOptimalRelayInfoEntryForHash(String hash58) {
         LOGGER.trace("Fetching relay info for hash: {}", hash58);
-        List<ArbitraryRelayInfo> relayInfoList = this.getRelayInfoListForHash(hash58);
-        if (relayInfoList != null && !relayInfoList.isEmpty()) {
-
-            // Remove any with null requestHops
-            relayInfoList.removeIf(r -> r.getRequestHops() == null);
-
-            // If list is now empty, then just return one at random
-            if (relayInfoList.isEmpty()) {
-                return this.getRandomRelayInfoEntryForHash(hash58);
-            }
-
-            // Sort by number of hops (lowest first)
-            relayInfoList.sort(Comparator.comparingInt(ArbitraryRelayInfo::getRequestHops));
-
-            // FUTURE: secondary sort by requestTime?
-
-            ArbitraryRelayInfo relayInfo = relayInfoList.get(0);
-
+        ArbitraryRelayInfo relayInfo = arbitraryRelayMap.getOptimal(hash58);
+        if (relayInfo != null) {
             LOGGER.trace("Returning optimal relay info for hash: {} (requestHops {})", hash58, relayInfo.getRequestHops());
             return relayInfo;
         }
@@ -479,37 +533,16 @@ public class ArbitraryDataFileManager extends Thread {
         return null;
     }
 
-    private ArbitraryRelayInfo getRandomRelayInfoEntryForHash(String hash58) {
-        LOGGER.trace("Fetching random relay info for hash: {}", hash58);
-        List<ArbitraryRelayInfo> relayInfoList = this.getRelayInfoListForHash(hash58);
-        if (relayInfoList != null && !relayInfoList.isEmpty()) {
-
-            // Pick random item
-            int index = new SecureRandom().nextInt(relayInfoList.size());
-            LOGGER.trace("Returning random relay info for hash: {} (index {})", hash58, index);
-            return relayInfoList.get(index);
-        }
-        LOGGER.trace("No relay info exists for hash: {}", hash58);
-        return null;
-    }
-
     public void addToRelayMap(ArbitraryRelayInfo newEntry) {
         if (newEntry == null || !newEntry.isValid()) {
             return;
         }
 
-        // Remove existing entry for this peer if it exists, to renew the timestamp
-        this.removeFromRelayMap(newEntry);
-
-        // Re-add
+        // Replaces any existing entry for this peer, to renew the timestamp
         arbitraryRelayMap.add(newEntry);
         LOGGER.debug("Added entry to relay map: {}", newEntry);
     }
 
-    private void removeFromRelayMap(ArbitraryRelayInfo entry) {
-        arbitraryRelayMap.removeIf(relayInfo -> relayInfo.equals(entry));
-    }
-
 
     // Peers requesting QDN data from us
 
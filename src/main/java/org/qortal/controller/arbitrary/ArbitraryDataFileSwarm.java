@@ -0,0 +1,313 @@
+package org.qortal.controller.arbitrary;
+
+import org.qortal.network.Peer;
+
+import java.util.*;
+
+/**
+ * Tracks which peers hold which of the missing chunks for a single arbitrary transaction,
+ * and hands out chunk requests spread across all of those peers.
+ * <p>
+ * Each peer has a window of at most {@link #PEER_WINDOW} outstanding <tt>GetArbitraryDataFileMessage</tt> requests.
+ * Chunks are assigned to the least busy peer holding them, with fewer request hops winning ties.
+ * <p>
+ * If a request has been outstanding for longer than {@link #SLOW_REQUEST_THRESHOLD} then the chunk is
+ * also requested from another peer, and whichever responds first wins. If a peer fails to supply a chunk then it
+ * isn't asked for that chunk again, and peers that fail repeatedly are dropped from the swarm.
+ * <p>
+ * Thread-safe.
+ */
+public class ArbitraryDataFileSwarm {
+
+    /** Maximum outstanding chunk requests per peer */
+    public static final int PEER_WINDOW = 4;
+
+    /** Outstanding requests older than this can be duplicated to a different peer */
+    public static final long SLOW_REQUEST_THRESHOLD = ArbitraryDataManager.ARBITRARY_REQUEST_TIMEOUT / 3; // ms
+
+    /** Maximum concurrent requests for the same chunk */
+    private static final int MAX_REQUESTS_PER_CHUNK = 2;
+
+    /** Number of consecutive failures before a peer is dropped from the swarm */
+    private static final int MAX_PEER_FAILURES = 3;
+
+    /** Period over which download throughput is measured */
+    private static final long THROUGHPUT_PERIOD = 10 * 1000L; // ms
+
+    public static class ChunkRequest {
+        private final ArbitraryDataFileSwarm swarm;
+        private final String hash58;
+        private final Peer peer;
+        private final long requestTimestamp;
+
+        private ChunkRequest(ArbitraryDataFileSwarm swarm, String hash58, Peer peer, long requestTimestamp) {
+            this.swarm = swarm;
+            this.hash58 = hash58;
+            this.peer = peer;
+            this.requestTimestamp = requestTimestamp;
+        }
+
+        public ArbitraryDataFileSwarm getSwarm() {
+            return this.swarm;
+        }
+
+        public String getSignature58() {
+            return this.swarm.getSignature58();
+        }
+
+        public String getHash58() {
+            return this.hash58;
+        }
+
+        public Peer getPeer() {
+            return this.peer;
+        }
+
+        public long getRequestTimestamp() {
+            return this.requestTimestamp;
+        }
+    }
+
+    private static class PeerState {
+        private int requestHops;
+        private long lastSeen;
+        private int outstandingRequests = 0;
+        private int consecutiveFailures = 0;
+
+        private PeerState(int requestHops, long lastSeen) {
+            this.requestHops = requestHops;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private final String signature58;
+
+    /** Peers known to hold each missing chunk, in the order chunks were announced */
+    private final Map<String, Set<Peer>> holdersByHash = new LinkedHashMap<>();
+    /** Peers that have failed to supply each missing chunk */
+    private final Map<String, Set<Peer>> failedPeersByHash = new HashMap<>();
+    /** Outstanding requests for each missing chunk */
+    private final Map<String, List<ChunkRequest>> requestsByHash = new HashMap<>();
+    private final Map<Peer, PeerState> peers = new HashMap<>();
+
+    /** Timestamps and sizes of recently received chunks, oldest first */
+    private final Deque<long[]> recentReceipts = new ArrayDeque<>();
+    private long totalBytesReceived = 0;
+
+    public ArbitraryDataFileSwarm(String signature58) {
+        this.signature58 = signature58;
+    }
+
+    public String getSignature58() {
+        return this.signature58;
+    }
+
+    /**
+     * Records that <tt>peer</tt> can supply chunks with passed hashes.
+     *
+     * @return number of new chunk-peer pairings
+     */
+    public synchronized int addHashes(Peer peer, List<String> hash58s, int requestHops, long now) {
+        PeerState peerState = this.peers.get(peer);
+        if (peerState == null) {
+            this.peers.put(peer, new PeerState(requestHops, now));
+        } else {
+            peerState.requestHops = Math.min(peerState.requestHops, requestHops);
+            peerState.lastSeen = now;
+        }
+
+        int added = 0;
+        for (String hash58 : hash58s)
+            if (this.holdersByHash.computeIfAbsent(hash58, h -> new LinkedHashSet<>()).add(peer))
+                added++;
+
+        return added;
+    }
+
+    /**
+     * Returns next chunk to request, and which peer to request it from, or null if nothing can be requested right now.
+     * <p>
+     * The returned request is counted as outstanding until passed to {@link #onResponse(ChunkRequest, long, long)}.
+     */
+    public synchronized ChunkRequest nextRequest(long now) {
+        for (Map.Entry<String, Set<Peer>> entry : this.holdersByHash.entrySet()) {
+            String hash58 = entry.getKey();
+            List<ChunkRequest> outstanding = this.requestsByHash.getOrDefault(hash58, Collections.emptyList());
+
+            if (!outstanding.isEmpty()) {
+                // Only worth asking someone else if all existing requests are slow
+                if (outstanding.size() >= MAX_REQUESTS_PER_CHUNK)
+                    continue;
+
+                boolean allSlow = outstanding.stream().allMatch(request -> now - request.requestTimestamp >= SLOW_REQUEST_THRESHOLD);
+                if (!allSlow)
+                    continue;
+            }
+
+            Peer peer = this.choosePeer(hash58, entry.getValue(), outstanding);
+            if (peer == null)
+                continue;
+
+            ChunkRequest request = new ChunkRequest(this, hash58, peer, now);
+            this.requestsByHash.computeIfAbsent(hash58, h -> new ArrayList<>(MAX_REQUESTS_PER_CHUNK)).add(request);
+            this.peers.get(peer).outstandingRequests++;
+
+            return request;
+        }
+
+        return null;
+    }
+
+    private Peer choosePeer(String hash58, Set<Peer> holders, List<ChunkRequest> outstanding) {
+        Set<Peer> failedPeers = this.failedPeersByHash.getOrDefault(hash58, Collections.emptySet());
+
+        Peer bestPeer = null;
+        PeerState bestPeerState = null;
+
+        for (Peer peer : holders) {
+            if (failedPeers.contains(peer) || peer.isStopping())
+                continue;
+
+            if (outstanding.stream().anyMatch(request -> request.peer == peer))
+                continue;
+
+            PeerState peerState = this.peers.get(peer);
+            if (peerState == null || peerState.outstandingRequests >= PEER_WINDOW)
+                continue;
+
+            if (bestPeerState == null
+                    || peerState.outstandingRequests < bestPeerState.outstandingRequests
+                    || (peerState.outstandingRequests == bestPeerState.outstandingRequests && peerState.requestHops < bestPeerState.requestHops)) {
+                bestPeer = peer;
+                bestPeerState = peerState;
+            }
+        }
+
+        return bestPeer;
+    }
+
+    /**
+     * Records outcome of a request previously returned by {@link #nextRequest(long)}.
+     * <p>
+     * Only the first outcome reported for each request is recorded, so failure can always be reported as a fallback.
+     *
+     * @param receivedBytes size of received chunk, or negative if peer failed to supply it
+     */
+    public synchronized void onResponse(ChunkRequest request, long receivedBytes, long now) {
+        String hash58 = request.hash58;
+
+        List<ChunkRequest> outstanding = this.requestsByHash.get(hash58);
+        if (outstanding == null || !outstanding.remove(request))
+            // Already reported
+            return;
+
+        if (outstanding.isEmpty())
+            this.requestsByHash.remove(hash58);
+
+        PeerState peerState = this.peers.get(request.peer);
+        if (peerState != null)
+            peerState.outstandingRequests = Math.max(0, peerState.outstandingRequests - 1);
+
+        if (receivedBytes >= 0) {
+            if (peerState != null)
+                peerState.consecutiveFailures = 0;
+
+            this.recentReceipts.addLast(new long[] { now, receivedBytes });
+            this.pruneReceipts(now);
+            this.totalBytesReceived += receivedBytes;
+
+            this.removeHash(hash58);
+            return;
+        }
+
+        // Chunk might have arrived via a duplicate request in the meantime
+        if (!this.holdersByHash.containsKey(hash58))
+            return;
+
+        this.failedPeersByHash.computeIfAbsent(hash58, h -> new HashSet<>()).add(request.peer);
+
+        if (peerState != null && ++peerState.consecutiveFailures >= MAX_PEER_FAILURES)
+            this.removePeer(request.peer);
+    }
+
+    private void removeHash(String hash58) {
+        this.holdersByHash.remove(hash58);
+        this.failedPeersByHash.remove(hash58);
+    }
+
+    private void removePeer(Peer peer) {
+        this.peers.remove(peer);
+
+        for (Set<Peer> holders : this.holdersByHash.values())
+            holders.remove(peer);
+    }
+
+    /**
+     * Drops peers we haven't heard from since <tt>minimumTimestamp</tt> and any chunks no longer held by anyone.
+     *
+     * @return true if swarm has nothing left to do and can be discarded
+     */
+    public synchronized boolean cleanup(long minimumTimestamp) {
+        this.peers.entrySet().removeIf(entry -> {
+            PeerState peerState = entry.getValue();
+            boolean expired = (peerState.lastSeen < minimumTimestamp && peerState.outstandingRequests == 0) || entry.getKey().isStopping();
+            if (expired)
+                this.holdersByHash.values().forEach(holders -> holders.remove(entry.getKey()));
+            return expired;
+        });
+
+        this.holdersByHash.entrySet().removeIf(entry -> {
+            String hash58 = entry.getKey();
+            if (this.requestsByHash.containsKey(hash58))
+                return false;
+
+            Set<Peer> failedPeers = this.failedPeersByHash.getOrDefault(hash58, Collections.emptySet());
+            boolean noUsefulHolders = entry.getValue().stream().allMatch(failedPeers::contains);
+            if (noUsefulHolders)
+                this.failedPeersByHash.remove(hash58);
+            return noUsefulHolders;
+        });
+
+        return this.holdersByHash.isEmpty() && this.requestsByHash.isEmpty();
+    }
+
+    /** Returns number of chunk-peer pairings still awaiting download. */
+    public synchronized int getPendingCount() {
+        return this.holdersByHash.values().stream().mapToInt(Set::size).sum();
+    }
+
+    public synchronized int getRemainingChunkCount() {
+        return this.holdersByHash.size();
+    }
+
+    public synchronized int getOutstandingRequestCount() {
+        return this.requestsByHash.values().stream().mapToInt(List::size).sum();
+    }
+
+    public synchronized int getPeerCount() {
+        return this.peers.size();
+    }
+
+    public synchronized long getTotalBytesReceived() {
+        return this.totalBytesReceived;
+    }
+
+    /** Returns download throughput, in bytes per second, over the last few seconds. */
+    public synchronized long getBytesPerSecond(long now) {
+        this.pruneReceipts(now);
+
+        long bytes = 0;
+        for (long[] receipt : this.recentReceipts)
+            bytes += receipt[1];
+
+        return bytes * 1000L / THROUGHPUT_PERIOD;
+    }
+
+    /** Drops receipts too old to count towards throughput. */
+    private void pruneReceipts(long now) {
+        final long minimumTimestamp = now - THROUGHPUT_PERIOD;
+        while (!this.recentReceipts.isEmpty() && this.recentReceipts.peekFirst()[0] < minimumTimestamp)
+            this.recentReceipts.removeFirst();
+    }
+
+}
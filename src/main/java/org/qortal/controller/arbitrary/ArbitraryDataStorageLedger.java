@@ -0,0 +1,600 @@
+package org.qortal.controller.arbitrary;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.qortal.data.transaction.ArbitraryTransactionData;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.transaction.Transaction;
+import org.qortal.utils.Base58;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Running totals of bytes stored in the QDN data directory, per signature directory and per name.
+ * <p>
+ * Totals are updated as files are saved or deleted, so quota checks and the hosted data listing
+ * don't need to walk the data directory. Files in the temp directory aren't included.
+ * <p>
+ * The ledger is saved to {@link #LEDGER_FILENAME} in the data directory, so that it disappears along
+ * with the data it describes. If it is missing or unreadable, it is rebuilt by walking the data directory.
+ * As files can be changed behind our back (or changes lost if the node stops without saving),
+ * the ledger is also rebuilt every {@link #RECONCILE_INTERVAL}.
+ * <p>
+ * Names are resolved lazily from the repository, as files are often written without a repository to hand.
+ * Per-name totals count each resource's data once: its chunks, or its complete file if there are no chunks,
+ * plus any metadata.
+ * <p>
+ * Thread-safe.
+ */
+public class ArbitraryDataStorageLedger {
+
+    private static final Logger LOGGER = LogManager.getLogger(ArbitraryDataStorageLedger.class);
+
+    public static final String LEDGER_FILENAME = ".storage-ledger.json";
+    private static final String LEDGER_TEMP_FILENAME = LEDGER_FILENAME + ".tmp";
+    private static final int LEDGER_VERSION = 2;
+
+    public static final long RECONCILE_INTERVAL = 24 * 60 * 60 * 1000L; // ms
+
+    private static class DirectoryEntry {
+        /** Directory, relative to data path, with '/' separators */
+        private final String directory;
+        /** Signature, if this is a signature directory, otherwise null */
+        private final String signature58;
+        private String name;
+        /** Filename of complete (unchunked) file, if known */
+        private String completeFilename;
+        /** Filename of metadata file, if known */
+        private String metadataFilename;
+        private boolean isNameResolved;
+        private final Map<String, Long> fileSizes = new HashMap<>();
+        private long totalSize;
+
+        private DirectoryEntry(String directory, String signature58) {
+            this.directory = directory;
+            this.signature58 = signature58;
+        }
+
+        /** Returns bytes to count against name: as totalSize, but without complete file if chunks are also present. */
+        private long getNameSize() {
+            if (this.completeFilename == null)
+                return this.totalSize;
+
+            Long completeFileSize = this.fileSizes.get(this.completeFilename);
+            if (completeFileSize == null)
+                return this.totalSize;
+
+            for (String filename : this.fileSizes.keySet())
+                if (this.isChunkFilename(filename))
+                    // Complete file is a second copy of the chunks' data
+                    return this.totalSize - completeFileSize;
+
+            return this.totalSize;
+        }
+
+        private boolean isChunkFilename(String filename) {
+            return !filename.equals(this.completeFilename) && !filename.equals(this.metadataFilename) && !filename.startsWith(".");
+        }
+    }
+
+    private final Path dataPath;
+    private final Path tempPath;
+
+    private final Object loadLock = new Object();
+    private volatile boolean isLoaded = false;
+
+    /** Entries by directory, guarded by 'this' */
+    private final Map<String, DirectoryEntry> directories = new HashMap<>();
+    /** Signature directory entries by signature58, guarded by 'this' */
+    private final Map<String, DirectoryEntry> signatures = new HashMap<>();
+    /** Bytes per resolved name, guarded by 'this' */
+    private final Map<String, Long> nameTotals = new HashMap<>();
+    private long totalSize;
+    private boolean isDirty;
+    private long lastReconcileTimestamp;
+
+    /** Paths changed while a reconciliation walk is in progress, or null if not reconciling */
+    private Set<Path> pathsChangedDuringRebuild;
+
+    public ArbitraryDataStorageLedger(Path dataPath, Path tempPath) {
+        this.dataPath = dataPath.toAbsolutePath().normalize();
+        this.tempPath = tempPath.toAbsolutePath().normalize();
+    }
+
+    /** Loads saved ledger, or builds it by walking the data directory, if not already done. */
+    public void ensureLoaded() {
+        if (this.isLoaded)
+            return;
+
+        synchronized (this.loadLock) {
+            if (this.isLoaded)
+                return;
+
+            if (!this.load()) {
+                LOGGER.info("Building storage ledger from data directory...");
+                this.rebuild(System.currentTimeMillis());
+            }
+
+            this.isLoaded = true;
+        }
+    }
+
+    // Updates
+
+    /** Records size of file that has been written or moved into data directory. */
+    public void onFileWritten(Path path) {
+        this.ensureLoaded();
+
+        path = path.toAbsolutePath().normalize();
+        String[] location = this.locate(path);
+        if (location == null)
+            return;
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            // Already gone
+            this.onFileDeleted(path);
+            return;
+        }
+
+        synchronized (this) {
+            this.notePathChanged(path);
+            this.putFile(location[0], location[1], size);
+        }
+    }
+
+    /** Removes file that has been deleted from data directory. */
+    public void onFileDeleted(Path path) {
+        this.ensureLoaded();
+
+        path = path.toAbsolutePath().normalize();
+        String[] location = this.locate(path);
+        if (location == null)
+            return;
+
+        synchronized (this) {
+            this.notePathChanged(path);
+            this.removeFile(location[0], location[1]);
+        }
+    }
+
+    /** Removes all files within directory that has been deleted from data directory. */
+    public void onDirectoryDeleted(Path path) {
+        this.ensureLoaded();
+
+        path = path.toAbsolutePath().normalize();
+        if (!path.startsWith(this.dataPath) || path.startsWith(this.tempPath))
+            return;
+
+        synchronized (this) {
+            this.notePathChanged(path);
+            this.removeDirectory(path);
+        }
+    }
+
+    /**
+     * Records details of signature directory's transaction, e.g. when looked up by caller anyway.
+     *
+     * @param name transaction's name, or null if unnamed
+     * @param completeHash58 hash of complete file, or null if not applicable
+     * @param metadataHash58 hash of metadata file, or null if none
+     */
+    public synchronized void setTransactionDetails(String signature58, String name, String completeHash58, String metadataHash58) {
+        DirectoryEntry entry = this.signatures.get(signature58);
+        if (entry == null || entry.isNameResolved)
+            return;
+
+        entry.name = name;
+        entry.completeFilename = completeHash58;
+        entry.metadataFilename = metadataHash58;
+        entry.isNameResolved = true;
+
+        long nameSize = entry.getNameSize();
+        if (name != null && nameSize != 0)
+            this.nameTotals.merge(name, nameSize, Long::sum);
+
+        this.isDirty = true;
+    }
+
+    /** Convenience version of {@link #setTransactionDetails(String, String, String, String)}. */
+    public void setTransactionDetails(ArbitraryTransactionData arbitraryTransactionData) {
+        String completeHash58 = null;
+        if (arbitraryTransactionData.getDataType() == ArbitraryTransactionData.DataType.DATA_HASH && arbitraryTransactionData.getData() != null)
+            completeHash58 = Base58.encode(arbitraryTransactionData.getData());
+
+        String metadataHash58 = arbitraryTransactionData.getMetadataHash() != null ? Base58.encode(arbitraryTransactionData.getMetadataHash()) : null;
+
+        this.setTransactionDetails(Base58.encode(arbitraryTransactionData.getSignature()), arbitraryTransactionData.getName(), completeHash58, metadataHash58);
+    }
+
+    private void putFile(String directory, String filename, long size) {
+        DirectoryEntry entry = this.directories.computeIfAbsent(directory, this::newEntry);
+        long previousNameSize = entry.getNameSize();
+
+        Long previousSize = entry.fileSizes.put(filename, size);
+        this.adjust(entry, size - (previousSize != null ? previousSize : 0L), previousNameSize);
+    }
+
+    private void removeFile(String directory, String filename) {
+        DirectoryEntry entry = this.directories.get(directory);
+        if (entry == null)
+            return;
+
+        long previousNameSize = entry.getNameSize();
+
+        Long previousSize = entry.fileSizes.remove(filename);
+        if (previousSize != null)
+            this.adjust(entry, -previousSize, previousNameSize);
+
+        if (entry.fileSizes.isEmpty()) {
+            this.directories.remove(directory);
+            if (entry.signature58 != null)
+                this.signatures.remove(entry.signature58);
+        }
+    }
+
+    private void removeDirectory(Path path) {
+        String prefix = this.dataPath.equals(path) ? "" : toKey(this.dataPath.relativize(path)) + "/";
+
+        List<DirectoryEntry> deletedEntries = new ArrayList<>();
+        for (DirectoryEntry entry : this.directories.values())
+            if ((entry.directory + "/").startsWith(prefix))
+                deletedEntries.add(entry);
+
+        for (DirectoryEntry entry : deletedEntries)
+            for (String filename : new ArrayList<>(entry.fileSizes.keySet()))
+                this.removeFile(entry.directory, filename);
+    }
+
+    private void adjust(DirectoryEntry entry, long delta, long previousNameSize) {
+        entry.totalSize += delta;
+        this.totalSize += delta;
+
+        long nameDelta = entry.getNameSize() - previousNameSize;
+        if (entry.isNameResolved && entry.name != null && nameDelta != 0)
+            this.nameTotals.compute(entry.name, (name, total) -> {
+                long newTotal = (total != null ? total : 0L) + nameDelta;
+                return newTotal != 0 ? newTotal : null;
+            });
+
+        this.isDirty = true;
+    }
+
+    private DirectoryEntry newEntry(String directory) {
+        DirectoryEntry entry = new DirectoryEntry(directory, signatureFromDirectory(directory));
+        if (entry.signature58 != null)
+            this.signatures.put(entry.signature58, entry);
+
+        return entry;
+    }
+
+    private void notePathChanged(Path path) {
+        if (this.pathsChangedDuringRebuild != null)
+            this.pathsChangedDuringRebuild.add(path);
+    }
+
+    // Queries
+
+    /** Returns total bytes stored in data directory, excluding temp directory. */
+    public long getTotalSize() {
+        this.ensureLoaded();
+
+        synchronized (this) {
+            return this.totalSize;
+        }
+    }
+
+    /** Returns bytes stored for transaction with passed signature. */
+    public long getSizeForSignature(String signature58) {
+        this.ensureLoaded();
+
+        synchronized (this) {
+            DirectoryEntry entry = this.signatures.get(signature58);
+            return entry != null ? entry.totalSize : 0L;
+        }
+    }
+
+    /** Returns bytes stored for transactions by passed name, resolving names of new signature directories first. */
+    public long getSizeForName(Repository repository, String name) {
+        this.resolveNames(repository);
+
+        synchronized (this) {
+            return this.nameTotals.getOrDefault(name, 0L);
+        }
+    }
+
+    /** Returns filenames stored in each signature directory, keyed by signature58. */
+    public Map<String, Set<String>> getHostedFilenames() {
+        this.ensureLoaded();
+
+        synchronized (this) {
+            Map<String, Set<String>> hostedFilenames = new HashMap<>(this.signatures.size());
+            for (DirectoryEntry entry : this.signatures.values())
+                hostedFilenames.put(entry.signature58, new HashSet<>(entry.fileSizes.keySet()));
+
+            return hostedFilenames;
+        }
+    }
+
+    private void resolveNames(Repository repository) {
+        this.ensureLoaded();
+
+        List<String> unresolvedSignatures = new ArrayList<>();
+        synchronized (this) {
+            for (DirectoryEntry entry : this.signatures.values())
+                if (!entry.isNameResolved)
+                    unresolvedSignatures.add(entry.signature58);
+        }
+
+        // Repository lookups are done without holding lock
+        for (String signature58 : unresolvedSignatures) {
+            try {
+                TransactionData transactionData = repository.getTransactionRepository().fromSignature(Base58.decode(signature58));
+
+                if (transactionData != null && transactionData.getType() == Transaction.TransactionType.ARBITRARY)
+                    this.setTransactionDetails((ArbitraryTransactionData) transactionData);
+                else
+                    this.setTransactionDetails(signature58, null, null, null);
+            } catch (DataException e) {
+                // Try again next time
+            }
+        }
+    }
+
+    // Reconciliation
+
+    public synchronized boolean isReconcileDue(long now) {
+        return now - this.lastReconcileTimestamp > RECONCILE_INTERVAL;
+    }
+
+    /**
+     * Rebuilds ledger by walking the data directory.
+     * <p>
+     * Files can still be saved or deleted during the walk; those paths are checked again once it completes.
+     */
+    public void rebuild(long now) {
+        synchronized (this) {
+            this.pathsChangedDuringRebuild = new HashSet<>();
+        }
+
+        Map<String, Map<String, Long>> fileSizesByDirectory = new HashMap<>();
+        try {
+            this.walkDataDirectory(fileSizesByDirectory);
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.info("Unable to walk through hosted data: {}", e.getMessage());
+
+            synchronized (this) {
+                this.pathsChangedDuringRebuild = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            // Keep transaction details we've already resolved
+            Map<String, DirectoryEntry> resolvedEntries = new HashMap<>();
+            for (DirectoryEntry entry : this.signatures.values())
+                if (entry.isNameResolved)
+                    resolvedEntries.put(entry.signature58, entry);
+
+            this.clear();
+
+            for (Map.Entry<String, Map<String, Long>> directoryFileSizes : fileSizesByDirectory.entrySet()) {
+                DirectoryEntry entry = this.directories.computeIfAbsent(directoryFileSizes.getKey(), this::newEntry);
+                DirectoryEntry resolvedEntry = entry.signature58 != null ? resolvedEntries.get(entry.signature58) : null;
+                if (resolvedEntry != null) {
+                    entry.name = resolvedEntry.name;
+                    entry.completeFilename = resolvedEntry.completeFilename;
+                    entry.metadataFilename = resolvedEntry.metadataFilename;
+                    entry.isNameResolved = true;
+                }
+
+                for (Map.Entry<String, Long> fileSize : directoryFileSizes.getValue().entrySet())
+                    this.putFile(entry.directory, fileSize.getKey(), fileSize.getValue());
+            }
+
+            Set<Path> changedPaths = this.pathsChangedDuringRebuild;
+            this.pathsChangedDuringRebuild = null;
+
+            for (Path path : changedPaths) {
+                String[] location = this.locate(path);
+
+                if (Files.isRegularFile(path) && location != null) {
+                    try {
+                        this.putFile(location[0], location[1], Files.size(path));
+                        continue;
+                    } catch (IOException e) {
+                        // Gone again, so remove below
+                    }
+                }
+
+                if (location != null)
+                    this.removeFile(location[0], location[1]);
+
+                // Could have been a directory
+                if (!Files.exists(path))
+                    this.removeDirectory(path);
+            }
+
+            this.lastReconcileTimestamp = now;
+            this.isDirty = true;
+
+            LOGGER.debug("Storage ledger rebuilt: {} bytes in {} directories", this.totalSize, this.directories.size());
+        }
+    }
+
+    private void walkDataDirectory(Map<String, Map<String, Long>> fileSizesByDirectory) throws IOException {
+        if (!Files.isDirectory(this.dataPath))
+            return;
+
+        try (Stream<Path> paths = Files.walk(this.dataPath)) {
+            paths.filter(Files::isRegularFile).forEach(path -> {
+                String[] location = this.locate(path.toAbsolutePath().normalize());
+                if (location == null)
+                    return;
+
+                try {
+                    long size = Files.size(path);
+                    fileSizesByDirectory.computeIfAbsent(location[0], directory -> new HashMap<>()).put(location[1], size);
+                } catch (IOException e) {
+                    // Deleted during walk
+                }
+            });
+        }
+    }
+
+    private void clear() {
+        this.directories.clear();
+        this.signatures.clear();
+        this.nameTotals.clear();
+        this.totalSize = 0L;
+    }
+
+    // Persistence
+
+    /** Saves ledger to data directory, if changed since last saved. */
+    public void saveIfDirty() {
+        if (!this.isLoaded)
+            return;
+
+        String json;
+        synchronized (this) {
+            if (!this.isDirty)
+                return;
+
+            json = this.toJson().toString();
+            this.isDirty = false;
+        }
+
+        Path ledgerPath = this.dataPath.resolve(LEDGER_FILENAME);
+        Path ledgerTempPath = this.dataPath.resolve(LEDGER_TEMP_FILENAME);
+        try {
+            Files.createDirectories(this.dataPath);
+            Files.write(ledgerTempPath, json.getBytes(StandardCharsets.UTF_8));
+            Files.move(ledgerTempPath, ledgerPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.info("Unable to save storage ledger: {}", e.getMessage());
+
+            synchronized (this) {
+                this.isDirty = true;
+            }
+        }
+    }
+
+    private JSONObject toJson() {
+        JSONObject directoriesJson = new JSONObject();
+        for (DirectoryEntry entry : this.directories.values()) {
+            JSONObject entryJson = new JSONObject();
+            if (entry.isNameResolved) {
+                entryJson.put("name", entry.name != null ? entry.name : JSONObject.NULL);
+                if (entry.completeFilename != null)
+                    entryJson.put("complete", entry.completeFilename);
+                if (entry.metadataFilename != null)
+                    entryJson.put("metadata", entry.metadataFilename);
+            }
+            entryJson.put("files", new JSONObject(entry.fileSizes));
+
+            directoriesJson.put(entry.directory, entryJson);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("version", LEDGER_VERSION);
+        json.put("lastReconcileTimestamp", this.lastReconcileTimestamp);
+        json.put("directories", directoriesJson);
+        return json;
+    }
+
+    /** Returns true if saved ledger was loaded. */
+    private boolean load() {
+        Path ledgerPath = this.dataPath.resolve(LEDGER_FILENAME);
+        if (!Files.exists(ledgerPath))
+            return false;
+
+        try {
+            JSONObject json = new JSONObject(new String(Files.readAllBytes(ledgerPath), StandardCharsets.UTF_8));
+            if (json.getInt("version") != LEDGER_VERSION)
+                return false;
+
+            synchronized (this) {
+                this.clear();
+
+                JSONObject directoriesJson = json.getJSONObject("directories");
+                for (String directory : directoriesJson.keySet()) {
+                    JSONObject entryJson = directoriesJson.getJSONObject(directory);
+                    DirectoryEntry entry = this.directories.computeIfAbsent(directory, this::newEntry);
+
+                    if (entryJson.has("name")) {
+                        entry.name = entryJson.isNull("name") ? null : entryJson.getString("name");
+                        entry.completeFilename = entryJson.optString("complete", null);
+                        entry.metadataFilename = entryJson.optString("metadata", null);
+                        entry.isNameResolved = true;
+                    }
+
+                    JSONObject filesJson = entryJson.getJSONObject("files");
+                    for (String filename : filesJson.keySet())
+                        this.putFile(directory, filename, filesJson.getLong(filename));
+                }
+
+                this.lastReconcileTimestamp = json.getLong("lastReconcileTimestamp");
+                this.isDirty = false;
+            }
+
+            return true;
+        } catch (IOException | JSONException e) {
+            LOGGER.info("Unable to load storage ledger: {}", e.getMessage());
+
+            synchronized (this) {
+                this.clear();
+            }
+            return false;
+        }
+    }
+
+    // Paths
+
+    /** Returns { directory key, filename } for file in data directory, or null if file isn't accounted for. */
+    private String[] locate(Path path) {
+        if (!path.startsWith(this.dataPath) || path.startsWith(this.tempPath))
+            return null;
+
+        Path relativePath = this.dataPath.relativize(path);
+        if (relativePath.getNameCount() < 2) {
+            // Files in the root of the data directory, such as the ledger itself, aren't QDN data
+            return null;
+        }
+
+        return new String[] { toKey(relativePath.getParent()), relativePath.getFileName().toString() };
+    }
+
+    private static String toKey(Path relativePath) {
+        StringJoiner joiner = new StringJoiner("/");
+        for (Path element : relativePath)
+            joiner.add(element.toString());
+
+        return joiner.toString();
+    }
+
+    /** Signature directories are data/<sig58[0:2]>/<sig58[2:4]>/<sig58> */
+    private static String signatureFromDirectory(String directory) {
+        String[] elements = directory.split("/");
+        if (elements.length != 3)
+            return null;
+
+        String signature58 = elements[2];
+        if (signature58.length() <= 32 || signature58.startsWith("_"))
+            return null;
+
+        return signature58;
+    }
+
+}
@@ -16,10 +16,7 @@ import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class ArbitraryDataStorageManager extends Thread {
@@ -38,9 +35,11 @@ public class ArbitraryDataStorageManager extends Thread {
     private volatile boolean isStopping = false;
 
     private Long storageCapacity = null;
-    private long totalDirectorySize = 0L;
+    private long tempDirectorySize = 0L;
     private long lastDirectorySizeCheck = 0;
 
+    private final ArbitraryDataStorageLedger storageLedger;
+
     private List<ArbitraryTransactionData> hostedTransactions;
 
     private String searchQuery;
@@ -60,6 +59,8 @@ public class ArbitraryDataStorageManager extends Thread {
     private static final long PER_NAME_STORAGE_MULTIPLIER = 4L;
 
     public ArbitraryDataStorageManager() {
+        this.storageLedger = new ArbitraryDataStorageLedger(Paths.get(Settings.getInstance().getDataPath()),
+                Paths.get(Settings.getInstance().getTempDataPath()));
     }
 
     public static ArbitraryDataStorageManager getInstance() {
@@ -87,11 +88,19 @@ public class ArbitraryDataStorageManager extends Thread {
                     continue;
                 }
 
+                // Occasionally rebuild the storage ledger, in case files have changed without us knowing
+                if (this.storageLedger.isReconcileDue(now)) {
+                    this.storageLedger.rebuild(now);
+                    this.invalidateHostedTransactionsCache();
+                }
+
                 // Check the total directory size if we haven't in a while
                 if (this.shouldCalculateDirectorySize(now)) {
                     this.calculateDirectorySize(now);
                 }
 
+                this.storageLedger.saveIfDirty();
+
                 Thread.sleep(59000);
             }
         } catch (InterruptedException e) {
@@ -102,9 +111,14 @@ public class ArbitraryDataStorageManager extends Thread {
     public void shutdown() {
         isStopping = true;
         this.interrupt();
+        this.storageLedger.saveIfDirty();
         instance = null;
     }
 
+    public ArbitraryDataStorageLedger getStorageLedger() {
+        return this.storageLedger;
+    }
+
     /**
      * Check if data relating to a transaction is allowed to
      * exist on this node, therefore making it a mirror for this data.
@@ -250,34 +264,31 @@ public class ArbitraryDataStorageManager extends Thread {
 
 
     public List<ArbitraryTransactionData> loadAllHostedTransactions(Repository repository) {
-        
+
         List<ArbitraryTransactionData> arbitraryTransactionDataList = new ArrayList<>();
 
-        // Find all hosted paths
-        List<Path> allPaths = this.findAllHostedPaths();
+        // Hosted signatures come from the storage ledger, rather than walking the data directory
+        Map<String, Set<String>> hostedFilenames = this.storageLedger.getHostedFilenames();
 
-        // Loop through each path and attempt to match it to a signature
-        for (Path path : allPaths) {
+        // Loop through each signature and attempt to match it to a transaction
+        for (Map.Entry<String, Set<String>> entry : hostedFilenames.entrySet()) {
             try {
-                String[] contents = path.toFile().list();
-                if (contents == null || contents.length == 0) {
-                    // Ignore empty directories
-                    continue;
-                }
+                String signature58 = entry.getKey();
+                Set<String> contents = entry.getValue();
 
-                String signature58 = path.getFileName().toString();
                 byte[] signature = Base58.decode(signature58);
                 TransactionData transactionData = repository.getTransactionRepository().fromSignature(signature);
                 if (transactionData == null || transactionData.getType() != Transaction.TransactionType.ARBITRARY) {
                     continue;
                 }
                 ArbitraryTransactionData arbitraryTransactionData = (ArbitraryTransactionData) transactionData;
+                this.storageLedger.setTransactionDetails(arbitraryTransactionData);
 
                 // Make sure to exclude metadata-only resources
                 if (arbitraryTransactionData.getMetadataHash() != null) {
-                    if (contents.length == 1) {
+                    if (contents.size() == 1) {
                         String metadataHash58 = Base58.encode(arbitraryTransactionData.getMetadataHash());
-                        if (Objects.equals(metadataHash58, contents[0])) {
+                        if (contents.contains(metadataHash58)) {
                             // We only have the metadata file for this resource, not the actual data, so exclude it
                             continue;
                         }
@@ -407,7 +418,6 @@ public class ArbitraryDataStorageManager extends Thread {
             return;
         }
 
-        long totalSize = 0;
         long remainingCapacity = 0;
 
         // Calculate remaining capacity
@@ -418,28 +428,22 @@ public class ArbitraryDataStorageManager extends Thread {
             return;
         }
 
-        // Calculate total size of data directory
-        LOGGER.trace("Calculating data directory size...");
-        Path dataDirectoryPath = Paths.get(Settings.getInstance().getDataPath());
-        if (dataDirectoryPath.toFile().exists()) {
-            totalSize += FileUtils.sizeOfDirectory(dataDirectoryPath.toFile());
-        }
-
-        // Add total size of temp directory, if it's not already inside the data directory
+        // Size of hosted data is kept up to date by the storage ledger, so only the temp directory needs walking
+        long tempSize = 0;
         Path tempDirectoryPath = Paths.get(Settings.getInstance().getTempDataPath());
         if (tempDirectoryPath.toFile().exists()) {
-            if (!FilesystemUtils.isChild(tempDirectoryPath, dataDirectoryPath)) {
-                LOGGER.trace("Calculating temp directory size...");
-                totalSize += FileUtils.sizeOfDirectory(dataDirectoryPath.toFile());
-            }
+            LOGGER.trace("Calculating temp directory size...");
+            tempSize = FileUtils.sizeOfDirectory(tempDirectoryPath.toFile());
         }
 
-        this.totalDirectorySize = totalSize;
+        this.tempDirectorySize = tempSize;
         this.lastDirectorySizeCheck = now;
 
-        // It's essential that used space (this.totalDirectorySize) is included in the storage capacity
+        long totalDirectorySize = this.getTotalDirectorySize();
+
+        // It's essential that used space (totalDirectorySize) is included in the storage capacity
         LOGGER.trace("Calculating total storage capacity...");
-        long storageCapacity = remainingCapacity + this.totalDirectorySize;
+        long storageCapacity = remainingCapacity + totalDirectorySize;
 
         // Make sure to limit the storage capacity if the user is overriding it in the settings
         if (Settings.getInstance().getMaxStorageCapacity() != null) {
@@ -447,7 +451,7 @@ public class ArbitraryDataStorageManager extends Thread {
         }
         this.storageCapacity = storageCapacity;
 
-        LOGGER.info("Total used: {} bytes, Total capacity: {} bytes", this.totalDirectorySize, this.storageCapacity);
+        LOGGER.info("Total used: {} bytes, Total capacity: {} bytes", totalDirectorySize, this.storageCapacity);
     }
 
     private long getRemainingUsableStorageCapacity() throws IOException {
@@ -460,8 +464,9 @@ public class ArbitraryDataStorageManager extends Thread {
         return dataDirectoryPath.toFile().getUsableSpace();
     }
 
+    /** Returns hosted data size, from the storage ledger, plus temp directory size as of the last directory size check. */
     public long getTotalDirectorySize() {
-        return this.totalDirectorySize;
+        return this.storageLedger.getTotalSize() + this.tempDirectorySize;
     }
 
     public boolean isStorageSpaceAvailable(double threshold) {
@@ -470,7 +475,7 @@ public class ArbitraryDataStorageManager extends Thread {
         }
 
         long maxStorageCapacity = (long)((double)this.storageCapacity * threshold);
-        return this.totalDirectorySize < maxStorageCapacity;
+        return this.getTotalDirectorySize() < maxStorageCapacity;
     }
 
     public boolean isStorageSpaceAvailableForName(Repository repository, String name, double threshold) {
@@ -495,20 +500,10 @@ public class ArbitraryDataStorageManager extends Thread {
             return true;
         }
 
-        long totalSizeForName = 0;
         long maxStoragePerName = this.storageCapacityPerName(threshold);
 
-        // Fetch all hosted transactions
-        List<ArbitraryTransactionData> hostedTransactions = this.listAllHostedTransactions(repository, null, null);
-        for (ArbitraryTransactionData transactionData : hostedTransactions) {
-            String transactionName = transactionData.getName();
-            if (!Objects.equals(name, transactionName)) {
-                // Transaction relates to a different name
-                continue;
-            }
-
-            totalSizeForName += transactionData.getSize();
-        }
+        // Bytes actually stored for this name, counting each resource's data once, plus metadata
+        long totalSizeForName = this.storageLedger.getSizeForName(repository, name);
 
         // Have we reached the limit for this name?
         return totalSizeForName <= maxStoragePerName;
@@ -0,0 +1,179 @@
+package org.qortal.controller.arbitrary;
+
+import org.qortal.data.arbitrary.ArbitraryRelayInfo;
+
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relay info, indexed by hash58, so that relay lookups for an incoming file request don't need to scan every entry.
+ * <p>
+ * Each hash keeps its entry with the fewest request hops to hand, so {@link #getOptimal(String)} is O(1).
+ * <p>
+ * Entries expire <tt>timeout</tt> ms after their timestamp. Expiry uses a timer wheel of one-second slots,
+ * so {@link #expire(long)} only visits entries that are due to expire rather than every entry.
+ * Renewed entries leave their old instance behind in the wheel, which is ignored when its slot comes round.
+ * <p>
+ * Thread-safe.
+ */
+public class ArbitraryRelayMap {
+
+    /** Timer wheel slot duration */
+    private static final long TICK = 1000L; // ms
+
+    private static class HashEntry {
+        private final Map<ArbitraryRelayInfo, ArbitraryRelayInfo> relayInfos = new HashMap<>(4);
+        /** Entry with fewest non-null request hops, or null if none have request hops */
+        private ArbitraryRelayInfo optimal;
+
+        private void recalculateOptimal() {
+            this.optimal = null;
+            for (ArbitraryRelayInfo relayInfo : this.relayInfos.values())
+                if (isBetter(relayInfo, this.optimal))
+                    this.optimal = relayInfo;
+        }
+
+        private static boolean isBetter(ArbitraryRelayInfo relayInfo, ArbitraryRelayInfo existing) {
+            if (relayInfo.getRequestHops() == null)
+                return false;
+
+            return existing == null || relayInfo.getRequestHops() < existing.getRequestHops();
+        }
+    }
+
+    private final long timeout;
+    private final Map<String, HashEntry> entriesByHash = new ConcurrentHashMap<>();
+    private final List<Queue<ArbitraryRelayInfo>> wheel;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Random random = new SecureRandom();
+
+    /** Last tick whose slot has been expired */
+    private volatile long lastExpiredTick = -1;
+
+    public ArbitraryRelayMap(long timeout) {
+        this.timeout = timeout;
+
+        // Enough slots that an entry is never more than one lap ahead of expiry
+        int slotCount = (int) (timeout / TICK) + 2;
+        this.wheel = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; ++i)
+            this.wheel.add(new ConcurrentLinkedQueue<>());
+    }
+
+    /** Adds relay info, replacing (and so renewing) any existing entry for the same hash, signature and peer. */
+    public void add(ArbitraryRelayInfo relayInfo) {
+        this.entriesByHash.compute(relayInfo.getHash58(), (hash58, entry) -> {
+            if (entry == null)
+                entry = new HashEntry();
+
+            synchronized (entry) {
+                ArbitraryRelayInfo previous = entry.relayInfos.put(relayInfo, relayInfo);
+                if (previous == null)
+                    this.size.incrementAndGet();
+
+                if (previous != null && previous == entry.optimal)
+                    entry.recalculateOptimal();
+                else if (HashEntry.isBetter(relayInfo, entry.optimal))
+                    entry.optimal = relayInfo;
+            }
+
+            return entry;
+        });
+
+        this.slotFor(relayInfo.getTimestamp()).add(relayInfo);
+    }
+
+    /** Removes passed relay info from the map, unless it has been replaced by a renewed entry. */
+    private void removeIfCurrent(ArbitraryRelayInfo relayInfo) {
+        this.entriesByHash.computeIfPresent(relayInfo.getHash58(), (hash58, entry) -> {
+            synchronized (entry) {
+                ArbitraryRelayInfo existing = entry.relayInfos.get(relayInfo);
+                if (existing != relayInfo)
+                    return entry;
+
+                entry.relayInfos.remove(relayInfo);
+                this.size.decrementAndGet();
+
+                if (relayInfo == entry.optimal)
+                    entry.recalculateOptimal();
+
+                return entry.relayInfos.isEmpty() ? null : entry;
+            }
+        });
+    }
+
+    /** Returns relay info with fewest request hops for passed hash, or a random entry if none have request hops, or null. */
+    public ArbitraryRelayInfo getOptimal(String hash58) {
+        HashEntry entry = this.entriesByHash.get(hash58);
+        if (entry == null)
+            return null;
+
+        synchronized (entry) {
+            if (entry.optimal != null)
+                return entry.optimal;
+
+            return this.pickRandom(entry);
+        }
+    }
+
+    private ArbitraryRelayInfo pickRandom(HashEntry entry) {
+        if (entry.relayInfos.isEmpty())
+            return null;
+
+        int index = this.random.nextInt(entry.relayInfos.size());
+        Iterator<ArbitraryRelayInfo> iterator = entry.relayInfos.values().iterator();
+        for (int i = 0; i < index; ++i)
+            iterator.next();
+
+        return iterator.next();
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    /** Removes entries with timestamps older than <tt>now - timeout</tt>, visiting only timer wheel slots that have become due. */
+    public synchronized void expire(long now) {
+        final long minimumTimestamp = now - this.timeout;
+
+        // Every entry in a slot up to, and including, this tick has a timestamp before minimumTimestamp
+        final long expiryTick = Math.floorDiv(minimumTimestamp, TICK) - 1;
+
+        // No need to visit any slot more than once
+        long tick = Math.max(this.lastExpiredTick + 1, expiryTick - this.wheel.size() + 1);
+
+        for (; tick <= expiryTick; ++tick) {
+            Queue<ArbitraryRelayInfo> slot = this.wheel.get(this.slotIndex(tick));
+
+            // Entries for a later lap of the wheel are put back
+            for (int remaining = slot.size(); remaining > 0; --remaining) {
+                ArbitraryRelayInfo relayInfo = slot.poll();
+                if (relayInfo == null)
+                    break;
+
+                if (relayInfo.getTimestamp() < minimumTimestamp)
+                    this.removeIfCurrent(relayInfo);
+                else
+                    slot.add(relayInfo);
+            }
+        }
+
+        this.lastExpiredTick = Math.max(this.lastExpiredTick, expiryTick);
+    }
+
+    private Queue<ArbitraryRelayInfo> slotFor(long timestamp) {
+        // Entries that are already due go into the next slot to be expired
+        long tick = Math.floorDiv(timestamp, TICK);
+        if (this.lastExpiredTick >= 0)
+            tick = Math.max(tick, this.lastExpiredTick + 1);
+        return this.wheel.get(this.slotIndex(tick));
+    }
+
+    private int slotIndex(long tick) {
+        return (int) Math.floorMod(tick, (long) this.wheel.size());
+    }
+
+}
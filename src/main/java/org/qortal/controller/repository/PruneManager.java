@@ -5,6 +5,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.controller.Controller;
 import org.qortal.data.block.BlockData;
+import org.qortal.repository.BlockArchiveReader;
 import org.qortal.repository.DataException;
 import org.qortal.repository.Repository;
 import org.qortal.settings.Settings;
@@ -117,6 +118,8 @@ public class PruneManager {
             Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive");
             if (archivePath.toFile().exists()) {
                 LOGGER.info("Deleting block archive because we are in top-only mode...");
+                // Release archive files first, so they can be deleted
+                BlockArchiveReader.getInstance().invalidateFileListCache();
                 FileUtils.deleteDirectory(archivePath.toFile());
             }
 
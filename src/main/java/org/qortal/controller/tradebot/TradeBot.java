@@ -686,6 +686,9 @@ public class TradeBot implements Listener {
 		List<CrossChainTradeData> updatedCrossChainTrades = new ArrayList<>(crossChainTrades);
 		int getMaxTradeOfferAttempts = Settings.getInstance().getMaxTradeOfferAttempts();
 
+		// Fetched on first use, then shared by all trades
+		List<TransactionData> unconfirmedMessages = null;
+
 		for (CrossChainTradeData crossChainTradeData : crossChainTrades) {
 			// We only care about trades in the OFFERING state
 			if (crossChainTradeData.mode != AcctMode.OFFERING) {
@@ -708,9 +711,10 @@ public class TradeBot implements Listener {
 			}
 
 			try {
-				List<TransactionData> transactions = repository.getTransactionRepository().getUnconfirmedTransactions(Arrays.asList(Transaction.TransactionType.MESSAGE), null, null, null, null);
+				if (unconfirmedMessages == null)
+					unconfirmedMessages = repository.getTransactionRepository().getUnconfirmedTransactions(Arrays.asList(Transaction.TransactionType.MESSAGE), null, null, null, null);
 
-				for (TransactionData transactionData : transactions) {
+				for (TransactionData transactionData : unconfirmedMessages) {
 					// Treat as failed if buy attempt was more than 60 mins ago (as it's still in the OFFERING state)
 					if (transactionData.getRecipient().equals(crossChainTradeData.qortalCreatorTradeAddress) && now - transactionData.getTimestamp() > 60*60*1000L) {
 						failedTrades.put(crossChainTradeData.qortalAtAddress, now);
@@ -15,11 +15,13 @@ import org.bitcoinj.wallet.KeyChain;
 import org.bitcoinj.wallet.SendRequest;
 import org.bitcoinj.wallet.Wallet;
 import org.qortal.crypto.Crypto;
+import org.qortal.data.crosschain.ForeignWalletAddressData;
 import org.qortal.settings.Settings;
 import org.qortal.utils.Amounts;
-import org.qortal.utils.BitTwiddling;
 import org.qortal.utils.NTP;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -42,15 +44,14 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 	protected String transactionsCacheXpub;
 	protected static long TRANSACTIONS_CACHE_TIMEOUT = 2 * 60 * 1000L; // 2 minutes
 
-	/** Keys that have been previously marked as fully spent,<br>
-	 * i.e. keys with transactions but with no unspent outputs. */
-	protected final Set<ECKey> spentKeys = Collections.synchronizedSet(new HashSet<>());
+	/** Recent block headers, for median block time and height lookups without asking servers every time */
+	protected final ForeignBlockHeaderStore blockHeaderStore;
 
-	/** How many wallet keys to generate in each batch. */
-	private static final int WALLET_KEY_LOOKAHEAD_INCREMENT = 3;
+	/** Checks wallet addresses for activity, caching results in the repository */
+	protected final BitcoinyWalletScanner walletScanner = new BitcoinyWalletScanner(this);
 
-	/** Byte offset into raw block headers to block timestamp. */
-	private static final int TIMESTAMP_OFFSET = 4 + 32 + 32;
+	/** How many wallet keys to generate in each batch. */
+	static final int WALLET_KEY_LOOKAHEAD_INCREMENT = 3;
 
 	protected Coin feePerKb;
 
@@ -63,6 +64,9 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 		this.feePerKb = feePerKb;
 
 		this.params = this.bitcoinjContext.getParams();
+
+		Path blockHeadersPath = Paths.get(Settings.getInstance().getForeignBlockHeadersPath(), blockchainProvider.getNetId() + ".headers");
+		this.blockHeaderStore = new ForeignBlockHeaderStore(blockchainProvider, blockHeadersPath);
 	}
 
 	// Getters & setters
@@ -141,19 +145,7 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 	 * @throws ForeignBlockchainException if error occurs
 	 */
 	public int getMedianBlockTime() throws ForeignBlockchainException {
-		int height = this.blockchainProvider.getCurrentHeight();
-
-		// Grab latest 11 blocks
-		List<byte[]> blockHeaders = this.blockchainProvider.getRawBlockHeaders(height - 11, 11);
-		if (blockHeaders.size() < 11)
-			throw new ForeignBlockchainException("Not enough blocks to determine median block time");
-
-		List<Integer> blockTimestamps = blockHeaders.stream().map(blockHeader -> BitTwiddling.intFromLEBytes(blockHeader, TIMESTAMP_OFFSET)).sorted((a, b) -> Integer.compare(b, a)).collect(Collectors.toList());
-
-		// Descending order
-
-        // Pick median
-		return blockTimestamps.get(5);
+		return this.blockHeaderStore.getMedianBlockTime();
 	}
 
 	/**
@@ -162,7 +154,7 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 	 * @throws ForeignBlockchainException if error occurs
 	 */
 	public int getBlockchainHeight() throws ForeignBlockchainException {
-        return this.blockchainProvider.getCurrentHeight();
+		return this.blockHeaderStore.getHeight();
 	}
 
 	/** Returns fee per transaction KB. To be overridden for testnet/regtest. */
@@ -260,13 +252,32 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 	public List<byte[]> getAddressTransactions(String base58Address) throws ForeignBlockchainException {
 		List<TransactionHash> transactionHashes = this.blockchainProvider.getAddressTransactions(addressToScriptPubKey(base58Address), false);
 
-		List<byte[]> rawTransactions = new ArrayList<>();
-		for (TransactionHash transactionInfo : transactionHashes) {
-			byte[] rawTransaction = this.blockchainProvider.getRawTransaction(HashCode.fromString(transactionInfo.txHash).asBytes());
-			rawTransactions.add(rawTransaction);
-		}
+		// Fetch all transactions in one go
+		List<String> txHashes = transactionHashes.stream().map(transactionInfo -> transactionInfo.txHash).collect(Collectors.toList());
+		return this.blockchainProvider.getRawTransactions(txHashes);
+	}
+
+	/**
+	 * Returns status hashes for passed addresses, in the same order, or null entries for addresses that have never been used.
+	 * <p>
+	 * An address' status hash changes whenever its history changes, including unconfirmed transactions.
+	 *
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	public List<String> getAddressStatuses(List<String> base58Addresses) throws ForeignBlockchainException {
+		List<byte[]> scriptPubKeys = base58Addresses.stream().map(this::addressToScriptPubKey).collect(Collectors.toList());
 
-		return rawTransactions;
+		int retries = 0;
+		ForeignBlockchainException e2 = null;
+		while (retries <= 3) {
+			try {
+				return this.blockchainProvider.getAddressStatuses(scriptPubKeys);
+			} catch (ForeignBlockchainException e) {
+				e2 = e;
+				retries++;
+			}
+		}
+		throw(e2);
 	}
 
 	/**
@@ -289,6 +300,26 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 		throw(e2);
 	}
 
+	/**
+	 * Returns transaction info for passed transaction hashes, in the same order, fetched together where possible.
+	 * <p>
+	 * @throws ForeignBlockchainException.NotFoundException if any transaction unknown
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	public List<BitcoinyTransaction> getTransactions(List<String> txHashes) throws ForeignBlockchainException {
+		int retries = 0;
+		ForeignBlockchainException e2 = null;
+		while (retries <= 3) {
+			try {
+				return this.blockchainProvider.getTransactions(txHashes);
+			} catch (ForeignBlockchainException e) {
+				e2 = e;
+				retries++;
+			}
+		}
+		throw(e2);
+	}
+
 	/**
 	 * Broadcasts raw transaction to network.
 	 * <p>
@@ -371,10 +402,10 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 	public Long getWalletBalance(String key58) throws ForeignBlockchainException {
 		long balance = 0L;
 
-		List<TransactionOutput> allUnspentOutputs = new ArrayList<>();
-		Set<String> walletAddresses = this.getWalletAddresses(key58);
-		for (String address : walletAddresses) {
-			allUnspentOutputs.addAll(this.getUnspentOutputs(address));
+		List<TransactionOutput> allUnspentOutputs;
+		synchronized (this) {
+			// Only used addresses, whose status changed since last time, are asked for unspent outputs
+			allUnspentOutputs = this.walletScanner.getUnspentOutputs(this.walletScanner.scan(key58));
 		}
 		for (TransactionOutput output : allUnspentOutputs) {
 			if (!output.isAvailableForSpending()) {
@@ -398,61 +429,29 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 				}
 			}
 
-			Context.propagate(bitcoinjContext);
-
-			Wallet wallet = walletFromDeterministicKey58(key58);
-			DeterministicKeyChain keyChain = wallet.getActiveKeyChain();
-
-			keyChain.setLookaheadSize(Bitcoiny.WALLET_KEY_LOOKAHEAD_INCREMENT);
-			keyChain.maybeLookAhead();
-
-			List<DeterministicKey> keys = new ArrayList<>(keyChain.getLeafKeys());
-
-			Set<BitcoinyTransaction> walletTransactions = new HashSet<>();
-			Set<String> keySet = new HashSet<>();
+			// Only addresses whose status changed since last scan have their history fetched
+			List<ForeignWalletAddressData> walletAddresses = this.walletScanner.scan(key58);
 
-			int unusedCounter = 0;
-			int ki = 0;
-			do {
-				boolean areAllKeysUnused = true;
+			Set<String> keySet = walletAddresses.stream().map(ForeignWalletAddressData::getAddress).collect(Collectors.toSet());
+			List<String> txHashes = walletAddresses.stream()
+					.flatMap(addressData -> addressData.getTxHashes().stream())
+					.distinct()
+					.collect(Collectors.toList());
 
-				for (; ki < keys.size(); ++ki) {
-					DeterministicKey dKey = keys.get(ki);
+			Set<BitcoinyTransaction> walletTransactions = new HashSet<>(this.getTransactions(txHashes));
 
-					// Check for transactions
-					Address address = Address.fromKey(this.params, dKey, ScriptType.P2PKH);
-					keySet.add(address.toString());
-					byte[] script = ScriptBuilder.createOutputScript(address).getProgram();
-
-					// Ask for transaction history - if it's empty then key has never been used
-					List<TransactionHash> historicTransactionHashes = this.getAddressTransactions(script, false);
-
-					if (!historicTransactionHashes.isEmpty()) {
-						areAllKeysUnused = false;
-
-						for (TransactionHash transactionHash : historicTransactionHashes)
-							walletTransactions.add(this.getTransaction(transactionHash.txHash));
-					}
-				}
-
-				if (areAllKeysUnused) {
-					// No transactions
-					if (unusedCounter >= Settings.getInstance().getGapLimit()) {
-						// ... and we've hit our search limit
-						break;
-					}
-					// We haven't hit our search limit yet so increment the counter and keep looking
-					unusedCounter += WALLET_KEY_LOOKAHEAD_INCREMENT;
-				} else {
-					// Some keys in this batch were used, so reset the counter
-					unusedCounter = 0;
-				}
-
-				// Generate some more keys
-				keys.addAll(generateMoreKeys(keyChain));
-
-				// Process new keys
-			} while (true);
+			// Fetch transactions spent by wallet transactions' inputs in one go, ready for convertToSimpleTransaction()
+			List<String> inputTxHashes = walletTransactions.stream()
+					.flatMap(t -> t.inputs.stream())
+					.map(input -> input.outputTxHash)
+					.distinct()
+					.collect(Collectors.toList());
+			try {
+				this.blockchainProvider.getTransactions(inputTxHashes);
+			} catch (ForeignBlockchainException e) {
+				// Fall back to fetching individually
+				LOGGER.trace("Failed to prefetch input transactions: {}", e.getMessage());
+			}
 
 			Comparator<SimpleTransaction> newestTimestampFirstComparator = Comparator.comparingLong(SimpleTransaction::getTimestamp).reversed();
 
@@ -503,59 +502,9 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 
 	public Set<String> getWalletAddresses(String key58) throws ForeignBlockchainException {
 		synchronized (this) {
-			Context.propagate(bitcoinjContext);
-
-			Wallet wallet = walletFromDeterministicKey58(key58);
-			DeterministicKeyChain keyChain = wallet.getActiveKeyChain();
-
-			keyChain.setLookaheadSize(Bitcoiny.WALLET_KEY_LOOKAHEAD_INCREMENT);
-			keyChain.maybeLookAhead();
-
-			List<DeterministicKey> keys = new ArrayList<>(keyChain.getLeafKeys());
-
-			Set<String> keySet = new HashSet<>();
-
-			int unusedCounter = 0;
-			int ki = 0;
-			do {
-				boolean areAllKeysUnused = true;
-
-				for (; ki < keys.size(); ++ki) {
-					DeterministicKey dKey = keys.get(ki);
-
-					// Check for transactions
-					Address address = Address.fromKey(this.params, dKey, ScriptType.P2PKH);
-					keySet.add(address.toString());
-					byte[] script = ScriptBuilder.createOutputScript(address).getProgram();
-
-					// Ask for transaction history - if it's empty then key has never been used
-					List<TransactionHash> historicTransactionHashes = this.getAddressTransactions(script, false);
-
-					if (!historicTransactionHashes.isEmpty()) {
-						areAllKeysUnused = false;
-					}
-				}
-
-				if (areAllKeysUnused) {
-					// No transactions
-					if (unusedCounter >= Settings.getInstance().getGapLimit()) {
-						// ... and we've hit our search limit
-						break;
-					}
-					// We haven't hit our search limit yet so increment the counter and keep looking
-					unusedCounter += WALLET_KEY_LOOKAHEAD_INCREMENT;
-				} else {
-					// Some keys in this batch were used, so reset the counter
-					unusedCounter = 0;
-				}
-
-				// Generate some more keys
-				keys.addAll(generateMoreKeys(keyChain));
-
-				// Process new keys
-			} while (true);
-
-			return keySet;
+			return this.walletScanner.scan(key58).stream()
+					.map(ForeignWalletAddressData::getAddress)
+					.collect(Collectors.toSet());
 		}
 	}
 
@@ -755,9 +704,30 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 			do {
 				boolean areAllKeysUnspent = true;
 
+				final int batchStart = ki;
+				List<String> batchAddresses = keys.subList(batchStart, keys.size()).stream()
+						.map(key -> Address.fromKey(this.bitcoiny.params, key, ScriptType.P2PKH).toString())
+						.collect(Collectors.toList());
+
+				// Check which keys have ever been used, all at once, rather than asking each key for history
+				List<String> statuses;
+				try {
+					statuses = this.bitcoiny.walletScanner.getStatuses(batchAddresses);
+				} catch (ForeignBlockchainException e) {
+					throw new UTXOProviderException("Unable to check wallet addresses for activity");
+				}
+
 				for (; ki < keys.size(); ++ki) {
 					ECKey key = keys.get(ki);
 
+					// Never used, so no unspent outputs
+					if (statuses.get(ki - batchStart) == null)
+						continue;
+
+					// Key has been used, even if all its outputs have been spent
+					this.wallet.getActiveKeyChain().markKeyAsUsed((DeterministicKey) key);
+					areAllKeysUnspent = false;
+
 					Address address = Address.fromKey(this.bitcoiny.params, key, ScriptType.P2PKH);
 					byte[] script = ScriptBuilder.createOutputScript(address).getProgram();
 
@@ -768,43 +738,6 @@ public abstract class Bitcoiny implements ForeignBlockchain {
 						throw new UTXOProviderException(String.format("Unable to fetch unspent outputs for %s", address));
 					}
 
-					/*
-					 * If there are no unspent outputs then either:
-					 * a) all the outputs have been spent
-					 * b) address has never been used
-					 *
-					 * For case (a) we want to remember not to check this address (key) again.
-					 */
-
-					if (unspentOutputs.isEmpty()) {
-						// If this is a known key that has been spent before, then we can skip asking for transaction history
-						if (this.bitcoiny.spentKeys.contains(key)) {
-							this.wallet.getActiveKeyChain().markKeyAsUsed((DeterministicKey) key);
-							areAllKeysUnspent = false;
-							continue;
-						}
-
-						// Ask for transaction history - if it's empty then key has never been used
-						List<TransactionHash> historicTransactionHashes;
-						try {
-							historicTransactionHashes = this.bitcoiny.blockchainProvider.getAddressTransactions(script, false);
-						} catch (ForeignBlockchainException e) {
-							throw new UTXOProviderException(String.format("Unable to fetch transaction history for %s", address));
-						}
-
-						if (!historicTransactionHashes.isEmpty()) {
-							// Fully spent key - case (a)
-							this.bitcoiny.spentKeys.add(key);
-							this.wallet.getActiveKeyChain().markKeyAsUsed((DeterministicKey) key);
-							areAllKeysUnspent = false;
-						}
-
-						continue;
-					}
-
-					// If we reach here, then there's definitely at least one unspent key
-					this.bitcoiny.spentKeys.remove(key);
-
 					for (UnspentOutput unspentOutput : unspentOutputs) {
 						List<TransactionOutput> transactionOutputs;
 						try {
@@ -1,7 +1,12 @@
 package org.qortal.crosschain;
 
 import cash.z.wallet.sdk.rpc.CompactFormats.CompactBlock;
+import com.google.common.hash.HashCode;
+import org.qortal.crypto.Crypto;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -19,6 +24,17 @@ public abstract class BitcoinyBlockchainProvider {
 	/** Returns current blockchain height. */
 	public abstract int getCurrentHeight() throws ForeignBlockchainException;
 
+	/** Returns current blockchain height with raw header of block at that height. Providers able to fetch both at once should override this. */
+	public ChainTip getChainTip() throws ForeignBlockchainException {
+		int height = this.getCurrentHeight();
+
+		List<byte[]> rawBlockHeaders = this.getRawBlockHeaders(height, 1);
+		if (rawBlockHeaders.isEmpty())
+			throw new ForeignBlockchainException.NetworkException("Missing block header for current blockchain height");
+
+		return new ChainTip(height, rawBlockHeaders.get(0));
+	}
+
 	/** Returns a list of compact blocks, starting at <tt>startHeight</tt> (inclusive), up to <tt>count</tt> max.
 	 * Used for Pirate/Zcash only. If ever needed for other blockchains, the response format will need to be
 	 * made generic. */
@@ -42,12 +58,57 @@ public abstract class BitcoinyBlockchainProvider {
 	/** Returns raw, serialized, transaction bytes given <tt>txHash</tt>. */
 	public abstract byte[] getRawTransaction(byte[] txHash) throws ForeignBlockchainException;
 
+	/** Returns raw, serialized, transactions given <tt>txHashes</tt>, in the same order. Providers able to fetch several at once should override this. */
+	public List<byte[]> getRawTransactions(List<String> txHashes) throws ForeignBlockchainException {
+		List<byte[]> rawTransactions = new ArrayList<>(txHashes.size());
+		for (String txHash : txHashes)
+			rawTransactions.add(this.getRawTransaction(txHash));
+
+		return rawTransactions;
+	}
+
 	/** Returns unpacked transaction given <tt>txHash</tt>. */
 	public abstract BitcoinyTransaction getTransaction(String txHash) throws ForeignBlockchainException;
 
+	/** Returns unpacked transactions given <tt>txHashes</tt>, in the same order. Providers able to fetch several at once should override this. */
+	public List<BitcoinyTransaction> getTransactions(List<String> txHashes) throws ForeignBlockchainException {
+		List<BitcoinyTransaction> transactions = new ArrayList<>(txHashes.size());
+		for (String txHash : txHashes)
+			transactions.add(this.getTransaction(txHash));
+
+		return transactions;
+	}
+
 	/** Returns list of transaction hashes (and heights) for address represented by <tt>scriptPubKey</tt>, optionally including unconfirmed transactions. */
 	public abstract List<TransactionHash> getAddressTransactions(byte[] scriptPubKey, boolean includeUnconfirmed) throws ForeignBlockchainException;
 
+	/**
+	 * Returns status hash for each address represented by <tt>scriptPubKeys</tt>, in the same order, or null entries for addresses with no history.
+	 * <p>
+	 * Status hashes change whenever an address' history changes, including unconfirmed transactions.
+	 * This default derives them from each address' history. Providers able to fetch statuses directly should override this.
+	 */
+	public List<String> getAddressStatuses(List<byte[]> scriptPubKeys) throws ForeignBlockchainException {
+		List<String> statuses = new ArrayList<>(scriptPubKeys.size());
+
+		for (byte[] scriptPubKey : scriptPubKeys) {
+			List<TransactionHash> transactionHashes = this.getAddressTransactions(scriptPubKey, INCLUDE_UNCONFIRMED);
+			if (transactionHashes.isEmpty()) {
+				statuses.add(null);
+				continue;
+			}
+
+			// Same form as ElectrumX: "tx_hash:height:" for each history entry
+			StringBuilder history = new StringBuilder();
+			for (TransactionHash transactionHash : transactionHashes)
+				history.append(transactionHash.txHash).append(':').append(transactionHash.height).append(':');
+
+			statuses.add(HashCode.fromBytes(Crypto.digest(history.toString().getBytes(StandardCharsets.UTF_8))).toString());
+		}
+
+		return statuses;
+	}
+
 	/** Returns list of BitcoinyTransaction objects for <tt>address</tt>, optionally including unconfirmed transactions. */
 	public abstract List<BitcoinyTransaction> getAddressBitcoinyTransactions(String address, boolean includeUnconfirmed) throws ForeignBlockchainException;
 
@@ -67,4 +128,10 @@ public abstract class BitcoinyBlockchainProvider {
 	public abstract Set<ChainableServer> getUselessServers();
 
 	public abstract ChainableServer getCurrentServer();
+
+	/** Returns servers currently connected, for providers that can use more than one server at once. */
+	public List<ChainableServer> getConnectedServers() {
+		ChainableServer currentServer = this.getCurrentServer();
+		return currentServer != null ? Collections.singletonList(currentServer) : Collections.emptyList();
+	}
 }
@@ -0,0 +1,323 @@
+package org.qortal.crosschain;
+
+import com.google.common.primitives.Bytes;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.script.Script.ScriptType;
+import org.bitcoinj.wallet.DeterministicKeyChain;
+import org.bitcoinj.wallet.Wallet;
+import org.qortal.crypto.Crypto;
+import org.qortal.data.crosschain.ForeignWalletAddressData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.settings.Settings;
+import org.qortal.utils.DaemonThreadFactory;
+import org.qortal.utils.NTP;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Scans HD wallet addresses for activity, checking many addresses concurrently.
+ * <p>
+ * Each address' status hash and confirmed transaction hashes are cached in the repository,
+ * so later scans, even after a restart, only fetch history for addresses whose status has changed.
+ * Unspent outputs are cached in memory against the status they were fetched for.
+ */
+class BitcoinyWalletScanner {
+
+	private static final Logger LOGGER = LogManager.getLogger(BitcoinyWalletScanner.class);
+
+	/** How many batches of {@link Bitcoiny#WALLET_KEY_LOOKAHEAD_INCREMENT} keys to derive and check in each step of a scan. */
+	private static final int BATCHES_PER_STEP = 4;
+
+	/** How many addresses to include in each request. Requests run concurrently. */
+	private static final int ADDRESSES_PER_REQUEST = 8;
+
+	private static final ExecutorService SCAN_EXECUTOR = Executors.newFixedThreadPool(4, new DaemonThreadFactory("Wallet-scanner"));
+
+	@FunctionalInterface
+	private interface AddressesFetcher<T> {
+		List<T> fetch(List<String> addresses) throws ForeignBlockchainException;
+	}
+
+	private static class UnspentOutputsEntry {
+		private final String status;
+		private final List<TransactionOutput> unspentOutputs;
+
+		private UnspentOutputsEntry(String status, List<TransactionOutput> unspentOutputs) {
+			this.status = status;
+			this.unspentOutputs = unspentOutputs;
+		}
+	}
+
+	private final Bitcoiny bitcoiny;
+
+	/** Unspent outputs by address, valid while address' status is unchanged */
+	private final Map<String, UnspentOutputsEntry> unspentOutputsCache = new ConcurrentHashMap<>();
+
+	BitcoinyWalletScanner(Bitcoiny bitcoiny) {
+		this.bitcoiny = bitcoiny;
+	}
+
+	/**
+	 * Returns every address scanned for wallet, in derivation order, with up-to-date status and transaction hashes.
+	 * <p>
+	 * Scanning continues until at least {@link Settings#getGapLimit()} keys past the last used key are found to be unused.
+	 * Keys are checked for use in the same batches as the original, one address at a time, walk,
+	 * so scanning stops at the same key, even though several batches are checked at once.
+	 *
+	 * @param key58 BIP32/HD extended private/public key
+	 * @throws ForeignBlockchainException if addresses could not be checked
+	 */
+	List<ForeignWalletAddressData> scan(String key58) throws ForeignBlockchainException {
+		Context.propagate(this.bitcoiny.bitcoinjContext);
+
+		Wallet wallet = this.bitcoiny.walletFromDeterministicKey58(key58);
+		DeterministicKeyChain keyChain = wallet.getActiveKeyChain();
+
+		keyChain.setLookaheadSize(Bitcoiny.WALLET_KEY_LOOKAHEAD_INCREMENT);
+		keyChain.maybeLookAhead();
+
+		String currencyCode = this.bitcoiny.getCurrencyCode();
+		byte[] walletId = this.getWalletId(key58);
+
+		Map<String, ForeignWalletAddressData> cachedAddressesByPath = this.loadCachedAddresses(currencyCode, walletId).stream()
+				.collect(Collectors.toMap(ForeignWalletAddressData::getKeyPath, addressData -> addressData));
+
+		List<ForeignWalletAddressData> scannedAddresses = new ArrayList<>();
+		List<ForeignWalletAddressData> changedAddresses = new ArrayList<>();
+
+		// First batch is initial lookahead keys
+		List<List<DeterministicKey>> keyBatches = new ArrayList<>();
+		keyBatches.add(new ArrayList<>(keyChain.getLeafKeys()));
+
+		int unusedCounter = 0;
+		scanning:
+		do {
+			// Generate some more keys
+			while (keyBatches.size() < BATCHES_PER_STEP)
+				keyBatches.add(Bitcoiny.generateMoreKeys(keyChain));
+
+			List<List<ForeignWalletAddressData>> batches = new ArrayList<>();
+			List<ForeignWalletAddressData> step = new ArrayList<>();
+
+			for (List<DeterministicKey> keyBatch : keyBatches) {
+				List<ForeignWalletAddressData> batch = new ArrayList<>(keyBatch.size());
+
+				for (DeterministicKey dKey : keyBatch) {
+					String keyPath = dKey.getPathAsString();
+
+					ForeignWalletAddressData addressData = cachedAddressesByPath.get(keyPath);
+					if (addressData == null) {
+						Address address = Address.fromKey(this.bitcoiny.params, dKey, ScriptType.P2PKH);
+						addressData = new ForeignWalletAddressData(currencyCode, walletId, keyPath, address.toString());
+					}
+
+					batch.add(addressData);
+				}
+
+				batches.add(batch);
+				step.addAll(batch);
+			}
+
+			// Check every batch in this step at once
+			changedAddresses.addAll(this.refresh(step));
+			keyBatches.clear();
+
+			// Process batches in order, as if checked one at a time
+			for (List<ForeignWalletAddressData> batch : batches) {
+				scannedAddresses.addAll(batch);
+
+				if (batch.stream().noneMatch(ForeignWalletAddressData::isUsed)) {
+					// No transactions
+					if (unusedCounter >= Settings.getInstance().getGapLimit()) {
+						// ... and we've hit our search limit
+						break scanning;
+					}
+					// We haven't hit our search limit yet so increment the counter and keep looking
+					unusedCounter += Bitcoiny.WALLET_KEY_LOOKAHEAD_INCREMENT;
+				} else {
+					// Some keys in this batch were used, so reset the counter
+					unusedCounter = 0;
+				}
+			}
+
+			// Process new keys
+		} while (true);
+
+		// Keys checked past the search limit are still worth caching
+		this.saveChangedAddresses(changedAddresses);
+
+		return scannedAddresses;
+	}
+
+	/**
+	 * Returns unspent outputs for passed, previously scanned, addresses.
+	 * <p>
+	 * Unused addresses are skipped, and cached outputs are reused for addresses whose status hasn't changed.
+	 */
+	List<TransactionOutput> getUnspentOutputs(List<ForeignWalletAddressData> addresses) throws ForeignBlockchainException {
+		List<TransactionOutput> unspentOutputs = new ArrayList<>();
+		Map<String, String> statusesToFetch = new HashMap<>();
+
+		for (ForeignWalletAddressData addressData : addresses) {
+			if (!addressData.isUsed())
+				continue;
+
+			UnspentOutputsEntry entry = this.unspentOutputsCache.get(addressData.getAddress());
+			if (entry != null && entry.status.equals(addressData.getStatus()))
+				unspentOutputs.addAll(entry.unspentOutputs);
+			else
+				statusesToFetch.put(addressData.getAddress(), addressData.getStatus());
+		}
+
+		List<String> addressesToFetch = new ArrayList<>(statusesToFetch.keySet());
+		List<List<TransactionOutput>> fetchedOutputs = fetchConcurrently(addressesToFetch, chunk -> {
+			List<List<TransactionOutput>> chunkOutputs = new ArrayList<>(chunk.size());
+			for (String address : chunk)
+				chunkOutputs.add(this.bitcoiny.getUnspentOutputs(address));
+
+			return chunkOutputs;
+		});
+
+		for (int i = 0; i < addressesToFetch.size(); ++i) {
+			String address = addressesToFetch.get(i);
+			List<TransactionOutput> addressOutputs = fetchedOutputs.get(i);
+
+			this.unspentOutputsCache.put(address, new UnspentOutputsEntry(statusesToFetch.get(address), addressOutputs));
+			unspentOutputs.addAll(addressOutputs);
+		}
+
+		return unspentOutputs;
+	}
+
+	/**
+	 * Returns status hashes for passed addresses, in the same order, or null entries for unused addresses.
+	 * <p>
+	 * Addresses are checked concurrently, several per request.
+	 */
+	List<String> getStatuses(List<String> addresses) throws ForeignBlockchainException {
+		return fetchConcurrently(addresses, this.bitcoiny::getAddressStatuses);
+	}
+
+	/**
+	 * Updates passed addresses with current status, fetching transaction hashes for those whose status changed.
+	 *
+	 * @return addresses that changed, or have never been saved
+	 */
+	private List<ForeignWalletAddressData> refresh(List<ForeignWalletAddressData> addresses) throws ForeignBlockchainException {
+		List<String> statuses = this.getStatuses(addresses.stream().map(ForeignWalletAddressData::getAddress).collect(Collectors.toList()));
+
+		List<ForeignWalletAddressData> changedAddresses = new ArrayList<>();
+		List<String> changedStatuses = new ArrayList<>();
+		for (int i = 0; i < addresses.size(); ++i) {
+			ForeignWalletAddressData addressData = addresses.get(i);
+			String status = statuses.get(i);
+
+			// Never-saved addresses have no timestamp
+			if (Objects.equals(status, addressData.getStatus()) && addressData.getUpdatedWhen() != 0)
+				continue;
+
+			changedAddresses.add(addressData);
+			changedStatuses.add(status);
+		}
+
+		if (changedAddresses.isEmpty())
+			return changedAddresses;
+
+		// Only used addresses have history worth fetching
+		List<String> usedAddresses = new ArrayList<>();
+		for (int i = 0; i < changedAddresses.size(); ++i)
+			if (changedStatuses.get(i) != null)
+				usedAddresses.add(changedAddresses.get(i).getAddress());
+
+		List<List<String>> histories = fetchConcurrently(usedAddresses, chunk -> {
+			List<List<String>> chunkHistories = new ArrayList<>(chunk.size());
+			for (String address : chunk)
+				chunkHistories.add(this.bitcoiny.getAddressTransactions(this.bitcoiny.addressToScriptPubKey(address), false).stream()
+						.map(TransactionHash::getTxHash)
+						.distinct()
+						.collect(Collectors.toList()));
+
+			return chunkHistories;
+		});
+
+		long now = Optional.ofNullable(NTP.getTime()).orElse(System.currentTimeMillis());
+		Iterator<List<String>> historyIterator = histories.iterator();
+		for (int i = 0; i < changedAddresses.size(); ++i) {
+			String status = changedStatuses.get(i);
+			List<String> txHashes = status != null ? historyIterator.next() : new ArrayList<>();
+
+			changedAddresses.get(i).update(status, txHashes, now);
+		}
+
+		return changedAddresses;
+	}
+
+	/** Returns results of passing <tt>addresses</tt>, in chunks, to <tt>fetcher</tt> on scanner threads, in the same order as <tt>addresses</tt>. */
+	private static <T> List<T> fetchConcurrently(List<String> addresses, AddressesFetcher<T> fetcher) throws ForeignBlockchainException {
+		List<Future<List<T>>> futures = new ArrayList<>();
+		for (int from = 0; from < addresses.size(); from += ADDRESSES_PER_REQUEST) {
+			List<String> chunk = addresses.subList(from, Math.min(from + ADDRESSES_PER_REQUEST, addresses.size()));
+			futures.add(SCAN_EXECUTOR.submit(() -> fetcher.fetch(chunk)));
+		}
+
+		List<T> results = new ArrayList<>(addresses.size());
+		try {
+			for (Future<List<T>> future : futures)
+				results.addAll(future.get());
+		} catch (ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+
+			if (e.getCause() instanceof ForeignBlockchainException)
+				throw (ForeignBlockchainException) e.getCause();
+
+			throw new ForeignBlockchainException(String.format("Unable to check wallet addresses: %s", e.getCause()));
+		} catch (InterruptedException e) {
+			futures.forEach(future -> future.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new ForeignBlockchainException("Interrupted while checking wallet addresses");
+		}
+
+		return results;
+	}
+
+	/** Returns ID for wallet, derived from public key and chain code, so that private and public keys share the same ID. */
+	private byte[] getWalletId(String key58) {
+		DeterministicKey dKey = DeterministicKey.deserializeB58(null, key58, this.bitcoiny.params);
+		return Crypto.digest(Bytes.concat(dKey.getPubKey(), dKey.getChainCode()));
+	}
+
+	private List<ForeignWalletAddressData> loadCachedAddresses(String currencyCode, byte[] walletId) {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			return repository.getCrossChainRepository().getForeignWalletAddresses(currencyCode, walletId);
+		} catch (DataException e) {
+			// Scan everything from scratch
+			LOGGER.warn("Unable to load cached {} wallet addresses: {}", currencyCode, e.getMessage());
+			return Collections.emptyList();
+		}
+	}
+
+	private void saveChangedAddresses(List<ForeignWalletAddressData> changedAddresses) {
+		if (changedAddresses.isEmpty())
+			return;
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			for (ForeignWalletAddressData addressData : changedAddresses)
+				repository.getCrossChainRepository().save(addressData);
+
+			repository.saveChanges();
+		} catch (DataException e) {
+			// Next scan will fetch these again
+			LOGGER.warn("Unable to save cached wallet addresses: {}", e.getMessage());
+		}
+	}
+
+}
@@ -0,0 +1,22 @@
+package org.qortal.crosschain;
+
+public class ChainTip {
+
+	public final int height;
+	/** Raw block header, trimmed to the standard 80 bytes */
+	public final byte[] rawBlockHeader;
+
+	public ChainTip(int height, byte[] rawBlockHeader) {
+		this.height = height;
+		this.rawBlockHeader = rawBlockHeader;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	public byte[] getRawBlockHeader() {
+		return this.rawBlockHeader;
+	}
+
+}
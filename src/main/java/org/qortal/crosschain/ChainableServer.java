@@ -5,6 +5,9 @@ public interface ChainableServer {
 
     long averageResponseTime();
 
+    /** Returns all response times recorded via {@link #addResponseTime(long)}, not just recent ones. */
+    ResponseTimeHistogram getResponseTimeHistogram();
+
     String getHostName();
 
     int getPort();
@@ -7,23 +7,24 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
 import org.qortal.crypto.Crypto;
-import org.qortal.crypto.TrustlessSSLSocketFactory;
 import org.qortal.utils.BitTwiddling;
 
-import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.net.SocketAddress;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-/** ElectrumX network support for querying Bitcoiny-related info like block headers, transaction outputs, etc. */
+/**
+ * ElectrumX network support for querying Bitcoiny-related info like block headers, transaction outputs, etc.
+ * <p>
+ * Calls are spread over a pool of connections to several servers, each of which can have many requests in flight,
+ * so callers don't queue behind each other. See {@link ElectrumXConnection}.
+ */
 public class ElectrumX extends BitcoinyBlockchainProvider {
 
 	private static final Logger LOGGER = LogManager.getLogger(ElectrumX.class);
@@ -45,6 +46,10 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 	private static final int RESPONSE_TIME_READINGS = 5;
 	private static final long MAX_AVG_RESPONSE_TIME = 2000L; // ms
 
+	/** Maximum number of servers to be connected to at once */
+	private static final int MAX_CONNECTIONS = 3;
+	private static final long RESPONSE_TIMEOUT = 30 * 1000L; // ms
+
 	public static class Server implements ChainableServer {
 		String hostname;
 
@@ -52,6 +57,7 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 
 		int port;
 		private final List<Long> responseTimes = new ArrayList<>();
+		private final ResponseTimeHistogram responseTimeHistogram = new ResponseTimeHistogram();
 
 		public Server(String hostname, ConnectionType connectionType, int port) {
 			this.hostname = hostname;
@@ -60,15 +66,21 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 		}
 
 		@Override
-		public void addResponseTime(long responseTime) {
+		public synchronized void addResponseTime(long responseTime) {
 			while (this.responseTimes.size() > RESPONSE_TIME_READINGS) {
 				this.responseTimes.remove(0);
 			}
 			this.responseTimes.add(responseTime);
+			this.responseTimeHistogram.add(responseTime);
+		}
+
+		@Override
+		public ResponseTimeHistogram getResponseTimeHistogram() {
+			return this.responseTimeHistogram;
 		}
 
 		@Override
-		public long averageResponseTime() {
+		public synchronized long averageResponseTime() {
 			if (this.responseTimes.size() < RESPONSE_TIME_READINGS) {
 				// Not enough readings yet
 				return 0L;
@@ -129,11 +141,22 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 	private final Map<Server.ConnectionType, Integer> defaultPorts = new EnumMap<>(Server.ConnectionType.class);
 	private Bitcoiny blockchain;
 
+	/** Guards servers and remainingServers */
 	private final Object serverLock = new Object();
-	private ChainableServer currentServer;
-	private Socket socket;
-	private Scanner scanner;
-	private int nextId = 1;
+	/** Held while connecting to another server, so other callers can carry on using existing connections */
+	private final ReentrantLock connectLock = new ReentrantLock();
+	private final List<ElectrumXConnection> connections = new CopyOnWriteArrayList<>();
+
+	/** Results of RPC calls, and the server that answered them */
+	private static class RpcResults {
+		private final ChainableServer server;
+		private final List<Object> results;
+
+		private RpcResults(ChainableServer server, List<Object> results) {
+			this.server = server;
+			this.results = results;
+		}
+	}
 
 	private static final int TX_CACHE_SIZE = 1000;
 	private final Map<String, BitcoinyTransaction> transactionCache = Collections.synchronizedMap(new LinkedHashMap<>(TX_CACHE_SIZE + 1, 0.75F, true) {
@@ -186,6 +209,33 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 		return ((Long) heightObj).intValue();
 	}
 
+	/**
+	 * Returns current blockchain height, and header of block at that height, in one round trip.
+	 * <p>
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	@Override
+	public ChainTip getChainTip() throws ForeignBlockchainException {
+		Object blockObj = this.rpc("blockchain.headers.subscribe");
+		if (!(blockObj instanceof JSONObject))
+			throw new ForeignBlockchainException.NetworkException("Unexpected output from ElectrumX blockchain.headers.subscribe RPC");
+
+		JSONObject blockJson = (JSONObject) blockObj;
+
+		Object heightObj = blockJson.get("height");
+		Object hexObj = blockJson.get("hex");
+
+		if (!(heightObj instanceof Long) || !(hexObj instanceof String))
+			throw new ForeignBlockchainException.NetworkException("Missing/invalid 'height' or 'hex' in JSON from ElectrumX blockchain.headers.subscribe RPC");
+
+		byte[] raw = HashCode.fromString((String) hexObj).asBytes();
+		if (raw.length < BLOCK_HEADER_LENGTH)
+			throw new ForeignBlockchainException.NetworkException("Unexpected raw header length in JSON from ElectrumX blockchain.headers.subscribe RPC");
+
+		// As with getRawBlockHeaders(), only the standard 80-byte header is kept (e.g. DOGE appends AuxPoW data)
+		return new ChainTip(((Long) heightObj).intValue(), Arrays.copyOf(raw, BLOCK_HEADER_LENGTH));
+	}
+
 	/**
 	 * Returns list of raw blocks, starting from <tt>startHeight</tt> inclusive.
 	 * <p>
@@ -360,9 +410,42 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 	 */
 	@Override
 	public byte[] getRawTransaction(String txHash) throws ForeignBlockchainException {
-		Object rawTransactionHex;
+		return this.getRawTransactions(Collections.singletonList(txHash)).get(0);
+	}
+
+	/**
+	 * Returns raw transaction for passed transaction hash.
+	 * <p>
+	 * NOTE: Do not mutate returned byte[]!
+	 *
+	 * @throws ForeignBlockchainException.NotFoundException if transaction not found
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	@Override
+	public byte[] getRawTransaction(byte[] txHash) throws ForeignBlockchainException {
+		return getRawTransaction(HashCode.fromBytes(txHash).toString());
+	}
+
+	/**
+	 * Returns raw transactions for passed transaction hashes, in the same order, fetched in one round trip.
+	 * <p>
+	 * NOTE: Do not mutate returned byte[]s!
+	 *
+	 * @throws ForeignBlockchainException.NotFoundException if any transaction not found
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	@Override
+	public List<byte[]> getRawTransactions(List<String> txHashes) throws ForeignBlockchainException {
+		if (txHashes.isEmpty())
+			return new ArrayList<>();
+
+		List<Object[]> paramsList = new ArrayList<>(txHashes.size());
+		for (String txHash : txHashes)
+			paramsList.add(new Object[] { txHash, false });
+
+		RpcResults rpcResults;
 		try {
-			rawTransactionHex = this.rpc("blockchain.transaction.get", txHash, false);
+			rpcResults = this.rpc("blockchain.transaction.get", paramsList);
 		} catch (ForeignBlockchainException.NetworkException e) {
 			// DaemonError({'code': -5, 'message': 'No such mempool or blockchain transaction. Use gettransaction for wallet transactions.'})
 			if (Integer.valueOf(-5).equals(e.getDaemonErrorCode()))
@@ -371,63 +454,98 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 			throw e;
 		}
 
-		if (!(rawTransactionHex instanceof String))
-			throw new ForeignBlockchainException.NetworkException("Expected hex string as raw transaction from ElectrumX blockchain.transaction.get RPC");
+		List<byte[]> rawTransactions = new ArrayList<>(txHashes.size());
+		for (Object rawTransactionHex : rpcResults.results) {
+			if (!(rawTransactionHex instanceof String))
+				throw new ForeignBlockchainException.NetworkException("Expected hex string as raw transaction from ElectrumX blockchain.transaction.get RPC");
 
-		return HashCode.fromString((String) rawTransactionHex).asBytes();
+			rawTransactions.add(HashCode.fromString((String) rawTransactionHex).asBytes());
+		}
+
+		return rawTransactions;
 	}
 
 	/**
-	 * Returns raw transaction for passed transaction hash.
+	 * Returns transaction info for passed transaction hash.
 	 * <p>
-	 * NOTE: Do not mutate returned byte[]!
-	 * 
 	 * @throws ForeignBlockchainException.NotFoundException if transaction not found
 	 * @throws ForeignBlockchainException if error occurs
 	 */
 	@Override
-	public byte[] getRawTransaction(byte[] txHash) throws ForeignBlockchainException {
-		return getRawTransaction(HashCode.fromBytes(txHash).toString());
+	public BitcoinyTransaction getTransaction(String txHash) throws ForeignBlockchainException {
+		return this.getTransactions(Collections.singletonList(txHash)).get(0);
 	}
 
 	/**
-	 * Returns transaction info for passed transaction hash.
+	 * Returns transaction info for passed transaction hashes, in the same order.
 	 * <p>
-	 * @throws ForeignBlockchainException.NotFoundException if transaction not found
+	 * Any transactions not already cached are fetched in one round trip.
+	 *
+	 * @throws ForeignBlockchainException.NotFoundException if any transaction not found
 	 * @throws ForeignBlockchainException if error occurs
 	 */
 	@Override
-	public BitcoinyTransaction getTransaction(String txHash) throws ForeignBlockchainException {
+	public List<BitcoinyTransaction> getTransactions(List<String> txHashes) throws ForeignBlockchainException {
 		// Check cache first
-		BitcoinyTransaction transaction = transactionCache.get(txHash);
-		if (transaction != null)
-			return transaction;
+		Map<String, BitcoinyTransaction> transactionsByHash = new HashMap<>();
+		List<String> uncachedTxHashes = new ArrayList<>();
+		for (String txHash : txHashes) {
+			BitcoinyTransaction transaction = transactionCache.get(txHash);
+			if (transaction != null)
+				transactionsByHash.put(txHash, transaction);
+			else if (!uncachedTxHashes.contains(txHash))
+				uncachedTxHashes.add(txHash);
+		}
 
-		Object transactionObj = null;
+		if (!uncachedTxHashes.isEmpty()) {
+			List<Object[]> paramsList = new ArrayList<>(uncachedTxHashes.size());
+			for (String txHash : uncachedTxHashes)
+				paramsList.add(new Object[] { txHash, true });
 
-		do {
-			try {
-				transactionObj = this.rpc("blockchain.transaction.get", txHash, true);
-			} catch (ForeignBlockchainException.NetworkException e) {
-				// DaemonError({'code': -5, 'message': 'No such mempool or blockchain transaction. Use gettransaction for wallet transactions.'})
-				if (Integer.valueOf(-5).equals(e.getDaemonErrorCode()))
-					throw new ForeignBlockchainException.NotFoundException(e.getMessage());
-
-				// Some servers also return non-standard responses like this:
-				// {"error":"verbose transactions are currently unsupported","id":3,"jsonrpc":"2.0"}
-				// We should probably not use this server any more
-				if (e.getServer() != null && e.getMessage() != null && e.getMessage().contains(VERBOSE_TRANSACTIONS_UNSUPPORTED_MESSAGE)) {
-					Server uselessServer = (Server) e.getServer();
-					LOGGER.trace(() -> String.format("Server %s doesn't support verbose transactions - barring use of that server", uselessServer));
-					this.uselessServers.add(uselessServer);
-					this.closeServer(uselessServer);
-					continue;
+			RpcResults rpcResults = null;
+
+			do {
+				try {
+					rpcResults = this.rpc("blockchain.transaction.get", paramsList);
+				} catch (ForeignBlockchainException.NetworkException e) {
+					// DaemonError({'code': -5, 'message': 'No such mempool or blockchain transaction. Use gettransaction for wallet transactions.'})
+					if (Integer.valueOf(-5).equals(e.getDaemonErrorCode()))
+						throw new ForeignBlockchainException.NotFoundException(e.getMessage());
+
+					// Some servers also return non-standard responses like this:
+					// {"error":"verbose transactions are currently unsupported","id":3,"jsonrpc":"2.0"}
+					// We should probably not use this server any more
+					if (e.getServer() != null && e.getMessage() != null && e.getMessage().contains(VERBOSE_TRANSACTIONS_UNSUPPORTED_MESSAGE)) {
+						Server uselessServer = (Server) e.getServer();
+						LOGGER.trace(() -> String.format("Server %s doesn't support verbose transactions - barring use of that server", uselessServer));
+						this.uselessServers.add(uselessServer);
+						this.closeServer(uselessServer);
+						continue;
+					}
+
+					throw e;
 				}
+			} while (rpcResults == null);
 
-				throw e;
+			for (int i = 0; i < uncachedTxHashes.size(); ++i) {
+				String txHash = uncachedTxHashes.get(i);
+				BitcoinyTransaction transaction = this.parseTransaction(txHash, rpcResults.results.get(i), rpcResults.server);
+
+				// Save into cache
+				transactionCache.put(txHash, transaction);
+
+				transactionsByHash.put(txHash, transaction);
 			}
-		} while (transactionObj == null);
+		}
 
+		List<BitcoinyTransaction> transactions = new ArrayList<>(txHashes.size());
+		for (String txHash : txHashes)
+			transactions.add(transactionsByHash.get(txHash));
+
+		return transactions;
+	}
+
+	private BitcoinyTransaction parseTransaction(String txHash, Object transactionObj, ChainableServer server) throws ForeignBlockchainException {
 		if (!(transactionObj instanceof JSONObject))
 			throw new ForeignBlockchainException.NetworkException("Expected JSONObject as response from ElectrumX blockchain.transaction.get RPC");
 
@@ -494,9 +612,9 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 				// Update: it turns out that they were just using a different key - "address" instead of "addresses"
 				// The code below can remain in place, just in case a peer returns a missing address in the future
 				if (addresses == null || addresses.isEmpty()) {
-					if (this.currentServer != null) {
-						this.uselessServers.add(this.currentServer);
-						this.closeServer(this.currentServer);
+					if (server != null) {
+						this.uselessServers.add(server);
+						this.closeServer(server);
 					}
 					LOGGER.info("No output addresses returned for transaction {}", txHash);
 					throw new ForeignBlockchainException(String.format("No output addresses returned for transaction %s", txHash));
@@ -505,12 +623,7 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 				outputs.add(new BitcoinyTransaction.Output(scriptPubKey, value, addresses));
 			}
 
-			transaction = new BitcoinyTransaction(txHash, size, locktime, timestamp, inputs, outputs);
-
-			// Save into cache
-			transactionCache.put(txHash, transaction);
-
-			return transaction;
+			return new BitcoinyTransaction(txHash, size, locktime, timestamp, inputs, outputs);
 		} catch (NullPointerException | ClassCastException e) {
 			// Unexpected / invalid response from ElectrumX server
 		}
@@ -518,6 +631,40 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 		throw new ForeignBlockchainException.NetworkException("Unexpected JSON format from ElectrumX blockchain.transaction.get RPC");
 	}
 
+	/**
+	 * Returns status hash for each passed payment script, in the same order, or null entries for scripts with no history.
+	 * <p>
+	 * All statuses are fetched in one round trip.
+	 *
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	@Override
+	public List<String> getAddressStatuses(List<byte[]> scripts) throws ForeignBlockchainException {
+		if (scripts.isEmpty())
+			return new ArrayList<>();
+
+		List<Object[]> paramsList = new ArrayList<>(scripts.size());
+		for (byte[] script : scripts) {
+			byte[] scriptHash = Crypto.digest(script);
+			Bytes.reverse(scriptHash);
+
+			paramsList.add(new Object[] { HashCode.fromBytes(scriptHash).toString() });
+		}
+
+		// Subscribing is the only way to ask for status. Any later notifications are ignored by the connection.
+		RpcResults rpcResults = this.rpc("blockchain.scripthash.subscribe", paramsList);
+
+		List<String> statuses = new ArrayList<>(scripts.size());
+		for (Object statusObj : rpcResults.results) {
+			if (statusObj != null && !(statusObj instanceof String))
+				throw new ForeignBlockchainException.NetworkException("Unexpected output from ElectrumX blockchain.scripthash.subscribe RPC");
+
+			statuses.add((String) statusObj);
+		}
+
+		return statuses;
+	}
+
 	/**
 	 * Returns list of transactions, relating to passed payment script.
 	 * <p>
@@ -574,14 +721,14 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 	// Class-private utility methods
 
 	/**
-	 * Query current server for its list of peer servers, and return those we can parse.
+	 * Query server for its list of peer servers, and return those we can parse.
 	 * <p>
 	 * @throws ForeignBlockchainException Foreign Blockchain Exception
 	 */
-	private Set<Server> serverPeersSubscribe() throws ForeignBlockchainException {
+	private Set<Server> serverPeersSubscribe(ElectrumXConnection connection) throws ForeignBlockchainException {
 		Set<Server> newServers = new HashSet<>();
 
-		Object peers = this.connectedRpc("server.peers.subscribe");
+		Object peers = this.connectedRpc(connection, "server.peers.subscribe");
 
 		for (Object rawPeer : (JSONArray) Objects.requireNonNull(peers)) {
 			JSONArray peer = (JSONArray) rawPeer;
@@ -641,105 +788,224 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 	 * @throws ForeignBlockchainException if server returns error or something goes wrong
 	 */
 	private Object rpc(String method, Object...params) throws ForeignBlockchainException {
+		return this.rpc(method, Collections.singletonList(params)).results.get(0);
+	}
+
+	/**
+	 * Performs several calls to the same RPC method, sent to one server in one go, with automatic reconnection
+	 * to different server if needed.
+	 * <p>
+	 * @param paramsList params for each call
+	 * @return "result" objects from within JSON output, in the same order as <tt>paramsList</tt>
+	 * @throws ForeignBlockchainException if server returns error for any call, or something goes wrong
+	 */
+	private RpcResults rpc(String method, List<Object[]> paramsList) throws ForeignBlockchainException {
 		synchronized (this.serverLock) {
 			if (this.remainingServers.isEmpty())
-				this.remainingServers.addAll(this.servers);
+				this.refillRemainingServers();
+		}
 
-			while (haveConnection()) {
-				Object response = connectedRpc(method, params);
+		ElectrumXConnection connection;
+		while ((connection = this.getConnection()) != null) {
+			List<Object> results = this.connectedRpc(connection, method, paramsList);
 
-				// If we have more servers and this one replied slowly, try another
-				if (!this.remainingServers.isEmpty()) {
-					long averageResponseTime = this.currentServer.averageResponseTime();
-					if (averageResponseTime > MAX_AVG_RESPONSE_TIME) {
-						LOGGER.info("Slow average response time {}ms from {} - trying another server...", averageResponseTime, this.currentServer.getHostName());
-						this.closeServer();
-						break;
-					}
+			// If we have more servers and this one replies slowly, use another
+			if (this.hasRemainingServers()) {
+				long averageResponseTime = connection.getServer().averageResponseTime();
+				if (averageResponseTime > MAX_AVG_RESPONSE_TIME) {
+					LOGGER.info("Slow average response time {}ms from {} - trying another server...", averageResponseTime, connection.getServer().getHostName());
+					this.retireConnection(connection);
 				}
+			}
 
-				if (response != null)
-					return response;
+			if (results != null)
+				return new RpcResults(connection.getServer(), results);
 
-				// Didn't work, try another server...
-				this.closeServer();
-			}
+			// Didn't work, try another server...
+			this.closeConnection(connection);
+		}
+
+		// Failed to perform RPC - maybe lack of servers?
+		LOGGER.info("Error: No connected Electrum servers when trying to make RPC call");
+		throw new ForeignBlockchainException.NetworkException(String.format("Failed to perform ElectrumX RPC %s", method));
+	}
 
-			// Failed to perform RPC - maybe lack of servers?
-			LOGGER.info("Error: No connected Electrum servers when trying to make RPC call");
-			throw new ForeignBlockchainException.NetworkException(String.format("Failed to perform ElectrumX RPC %s", method));
+	/**
+	 * Returns least busy connection, or null if no servers can be reached.
+	 * <p>
+	 * If all connections are busy, another server is connected, up to {@link #MAX_CONNECTIONS},
+	 * unless another caller is already connecting one.
+	 */
+	private ElectrumXConnection getConnection() throws ForeignBlockchainException {
+		ElectrumXConnection connection = this.getLeastBusyConnection();
+		if (connection != null && (connection.getPendingRequestCount() == 0 || this.connections.size() >= MAX_CONNECTIONS))
+			return connection;
+
+		if (connection != null) {
+			// Busy, but usable while someone else connects another server
+			if (!this.connectLock.tryLock())
+				return connection;
+		} else {
+			this.connectLock.lock();
+		}
+
+		try {
+			// Another caller might have connected while we waited
+			ElectrumXConnection newConnection = this.getLeastBusyConnection();
+			if (newConnection != null && (newConnection.getPendingRequestCount() == 0 || this.connections.size() >= MAX_CONNECTIONS))
+				return newConnection;
+
+			newConnection = this.connectToServer();
+			return newConnection != null ? newConnection : connection;
+		} finally {
+			this.connectLock.unlock();
 		}
 	}
 
-	/** Returns true if we have, or create, a connection to an ElectrumX server. */
-	private boolean haveConnection() throws ForeignBlockchainException {
-		if (this.currentServer != null)
-			return true;
+	private ElectrumXConnection getLeastBusyConnection() {
+		ElectrumXConnection leastBusyConnection = null;
 
-		while (!this.remainingServers.isEmpty()) {
-			ChainableServer server = this.remainingServers.remove(RANDOM.nextInt(this.remainingServers.size()));
-			LOGGER.trace(() -> String.format("Connecting to %s", server));
+		for (ElectrumXConnection connection : this.connections) {
+			if (connection.isClosed()) {
+				this.connections.remove(connection);
+				continue;
+			}
 
-			try {
-				SocketAddress endpoint = new InetSocketAddress(server.getHostName(), server.getPort());
-				int timeout = 5000; // ms
+			if (leastBusyConnection == null
+					|| connection.getPendingRequestCount() < leastBusyConnection.getPendingRequestCount()
+					|| (connection.getPendingRequestCount() == leastBusyConnection.getPendingRequestCount()
+						&& connection.getServer().averageResponseTime() < leastBusyConnection.getServer().averageResponseTime()))
+				leastBusyConnection = connection;
+		}
 
-				this.socket = new Socket();
-				this.socket.connect(endpoint, timeout);
-				this.socket.setTcpNoDelay(true);
+		return leastBusyConnection;
+	}
 
-				if (server.getConnectionType() == Server.ConnectionType.SSL) {
-					SSLSocketFactory factory = TrustlessSSLSocketFactory.getSocketFactory();
-					this.socket = factory.createSocket(this.socket, server.getHostName(), server.getPort(), true);
-				}
+	/** Returns new connection to one of the remaining servers, or null if none are suitable. */
+	private ElectrumXConnection connectToServer() throws ForeignBlockchainException {
+		while (true) {
+			ChainableServer server;
+			synchronized (this.serverLock) {
+				if (this.remainingServers.isEmpty())
+					return null;
 
-				this.scanner = new Scanner(this.socket.getInputStream());
-				this.scanner.useDelimiter("\n");
+				server = this.remainingServers.remove(RANDOM.nextInt(this.remainingServers.size()));
+			}
+			LOGGER.trace(() -> String.format("Connecting to %s", server));
+
+			ElectrumXConnection connection = null;
+			try {
+				connection = ElectrumXConnection.open(server);
 
 				// All connections need to start with a version negotiation
-				this.connectedRpc("server.version");
+				this.connectedRpc(connection, "server.version");
 
 				// Check connection is suitable by asking for server features, including genesis block hash
-				JSONObject featuresJson = (JSONObject) this.connectedRpc("server.features");
+				JSONObject featuresJson = (JSONObject) this.connectedRpc(connection, "server.features");
 
-				if (featuresJson == null || Double.parseDouble((String) featuresJson.get("protocol_min")) < MIN_PROTOCOL_VERSION)
+				if (featuresJson == null || Double.parseDouble((String) featuresJson.get("protocol_min")) < MIN_PROTOCOL_VERSION) {
+					connection.close();
 					continue;
+				}
 
-				if (this.expectedGenesisHash != null && !featuresJson.get("genesis_hash").equals(this.expectedGenesisHash))
+				if (this.expectedGenesisHash != null && !featuresJson.get("genesis_hash").equals(this.expectedGenesisHash)) {
+					connection.close();
 					continue;
+				}
+
+				connection.probeBatchSupport();
 
 				// Ask for more servers
-				Set<Server> moreServers = serverPeersSubscribe();
-				// Discard duplicate servers we already know
-				moreServers.removeAll(this.servers);
-				// Add to both lists
-				this.remainingServers.addAll(moreServers);
-				this.servers.addAll(moreServers);
+				Set<Server> moreServers = serverPeersSubscribe(connection);
+				synchronized (this.serverLock) {
+					// Discard duplicate servers we already know
+					moreServers.removeAll(this.servers);
+					// Add to both lists
+					this.remainingServers.addAll(moreServers);
+					this.servers.addAll(moreServers);
+				}
 
 				LOGGER.debug(() -> String.format("Connected to %s", server));
-				this.currentServer = server;
-				return true;
+				this.connections.add(connection);
+				return connection;
 			} catch (IOException | ForeignBlockchainException | ClassCastException | NullPointerException e) {
 				// Didn't work, try another server...
-				closeServer();
+				if (connection != null)
+					connection.close();
 			}
 		}
+	}
+
+	/** Refills remaining servers with all known servers that aren't currently connected. Call while holding serverLock. */
+	private void refillRemainingServers() {
+		this.remainingServers.addAll(this.servers);
 
-		return false;
+		for (ElectrumXConnection connection : this.connections)
+			this.remainingServers.remove(connection.getServer());
+	}
+
+	private boolean hasRemainingServers() {
+		synchronized (this.serverLock) {
+			return !this.remainingServers.isEmpty();
+		}
 	}
 
 	/**
-	 * Perform RPC using currently connected server.
+	 * Perform single RPC using passed connection.
 	 * <p>
-	 * @param method method
-	 * @param params params
 	 * @return response Object, or null if server fails to respond
 	 * @throws ForeignBlockchainException if server returns error
 	 */
+	private Object connectedRpc(ElectrumXConnection connection, String method, Object...params) throws ForeignBlockchainException {
+		List<Object> results = this.connectedRpc(connection, method, Collections.singletonList(params));
+		return results != null ? results.get(0) : null;
+	}
+
+	/**
+	 * Perform RPCs using passed connection, as a batch if supported by server, otherwise pipelined.
+	 * <p>
+	 * @param method method
+	 * @param paramsList params for each call
+	 * @return response Objects, or null if server fails to respond to any call
+	 * @throws ForeignBlockchainException if server returns error for any call
+	 */
+	private List<Object> connectedRpc(ElectrumXConnection connection, String method, List<Object[]> paramsList) throws ForeignBlockchainException {
+		List<JSONObject> requests = new ArrayList<>(paramsList.size());
+		for (Object[] params : paramsList)
+			requests.add(buildRequest(method, params));
+
+		List<JSONObject> responses = new ArrayList<>(requests.size());
+		try {
+			List<CompletableFuture<JSONObject>> futures = connection.send(requests);
+
+			long deadline = System.currentTimeMillis() + RESPONSE_TIMEOUT;
+			for (CompletableFuture<JSONObject> future : futures)
+				responses.add(future.get(Math.max(deadline - System.currentTimeMillis(), 1L), TimeUnit.MILLISECONDS));
+		} catch (IOException | ExecutionException | TimeoutException e) {
+			// Unable to send, or receive -- try another server?
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ForeignBlockchainException.NetworkException(String.format("Interrupted while waiting for ElectrumX RPC %s", method));
+		}
+
+		List<Object> results = new ArrayList<>(responses.size());
+		for (JSONObject responseJson : responses) {
+			Object result = this.responseResult(connection.getServer(), method, responseJson);
+			// Some methods, e.g. blockchain.scripthash.subscribe, legitimately return a null result
+			if (result == null && (responseJson.get("error") != null || !responseJson.containsKey("result")))
+				// Unexpected response - try another server?
+				return null;
+
+			results.add(result);
+		}
+
+		return results;
+	}
+
 	@SuppressWarnings("unchecked")
-	private Object connectedRpc(String method, Object...params) throws ForeignBlockchainException {
+	private static JSONObject buildRequest(String method, Object...params) {
 		JSONObject requestJson = new JSONObject();
-		requestJson.put("id", this.nextId++);
 		requestJson.put("method", method);
 		requestJson.put("jsonrpc", "2.0");
 
@@ -758,56 +1024,25 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 
 		requestJson.put("params", requestParams);
 
-		String request = requestJson.toJSONString() + "\n";
-		LOGGER.trace(() -> String.format("Request: %s", request));
-
-		long startTime = System.currentTimeMillis();
-		final String response;
-
-		try {
-			this.socket.getOutputStream().write(request.getBytes());
-			response = scanner.next();
-		} catch (IOException | NoSuchElementException e) {
-			// Unable to send, or receive -- try another server?
-			return null;
-		} catch (NoSuchMethodError e) {
-			// Likely an SSL dependency issue - retries are unlikely to succeed
-			LOGGER.error("ElectrumX output stream error", e);
-			return null;
-		}
-
-		long endTime = System.currentTimeMillis();
-		long responseTime = endTime-startTime;
-
-		LOGGER.trace(() -> String.format("Response: %s", response));
-		LOGGER.trace(() -> String.format("Time taken: %dms", endTime-startTime));
-
-		if (response.isEmpty())
-			// Empty response - try another server?
-			return null;
-
-		Object responseObj = JSONValue.parse(response);
-		if (!(responseObj instanceof JSONObject))
-			// Unexpected response - try another server?
-			return null;
-
-		// Keep track of response times
-		if (this.currentServer != null) {
-			this.currentServer.addResponseTime(responseTime);
-		}
-
-		JSONObject responseJson = (JSONObject) responseObj;
+		return requestJson;
+	}
 
+	/**
+	 * Returns "result" from response, or null if response is unusable.
+	 * <p>
+	 * @throws ForeignBlockchainException if server returns error
+	 */
+	private Object responseResult(ChainableServer server, String method, JSONObject responseJson) throws ForeignBlockchainException {
 		Object errorObj = responseJson.get("error");
 		if (errorObj != null) {
 			if (errorObj instanceof String) {
-				LOGGER.debug(String.format("Unexpected error message from ElectrumX server %s for RPC method %s: %s", this.currentServer, method, errorObj));
+				LOGGER.debug(String.format("Unexpected error message from ElectrumX server %s for RPC method %s: %s", server, method, errorObj));
 				// Try another server
 				return null;
 			}
 
 			if (!(errorObj instanceof JSONObject)) {
-				LOGGER.debug(String.format("Unexpected error response from ElectrumX server %s for RPC method %s", this.currentServer, method));
+				LOGGER.debug(String.format("Unexpected error response from ElectrumX server %s for RPC method %s", server, method));
 				// Try another server
 				return null;
 			}
@@ -817,7 +1052,7 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 			Object messageObj = errorJson.get("message");
 
 			if (!(messageObj instanceof String)) {
-				LOGGER.debug(String.format("Missing/invalid message in error response from ElectrumX server %s for RPC method %s", this.currentServer, method));
+				LOGGER.debug(String.format("Missing/invalid message in error response from ElectrumX server %s for RPC method %s", server, method));
 				// Try another server
 				return null;
 			}
@@ -831,44 +1066,36 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 			if (messageMatcher.find())
 				try {
 					int daemonErrorCode = Integer.parseInt(messageMatcher.group(1));
-					throw new ForeignBlockchainException.NetworkException(daemonErrorCode, message, this.currentServer);
+					throw new ForeignBlockchainException.NetworkException(daemonErrorCode, message, server);
 				} catch (NumberFormatException e) {
 					// We couldn't parse the error code integer? Fall-through to generic exception...
 				}
 
-			throw new ForeignBlockchainException.NetworkException(message, this.currentServer);
+			throw new ForeignBlockchainException.NetworkException(message, server);
 		}
 
 		return responseJson.get("result");
 	}
 
 	/**
-	 * Closes connection to <tt>server</tt> if it is currently connected server.
+	 * Closes any connection to <tt>server</tt>.
 	 * @param server Server to close
 	 */
 	private void closeServer(ChainableServer server) {
-		synchronized (this.serverLock) {
-			if (this.currentServer == null || !this.currentServer.equals(server))
-				return;
-
-			if (this.socket != null && !this.socket.isClosed())
-				try {
-					this.socket.close();
-				} catch (IOException e) {
-					// We did try...
-				}
+		for (ElectrumXConnection connection : this.connections)
+			if (connection.getServer().equals(server))
+				this.closeConnection(connection);
+	}
 
-			this.socket = null;
-			this.scanner = null;
-			this.currentServer = null;
-		}
+	private void closeConnection(ElectrumXConnection connection) {
+		connection.close();
+		this.connections.remove(connection);
 	}
 
-	/** Closes connection to currently connected server (if any). */
-	private void closeServer() {
-		synchronized (this.serverLock) {
-			this.closeServer(this.currentServer);
-		}
+	/** Removes connection from pool, closing it once other callers' requests have completed. */
+	private void retireConnection(ElectrumXConnection connection) {
+		this.connections.remove(connection);
+		connection.closeWhenIdle();
 	}
 
 	@Override
@@ -887,8 +1114,21 @@ public class ElectrumX extends BitcoinyBlockchainProvider {
 		return uselessServers;
 	}
 
+	/** Returns server of least busy connection in the pool, or null if not connected. */
 	@Override
 	public ChainableServer getCurrentServer() {
-		return currentServer;
+		ElectrumXConnection connection = this.getLeastBusyConnection();
+		return connection != null ? connection.getServer() : null;
+	}
+
+	/** Returns servers currently connected, as pooled connections. */
+	@Override
+	public List<ChainableServer> getConnectedServers() {
+		List<ChainableServer> connectedServers = new ArrayList<>();
+		for (ElectrumXConnection connection : this.connections)
+			if (!connection.isClosed())
+				connectedServers.add(connection.getServer());
+
+		return connectedServers;
 	}
 }
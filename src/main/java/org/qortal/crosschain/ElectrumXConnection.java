@@ -0,0 +1,306 @@
+package org.qortal.crosschain;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.qortal.crypto.TrustlessSSLSocketFactory;
+
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection to a single ElectrumX server, with any number of JSON-RPC requests in flight at once.
+ * <p>
+ * Requests are written without waiting for earlier responses, and a reader thread hands each response
+ * to its caller by matching JSON-RPC ids, so callers on different threads don't queue behind each other.
+ * Several requests written together are sent as a JSON-RPC 2.0 batch, if the server supports batches,
+ * otherwise they are pipelined one per line.
+ * <p>
+ * Each response time is recorded against the server via {@link ChainableServer#addResponseTime(long)}.
+ */
+public class ElectrumXConnection {
+
+	private static final Logger LOGGER = LogManager.getLogger(ElectrumXConnection.class);
+
+	private static final int CONNECT_TIMEOUT = 5000; // ms
+	private static final long BATCH_PROBE_TIMEOUT = 3000L; // ms
+
+	/** Keeps individual batches small enough for servers' request cost limits */
+	public static final int MAX_BATCH_SIZE = 50;
+
+	private static class PendingRequest {
+		private final long sentTimestamp;
+		private final CompletableFuture<JSONObject> future = new CompletableFuture<>();
+
+		private PendingRequest(long sentTimestamp) {
+			this.sentTimestamp = sentTimestamp;
+		}
+	}
+
+	private final ChainableServer server;
+	private final Socket socket;
+	private final OutputStream outputStream;
+	private final BufferedReader reader;
+	private final Thread readerThread;
+
+	private final Object writeLock = new Object();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+
+	private volatile boolean isClosed = false;
+	/** Set once connection is no longer pooled, so it closes when its last pending request completes */
+	private volatile boolean isRetired = false;
+	private volatile boolean isBatchSupported = false;
+
+	public ElectrumXConnection(ChainableServer server, Socket socket) throws IOException {
+		this.server = server;
+		this.socket = socket;
+		this.outputStream = new BufferedOutputStream(socket.getOutputStream());
+		this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+		this.readerThread = new Thread(this::readResponses, String.format("ElectrumX reader %s", server));
+		this.readerThread.setDaemon(true);
+		this.readerThread.start();
+	}
+
+	/** Opens TCP or SSL connection to <tt>server</tt>. No ElectrumX protocol negotiation is performed. */
+	public static ElectrumXConnection open(ChainableServer server) throws IOException {
+		SocketAddress endpoint = new InetSocketAddress(server.getHostName(), server.getPort());
+
+		Socket socket = new Socket();
+		try {
+			socket.connect(endpoint, CONNECT_TIMEOUT);
+			socket.setTcpNoDelay(true);
+
+			if (server.getConnectionType() == ChainableServer.ConnectionType.SSL) {
+				SSLSocketFactory factory = TrustlessSSLSocketFactory.getSocketFactory();
+				socket = factory.createSocket(socket, server.getHostName(), server.getPort(), true);
+			}
+
+			return new ElectrumXConnection(server, socket);
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+	public ChainableServer getServer() {
+		return this.server;
+	}
+
+	public boolean isClosed() {
+		return this.isClosed;
+	}
+
+	public boolean isBatchSupported() {
+		return this.isBatchSupported;
+	}
+
+	public int getPendingRequestCount() {
+		return this.pendingRequests.size();
+	}
+
+	/**
+	 * Checks whether server accepts JSON-RPC 2.0 batches, by sending a batch containing a single <tt>server.ping</tt>.
+	 * <p>
+	 * Servers that don't support batches may not reply at all, hence the short timeout.
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean probeBatchSupport() {
+		JSONObject pingJson = new JSONObject();
+		pingJson.put("method", "server.ping");
+		pingJson.put("params", new JSONArray());
+		pingJson.put("jsonrpc", "2.0");
+
+		CompletableFuture<JSONObject> future = null;
+		try {
+			future = this.write(List.of(pingJson), true).get(0);
+			future.get(BATCH_PROBE_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (IOException | ExecutionException | TimeoutException e) {
+			LOGGER.debug("Server {} doesn't support JSON-RPC batches", this.server);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		// Don't leave an unanswered probe counting towards how busy this connection is
+		if (future != null && !future.isDone()) {
+			final CompletableFuture<JSONObject> probeFuture = future;
+			this.pendingRequests.values().removeIf(pendingRequest -> pendingRequest.future == probeFuture);
+		}
+
+		// Set by reader thread if response arrived as an array
+		return this.isBatchSupported;
+	}
+
+	/**
+	 * Sends requests, assigning each an id, and returns futures for their responses, in the same order.
+	 * <p>
+	 * Futures complete with the whole response object (including any "error"), or exceptionally if the connection fails.
+	 */
+	public List<CompletableFuture<JSONObject>> send(List<JSONObject> requests) throws IOException {
+		return this.write(requests, this.isBatchSupported && requests.size() > 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<CompletableFuture<JSONObject>> write(List<JSONObject> requests, boolean asBatch) throws IOException {
+		if (this.isClosed)
+			throw new IOException(String.format("Connection to %s is closed", this.server));
+
+		List<CompletableFuture<JSONObject>> futures = new ArrayList<>(requests.size());
+		StringBuilder output = new StringBuilder();
+
+		synchronized (this.writeLock) {
+			long now = System.currentTimeMillis();
+
+			List<Long> ids = new ArrayList<>(requests.size());
+			JSONArray batch = new JSONArray();
+			for (JSONObject request : requests) {
+				long id = this.nextId.getAndIncrement();
+				request.put("id", id);
+
+				PendingRequest pendingRequest = new PendingRequest(now);
+				this.pendingRequests.put(id, pendingRequest);
+				ids.add(id);
+				futures.add(pendingRequest.future);
+
+				if (!asBatch) {
+					output.append(request.toJSONString()).append('\n');
+					continue;
+				}
+
+				batch.add(request);
+				if (batch.size() >= MAX_BATCH_SIZE) {
+					output.append(batch.toJSONString()).append('\n');
+					batch = new JSONArray();
+				}
+			}
+
+			if (!batch.isEmpty())
+				output.append(batch.toJSONString()).append('\n');
+
+			// If close() drained pending requests before we registered ours, nothing else will complete them
+			if (this.isClosed) {
+				ids.forEach(this.pendingRequests::remove);
+				throw new IOException(String.format("Connection to %s is closed", this.server));
+			}
+
+			LOGGER.trace(() -> String.format("Request to %s: %s", this.server, output));
+
+			try {
+				this.outputStream.write(output.toString().getBytes(StandardCharsets.UTF_8));
+				this.outputStream.flush();
+			} catch (IOException e) {
+				this.close();
+				throw e;
+			}
+		}
+
+		return futures;
+	}
+
+	private void readResponses() {
+		try {
+			String line;
+			while ((line = this.reader.readLine()) != null) {
+				final String response = line;
+				LOGGER.trace(() -> String.format("Response from %s: %s", this.server, response));
+
+				if (response.isEmpty())
+					continue;
+
+				Object responseObj = JSONValue.parse(response);
+
+				if (responseObj instanceof JSONArray) {
+					this.isBatchSupported = true;
+
+					for (Object itemObj : (JSONArray) responseObj)
+						if (itemObj instanceof JSONObject)
+							this.onResponse((JSONObject) itemObj);
+				} else if (responseObj instanceof JSONObject) {
+					this.onResponse((JSONObject) responseObj);
+				} else {
+					// Unexpected response - we can't tell which request it was for
+					LOGGER.debug("Unparseable response from {}", this.server);
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// Connection closed or failed
+		} catch (NoSuchMethodError e) {
+			// Likely an SSL dependency issue - retries are unlikely to succeed
+			LOGGER.error("ElectrumX input stream error", e);
+		} finally {
+			this.close();
+		}
+	}
+
+	private void onResponse(JSONObject responseJson) {
+		Object idObj = responseJson.get("id");
+		if (!(idObj instanceof Long)) {
+			// Subscription notifications have no id, and aren't needed
+			return;
+		}
+
+		PendingRequest pendingRequest = this.pendingRequests.remove(idObj);
+		if (pendingRequest == null)
+			return;
+
+		this.server.addResponseTime(System.currentTimeMillis() - pendingRequest.sentTimestamp);
+
+		// Close before completing, so caller woken by last response sees retired connection as closed
+		if (this.isRetired && this.pendingRequests.isEmpty())
+			this.close();
+
+		pendingRequest.future.complete(responseJson);
+	}
+
+	/**
+	 * Closes connection once requests already sent have completed, without failing them.
+	 * <p>
+	 * For connections no longer handed out to new callers, e.g. removed from a pool for being slow.
+	 */
+	public void closeWhenIdle() {
+		this.isRetired = true;
+
+		if (this.pendingRequests.isEmpty())
+			this.close();
+	}
+
+	/** Closes connection, failing any requests still awaiting responses. */
+	public void close() {
+		if (this.isClosed)
+			return;
+
+		this.isClosed = true;
+
+		try {
+			this.socket.close();
+		} catch (IOException e) {
+			// We did try...
+		}
+
+		// Remove each request before failing it, so callers woken by failure no longer see it as pending
+		IOException closedException = new IOException(String.format("Connection to %s closed", this.server));
+		for (Long id : this.pendingRequests.keySet()) {
+			PendingRequest pendingRequest = this.pendingRequests.remove(id);
+			if (pendingRequest != null)
+				pendingRequest.future.completeExceptionally(closedException);
+		}
+	}
+
+}
@@ -0,0 +1,338 @@
+package org.qortal.crosschain;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qortal.utils.BitTwiddling;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recent block headers of a Bitcoin-like chain, kept in memory and in a local append-only file.
+ * <p>
+ * Headers are brought up to date incrementally from the chain tip, by default at most once every {@link #MIN_REFRESH_INTERVAL},
+ * so repeated median-time-past and height lookups don't keep fetching the same headers from servers.
+ * <p>
+ * The last {@link #REORG_CHECK_DEPTH} stored headers are re-fetched along with new headers, and any that differ,
+ * with all above them, are replaced. If even the oldest re-fetched header differs, all headers are fetched again.
+ * <p>
+ * Each file record is a 4-byte height followed by an 80-byte header. A record at some height supersedes
+ * any earlier records at that height or above, so reorgs only ever need appending. The file is rewritten
+ * once it has grown to several times the number of headers kept.
+ */
+public class ForeignBlockHeaderStore {
+
+	private static final Logger LOGGER = LogManager.getLogger(ForeignBlockHeaderStore.class);
+
+	public static final int BLOCK_HEADER_LENGTH = 80;
+
+	/** Byte offset into raw block headers to block timestamp. */
+	private static final int TIMESTAMP_OFFSET = 4 + 32 + 32;
+
+	/** How many of the most recent headers to keep. */
+	public static final int MAX_HEADERS = 200;
+	/** How many stored headers to re-fetch, alongside new headers, to detect reorgs. */
+	public static final int REORG_CHECK_DEPTH = 12;
+	/** Minimum interval between checks of the chain tip (ms). */
+	public static final long MIN_REFRESH_INTERVAL = 10 * 1000L;
+	/** Maximum headers per request. Kept small as some chains, e.g. DOGE, return large AuxPoW headers. */
+	private static final int MAX_HEADERS_PER_REQUEST = 50;
+
+	private static final int RECORD_LENGTH = 4 + BLOCK_HEADER_LENGTH;
+	private static final int COMPACTION_RECORD_COUNT = MAX_HEADERS * 4;
+
+	private final BitcoinyBlockchainProvider blockchainProvider;
+	private final Path path;
+	private final long minRefreshInterval;
+
+	// All below guarded by this
+	private boolean isLoaded = false;
+	private long lastRefreshTimestamp = 0L;
+	private int firstHeight = 0;
+	private final List<byte[]> headers = new ArrayList<>();
+	private int fileRecordCount = 0;
+
+	/**
+	 * @param path file to store headers, or null to keep headers in memory only
+	 */
+	public ForeignBlockHeaderStore(BitcoinyBlockchainProvider blockchainProvider, Path path) {
+		this(blockchainProvider, path, MIN_REFRESH_INTERVAL);
+	}
+
+	/**
+	 * @param path file to store headers, or null to keep headers in memory only
+	 * @param minRefreshInterval minimum interval between checks of the chain tip (ms)
+	 */
+	public ForeignBlockHeaderStore(BitcoinyBlockchainProvider blockchainProvider, Path path, long minRefreshInterval) {
+		this.blockchainProvider = blockchainProvider;
+		this.path = path;
+		this.minRefreshInterval = minRefreshInterval;
+	}
+
+	/**
+	 * Returns current blockchain height, as of the last check of the chain tip.
+	 * <p>
+	 * @throws ForeignBlockchainException if headers couldn't be brought up to date
+	 */
+	public synchronized int getHeight() throws ForeignBlockchainException {
+		this.refresh();
+
+		return this.getTipHeight();
+	}
+
+	/**
+	 * Returns median timestamp of the 11 blocks below the tip, matching results
+	 * previously obtained by fetching headers from servers on every call.
+	 * <p>
+	 * @throws ForeignBlockchainException if headers couldn't be brought up to date
+	 */
+	public synchronized int getMedianBlockTime() throws ForeignBlockchainException {
+		this.refresh();
+
+		int tipHeight = this.getTipHeight();
+		List<Integer> blockTimestamps = this.getStoredTimestamps(tipHeight - 11, 11);
+		if (blockTimestamps == null)
+			throw new ForeignBlockchainException("Not enough blocks to determine median block time");
+
+		// Descending order
+		blockTimestamps.sort((a, b) -> Integer.compare(b, a));
+
+		// Pick median
+		return blockTimestamps.get(5);
+	}
+
+	// Header maintenance
+
+	private void refresh() throws ForeignBlockchainException {
+		if (!this.isLoaded) {
+			this.load();
+			this.isLoaded = true;
+		}
+
+		long now = System.currentTimeMillis();
+		if (!this.headers.isEmpty() && now - this.lastRefreshTimestamp < this.minRefreshInterval)
+			return;
+
+		ChainTip chainTip = this.blockchainProvider.getChainTip();
+		byte[] tipHeader = trimHeader(chainTip.rawBlockHeader);
+
+		// Nothing to do if tip is unchanged
+		if (chainTip.height == this.getTipHeight() && Arrays.equals(tipHeader, this.getStoredHeader(chainTip.height))) {
+			this.lastRefreshTimestamp = now;
+			return;
+		}
+
+		int windowStart = Math.max(0, chainTip.height - MAX_HEADERS + 1);
+
+		// Re-fetch some stored headers too, to check for reorgs
+		int fetchStart = windowStart;
+		if (!this.headers.isEmpty() && this.getTipHeight() >= windowStart)
+			fetchStart = Math.max(windowStart, Math.min(this.getTipHeight(), chainTip.height) - REORG_CHECK_DEPTH + 1);
+
+		List<byte[]> fetchedHeaders = this.fetchHeaders(fetchStart, chainTip.height);
+
+		// Skip headers we already have
+		int i = 0;
+		while (i < fetchedHeaders.size() && Arrays.equals(fetchedHeaders.get(i), this.getStoredHeader(fetchStart + i)))
+			++i;
+
+		if (i == 0 && fetchStart > windowStart && this.getStoredHeader(fetchStart - 1) != null) {
+			// Reorg is deeper than we checked, so we can't trust any stored headers
+			LOGGER.info("Deep reorg detected on {} - fetching {} block headers again", this.blockchainProvider.getNetId(), MAX_HEADERS);
+
+			fetchStart = windowStart;
+			fetchedHeaders = this.fetchHeaders(fetchStart, chainTip.height);
+			this.headers.clear();
+			i = 0;
+		} else if (i < fetchedHeaders.size() && this.getStoredHeader(fetchStart + i) != null) {
+			LOGGER.debug("Reorg detected on {} at height {}", this.blockchainProvider.getNetId(), fetchStart + i);
+		}
+
+		List<Integer> changedHeights = new ArrayList<>();
+		for (; i < fetchedHeaders.size(); ++i) {
+			this.put(fetchStart + i, fetchedHeaders.get(i));
+			changedHeights.add(fetchStart + i);
+		}
+
+		// Drop any stored headers above a tip that went backwards
+		if (this.getTipHeight() > chainTip.height && this.getStoredHeader(chainTip.height) != null) {
+			this.headers.subList(chainTip.height - this.firstHeight + 1, this.headers.size()).clear();
+			if (changedHeights.isEmpty())
+				// Record truncation by rewriting tip
+				changedHeights.add(chainTip.height);
+		}
+
+		this.trim();
+		this.lastRefreshTimestamp = now;
+
+		this.append(changedHeights);
+	}
+
+	/** Returns trimmed headers from <tt>startHeight</tt> to <tt>endHeight</tt> inclusive, in as many requests as needed. */
+	private List<byte[]> fetchHeaders(int startHeight, int endHeight) throws ForeignBlockchainException {
+		List<byte[]> fetchedHeaders = new ArrayList<>();
+
+		int height = startHeight;
+		while (height <= endHeight) {
+			int count = Math.min(MAX_HEADERS_PER_REQUEST, endHeight - height + 1);
+
+			List<byte[]> rawBlockHeaders = this.blockchainProvider.getRawBlockHeaders(height, count);
+			if (rawBlockHeaders.isEmpty())
+				break;
+
+			for (byte[] rawBlockHeader : rawBlockHeaders)
+				fetchedHeaders.add(trimHeader(rawBlockHeader));
+
+			height += rawBlockHeaders.size();
+		}
+
+		return fetchedHeaders;
+	}
+
+	/** Stores header at height, discarding any stored headers at or above that height, or all headers if not contiguous. */
+	private void put(int height, byte[] header) {
+		if (this.headers.isEmpty() || height < this.firstHeight || height > this.firstHeight + this.headers.size()) {
+			this.headers.clear();
+			this.firstHeight = height;
+		} else {
+			this.headers.subList(height - this.firstHeight, this.headers.size()).clear();
+		}
+
+		this.headers.add(header);
+	}
+
+	private void trim() {
+		int excess = this.headers.size() - MAX_HEADERS;
+		if (excess <= 0)
+			return;
+
+		this.headers.subList(0, excess).clear();
+		this.firstHeight += excess;
+	}
+
+	private int getTipHeight() {
+		return this.headers.isEmpty() ? -1 : this.firstHeight + this.headers.size() - 1;
+	}
+
+	private byte[] getStoredHeader(int height) {
+		if (height < this.firstHeight || height > this.getTipHeight())
+			return null;
+
+		return this.headers.get(height - this.firstHeight);
+	}
+
+	/** Returns timestamps from stored headers, or null if any are not stored. */
+	private List<Integer> getStoredTimestamps(int startHeight, int count) {
+		if (count <= 0 || startHeight < this.firstHeight || startHeight + count - 1 > this.getTipHeight())
+			return null;
+
+		List<Integer> blockTimestamps = new ArrayList<>(count);
+		for (int height = startHeight; height < startHeight + count; ++height)
+			blockTimestamps.add(getTimestamp(this.getStoredHeader(height)));
+
+		return blockTimestamps;
+	}
+
+	private static int getTimestamp(byte[] header) {
+		return BitTwiddling.intFromLEBytes(header, TIMESTAMP_OFFSET);
+	}
+
+	private static byte[] trimHeader(byte[] rawBlockHeader) {
+		return rawBlockHeader.length == BLOCK_HEADER_LENGTH ? rawBlockHeader : Arrays.copyOf(rawBlockHeader, BLOCK_HEADER_LENGTH);
+	}
+
+	// Persistence
+
+	private void load() {
+		if (this.path == null || !Files.exists(this.path))
+			return;
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.path)))) {
+			byte[] header = new byte[BLOCK_HEADER_LENGTH];
+
+			while (true) {
+				int height;
+				try {
+					height = in.readInt();
+					in.readFully(header);
+				} catch (EOFException e) {
+					// Done, possibly with a partial record from an interrupted write, which is ignored
+					break;
+				}
+
+				this.put(height, header.clone());
+				++this.fileRecordCount;
+			}
+
+			this.trim();
+			LOGGER.debug("Loaded {} block headers for {}", this.headers.size(), this.blockchainProvider.getNetId());
+		} catch (IOException e) {
+			LOGGER.warn("Unable to load block headers for {}: {}", this.blockchainProvider.getNetId(), e.getMessage());
+			this.headers.clear();
+		}
+
+		// Rewrite file if it contained partial or excess records
+		if (this.fileRecordCount > this.headers.size())
+			this.rewrite();
+	}
+
+	/** Appends records for passed heights, or rewrites whole file if it has grown too large. */
+	private void append(List<Integer> heights) {
+		if (this.path == null || heights.isEmpty())
+			return;
+
+		if (this.fileRecordCount + heights.size() > COMPACTION_RECORD_COUNT) {
+			this.rewrite();
+			return;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(heights.size() * RECORD_LENGTH);
+		for (int height : heights) {
+			byte[] header = this.getStoredHeader(height);
+			if (header == null)
+				continue;
+
+			buffer.putInt(height);
+			buffer.put(header);
+		}
+
+		try {
+			Files.createDirectories(this.path.getParent());
+			Files.write(this.path, Arrays.copyOf(buffer.array(), buffer.position()), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			this.fileRecordCount += buffer.position() / RECORD_LENGTH;
+		} catch (IOException e) {
+			LOGGER.warn("Unable to save block headers for {}: {}", this.blockchainProvider.getNetId(), e.getMessage());
+		}
+	}
+
+	private void rewrite() {
+		if (this.path == null)
+			return;
+
+		Path tempPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+
+		try {
+			Files.createDirectories(this.path.getParent());
+
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)))) {
+				for (int i = 0; i < this.headers.size(); ++i) {
+					out.writeInt(this.firstHeight + i);
+					out.write(this.headers.get(i));
+				}
+			}
+
+			Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			this.fileRecordCount = this.headers.size();
+		} catch (IOException e) {
+			LOGGER.warn("Unable to save block headers for {}: {}", this.blockchainProvider.getNetId(), e.getMessage());
+		}
+	}
+
+}
@@ -226,6 +226,16 @@ public class PirateChain extends Bitcoiny {
 		return Math.toIntExact(blockTimestamps.get(5));
 	}
 
+	/**
+	 * Returns height from latest block.
+	 * <p>
+	 * @throws ForeignBlockchainException if error occurs
+	 */
+	@Override
+	public int getBlockchainHeight() throws ForeignBlockchainException {
+		return this.blockchainProvider.getCurrentHeight();
+	}
+
 	/**
 	 * Returns list of compact blocks
 	 * <p>
@@ -37,6 +37,7 @@ public class PirateLightClient extends BitcoinyBlockchainProvider {
 
 		int port;
 		private List<Long> responseTimes = new ArrayList<>();
+		private final ResponseTimeHistogram responseTimeHistogram = new ResponseTimeHistogram();
 
 		public Server(String hostname, ConnectionType connectionType, int port) {
 			this.hostname = hostname;
@@ -49,6 +50,12 @@ public class PirateLightClient extends BitcoinyBlockchainProvider {
 				this.responseTimes.remove(0);
 			}
 			this.responseTimes.add(responseTime);
+			this.responseTimeHistogram.add(responseTime);
+		}
+
+		@Override
+		public ResponseTimeHistogram getResponseTimeHistogram() {
+			return this.responseTimeHistogram;
 		}
 
 		public long averageResponseTime() {
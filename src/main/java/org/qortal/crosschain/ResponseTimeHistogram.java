@@ -0,0 +1,69 @@
+package org.qortal.crosschain;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts of a server's response times, bucketed by {@link #BUCKET_LIMITS}.
+ * <p>
+ * Thread-safe.
+ */
+public class ResponseTimeHistogram {
+
+	/** Inclusive upper limit, in ms, of each bucket. Slower responses go into a final, unbounded bucket. */
+	public static final long[] BUCKET_LIMITS = { 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L };
+
+	@XmlAccessorType(XmlAccessType.FIELD)
+	public static class Bucket {
+		/** Inclusive upper limit in ms, or null for the final bucket */
+		private Long maxResponseTime;
+		private long count;
+
+		protected Bucket() {
+			/* For JAXB */
+		}
+
+		public Bucket(Long maxResponseTime, long count) {
+			this.maxResponseTime = maxResponseTime;
+			this.count = count;
+		}
+
+		public Long getMaxResponseTime() {
+			return this.maxResponseTime;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+	}
+
+	private final long[] counts = new long[BUCKET_LIMITS.length + 1];
+
+	public synchronized void add(long responseTime) {
+		int index = 0;
+		while (index < BUCKET_LIMITS.length && responseTime > BUCKET_LIMITS[index])
+			++index;
+
+		this.counts[index]++;
+	}
+
+	public synchronized long getTotalCount() {
+		long total = 0;
+		for (long count : this.counts)
+			total += count;
+
+		return total;
+	}
+
+	public synchronized List<Bucket> getBuckets() {
+		List<Bucket> buckets = new ArrayList<>(this.counts.length);
+
+		for (int i = 0; i < this.counts.length; ++i)
+			buckets.add(new Bucket(i < BUCKET_LIMITS.length ? BUCKET_LIMITS[i] : null, this.counts[i]));
+
+		return buckets;
+	}
+
+}
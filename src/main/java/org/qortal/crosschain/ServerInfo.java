@@ -2,6 +2,7 @@ package org.qortal.crosschain;
 
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
+import java.util.List;
 import java.util.Objects;
 
 @XmlAccessorType(XmlAccessType.FIELD)
@@ -17,15 +18,24 @@ public class ServerInfo {
 
         private boolean isCurrent;
 
+        /** Counts of all response times, bucketed by maximum response time in ms */
+        private List<ResponseTimeHistogram.Bucket> responseTimes;
+
         public ServerInfo() {
         }
 
         public ServerInfo(long averageResponseTime, String hostName, int port, String connectionType, boolean isCurrent) {
+                this(averageResponseTime, hostName, port, connectionType, isCurrent, null);
+        }
+
+        public ServerInfo(long averageResponseTime, String hostName, int port, String connectionType, boolean isCurrent,
+                        List<ResponseTimeHistogram.Bucket> responseTimes) {
                 this.averageResponseTime = averageResponseTime;
                 this.hostName = hostName;
                 this.port = port;
                 this.connectionType = connectionType;
                 this.isCurrent = isCurrent;
+                this.responseTimes = responseTimes;
         }
 
         public long getAverageResponseTime() {
@@ -48,6 +58,10 @@ public class ServerInfo {
                 return isCurrent;
         }
 
+        public List<ResponseTimeHistogram.Bucket> getResponseTimes() {
+                return responseTimes;
+        }
+
         @Override
         public boolean equals(Object o) {
                 if (this == o) return true;
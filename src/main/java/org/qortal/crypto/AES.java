@@ -85,11 +85,17 @@ public class AES {
                                    String inputFilePath, String outputFilePath) throws IOException,
             NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException,
             BadPaddingException, IllegalBlockSizeException {
+        AES.encryptFile(algorithm, key, AES.generateIv(), inputFilePath, outputFilePath);
+    }
+
+    public static void encryptFile(String algorithm, SecretKey key, IvParameterSpec iv,
+                                   String inputFilePath, String outputFilePath) throws IOException,
+            NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException,
+            BadPaddingException, IllegalBlockSizeException {
 
         File inputFile = new File(inputFilePath);
         File outputFile = new File(outputFilePath);
 
-        IvParameterSpec iv = AES.generateIv();
         Cipher cipher = Cipher.getInstance(algorithm);
         cipher.init(Cipher.ENCRYPT_MODE, key, iv);
         FileInputStream inputStream = new FileInputStream(inputFile);
@@ -114,6 +120,23 @@ public class AES {
         outputStream.close();
     }
 
+    /**
+     * Returns stream that encrypts data written to it, in the same format as {@link #encryptFile(String, SecretKey, String, String)},
+     * i.e. the 16 byte initialization vector followed by the ciphertext. Closing the returned stream also closes <tt>outputStream</tt>.
+     */
+    public static OutputStream encryptingOutputStream(String algorithm, SecretKey key, IvParameterSpec iv,
+                                                      OutputStream outputStream) throws IOException,
+            NoSuchPaddingException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException {
+
+        Cipher cipher = Cipher.getInstance(algorithm);
+        cipher.init(Cipher.ENCRYPT_MODE, key, iv);
+
+        // Prepend the output stream with the 16 byte initialization vector
+        outputStream.write(iv.getIV());
+
+        return new CipherOutputStream(outputStream, cipher);
+    }
+
     public static void decryptFile(String algorithm, SecretKey key, String encryptedFilePath,
                                    String decryptedFilePath) throws IOException, NoSuchPaddingException,
             NoSuchAlgorithmException, InvalidAlgorithmParameterException, InvalidKeyException,
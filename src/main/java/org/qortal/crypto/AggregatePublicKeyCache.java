@@ -0,0 +1,149 @@
+package org.qortal.crypto;
+
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+
+/**
+ * Aggregation of online accounts' public keys, as needed to verify each online-accounts block's aggregate signature.
+ * <p>
+ * Decoded curve points are cached, keyed by public key, to save repeatedly decoding the same reward-share keys.
+ * <p>
+ * The aggregate of the previous call is also kept. As the set of online reward-shares barely changes from block to block,
+ * the next aggregate is usually built by adding only the newly online keys to, and subtracting keys no longer online from,
+ * the previous aggregate, instead of adding up hundreds of points from scratch.
+ * <p>
+ * Results are identical to {@link Qortal25519Extras#aggregatePublicKeys(Collection)}.
+ */
+public class AggregatePublicKeyCache extends Qortal25519Extras {
+
+	/** Maximum number of decoded points to keep, least-recently used are evicted first */
+	private static final int MAX_CACHED_POINTS = 10_000;
+
+	private static AggregatePublicKeyCache instance;
+
+	private final Map<ByteArray, PointExt> pointsByPublicKey = new LinkedHashMap<>(1024, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ByteArray, PointExt> eldest) {
+			return this.size() > MAX_CACHED_POINTS;
+		}
+	};
+
+	/** Public keys included in <tt>previousAggregate</tt>, or empty if none */
+	private Set<ByteArray> previousPublicKeys = Collections.emptySet();
+	private PointExt previousAggregate = null;
+
+	private AggregatePublicKeyCache() {
+	}
+
+	public static synchronized AggregatePublicKeyCache getInstance() {
+		if (instance == null)
+			instance = new AggregatePublicKeyCache();
+
+		return instance;
+	}
+
+	/**
+	 * Returns aggregate of passed public keys, or null if any key could not be decoded, or there are no keys.
+	 */
+	public synchronized byte[] aggregate(Collection<byte[]> publicKeys) {
+		if (publicKeys.isEmpty())
+			return null;
+
+		Set<ByteArray> newPublicKeys = new HashSet<>(publicKeys.size());
+		for (byte[] publicKey : publicKeys)
+			newPublicKeys.add(ByteArray.wrap(publicKey));
+
+		// Duplicate keys would be added more than once, which a set can't represent, so fall back to plain aggregation
+		if (newPublicKeys.size() != publicKeys.size())
+			return Qortal25519Extras.aggregatePublicKeys(publicKeys);
+
+		List<ByteArray> addedKeys = new ArrayList<>();
+		for (ByteArray publicKey : newPublicKeys)
+			if (!this.previousPublicKeys.contains(publicKey))
+				addedKeys.add(publicKey);
+
+		List<ByteArray> removedKeys = new ArrayList<>();
+		for (ByteArray publicKey : this.previousPublicKeys)
+			if (!newPublicKeys.contains(publicKey))
+				removedKeys.add(publicKey);
+
+		PointExt aggregate = new PointExt();
+
+		if (this.previousAggregate != null && addedKeys.size() + removedKeys.size() < newPublicKeys.size()) {
+			// Cheaper to adjust previous aggregate
+			pointCopy(this.previousAggregate, aggregate);
+
+			if (!this.addPoints(addedKeys, false, aggregate) || !this.addPoints(removedKeys, true, aggregate))
+				return null;
+		} else {
+			pointSetNeutral(aggregate);
+
+			if (!this.addPoints(newPublicKeys, false, aggregate))
+				return null;
+		}
+
+		byte[] aggregatePublicKey = encodeAggregate(aggregate);
+		if (aggregatePublicKey == null)
+			return null;
+
+		this.previousPublicKeys = newPublicKeys;
+		this.previousAggregate = aggregate;
+
+		return aggregatePublicKey;
+	}
+
+	/** Forgets cached points and previous aggregate. */
+	public synchronized void clear() {
+		this.pointsByPublicKey.clear();
+		this.previousPublicKeys = Collections.emptySet();
+		this.previousAggregate = null;
+	}
+
+	/** Adds, or subtracts if <tt>negate</tt>, points for passed public keys to <tt>aggregate</tt>. Returns false if any key could not be decoded. */
+	private boolean addPoints(Collection<ByteArray> publicKeys, boolean negate, PointExt aggregate) {
+		for (ByteArray publicKey : publicKeys) {
+			PointExt point = this.getPoint(publicKey);
+			if (point == null)
+				return false;
+
+			pointAddVar(negate, aggregate, point, aggregate);
+		}
+
+		return true;
+	}
+
+	private PointExt getPoint(ByteArray publicKey) {
+		PointExt point = this.pointsByPublicKey.get(publicKey);
+		if (point != null)
+			return point;
+
+		PointAffine pA = new PointAffine();
+		if (decodePointVar(publicKey.value, 0, false, pA))
+			// Failed to decode
+			return null;
+
+		point = pointCopy(pA);
+		this.pointsByPublicKey.put(publicKey, point);
+
+		return point;
+	}
+
+	private static byte[] encodeAggregate(PointExt aggregate) {
+		// Encoding only needs projective X, Y, Z
+		PointAccum rAccum = new PointAccum();
+		F.copy(aggregate.x, 0, rAccum.x, 0);
+		F.copy(aggregate.y, 0, rAccum.y, 0);
+		F.copy(aggregate.z, 0, rAccum.z, 0);
+
+		byte[] publicKey = new byte[SCALAR_BYTES];
+		if (0 == encodePoint(rAccum, publicKey, 0))
+			// Failed to encode
+			return null;
+
+		return publicKey;
+	}
+
+}
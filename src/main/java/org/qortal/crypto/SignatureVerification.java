@@ -0,0 +1,30 @@
+package org.qortal.crypto;
+
+import java.util.Arrays;
+
+/**
+ * Result of verifying a signature, along with copies of the signature and message that were verified,
+ * so that the result is only reused while neither has changed, even if their arrays are modified in place.
+ */
+public class SignatureVerification {
+
+	private final byte[] signature;
+	private final byte[] message;
+	private final boolean isValid;
+
+	public SignatureVerification(byte[] signature, byte[] message, boolean isValid) {
+		this.signature = signature.clone();
+		this.message = message.clone();
+		this.isValid = isValid;
+	}
+
+	/** Returns whether this result is for passed <tt>signature</tt> and <tt>message</tt>. */
+	public boolean isFor(byte[] signature, byte[] message) {
+		return Arrays.equals(this.signature, signature) && Arrays.equals(this.message, message);
+	}
+
+	public boolean isValid() {
+		return this.isValid;
+	}
+
+}
@@ -70,4 +70,10 @@ public class ArbitraryRelayInfo {
                 && Objects.equals(this.hash58, otherRelayInfo.getHash58())
                 && Objects.equals(this.signature58, otherRelayInfo.getSignature58());
     }
+
+    @Override
+    public int hashCode() {
+        // Peers are compared by identity in equals()
+        return Objects.hash(System.identityHashCode(this.peer), this.hash58, this.signature58);
+    }
 }
@@ -53,6 +53,11 @@ public class ArbitraryResourceStatus {
     private Integer totalChunkCount;
     private Float percentLoaded;
 
+    /** Current download throughput, in bytes per second, while downloading */
+    private Long downloadRate;
+    /** Number of peers we are downloading chunks from, while downloading */
+    private Integer downloadPeerCount;
+
     public ArbitraryResourceStatus() {
     }
 
@@ -85,4 +90,17 @@ public class ArbitraryResourceStatus {
     public Integer getTotalChunkCount() {
         return this.totalChunkCount;
     }
+
+    public Long getDownloadRate() {
+        return this.downloadRate;
+    }
+
+    public Integer getDownloadPeerCount() {
+        return this.downloadPeerCount;
+    }
+
+    public void setDownloadStats(Long downloadRate, Integer downloadPeerCount) {
+        this.downloadRate = downloadRate;
+        this.downloadPeerCount = downloadPeerCount;
+    }
 }
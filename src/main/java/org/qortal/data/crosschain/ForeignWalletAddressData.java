@@ -0,0 +1,78 @@
+package org.qortal.data.crosschain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Node-local cache of activity for one address derived from a foreign blockchain HD wallet.
+ * <p>
+ * Wallets are identified by a hash of their public key, so the cache never holds private keys.
+ */
+public class ForeignWalletAddressData {
+
+	private final String currencyCode;
+	private final byte[] walletId;
+	/** e.g. "M/0H/0/5" */
+	private final String keyPath;
+	private final String address;
+
+	/** ElectrumX status hash of address' history, or null if address has never been used. */
+	private String status;
+	/** Hashes of confirmed transactions involving address, as of <tt>status</tt>. */
+	private List<String> txHashes;
+	private long updatedWhen;
+
+	public ForeignWalletAddressData(String currencyCode, byte[] walletId, String keyPath, String address,
+			String status, List<String> txHashes, long updatedWhen) {
+		this.currencyCode = currencyCode;
+		this.walletId = walletId;
+		this.keyPath = keyPath;
+		this.address = address;
+		this.status = status;
+		this.txHashes = txHashes;
+		this.updatedWhen = updatedWhen;
+	}
+
+	public ForeignWalletAddressData(String currencyCode, byte[] walletId, String keyPath, String address) {
+		this(currencyCode, walletId, keyPath, address, null, new ArrayList<>(), 0L);
+	}
+
+	public String getCurrencyCode() {
+		return this.currencyCode;
+	}
+
+	public byte[] getWalletId() {
+		return this.walletId;
+	}
+
+	public String getKeyPath() {
+		return this.keyPath;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getStatus() {
+		return this.status;
+	}
+
+	public List<String> getTxHashes() {
+		return this.txHashes;
+	}
+
+	public long getUpdatedWhen() {
+		return this.updatedWhen;
+	}
+
+	public boolean isUsed() {
+		return this.status != null;
+	}
+
+	public void update(String status, List<String> txHashes, long updatedWhen) {
+		this.status = status;
+		this.txHashes = txHashes;
+		this.updatedWhen = updatedWhen;
+	}
+
+}
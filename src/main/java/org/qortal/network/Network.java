@@ -21,7 +21,6 @@ import org.qortal.repository.RepositoryManager;
 import org.qortal.settings.Settings;
 import org.qortal.utils.Base58;
 import org.qortal.utils.ExecuteProduceConsume;
-import org.qortal.utils.ExecuteProduceConsume.StatsSnapshot;
 import org.qortal.utils.NTP;
 import org.qortal.utils.NamedThreadFactory;
 
@@ -98,6 +97,7 @@ public class Network {
     private final String ourNodeId = Crypto.toNodeAddress(edPublicKeyParams.getEncoded());
 
     private final int maxMessageSize;
+    private final ReceiveBufferPool receiveBufferPool;
     private final int minOutboundPeers;
     private final int maxPeers;
 
@@ -155,10 +155,22 @@ public class Network {
 
     private volatile boolean isShuttingDown = false;
 
+    /** Networking engine stats, plus peer receive buffer usage. */
+    public static class StatsSnapshot extends ExecuteProduceConsume.StatsSnapshot {
+        public int receiveBuffersPooled = 0;
+        public long receiveBufferPooledBytes = 0;
+        public int receiveBuffersInUse = 0;
+        public long receiveBufferInUseBytes = 0;
+
+        public StatsSnapshot() {
+        }
+    }
+
     // Constructors
 
     private Network() {
         maxMessageSize = 4 + 1 + 4 + BlockChain.getInstance().getMaxBlockSize();
+        receiveBufferPool = new ReceiveBufferPool(maxMessageSize);
 
         minOutboundPeers = Settings.getInstance().getMinOutboundPeers();
         maxPeers = Settings.getInstance().getMaxPeers();
@@ -296,8 +308,20 @@ public class Network {
         return this.maxMessageSize;
     }
 
+    protected ReceiveBufferPool getReceiveBufferPool() {
+        return this.receiveBufferPool;
+    }
+
     public StatsSnapshot getStatsSnapshot() {
-        return this.networkEPC.getStatsSnapshot();
+        StatsSnapshot snapshot = new StatsSnapshot();
+        this.networkEPC.populateStatsSnapshot(snapshot);
+
+        snapshot.receiveBuffersPooled = this.receiveBufferPool.getPooledBufferCount();
+        snapshot.receiveBufferPooledBytes = this.receiveBufferPool.getPooledBytes();
+        snapshot.receiveBuffersInUse = this.receiveBufferPool.getInUseBufferCount();
+        snapshot.receiveBufferInUseBytes = this.receiveBufferPool.getInUseBytes();
+
+        return snapshot;
     }
 
     // Peer lists
@@ -11,6 +11,7 @@ import org.qortal.data.block.CommonBlockData;
 import org.qortal.data.network.PeerData;
 import org.qortal.network.message.ChallengeMessage;
 import org.qortal.network.message.Message;
+import org.qortal.network.message.MessageFrameDecoder;
 import org.qortal.network.message.MessageException;
 import org.qortal.network.message.MessageType;
 import org.qortal.network.task.MessageTask;
@@ -74,11 +75,15 @@ public class Peer {
     private final UUID peerConnectionId = UUID.randomUUID();
     private final Object byteBufferLock = new Object();
     private ByteBuffer byteBuffer;
+    /** Remembers header of partially received message in byteBuffer. Guarded by byteBufferLock. */
+    private final MessageFrameDecoder frameDecoder = new MessageFrameDecoder();
     private Map<Integer, BlockingQueue<Message>> replyQueues;
     private LinkedBlockingQueue<Message> pendingMessages;
 
     private TransferQueue<Message> sendQueue;
-    private ByteBuffer outputBuffer;
+    /** Framed message being sent, as header/checksum/data views for gathering write */
+    private ByteBuffer[] outputBuffers;
+    private int outputMessageLength;
     private String outputMessageType;
     private int outputMessageId;
 
@@ -503,9 +508,9 @@ public class Peer {
                     return;
                 }
 
-                // Do we need to allocate byteBuffer?
+                // Do we need to allocate byteBuffer? Start small, grow later if needed.
                 if (this.byteBuffer == null) {
-                    this.byteBuffer = ByteBuffer.allocate(Network.getInstance().getMaxMessageSize());
+                    this.byteBuffer = Network.getInstance().getReceiveBufferPool().acquire(ReceiveBufferPool.MIN_BUFFER_SIZE);
                 }
 
                 final int priorPosition = this.byteBuffer.position();
@@ -540,7 +545,7 @@ public class Peer {
                     // Can we build a message from buffer now?
                     ByteBuffer readOnlyBuffer = this.byteBuffer.asReadOnlyBuffer().flip();
                     try {
-                        message = Message.fromByteBuffer(readOnlyBuffer);
+                        message = this.frameDecoder.decode(readOnlyBuffer);
                     } catch (MessageException e) {
                         LOGGER.debug("[{}] {}, from peer {}", this.peerConnectionId, e.getMessage(), this);
                         this.disconnect(e.getMessage());
@@ -551,18 +556,19 @@ public class Peer {
                         // No complete message in buffer, no more bytes to read from socket
                         // even though there was room to read bytes
 
-                        /* DISABLED
-                        // If byteBuffer is empty then we can deallocate it, to save memory, albeit costing GC
-                        if (this.byteBuffer.remaining() == this.byteBuffer.capacity()) {
+                        // If byteBuffer is empty then we can return it to the pool, to save memory
+                        if (this.byteBuffer.position() == 0) {
+                            Network.getInstance().getReceiveBufferPool().release(this.byteBuffer);
                             this.byteBuffer = null;
                         }
-                        */
 
                         return;
                     }
 
                     if (message == null) {
                         // No complete message in buffer, but maybe more bytes to read from socket
+                        // so make sure there's room for the whole message declared by its header
+                        this.maybeGrowByteBuffer();
                         break;
                     }
 
@@ -613,6 +619,20 @@ public class Peer {
         }
     }
 
+    /**
+     * Replaces byteBuffer with larger, pooled, buffer if the partially received message
+     * at the start of byteBuffer declares more data than will fit.
+     */
+    private void maybeGrowByteBuffer() {
+        int messageLength = this.frameDecoder.getExpectedLength();
+
+        // Header incomplete, or message will fit?
+        if (messageLength <= this.byteBuffer.capacity())
+            return;
+
+        this.byteBuffer = Network.getInstance().getReceiveBufferPool().grow(this.byteBuffer, messageLength);
+    }
+
     /** Maybe send some pending outgoing messages.
      *
      * @return true if more data is pending to be sent
@@ -622,7 +642,7 @@ public class Peer {
 
         while (true) {
             // If output byte buffer is null, fetch next message from queue (if any)
-            while (this.outputBuffer == null) {
+            while (this.outputBuffers == null) {
                 Message message;
 
                 try {
@@ -640,7 +660,12 @@ public class Peer {
                     return false;
 
                 try {
-                    this.outputBuffer = ByteBuffer.wrap(message.toBytes());
+                    // Shared, pre-framed, views onto message bytes - no copying even when broadcast to many peers
+                    this.outputBuffers = message.toByteBuffers();
+                    this.outputMessageLength = 0;
+                    for (ByteBuffer outputBuffer : this.outputBuffers)
+                        this.outputMessageLength += outputBuffer.remaining();
+
                     this.outputMessageType = message.getType().name();
                     this.outputMessageId = message.getId();
 
@@ -651,7 +676,7 @@ public class Peer {
                     MessageStats messageStats = this.sentMessageStats.computeIfAbsent(message.getType(), k -> new MessageStats());
                     // Ideally these two operations would be atomic, we could pack 'count' in top X bits of the 64-bit long, but meh
                     messageStats.count.increment();
-                    messageStats.totalBytes.add(this.outputBuffer.limit());
+                    messageStats.totalBytes.add(this.outputMessageLength);
                 } catch (MessageException e) {
                     // Something went wrong converting message to bytes, so discard but allow another round
                     LOGGER.warn("[{}] Failed to send {} message with ID {} to peer {}: {}", this.peerConnectionId,
@@ -659,22 +684,23 @@ public class Peer {
                 }
             }
 
-            // If output byte buffer is not null, send from that
-            int bytesWritten = this.socketChannel.write(outputBuffer);
+            // If output byte buffers are not null, send from those using gathering write
+            long bytesWritten = this.socketChannel.write(this.outputBuffers);
 
             LOGGER.trace("[{}] Sent {} bytes of {} message with ID {} to peer {} ({} total)", this.peerConnectionId,
-                    bytesWritten, this.outputMessageType, this.outputMessageId, this, outputBuffer.limit());
+                    bytesWritten, this.outputMessageType, this.outputMessageId, this, this.outputMessageLength);
 
             // If we've sent 0 bytes then socket buffer is full so we need to wait until it's empty again
             if (bytesWritten == 0) {
                 return true;
             }
 
-            // If we then exhaust the byte buffer, set it to null (otherwise loop and try to send more)
-            if (!this.outputBuffer.hasRemaining()) {
+            // If we then exhaust the byte buffers, set them to null (otherwise loop and try to send more)
+            if (!this.outputBuffers[this.outputBuffers.length - 1].hasRemaining()) {
                 this.outputMessageType = null;
                 this.outputMessageId = 0;
-                this.outputBuffer = null;
+                this.outputMessageLength = 0;
+                this.outputBuffers = null;
             }
         }
     }
@@ -859,6 +885,15 @@ public class Peer {
             }
         }
 
+        synchronized (this.byteBufferLock) {
+            if (this.byteBuffer != null) {
+                Network.getInstance().getReceiveBufferPool().release(this.byteBuffer);
+                this.byteBuffer = null;
+            }
+
+            this.frameDecoder.reset();
+        }
+
         if (logStats && !this.receivedMessageStats.isEmpty()) {
             StringBuilder statsBuilder = new StringBuilder(1024);
             statsBuilder.append("peer ").append(this).append(" message stats:\n=received=");
@@ -0,0 +1,145 @@
+package org.qortal.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pool of peer receive buffers.
+ * <p>
+ * Buffers come in power-of-two size classes, from {@link #MIN_BUFFER_SIZE} up to the network's maximum message size.
+ * Peers start with the smallest buffer and only {@link #grow(ByteBuffer, int)} it when an incoming message header
+ * declares a payload that won't fit. Idle peers {@link #release(ByteBuffer)} their buffer back to the pool.
+ * <p>
+ * Total bytes held in the pool, i.e. not in use by any peer, are capped. Buffers released beyond the cap
+ * are left for the garbage collector.
+ */
+public class ReceiveBufferPool {
+
+	/** Initial receive buffer size - enough for most non-data messages. */
+	public static final int MIN_BUFFER_SIZE = 16 * 1024; // bytes
+
+	/** Maximum total bytes of idle buffers kept in pool. */
+	private static final long MAX_POOLED_BYTES = 64 * 1024 * 1024; // bytes
+
+	private final int maxBufferSize;
+	private final int[] sizeClasses;
+	private final List<ConcurrentLinkedDeque<ByteBuffer>> freeBuffers;
+
+	private final AtomicLong pooledBytes = new AtomicLong();
+	private final AtomicInteger pooledBufferCount = new AtomicInteger();
+	private final AtomicLong inUseBytes = new AtomicLong();
+	private final AtomicInteger inUseBufferCount = new AtomicInteger();
+
+	public ReceiveBufferPool(int maxBufferSize) {
+		this.maxBufferSize = Math.max(maxBufferSize, MIN_BUFFER_SIZE);
+
+		List<Integer> sizes = new ArrayList<>();
+		for (long size = MIN_BUFFER_SIZE; size < this.maxBufferSize; size *= 2)
+			sizes.add((int) size);
+		sizes.add(this.maxBufferSize);
+
+		this.sizeClasses = sizes.stream().mapToInt(Integer::intValue).toArray();
+
+		this.freeBuffers = new ArrayList<>(this.sizeClasses.length);
+		for (int i = 0; i < this.sizeClasses.length; ++i)
+			this.freeBuffers.add(new ConcurrentLinkedDeque<>());
+	}
+
+	/**
+	 * Returns cleared buffer with at least <tt>minCapacity</tt> bytes,
+	 * (or max buffer size if smaller), reusing pooled buffer if possible.
+	 */
+	public ByteBuffer acquire(int minCapacity) {
+		int sizeClassIndex = this.sizeClassIndex(minCapacity);
+
+		ByteBuffer buffer = this.freeBuffers.get(sizeClassIndex).pollFirst();
+		if (buffer != null) {
+			this.pooledBytes.addAndGet(-buffer.capacity());
+			this.pooledBufferCount.decrementAndGet();
+			buffer.clear();
+		} else {
+			buffer = ByteBuffer.allocate(this.sizeClasses[sizeClassIndex]);
+		}
+
+		this.inUseBytes.addAndGet(buffer.capacity());
+		this.inUseBufferCount.incrementAndGet();
+
+		return buffer;
+	}
+
+	/**
+	 * Returns buffer with at least <tt>minCapacity</tt> bytes (or max buffer size if smaller)
+	 * containing the same bytes as passed <tt>buffer</tt>, which is expected to be in "write" mode.
+	 * <p>
+	 * If a larger buffer is needed then passed <tt>buffer</tt> is released back to the pool and must not be used again.
+	 */
+	public ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+		if (buffer.capacity() >= Math.min(minCapacity, this.maxBufferSize))
+			return buffer;
+
+		ByteBuffer newBuffer = this.acquire(minCapacity);
+
+		buffer.flip();
+		newBuffer.put(buffer);
+
+		this.release(buffer);
+
+		return newBuffer;
+	}
+
+	/** Returns buffer to pool. Caller must not use buffer again. */
+	public void release(ByteBuffer buffer) {
+		if (buffer == null)
+			return;
+
+		final int capacity = buffer.capacity();
+
+		this.inUseBytes.addAndGet(-capacity);
+		this.inUseBufferCount.decrementAndGet();
+
+		int sizeClassIndex = this.sizeClassIndex(capacity);
+		if (this.sizeClasses[sizeClassIndex] != capacity)
+			// Not one of ours?
+			return;
+
+		if (this.pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+			// Pool full - leave for garbage collection
+			this.pooledBytes.addAndGet(-capacity);
+			return;
+		}
+
+		this.pooledBufferCount.incrementAndGet();
+		this.freeBuffers.get(sizeClassIndex).offerFirst(buffer);
+	}
+
+	private int sizeClassIndex(int minCapacity) {
+		for (int i = 0; i < this.sizeClasses.length; ++i)
+			if (this.sizeClasses[i] >= minCapacity)
+				return i;
+
+		return this.sizeClasses.length - 1;
+	}
+
+	// Metrics
+
+	public long getPooledBytes() {
+		return this.pooledBytes.get();
+	}
+
+	public int getPooledBufferCount() {
+		return this.pooledBufferCount.get();
+	}
+
+	public long getInUseBytes() {
+		return this.inUseBytes.get();
+	}
+
+	public int getInUseBufferCount() {
+		return this.inUseBufferCount.get();
+	}
+
+}
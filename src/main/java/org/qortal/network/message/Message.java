@@ -1,12 +1,8 @@
 package org.qortal.network.message;
 
-import com.google.common.primitives.Ints;
 import org.qortal.crypto.Crypto;
 import org.qortal.network.Network;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
@@ -35,17 +31,16 @@ import java.util.Arrays;
 public abstract class Message {
 
 	// MAGIC(4) + TYPE(4) + HAS-ID(1) + ID?(4) + DATA-SIZE(4) + CHECKSUM?(4) + DATA?(*)
-	private static final int MAGIC_LENGTH = 4;
-	private static final int TYPE_LENGTH = 4;
-	private static final int HAS_ID_LENGTH = 1;
-	private static final int ID_LENGTH = 4;
-	private static final int DATA_SIZE_LENGTH = 4;
-	private static final int CHECKSUM_LENGTH = 4;
+	/* package */ static final int MAGIC_LENGTH = 4;
+	/* package */ static final int TYPE_LENGTH = 4;
+	/* package */ static final int HAS_ID_LENGTH = 1;
+	/* package */ static final int ID_LENGTH = 4;
+	/* package */ static final int DATA_SIZE_LENGTH = 4;
+	/* package */ static final int CHECKSUM_LENGTH = 4;
 
-	private static final int MAX_DATA_SIZE = 10 * 1024 * 1024; // 10MB
+	/* package */ static final int MAX_DATA_SIZE = 10 * 1024 * 1024; // 10MB
 
 	protected static final byte[] EMPTY_DATA_BYTES = new byte[0];
-	private static final ByteBuffer EMPTY_READ_ONLY_BYTE_BUFFER = ByteBuffer.wrap(EMPTY_DATA_BYTES).asReadOnlyBuffer();
 
 	protected int id;
 	protected final MessageType type;
@@ -55,6 +50,12 @@ public abstract class Message {
 	/** Serialized outgoing message checksum. Expected to be written to by subclass. */
 	protected byte[] checksumBytes;
 
+	/** Cached, framed, outgoing message header. Includes message ID, so rebuilt if ID changes. */
+	private volatile ByteBuffer cachedHeader;
+	/** Cached read-only views of outgoing checksum and data, shared by all recipients. */
+	private volatile ByteBuffer cachedChecksum;
+	private volatile ByteBuffer cachedData;
+
 	/** Typically called by subclass when constructing message from received network data. */
 	protected Message(int id, MessageType type) {
 		this.id = id;
@@ -90,67 +91,7 @@ public abstract class Message {
 	 * @throws MessageException if message could not be decoded or is invalid
 	 */
 	public static Message fromByteBuffer(ByteBuffer readOnlyBuffer) throws MessageException {
-		try {
-			// Read only enough bytes to cover Message "magic" preamble
-			byte[] messageMagic = new byte[MAGIC_LENGTH];
-			readOnlyBuffer.get(messageMagic);
-
-			if (!Arrays.equals(messageMagic, Network.getInstance().getMessageMagic()))
-				// Didn't receive correct Message "magic"
-				throw new MessageException("Received incorrect message 'magic'");
-
-			// Find supporting object
-			int typeValue = readOnlyBuffer.getInt();
-			MessageType messageType = MessageType.valueOf(typeValue);
-			if (messageType == null)
-				messageType = MessageType.UNSUPPORTED;
-
-			// Optional message ID
-			byte hasId = readOnlyBuffer.get();
-			int id = -1;
-			if (hasId != 0) {
-				id = readOnlyBuffer.getInt();
-
-				if (id <= 0)
-					// Invalid ID
-					throw new MessageException("Invalid negative ID");
-			}
-
-			int dataSize = readOnlyBuffer.getInt();
-
-			if (dataSize > MAX_DATA_SIZE)
-				// Too large
-				throw new MessageException(String.format("Declared data length %d larger than max allowed %d", dataSize, MAX_DATA_SIZE));
-
-			// Don't have all the data yet?
-			if (dataSize > 0 && dataSize + CHECKSUM_LENGTH > readOnlyBuffer.remaining())
-				return null;
-
-			ByteBuffer dataSlice = EMPTY_READ_ONLY_BYTE_BUFFER;
-			if (dataSize > 0) {
-				byte[] expectedChecksum = new byte[CHECKSUM_LENGTH];
-				readOnlyBuffer.get(expectedChecksum);
-
-				// Slice data in readBuffer so we can pass to Message subclass
-				dataSlice = readOnlyBuffer.slice();
-				dataSlice.limit(dataSize);
-
-				// Test checksum
-				byte[] actualChecksum = generateChecksum(dataSlice);
-				if (!Arrays.equals(expectedChecksum, actualChecksum))
-					throw new MessageException("Message checksum incorrect");
-
-				// Reset position after being consumed by generateChecksum
-				dataSlice.position(0);
-				// Update position in readOnlyBuffer
-				readOnlyBuffer.position(readOnlyBuffer.position() + dataSize);
-			}
-
-			return messageType.fromByteBuffer(id, dataSlice);
-		} catch (BufferUnderflowException e) {
-			// Not enough bytes to fully decode message...
-			return null;
-		}
+		return new MessageFrameDecoder().decode(readOnlyBuffer);
 	}
 
 	protected static byte[] generateChecksum(byte[] data) {
@@ -169,44 +110,89 @@ public abstract class Message {
 			throw new MessageException("Missing data checksum");
 	}
 
-	public byte[] toBytes() throws MessageException {
+	/**
+	 * Returns message, framed for sending over network, as a sequence of read-only buffers:
+	 * header (magic, type, optional ID, data size), then checksum and data if there is any data.
+	 * <p>
+	 * Suitable for a gathering write. The same message, e.g. when broadcast to many peers,
+	 * is only framed once: each call returns new {@link ByteBuffer#duplicate() duplicate} views
+	 * onto the same underlying bytes, with independent positions, so message data is never copied.
+	 */
+	public ByteBuffer[] toByteBuffers() throws MessageException {
 		checkValidOutgoing();
 
-		// We can calculate exact length
-		int messageLength = MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH;
-		messageLength += this.hasId() ? ID_LENGTH : 0;
-		messageLength += DATA_SIZE_LENGTH + this.dataBytes.length > 0 ? CHECKSUM_LENGTH + this.dataBytes.length : 0;
+		ByteBuffer header = this.cachedHeader;
+		// Message ID might have changed since header was built
+		if (header == null || getHeaderId(header) != this.id) {
+			header = this.buildHeader();
+			this.cachedHeader = header;
+		}
+
+		if (this.dataBytes.length == 0)
+			return new ByteBuffer[] { header.duplicate() };
+
+		ByteBuffer checksum = this.cachedChecksum;
+		ByteBuffer data = this.cachedData;
+		if (checksum == null || data == null) {
+			checksum = ByteBuffer.wrap(this.checksumBytes).asReadOnlyBuffer();
+			data = ByteBuffer.wrap(this.dataBytes).asReadOnlyBuffer();
+
+			this.cachedChecksum = checksum;
+			this.cachedData = data;
+		}
+
+		return new ByteBuffer[] { header.duplicate(), checksum.duplicate(), data.duplicate() };
+	}
 
+	public byte[] toBytes() throws MessageException {
+		ByteBuffer[] byteBuffers = this.toByteBuffers();
+
+		int messageLength = 0;
+		for (ByteBuffer byteBuffer : byteBuffers)
+			messageLength += byteBuffer.remaining();
+
+		ByteBuffer bytes = ByteBuffer.allocate(messageLength);
+		for (ByteBuffer byteBuffer : byteBuffers)
+			bytes.put(byteBuffer);
+
+		return bytes.array();
+	}
+
+	private ByteBuffer buildHeader() throws MessageException {
+		int headerLength = MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH;
+		headerLength += this.hasId() ? ID_LENGTH : 0;
+		headerLength += DATA_SIZE_LENGTH;
+
+		int messageLength = headerLength + (this.dataBytes.length > 0 ? CHECKSUM_LENGTH + this.dataBytes.length : 0);
 		if (messageLength > MAX_DATA_SIZE)
 			throw new MessageException(String.format("About to send message with length %d larger than allowed %d", messageLength, MAX_DATA_SIZE));
 
-		try {
-			ByteArrayOutputStream bytes = new ByteArrayOutputStream(messageLength);
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+
+		// Magic
+		header.put(Network.getInstance().getMessageMagic());
 
-			// Magic
-			bytes.write(Network.getInstance().getMessageMagic());
+		header.putInt(this.type.value);
 
-			bytes.write(Ints.toByteArray(this.type.value));
+		if (this.hasId()) {
+			header.put((byte) 1);
 
-			if (this.hasId()) {
-				bytes.write(1);
+			header.putInt(this.id);
+		} else {
+			header.put((byte) 0);
+		}
 
-				bytes.write(Ints.toByteArray(this.id));
-			} else {
-				bytes.write(0);
-			}
+		header.putInt(this.dataBytes.length);
 
-			bytes.write(Ints.toByteArray(this.dataBytes.length));
+		return header.flip().asReadOnlyBuffer();
+	}
 
-			if (this.dataBytes.length > 0) {
-				bytes.write(this.checksumBytes);
-				bytes.write(this.dataBytes);
-			}
+	/** Returns message ID from framed header, or -1 if none. */
+	private static int getHeaderId(ByteBuffer header) {
+		if (header.get(MAGIC_LENGTH + TYPE_LENGTH) == 0)
+			return -1;
 
-			return bytes.toByteArray();
-		} catch (IOException e) {
-			throw new MessageException("Failed to serialize message", e);
-		}
+		return header.getInt(MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH);
 	}
 
 	public static <M extends Message> M cloneWithNewId(M message, int newId) {
@@ -0,0 +1,164 @@
+package org.qortal.network.message;
+
+import org.qortal.network.Network;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stateful decoder of messages arriving, possibly in many pieces, from a single peer.
+ * <p>
+ * Once enough bytes have arrived, the message header (magic, type, ID, data size) is parsed and validated
+ * <b>once</b> and remembered, along with the expected total message length.
+ * Subsequent calls, as more bytes arrive, only compare the number of available bytes with the expected length.
+ * Checksum verification and dispatch to {@link MessageType#fromByteBuffer(int, ByteBuffer)}
+ * only happen when the whole message has arrived.
+ * <p>
+ * Each call to {@link #decode(ByteBuffer)} expects the buffer's position to be at the start of the same,
+ * pending, message until that message is returned. Not thread-safe.
+ */
+public class MessageFrameDecoder {
+
+	private static final ByteBuffer EMPTY_READ_ONLY_BYTE_BUFFER = ByteBuffer.wrap(Message.EMPTY_DATA_BYTES).asReadOnlyBuffer();
+
+	// Pending message header, if parsed
+	private boolean hasHeader = false;
+	private MessageType messageType;
+	private int id;
+	private int headerLength;
+	private int dataSize;
+
+	/**
+	 * Attempt to read a message from byte buffer.
+	 * <p>
+	 * If a message is returned, buffer's position is moved to the end of that message.
+	 * Otherwise buffer's position is unchanged.
+	 *
+	 * @param readOnlyBuffer ByteBuffer containing bytes read from network, position at start of message
+	 * @return null if no complete message can be read
+	 * @throws MessageException if message could not be decoded or is invalid
+	 */
+	public Message decode(ByteBuffer readOnlyBuffer) throws MessageException {
+		if (!this.hasHeader && !this.parseHeader(readOnlyBuffer))
+			return null;
+
+		// Don't have all the data yet?
+		if (readOnlyBuffer.remaining() < this.getExpectedLength())
+			return null;
+
+		final int start = readOnlyBuffer.position();
+
+		ByteBuffer dataSlice = EMPTY_READ_ONLY_BYTE_BUFFER;
+		if (this.dataSize > 0) {
+			byte[] expectedChecksum = new byte[Message.CHECKSUM_LENGTH];
+			readOnlyBuffer.position(start + this.headerLength);
+			readOnlyBuffer.get(expectedChecksum);
+
+			// Slice data in readBuffer so we can pass to Message subclass
+			dataSlice = readOnlyBuffer.slice();
+			dataSlice.limit(this.dataSize);
+
+			// Test checksum
+			byte[] actualChecksum = Message.generateChecksum(dataSlice);
+			if (!Arrays.equals(expectedChecksum, actualChecksum))
+				throw new MessageException("Message checksum incorrect");
+
+			// Reset position after being consumed by generateChecksum
+			dataSlice.position(0);
+		}
+
+		// Update position in readOnlyBuffer
+		readOnlyBuffer.position(start + this.getExpectedLength());
+
+		// Ready for next message
+		this.hasHeader = false;
+
+		try {
+			return this.messageType.fromByteBuffer(this.id, dataSlice);
+		} catch (BufferUnderflowException e) {
+			// Declared data size was too small for message type
+			throw new MessageException(String.format("Truncated %s message data", this.messageType.name()), e);
+		}
+	}
+
+	/**
+	 * Returns total length, in bytes, of pending message, as declared by its header,
+	 * or -1 if header hasn't been received yet.
+	 */
+	public int getExpectedLength() {
+		if (!this.hasHeader)
+			return -1;
+
+		return this.headerLength + (this.dataSize > 0 ? Message.CHECKSUM_LENGTH + this.dataSize : 0);
+	}
+
+	/** Discards any pending message header, e.g. after buffer has been emptied. */
+	public void reset() {
+		this.hasHeader = false;
+	}
+
+	/** Parses and validates message header, without changing buffer's position. Returns false if header incomplete. */
+	private boolean parseHeader(ByteBuffer readOnlyBuffer) throws MessageException {
+		final int start = readOnlyBuffer.position();
+		final int available = readOnlyBuffer.remaining();
+
+		if (available < Message.MAGIC_LENGTH)
+			return false;
+
+		// Check message "magic" preamble as soon as possible
+		byte[] expectedMagic = Network.getInstance().getMessageMagic();
+		for (int i = 0; i < Message.MAGIC_LENGTH; ++i)
+			if (readOnlyBuffer.get(start + i) != expectedMagic[i])
+				// Didn't receive correct Message "magic"
+				throw new MessageException("Received incorrect message 'magic'");
+
+		int offset = Message.MAGIC_LENGTH;
+		if (available < offset + Message.TYPE_LENGTH + Message.HAS_ID_LENGTH)
+			return false;
+
+		// Find supporting object
+		int typeValue = readOnlyBuffer.getInt(start + offset);
+		offset += Message.TYPE_LENGTH;
+
+		// Optional message ID
+		byte hasId = readOnlyBuffer.get(start + offset);
+		offset += Message.HAS_ID_LENGTH;
+
+		int id = -1;
+		if (hasId != 0) {
+			if (available < offset + Message.ID_LENGTH)
+				return false;
+
+			id = readOnlyBuffer.getInt(start + offset);
+			offset += Message.ID_LENGTH;
+
+			if (id <= 0)
+				// Invalid ID
+				throw new MessageException("Invalid negative ID");
+		}
+
+		if (available < offset + Message.DATA_SIZE_LENGTH)
+			return false;
+
+		int dataSize = readOnlyBuffer.getInt(start + offset);
+		offset += Message.DATA_SIZE_LENGTH;
+
+		if (dataSize > Message.MAX_DATA_SIZE)
+			// Too large
+			throw new MessageException(String.format("Declared data length %d larger than max allowed %d", dataSize, Message.MAX_DATA_SIZE));
+
+		MessageType messageType = MessageType.valueOf(typeValue);
+		if (messageType == null)
+			messageType = MessageType.UNSUPPORTED;
+
+		this.messageType = messageType;
+		this.id = id;
+		this.headerLength = offset;
+		this.dataSize = dataSize;
+		this.hasHeader = true;
+
+		return true;
+	}
+
+}
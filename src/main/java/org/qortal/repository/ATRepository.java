@@ -23,6 +23,17 @@ public interface ATRepository {
 	/** Returns list of executable ATs, empty if none found */
     List<ATData> getAllExecutableATs() throws DataException;
 
+	/**
+	 * Returns list of executable ATs, in same order as {@link #getAllExecutableATs()},
+	 * but excluding ATs that are simply sleeping until after <tt>blockchainHeight</tt>.
+	 * <p>
+	 * Returned ATData do <b>not</b> include code bytes, only code hash.
+	 */
+    List<ATData> getAllExecutableATsAwakeAt(int blockchainHeight) throws DataException;
+
+	/** Returns AT code bytes with passed code hash, or null if not found */
+    byte[] getCodeBytes(byte[] codeHash) throws DataException;
+
 	/** Returns list of ATs with matching code hash, optionally executable only. */
     List<ATData> getATsByFunctionality(byte[] codeHash, Boolean isExecutable, Integer limit, Integer offset, Boolean reverse) throws DataException;
 
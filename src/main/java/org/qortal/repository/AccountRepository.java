@@ -163,6 +163,14 @@ public interface AccountRepository {
 
 	public RewardShareData getRewardShare(byte[] rewardSharePublicKey) throws DataException;
 
+	/**
+	 * Returns reward-share data for each of passed reward-share public keys that actually exists.
+	 * <p>
+	 * This is a one-shot, batch form of the above <tt>getRewardShare(byte[])</tt> call.
+	 * Order of returned list is undefined.
+	 */
+	public List<RewardShareData> getRewardSharesByPublicKeys(List<byte[]> rewardSharePublicKeys) throws DataException;
+
 	public List<byte[]> getRewardSharePublicKeys() throws DataException;
 
 	public boolean isRewardSharePublicKey(byte[] publicKey) throws DataException;
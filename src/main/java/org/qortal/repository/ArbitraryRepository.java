@@ -53,4 +53,13 @@ public interface ArbitraryRepository {
 
 	void save(ArbitraryResourceMetadata metadata) throws DataException;
 	void delete(ArbitraryResourceMetadata metadata) throws DataException;
+
+
+	// Search index
+
+	/** Returns true if there are cached resources but no search tokens, e.g. after the search index table was added. */
+	boolean needsSearchIndexRebuild() throws DataException;
+
+	/** Replaces all search tokens with freshly built tokens for every cached resource. */
+	void rebuildSearchIndex() throws DataException;
 }
@@ -1,9 +1,10 @@
 package org.qortal.repository;
 
-import com.google.common.primitives.Ints;
+import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.data.block.BlockArchiveData;
+import org.qortal.data.block.BlockData;
 import org.qortal.settings.Settings;
 import org.qortal.transform.TransformationException;
 import org.qortal.transform.block.BlockTransformation;
@@ -11,19 +12,110 @@ import org.qortal.transform.block.BlockTransformer;
 import org.qortal.utils.Triple;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.qortal.transform.Transformer.INT_LENGTH;
 
+/**
+ * Reads blocks from archive files.
+ * <p>
+ * Archive files are memory-mapped on first use and stay mapped, so fetching a block is a few reads from memory,
+ * instead of opening the file and several syscalls per block. Files are found by height using a map of files
+ * keyed by start height. Block bytes are copied out of the mapping, so callers never hold on to mapped memory.
+ * <p>
+ * Block data of recently decoded blocks is also kept, so repeated lookups of the same blocks don't need decoding again.
+ * Full blocks, with transactions and AT states, are deliberately not cached, and are always decoded afresh:
+ * <ul>
+ * <li>peers are served serialized bytes straight from the mapping, so never need blocks decoded</li>
+ * <li>full blocks are only fetched by one-pass jobs, e.g. rebuilding transaction sequences or importing
+ * from archive, which read each height once, so cached blocks would never be reused</li>
+ * <li>those jobs modify transactions they're given, and transaction data can't be copied short of decoding again</li>
+ * </ul>
+ * <p>
+ * Anything replacing or deleting archive files must call {@link #invalidateFileListCache()} <b>beforehand</b>,
+ * which releases mappings so files can be deleted, and so stale mappings aren't used.
+ * Replacing the whole archive directory should use {@link #replaceArchive(Path)} instead.
+ */
 public class BlockArchiveReader {
 
+    private static final Logger LOGGER = LogManager.getLogger(BlockArchiveReader.class);
+
+    /** Length of fixed header: version, start height, end height, block count, variable header length */
+    private static final int FIXED_HEADER_LENGTH = 5 * INT_LENGTH;
+
+    /** Maximum number of decoded blocks' block data to keep */
+    private static final int DECODED_BLOCK_CACHE_SIZE = 500;
+
     private static BlockArchiveReader instance;
-    private Map<String, Triple<Integer, Integer, Integer>> fileListCache;
 
-    private static final Logger LOGGER = LogManager.getLogger(BlockArchiveReader.class);
+    private static class ArchiveFile {
+        final String filename;
+        final int startHeight;
+        final int endHeight;
+
+        /** Whole file, mapped on first use */
+        private MappedByteBuffer mappedBuffer;
+        /** Set if file is too large to map */
+        private boolean unmappable;
+
+        ArchiveFile(String filename, int startHeight, int endHeight) {
+            this.filename = filename;
+            this.startHeight = startHeight;
+            this.endHeight = endHeight;
+        }
+
+        /** Returns read-only mapping of whole file, or null if file is too large to map. */
+        synchronized ByteBuffer getMappedBuffer(Path filePath) throws IOException {
+            if (this.mappedBuffer == null && !this.unmappable) {
+                try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                    if (channel.size() > Integer.MAX_VALUE) {
+                        this.unmappable = true;
+                        return null;
+                    }
+
+                    this.mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+
+            return this.mappedBuffer;
+        }
+
+        synchronized void unmap() {
+            if (this.mappedBuffer == null)
+                return;
+
+            BlockArchiveReader.unmap(this.mappedBuffer);
+            this.mappedBuffer = null;
+        }
+    }
+
+    /** Archive files, keyed by start height, or null if archive directory needs scanning */
+    private volatile NavigableMap<Integer, ArchiveFile> archiveFiles;
+    /** Archive files, and their mappings, keyed by filename, kept across rescans of archive directory */
+    private final Map<String, ArchiveFile> archiveFilesByFilename = new HashMap<>();
+
+    /** Held while reading from mappings, so they aren't released mid-read */
+    private final ReentrantReadWriteLock mappingLock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, BlockData> decodedBlockDataByHeight = Collections.synchronizedMap(
+            new LinkedHashMap<>(DECODED_BLOCK_CACHE_SIZE, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, BlockData> eldest) {
+                    return this.size() > DECODED_BLOCK_CACHE_SIZE;
+                }
+            });
 
     public BlockArchiveReader() {
 
@@ -37,11 +129,16 @@ public class BlockArchiveReader {
         return instance;
     }
 
-    private void fetchFileList() {
+    private synchronized NavigableMap<Integer, ArchiveFile> fetchFileList() {
+        NavigableMap<Integer, ArchiveFile> archiveFiles = this.archiveFiles;
+        if (archiveFiles != null) {
+            return archiveFiles;
+        }
+
         Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive").toAbsolutePath();
         File archiveDirFile = archivePath.toFile();
         String[] files = archiveDirFile.list();
-        Map<String, Triple<Integer, Integer, Integer>> map = new HashMap<>();
+        TreeMap<Integer, ArchiveFile> map = new TreeMap<>();
 
         if (files != null) {
             for (String file : files) {
@@ -55,43 +152,88 @@ public class BlockArchiveReader {
                 }
                 // Remove the extension and split into two parts
                 String[] parts = filename.substring(0, filename.lastIndexOf('.')).split("-");
-                Integer startHeight = Integer.parseInt(parts[0]);
-                Integer endHeight = Integer.parseInt(parts[1]);
-                Integer range = endHeight - startHeight;
-                map.put(filename, new Triple(startHeight, endHeight, range));
+                try {
+                    int startHeight = Integer.parseInt(parts[0]);
+                    int endHeight = Integer.parseInt(parts[1]);
+                    ArchiveFile archiveFile = this.archiveFilesByFilename.computeIfAbsent(filename, f -> new ArchiveFile(f, startHeight, endHeight));
+                    map.put(startHeight, archiveFile);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    // Not a usable file
+                }
             }
         }
-        this.fileListCache = Map.copyOf(map);
+
+        archiveFiles = Collections.unmodifiableNavigableMap(map);
+        this.archiveFiles = archiveFiles;
+        return archiveFiles;
     }
 
     public Integer fetchSerializationVersionForHeight(int height) {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+        this.mappingLock.readLock().lock();
+        try {
+            Triple<ByteBuffer, Integer, Integer> serializedBlock = this.sliceSerializedBlockForHeight(height);
+            if (serializedBlock == null) {
+                return null;
+            }
+            return serializedBlock.getB();
+        } finally {
+            this.mappingLock.readLock().unlock();
         }
+    }
 
-        Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height);
-        if (serializedBlock == null) {
+    /** Returns newly decoded block, with transactions and AT states, that caller is free to modify. */
+    public BlockTransformation fetchBlockAtHeight(int height) {
+        BlockTransformation blockInfo = this.decodeBlockAtHeight(height);
+        if (blockInfo == null) {
             return null;
         }
-        return serializedBlock.getB();
+
+        this.decodedBlockDataByHeight.put(height, new BlockData(blockInfo.getBlockData()));
+        return blockInfo;
+    }
+
+    /**
+     * Returns block data only, for block at passed height, from cache if possible.
+     * <p>
+     * Returned block data is a copy, so caller is free to modify it.
+     */
+    public BlockData fetchBlockDataAtHeight(int height) {
+        BlockData blockData = this.decodedBlockDataByHeight.get(height);
+
+        if (blockData == null) {
+            BlockTransformation blockInfo = this.decodeBlockAtHeight(height);
+            if (blockInfo == null) {
+                return null;
+            }
+
+            blockData = blockInfo.getBlockData();
+            this.decodedBlockDataByHeight.put(height, blockData);
+        }
+
+        return new BlockData(blockData);
     }
 
-    public BlockTransformation fetchBlockAtHeight(int height) {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+    private BlockTransformation decodeBlockAtHeight(int height) {
+        // Decode straight from mapping, without copying, but don't let mapping be released meanwhile
+        this.mappingLock.readLock().lock();
+        try {
+            return this.decodeBlockAtHeightLocked(height);
+        } finally {
+            this.mappingLock.readLock().unlock();
         }
+    }
 
-        Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height);
+    private BlockTransformation decodeBlockAtHeightLocked(int height) {
+        Triple<ByteBuffer, Integer, Integer> serializedBlock = this.sliceSerializedBlockForHeight(height);
         if (serializedBlock == null) {
             return null;
         }
-        byte[] serializedBytes = serializedBlock.getA();
+        ByteBuffer byteBuffer = serializedBlock.getA();
         Integer serializationVersion = serializedBlock.getB();
-        if (serializedBytes == null || serializationVersion == null) {
+        if (byteBuffer == null || serializationVersion == null) {
             return null;
         }
 
-        ByteBuffer byteBuffer = ByteBuffer.wrap(serializedBytes);
         BlockTransformation blockInfo = null;
         try {
             switch (serializationVersion) {
@@ -120,14 +262,18 @@ public class BlockArchiveReader {
     }
 
     public BlockTransformation fetchBlockWithSignature(byte[] signature, Repository repository) {
-
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+        Integer height = this.fetchHeightForSignature(signature, repository);
+        if (height != null) {
+            return this.fetchBlockAtHeight(height);
         }
+        return null;
+    }
 
+    /** Returns block data only, for block with passed signature, from cache if possible. See {@link #fetchBlockDataAtHeight(int)}. */
+    public BlockData fetchBlockDataWithSignature(byte[] signature, Repository repository) {
         Integer height = this.fetchHeightForSignature(signature, repository);
         if (height != null) {
-            return this.fetchBlockAtHeight(height);
+            return this.fetchBlockDataAtHeight(height);
         }
         return null;
     }
@@ -137,7 +283,8 @@ public class BlockArchiveReader {
         List<BlockTransformation> blockInfoList = new ArrayList<>();
 
         for (int height = startHeight; height <= endHeight; height++) {
-            BlockTransformation blockInfo = this.fetchBlockAtHeight(height);
+            // Bulk reads, e.g. importing from archive, would only evict more useful entries from block data cache
+            BlockTransformation blockInfo = this.decodeBlockAtHeight(height);
             if (blockInfo == null) {
                 return blockInfoList;
             }
@@ -170,78 +317,144 @@ public class BlockArchiveReader {
         }
     }
 
-    private String getFilenameForHeight(int height) {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+    private ArchiveFile getArchiveFileForHeight(int height) {
+        Map.Entry<Integer, ArchiveFile> entry = this.fetchFileList().floorEntry(height);
+        if (entry == null || height > entry.getValue().endHeight) {
+            return null;
         }
 
-        Iterator it = this.fileListCache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry) it.next();
-            if (pair == null && pair.getKey() == null && pair.getValue() == null) {
-                continue;
-            }
-            Triple<Integer, Integer, Integer> heightInfo = (Triple<Integer, Integer, Integer>) pair.getValue();
-            Integer startHeight = heightInfo.getA();
-            Integer endHeight = heightInfo.getB();
+        // Found the correct file
+        return entry.getValue();
+    }
 
-            if (height >= startHeight && height <= endHeight) {
-                // Found the correct file
-                return (String) pair.getKey();
-            }
+    public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForSignature(byte[] signature, boolean includeHeightPrefix, Repository repository) {
+        Integer height = this.fetchHeightForSignature(signature, repository);
+        if (height != null) {
+            // When responding to a peer with a BLOCK message, we must prefix the byte array with the block height
+            // This mimics the toData() method in BlockMessage and CachedBlockMessage
+            return this.copySerializedBlockForHeight(height, includeHeightPrefix);
         }
-
         return null;
     }
 
-    public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForSignature(byte[] signature, boolean includeHeightPrefix, Repository repository) {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
-        }
+    public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForHeight(int height) {
+        return this.copySerializedBlockForHeight(height, false);
+    }
 
-        Integer height = this.fetchHeightForSignature(signature, repository);
-        if (height != null) {
-            Triple<byte[], Integer, Integer> serializedBlock = this.fetchSerializedBlockBytesForHeight(height);
+    private Triple<byte[], Integer, Integer> copySerializedBlockForHeight(int height, boolean includeHeightPrefix) {
+        this.mappingLock.readLock().lock();
+        try {
+            Triple<ByteBuffer, Integer, Integer> serializedBlock = this.sliceSerializedBlockForHeight(height);
             if (serializedBlock == null) {
                 return null;
             }
-            byte[] blockBytes = serializedBlock.getA();
+            ByteBuffer blockBuffer = serializedBlock.getA();
             Integer version = serializedBlock.getB();
-            if (blockBytes == null || version == null) {
+            if (blockBuffer == null || version == null) {
                 return null;
             }
 
-            // When responding to a peer with a BLOCK message, we must prefix the byte array with the block height
-            // This mimics the toData() method in BlockMessage and CachedBlockMessage
+            final int prefixLength = includeHeightPrefix ? INT_LENGTH : 0;
+            byte[] bytes = new byte[prefixLength + blockBuffer.remaining()];
+            ByteBuffer output = ByteBuffer.wrap(bytes);
             if (includeHeightPrefix) {
-                ByteArrayOutputStream bytes = new ByteArrayOutputStream(blockBytes.length + INT_LENGTH);
-                try {
-                    bytes.write(Ints.toByteArray(height));
-                    bytes.write(blockBytes);
-                    return new Triple<>(bytes.toByteArray(), version, height);
-
-                } catch (IOException e) {
-                    return null;
-                }
+                output.putInt(height);
             }
-            return new Triple<>(blockBytes, version, height);
+            output.put(blockBuffer);
+
+            return new Triple<>(bytes, version, height);
+        } finally {
+            this.mappingLock.readLock().unlock();
         }
-        return null;
     }
 
-    public Triple<byte[], Integer, Integer> fetchSerializedBlockBytesForHeight(int height) {
-        String filename = this.getFilenameForHeight(height);
-        if (filename == null) {
+    /**
+     * Returns serialized block bytes, serialization version and height, for block at passed height.
+     * <p>
+     * Block bytes are usually a read-only slice of the memory-mapped archive file, so must only be used
+     * while holding {@link #mappingLock}'s read lock.
+     *
+     * @return block bytes, serialization version and height, or null if block isn't in archive
+     */
+    private Triple<ByteBuffer, Integer, Integer> sliceSerializedBlockForHeight(int height) {
+        ArchiveFile archiveFile = this.getArchiveFileForHeight(height);
+        if (archiveFile == null) {
             // We don't have this block in the archive
-            // Invalidate the file list cache in case it is out of date
-            this.invalidateFileListCache();
+            // Rescan archive directory next time, in case it is out of date
+            this.archiveFiles = null;
             return null;
         }
 
+        String filename = archiveFile.filename;
         Path filePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive", filename).toAbsolutePath();
-        RandomAccessFile file = null;
         try {
-            file = new RandomAccessFile(filePath.toString(), "r");
+            ByteBuffer mappedBuffer = archiveFile.getMappedBuffer(filePath);
+            if (mappedBuffer == null) {
+                // Too large to map
+                return this.readSerializedBlockForHeight(filePath, filename, height);
+            }
+
+            // Get info about this file (the "fixed length header")
+            final int version = mappedBuffer.getInt(0);
+            final int startHeight = mappedBuffer.getInt(INT_LENGTH);
+            final int endHeight = mappedBuffer.getInt(2 * INT_LENGTH);
+            // Block count (unused) at 3 * INT_LENGTH
+            final int variableHeaderLength = mappedBuffer.getInt(4 * INT_LENGTH);
+            // End of fixed length header
+
+            // Make sure the version is one we recognize
+            if (version != 1 && version != 2) {
+                LOGGER.info("Error: unknown version in file {}: {}", filename, version);
+                return null;
+            }
+
+            // Verify that the block is within the reported range
+            if (height < startHeight || height > endHeight) {
+                LOGGER.info("Error: requested height {} but the range of file {} is {}-{}",
+                        height, filename, startHeight, endHeight);
+                return null;
+            }
+
+            // Look up the index of this block in the data segment, using the variable length header
+            final int locationOfBlockIndexInVariableHeaderSegment = (height - startHeight) * INT_LENGTH;
+            int locationOfBlockInDataSegment = mappedBuffer.getInt(FIXED_HEADER_LENGTH + locationOfBlockIndexInVariableHeaderSegment);
+
+            // Now find the block data itself
+            int dataSegmentStartIndex = FIXED_HEADER_LENGTH + variableHeaderLength + INT_LENGTH;
+            int blockOffset = dataSegmentStartIndex + locationOfBlockInDataSegment;
+
+            // Read the block metadata
+            int blockHeight = mappedBuffer.getInt(blockOffset);
+            int blockLength = mappedBuffer.getInt(blockOffset + INT_LENGTH);
+
+            // Ensure the block height matches the one requested
+            if (blockHeight != height) {
+                LOGGER.info("Error: height {} does not match requested: {}", blockHeight, height);
+                return null;
+            }
+
+            // Slice the block's serialized bytes out of the mapping, leaving shared mapping's position untouched
+            ByteBuffer blockBuffer = mappedBuffer.duplicate();
+            blockBuffer.position(blockOffset + 2 * INT_LENGTH);
+            blockBuffer.limit(blockOffset + 2 * INT_LENGTH + blockLength);
+
+            return new Triple<>(blockBuffer.slice(), version, height);
+
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            LOGGER.info("File {} not found: {}", filename, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            LOGGER.info("Unable to read block {} from archive: {}", height, e.getMessage());
+            return null;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            LOGGER.info("Unable to read block {} from truncated or corrupt archive file {}", height, filename);
+            return null;
+        }
+    }
+
+    /** Reads serialized block from archive file without mapping it, e.g. if file is too large to map. */
+    private Triple<ByteBuffer, Integer, Integer> readSerializedBlockForHeight(Path filePath, String filename, int height) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(filePath.toString(), "r")) {
             // Get info about this file (the "fixed length header")
             final int version = file.readInt(); // Do not remove or comment out, as it is moving the file pointer
             final int startHeight = file.readInt(); // Do not remove or comment out, as it is moving the file pointer
@@ -272,7 +485,7 @@ public class BlockArchiveReader {
             int locationOfBlockInDataSegment = file.readInt();
 
             // Now seek to the block data itself
-            int dataSegmentStartIndex = fixedHeaderLength + variableHeaderLength + INT_LENGTH; // Confirmed correct
+            long dataSegmentStartIndex = fixedHeaderLength + variableHeaderLength + INT_LENGTH; // Confirmed correct
             file.seek(dataSegmentStartIndex + locationOfBlockInDataSegment);
 
             // Read the block metadata
@@ -287,55 +500,94 @@ public class BlockArchiveReader {
 
             // Now retrieve the block's serialized bytes
             byte[] blockBytes = new byte[blockLength];
-            file.read(blockBytes);
-
-            return new Triple<>(blockBytes, version, height);
+            file.readFully(blockBytes);
 
-        } catch (FileNotFoundException e) {
-            LOGGER.info("File {} not found: {}", filename, e.getMessage());
-            return null;
-        } catch (IOException e) {
-            LOGGER.info("Unable to read block {} from archive: {}", height, e.getMessage());
-            return null;
-        }
-        finally {
-            // Close the file
-            if (file != null) {
-                try {
-                    file.close();
-                } catch (IOException e) {
-                    // Failed to close, but no need to handle this
-                }
-            }
+            return new Triple<>(ByteBuffer.wrap(blockBytes).asReadOnlyBuffer(), version, height);
         }
     }
 
     public int getHeightOfLastArchivedBlock() {
-        if (this.fileListCache == null) {
-            this.fetchFileList();
+        // Don't scan archive directory while it is being replaced
+        NavigableMap<Integer, ArchiveFile> archiveFiles;
+        this.mappingLock.readLock().lock();
+        try {
+            archiveFiles = this.fetchFileList();
+        } finally {
+            this.mappingLock.readLock().unlock();
         }
 
         int maxEndHeight = 0;
 
-        Iterator it = this.fileListCache.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry pair = (Map.Entry) it.next();
-            if (pair == null && pair.getKey() == null && pair.getValue() == null) {
-                continue;
-            }
-            Triple<Integer, Integer, Integer> heightInfo = (Triple<Integer, Integer, Integer>) pair.getValue();
-            Integer endHeight = heightInfo.getB();
-
-            if (endHeight != null && endHeight > maxEndHeight) {
-                maxEndHeight = endHeight;
+        for (ArchiveFile archiveFile : archiveFiles.values()) {
+            if (archiveFile.endHeight > maxEndHeight) {
+                maxEndHeight = archiveFile.endHeight;
             }
         }
 
         return maxEndHeight;
     }
 
+    /**
+     * Forgets archive files, releasing their mappings, along with any decoded block data.
+     * <p>
+     * Call before archive files are replaced or deleted, and after archive files are added.
+     */
     public void invalidateFileListCache() {
-        this.fileListCache = null;
+        // Wait for any reads from mappings to finish. Lock ordering: mappingLock, then 'this'
+        this.mappingLock.writeLock().lock();
+        try {
+            this.releaseArchiveFiles();
+        } finally {
+            this.mappingLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces archive directory with passed directory, e.g. once archive has been rebuilt.
+     * <p>
+     * Reads wait until replacement has finished, so old files can't be mapped, nor directory rescanned, mid-swap.
+     */
+    public void replaceArchive(Path newArchivePath) throws IOException {
+        Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive");
+
+        this.mappingLock.writeLock().lock();
+        try {
+            this.releaseArchiveFiles();
+
+            FileUtils.deleteDirectory(archivePath.toFile());
+            FileUtils.moveDirectory(newArchivePath.toFile(), archivePath.toFile());
+        } finally {
+            this.mappingLock.writeLock().unlock();
+        }
+    }
+
+    /** Caller must hold {@link #mappingLock}'s write lock. */
+    private synchronized void releaseArchiveFiles() {
+        for (ArchiveFile archiveFile : this.archiveFilesByFilename.values()) {
+            archiveFile.unmap();
+        }
+
+        this.archiveFiles = null;
+        this.archiveFilesByFilename.clear();
+        this.decodedBlockDataByHeight.clear();
+    }
+
+    /**
+     * Releases mapping now, rather than whenever it is garbage collected, so file can be deleted or replaced.
+     * <p>
+     * Caller must ensure mapping, and any slices of it, are no longer used.
+     */
+    private static void unmap(MappedByteBuffer mappedBuffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafeField.setAccessible(true);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(theUnsafeField.get(null), mappedBuffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Mapping will be released once garbage collected instead
+            LOGGER.debug("Unable to release archive file mapping: {}", e.getMessage());
+        }
     }
 
 }
@@ -236,6 +236,9 @@ public class Bootstrap {
                 repository.getAccountRepository().delete(mintingAccount.getPrivateKey());
             }
 
+            LOGGER.info("Deleting foreign wallet address cache...");
+            repository.getCrossChainRepository().deleteAllForeignWalletAddresses();
+
             repository.saveChanges();
 
             LOGGER.info("Deleting peers list...");
@@ -457,6 +460,8 @@ public class Bootstrap {
             Path output = path.toAbsolutePath().getParent().toAbsolutePath();
             Path inputPath = Paths.get(output.toString(), "bootstrap");
             Path outputPath = Paths.get(Settings.getInstance().getRepositoryPath());
+            // Release archive files we've mapped, as they're about to be deleted and replaced
+            BlockArchiveReader.getInstance().invalidateFileListCache();
             FileUtils.deleteDirectory(outputPath.toFile());
 
             this.updateStatus("Extracting bootstrap...");
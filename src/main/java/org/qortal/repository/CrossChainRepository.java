@@ -1,5 +1,6 @@
 package org.qortal.repository;
 
+import org.qortal.data.crosschain.ForeignWalletAddressData;
 import org.qortal.data.crosschain.TradeBotData;
 
 import java.util.List;
@@ -18,4 +19,15 @@ public interface CrossChainRepository {
 	/** Delete trade-bot states using passed private key. */
     int delete(byte[] tradePrivateKey) throws DataException;
 
+	// Foreign wallet address cache
+
+	/** Returns cached addresses, with their transaction hashes, for wallet identified by <tt>walletId</tt>. */
+	List<ForeignWalletAddressData> getForeignWalletAddresses(String currencyCode, byte[] walletId) throws DataException;
+
+	/** Saves address state, replacing any previously cached transaction hashes. */
+	void save(ForeignWalletAddressData foreignWalletAddressData) throws DataException;
+
+	/** Deletes all cached foreign wallet addresses, e.g. before creating a bootstrap. */
+	int deleteAllForeignWalletAddresses() throws DataException;
+
 }
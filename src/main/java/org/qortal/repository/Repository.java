@@ -41,6 +41,9 @@ public interface Repository extends AutoCloseable {
 
 	void rollbackToSavepoint() throws DataException;
 
+	/** Discards most recent savepoint, keeping any changes made since it was set. */
+	void releaseSavepoint() throws DataException;
+
 	@Override
     void close() throws DataException;
 
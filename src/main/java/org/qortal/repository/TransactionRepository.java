@@ -325,6 +325,38 @@ public interface TransactionRepository {
 	 */
     List<TransactionData> getUnconfirmedTransactions(EnumSet<TransactionType> excludedTxTypes, Integer limit) throws DataException;
 
+	/**
+	 * Returns list of unconfirmed transactions with timestamp before <tt>timestamp</tt>, in timestamp-else-signature order.
+	 * <p>
+	 * As a transaction's deadline is its timestamp plus the expiry period,
+	 * this is used to find expired transactions.
+	 *
+	 * @param timestamp exclusive
+	 * @return list of transactions, or empty if none.
+	 * @throws DataException
+	 */
+	List<TransactionData> getUnconfirmedTransactionsCreatedBefore(long timestamp) throws DataException;
+
+	/**
+	 * Returns number of unconfirmed transactions by creator, excluding specified type(s).
+	 *
+	 * @param creatorPublicKey
+	 * @param excludedTxTypes
+	 * @throws DataException
+	 */
+	int countUnconfirmedTransactionsByCreator(byte[] creatorPublicKey, EnumSet<TransactionType> excludedTxTypes) throws DataException;
+
+	/**
+	 * Returns number of unconfirmed transactions with specified type and creator,
+	 * with timestamp at least <tt>minTimestamp</tt>.
+	 *
+	 * @param txType
+	 * @param creatorPublicKey
+	 * @param minTimestamp inclusive
+	 * @throws DataException
+	 */
+	int countUnconfirmedTransactions(TransactionType txType, byte[] creatorPublicKey, long minTimestamp) throws DataException;
+
 	/**
 	 * Remove transaction from unconfirmed transactions pile.
 	 * 
@@ -150,6 +150,79 @@ public class HSQLDBATRepository implements ATRepository {
 		}
 	}
 
+	@Override
+	public List<ATData> getAllExecutableATsAwakeAt(int blockchainHeight) throws DataException {
+		// Skip ATs that CIYAM execution would find still asleep, without ever fetching their code.
+		// Frozen ATs always count, as do sleep-until-message ATs, as those are handled by QortalATAPI.willExecute()
+		String sql = "SELECT AT_address, creator, created_when, version, asset_id, code_hash, "
+				+ "is_sleeping, sleep_until_height, had_fatal_error, "
+				+ "is_frozen, frozen_balance, sleep_until_message_timestamp "
+				+ "FROM ATs "
+				+ "WHERE is_finished = false "
+				+ "AND (is_sleeping = false OR is_frozen = true OR sleep_until_message_timestamp IS NOT NULL "
+				+ "OR sleep_until_height IS NULL OR sleep_until_height <= ?) "
+				+ "ORDER BY created_when ASC";
+
+		List<ATData> executableATs = new ArrayList<>();
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, blockchainHeight)) {
+			if (resultSet == null)
+				return executableATs;
+
+			boolean isFinished = false;
+			byte[] codeBytes = null;
+
+			do {
+				String atAddress = resultSet.getString(1);
+				byte[] creatorPublicKey = resultSet.getBytes(2);
+				long created = resultSet.getLong(3);
+				int version = resultSet.getInt(4);
+				long assetId = resultSet.getLong(5);
+				byte[] codeHash = resultSet.getBytes(6);
+				boolean isSleeping = resultSet.getBoolean(7);
+
+				Integer sleepUntilHeight = resultSet.getInt(8);
+				if (sleepUntilHeight == 0 && resultSet.wasNull())
+					sleepUntilHeight = null;
+
+				boolean hadFatalError = resultSet.getBoolean(9);
+				boolean isFrozen = resultSet.getBoolean(10);
+
+				Long frozenBalance = resultSet.getLong(11);
+				if (frozenBalance == 0 && resultSet.wasNull())
+					frozenBalance = null;
+
+				Long sleepUntilMessageTimestamp = resultSet.getLong(12);
+				if (sleepUntilMessageTimestamp == 0 && resultSet.wasNull())
+					sleepUntilMessageTimestamp = null;
+
+				ATData atData = new ATData(atAddress, creatorPublicKey, created, version, assetId, codeBytes, codeHash,
+						isSleeping, sleepUntilHeight, isFinished, hadFatalError, isFrozen, frozenBalance,
+						sleepUntilMessageTimestamp);
+
+				executableATs.add(atData);
+			} while (resultSet.next());
+
+			return executableATs;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch awake executable ATs from repository", e);
+		}
+	}
+
+	@Override
+	public byte[] getCodeBytes(byte[] codeHash) throws DataException {
+		String sql = "SELECT code_bytes FROM ATs WHERE code_hash = ? LIMIT 1";
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, codeHash)) {
+			if (resultSet == null)
+				return null;
+
+			return resultSet.getBytes(1);
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch AT code bytes from repository", e);
+		}
+	}
+
 	@Override
 	public List<ATData> getATsByFunctionality(byte[] codeHash, Boolean isExecutable, Integer limit, Integer offset, Boolean reverse) throws DataException {
 		StringBuilder sql = new StringBuilder(512);
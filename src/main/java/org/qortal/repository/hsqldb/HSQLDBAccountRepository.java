@@ -708,6 +708,41 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 
+	@Override
+	public List<RewardShareData> getRewardSharesByPublicKeys(List<byte[]> rewardSharePublicKeys) throws DataException {
+		List<RewardShareData> rewardShares = new ArrayList<>();
+		if (rewardSharePublicKeys == null || rewardSharePublicKeys.isEmpty())
+			return rewardShares;
+
+		StringBuilder sql = new StringBuilder(1024);
+		sql.append("SELECT minter_public_key, minter, recipient, share_percent, reward_share_public_key FROM RewardShares "
+				+ "WHERE reward_share_public_key IN (?");
+
+		for (int i = 1; i < rewardSharePublicKeys.size(); ++i)
+			sql.append(", ?");
+
+		sql.append(")");
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), rewardSharePublicKeys.toArray())) {
+			if (resultSet == null)
+				return rewardShares;
+
+			do {
+				byte[] minterPublicKey = resultSet.getBytes(1);
+				String minter = resultSet.getString(2);
+				String recipient = resultSet.getString(3);
+				int sharePercent = resultSet.getInt(4);
+				byte[] rewardSharePublicKey = resultSet.getBytes(5);
+
+				rewardShares.add(new RewardShareData(minterPublicKey, minter, recipient, rewardSharePublicKey, sharePercent));
+			} while (resultSet.next());
+
+			return rewardShares;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch reward-shares from repository", e);
+		}
+	}
+
 	@Override
 	public List<byte[]> getRewardSharePublicKeys() throws DataException {
 		String sql = "SELECT reward_share_public_key FROM RewardShares ORDER BY reward_share_public_key";
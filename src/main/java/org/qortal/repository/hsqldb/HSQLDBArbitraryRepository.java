@@ -22,17 +22,18 @@ import org.qortal.transaction.ArbitraryTransaction;
 import org.qortal.transaction.Transaction.ApprovalStatus;
 import org.qortal.utils.Base58;
 import org.qortal.utils.ListUtils;
+import org.qortal.utils.SearchTokenizer;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
 public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 
 	private static final Logger LOGGER = LogManager.getLogger(HSQLDBArbitraryRepository.class);
 
+	private static final String INSERT_SEARCH_TOKEN_SQL = "INSERT INTO ArbitrarySearchTokens (token, service, name, identifier, weight) VALUES (?, ?, ?, ?, ?)";
+
 	protected HSQLDBRepository repository;
 	
 	public HSQLDBArbitraryRepository(HSQLDBRepository repository) {
@@ -747,6 +748,28 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 			sql.append(" JOIN Names USING (name) JOIN Accounts ON Accounts.account=Names.owner");
 		}
 
+		// General queries for non-default resources use the search token index, unless "prefixOnly" has been requested
+		List<String> queryTerms = (query != null && !defaultResource && !prefixOnly) ? SearchTokenizer.queryTerms(query) : Collections.emptyList();
+		boolean useSearchIndex = !queryTerms.isEmpty();
+
+		if (useSearchIndex) {
+			// Each term is matched as a token prefix, and must match at least one of a resource's tokens.
+			// Resources are ranked by the sum, over all terms, of the weight of the best matching token,
+			// with exact token matches counting double.
+			sql.append(" JOIN (SELECT service, name, identifier, SUM(weight) AS relevance FROM (");
+
+			for (int i = 0; i < queryTerms.size(); ++i) {
+				if (i > 0) sql.append(" UNION ALL ");
+				sql.append("SELECT service, name, identifier, MAX(CASE WHEN token = ? THEN weight * 2 ELSE weight END) AS weight "
+						+ "FROM ArbitrarySearchTokens WHERE token LIKE ? GROUP BY service, name, identifier");
+				bindParams.add(queryTerms.get(i));
+				bindParams.add(String.format("%s%%", queryTerms.get(i)));
+			}
+
+			sql.append(") TermMatches GROUP BY service, name, identifier HAVING COUNT(*) = ?) SearchMatches USING (service, name, identifier)");
+			bindParams.add(queryTerms.size());
+		}
+
 		sql.append(" LEFT JOIN ArbitraryMetadataCache USING (service, name, identifier) WHERE name IS NOT NULL");
 
 		if (minLevel != null) {
@@ -761,7 +784,7 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 		}
 
 		// Handle general query matches
-		if (query != null) {
+		if (query != null && !useSearchIndex) {
 			// Search anywhere in the fields, unless "prefixOnly" has been requested
 			// Note that without prefixOnly it will bypass any indexes so may not scale well
 			// Longer term we probably want to copy resources to their own table anyway
@@ -869,7 +892,12 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 			}
 		}
 
-		sql.append(" ORDER BY created_when");
+		// Most relevant first when searching using the index
+		if (useSearchIndex) {
+			sql.append(" ORDER BY SearchMatches.relevance DESC, created_when");
+		} else {
+			sql.append(" ORDER BY created_when");
+		}
 
 		if (reverse != null && reverse) {
 			sql.append(" DESC");
@@ -962,6 +990,15 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 
 		try {
 			saveHelper.execute(this.repository);
+
+			// Name and identifier never change, so only new resources need indexing here.
+			// Metadata changes are indexed when the metadata is saved.
+			boolean isIndexed = this.repository.exists("ArbitrarySearchTokens", "service = ? AND name = ? AND identifier = ?",
+					arbitraryResourceData.service.value, arbitraryResourceData.name, arbitraryResourceData.identifier);
+			if (!isIndexed) {
+				this.indexResource(arbitraryResourceData.service, arbitraryResourceData.name, arbitraryResourceData.identifier,
+						null, null, null);
+			}
 		} catch (SQLException e) {
 			throw new DataException("Unable to save arbitrary resource info into repository", e);
 		}
@@ -1035,6 +1072,9 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 
 		try {
 			saveHelper.execute(this.repository);
+
+			this.indexResource(arbitraryResourceData.service, arbitraryResourceData.name, arbitraryResourceData.identifier,
+					title, description, tags);
 		} catch (SQLException e) {
 			throw new DataException("Unable to save arbitrary metadata into repository", e);
 		}
@@ -1048,11 +1088,99 @@ public class HSQLDBArbitraryRepository implements ArbitraryRepository {
 		}
 
 		try {
-			this.repository.delete("ArbitraryMetadataCache", "service = ? AND name = ? AND identifier = ?",
+			int deletedCount = this.repository.delete("ArbitraryMetadataCache", "service = ? AND name = ? AND identifier = ?",
 					arbitraryResourceData.service.value, arbitraryResourceData.name, arbitraryResourceData.identifier);
 
+			// Drop metadata tokens, keeping those for name and identifier
+			if (deletedCount > 0) {
+				this.indexResource(arbitraryResourceData.service, arbitraryResourceData.name, arbitraryResourceData.identifier,
+						null, null, null);
+			}
 		} catch (SQLException e) {
 			throw new DataException("Unable to delete account from repository", e);
 		}
 	}
+
+
+	/* Search index */
+
+	@Override
+	public boolean needsSearchIndexRebuild() throws DataException {
+		try {
+			return this.repository.exists("ArbitraryResourcesCache", "name IS NOT NULL")
+					&& !this.repository.exists("ArbitrarySearchTokens", "token IS NOT NULL");
+		} catch (SQLException e) {
+			throw new DataException("Unable to check arbitrary search index", e);
+		}
+	}
+
+	@Override
+	public void rebuildSearchIndex() throws DataException {
+		String sql = "SELECT service, name, identifier, title, description, tag1, tag2, tag3, tag4, tag5 "
+				+ "FROM ArbitraryResourcesCache LEFT JOIN ArbitraryMetadataCache USING (service, name, identifier)";
+
+		final int batchSize = 1000;
+		List<Object[]> batchedTokens = new ArrayList<>();
+
+		try {
+			this.repository.delete("ArbitrarySearchTokens");
+
+			try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
+				if (resultSet == null)
+					return;
+
+				do {
+					Service service = Service.valueOf(resultSet.getInt(1));
+					String name = resultSet.getString(2);
+					String identifier = resultSet.getString(3);
+					String title = resultSet.getString(4);
+					String description = resultSet.getString(5);
+
+					List<String> tags = new ArrayList<>();
+					for (int column = 6; column <= 10; ++column) {
+						String tag = resultSet.getString(column);
+						if (tag != null) tags.add(tag);
+					}
+
+					if (service == null)
+						continue;
+
+					batchedTokens.addAll(searchTokenRows(service, name, identifier, title, description, tags));
+
+					if (batchedTokens.size() >= batchSize) {
+						this.repository.executeCheckedBatchUpdate(INSERT_SEARCH_TOKEN_SQL, batchedTokens);
+						batchedTokens.clear();
+					}
+				} while (resultSet.next());
+			}
+
+			if (!batchedTokens.isEmpty())
+				this.repository.executeCheckedBatchUpdate(INSERT_SEARCH_TOKEN_SQL, batchedTokens);
+		} catch (SQLException e) {
+			throw new DataException("Unable to rebuild arbitrary search index", e);
+		}
+	}
+
+	/** Replaces a cached resource's search tokens. */
+	private void indexResource(Service service, String name, String identifier, String title, String description, List<String> tags) throws SQLException {
+		this.repository.delete("ArbitrarySearchTokens", "service = ? AND name = ? AND identifier = ?",
+				service.value, name, identifier);
+
+		List<Object[]> tokenRows = searchTokenRows(service, name, identifier, title, description, tags);
+		if (!tokenRows.isEmpty())
+			this.repository.executeCheckedBatchUpdate(INSERT_SEARCH_TOKEN_SQL, tokenRows);
+	}
+
+	private static List<Object[]> searchTokenRows(Service service, String name, String identifier, String title, String description, List<String> tags) {
+		// The cache stores null identifiers as "default", which isn't worth searching for
+		String searchableIdentifier = Objects.equals(identifier, "default") ? null : identifier;
+
+		Map<String, Integer> tokenWeights = SearchTokenizer.tokenWeights(name, searchableIdentifier, title, description, tags);
+
+		List<Object[]> tokenRows = new ArrayList<>(tokenWeights.size());
+		for (Map.Entry<String, Integer> entry : tokenWeights.entrySet())
+			tokenRows.add(new Object[] { entry.getKey(), service.value, name, identifier, entry.getValue() });
+
+		return tokenRows;
+	}
 }
@@ -299,6 +299,12 @@ public class HSQLDBAssetRepository implements AssetRepository {
 
 	@Override
 	public List<OrderData> getOpenOrdersForTrading(long haveAssetId, long wantAssetId, Long minimumPrice) throws DataException {
+		// In-memory order book, with our uncommitted changes overlaid, gives same results as below
+		return this.repository.getOrderBook().getOpenOrdersForTrading(haveAssetId, wantAssetId, minimumPrice, this.repository.getOrderBookChanges());
+	}
+
+	/** Database-only version of {@link #getOpenOrdersForTrading(long, long, Long)}, e.g. for checking order book consistency. */
+	public List<OrderData> getOpenOrdersForTradingFromDatabase(long haveAssetId, long wantAssetId, Long minimumPrice) throws DataException {
 		List<Object> bindParams = new ArrayList<>(3);
 
 		StringBuilder sql = new StringBuilder(512);
@@ -322,7 +328,7 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		if (minimumPrice != null && haveAssetId < wantAssetId)
 			sql.append(" DESC");
 
-		sql.append(", ordered_when");
+		sql.append(", ordered_when, asset_order_id");
 
 		List<OrderData> orders = new ArrayList<>();
 
@@ -366,6 +372,11 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		if (wantAssetData == null)
 			return orders;
 
+		// In-memory order book only lacks this session's uncommitted changes, if any
+		if (this.repository.getOrderBookChanges().isEmpty())
+			return this.repository.getOrderBook().getAggregatedOpenOrders(haveAssetId, wantAssetId,
+					haveAssetData.getName(), wantAssetData.getName(), limit, offset, reverse);
+
 		StringBuilder sql = new StringBuilder(512);
 		sql.append("SELECT price, SUM(amount - fulfilled), MAX(ordered_when) FROM AssetOrders "
 				+ "WHERE have_asset_id = ? AND want_asset_id = ? AND NOT is_closed AND NOT is_fulfilled "
@@ -528,6 +539,8 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to save asset order into repository", e);
 		}
+
+		this.repository.onOrderSaved(orderData);
 	}
 
 	@Override
@@ -537,6 +550,8 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to delete asset order from repository", e);
 		}
+
+		this.repository.onOrderDeleted(orderId);
 	}
 
 	// Trades
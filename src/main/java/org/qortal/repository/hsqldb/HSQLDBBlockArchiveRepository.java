@@ -7,7 +7,6 @@ import org.qortal.data.block.BlockSummaryData;
 import org.qortal.repository.BlockArchiveReader;
 import org.qortal.repository.BlockArchiveRepository;
 import org.qortal.repository.DataException;
-import org.qortal.transform.block.BlockTransformation;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -26,11 +25,7 @@ public class HSQLDBBlockArchiveRepository implements BlockArchiveRepository {
 
     @Override
     public BlockData fromSignature(byte[] signature) throws DataException {
-        BlockTransformation blockInfo = BlockArchiveReader.getInstance().fetchBlockWithSignature(signature, this.repository);
-        if (blockInfo == null)
-            return null;
-
-        return blockInfo.getBlockData();
+        return BlockArchiveReader.getInstance().fetchBlockDataWithSignature(signature, this.repository);
     }
 
     @Override
@@ -44,11 +39,7 @@ public class HSQLDBBlockArchiveRepository implements BlockArchiveRepository {
 
     @Override
     public BlockData fromHeight(int height) throws DataException {
-        BlockTransformation blockInfo = BlockArchiveReader.getInstance().fetchBlockAtHeight(height);
-        if (blockInfo == null)
-            return null;
-
-        return blockInfo.getBlockData();
+        return BlockArchiveReader.getInstance().fetchBlockDataAtHeight(height);
     }
 
     @Override
@@ -76,10 +67,7 @@ public class HSQLDBBlockArchiveRepository implements BlockArchiveRepository {
             int height = referenceBlock.getHeight();
             if (height > 0) {
                 // Request the block at height + 1
-                BlockTransformation blockInfo = BlockArchiveReader.getInstance().fetchBlockAtHeight(height + 1);
-                if (blockInfo != null) {
-                    return blockInfo.getBlockData();
-                }
+                return BlockArchiveReader.getInstance().fetchBlockDataAtHeight(height + 1);
             }
         }
         return null;
@@ -1,5 +1,6 @@
 package org.qortal.repository.hsqldb;
 
+import org.qortal.data.crosschain.ForeignWalletAddressData;
 import org.qortal.data.crosschain.TradeBotData;
 import org.qortal.repository.CrossChainRepository;
 import org.qortal.repository.DataException;
@@ -8,7 +9,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HSQLDBCrossChainRepository implements CrossChainRepository {
 
@@ -199,4 +202,99 @@ public class HSQLDBCrossChainRepository implements CrossChainRepository {
 		}
 	}
 
-}
\ No newline at end of file
+	// Foreign wallet address cache
+
+	@Override
+	public List<ForeignWalletAddressData> getForeignWalletAddresses(String currencyCode, byte[] walletId) throws DataException {
+		String sql = "SELECT key_path, address, status, updated_when "
+				+ "FROM ForeignWalletAddresses "
+				+ "WHERE currency_code = ? AND wallet_id = ?";
+
+		List<ForeignWalletAddressData> foreignWalletAddresses = new ArrayList<>();
+		Map<String, ForeignWalletAddressData> foreignWalletAddressesByPath = new HashMap<>();
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, currencyCode, walletId)) {
+			if (resultSet == null)
+				return foreignWalletAddresses;
+
+			do {
+				String keyPath = resultSet.getString(1);
+				String address = resultSet.getString(2);
+				String status = resultSet.getString(3);
+				long updatedWhen = resultSet.getLong(4);
+
+				ForeignWalletAddressData foreignWalletAddressData = new ForeignWalletAddressData(currencyCode, walletId,
+						keyPath, address, status, new ArrayList<>(), updatedWhen);
+				foreignWalletAddresses.add(foreignWalletAddressData);
+				foreignWalletAddressesByPath.put(keyPath, foreignWalletAddressData);
+			} while (resultSet.next());
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch foreign wallet addresses from repository", e);
+		}
+
+		String txSql = "SELECT key_path, tx_hash "
+				+ "FROM ForeignWalletAddressTransactions "
+				+ "WHERE currency_code = ? AND wallet_id = ?";
+
+		try (ResultSet resultSet = this.repository.checkedExecute(txSql, currencyCode, walletId)) {
+			if (resultSet == null)
+				return foreignWalletAddresses;
+
+			do {
+				String keyPath = resultSet.getString(1);
+				String txHash = resultSet.getString(2);
+
+				ForeignWalletAddressData foreignWalletAddressData = foreignWalletAddressesByPath.get(keyPath);
+				if (foreignWalletAddressData != null)
+					foreignWalletAddressData.getTxHashes().add(txHash);
+			} while (resultSet.next());
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch foreign wallet address transactions from repository", e);
+		}
+
+		return foreignWalletAddresses;
+	}
+
+	@Override
+	public void save(ForeignWalletAddressData foreignWalletAddressData) throws DataException {
+		HSQLDBSaver saveHelper = new HSQLDBSaver("ForeignWalletAddresses");
+
+		saveHelper.bind("currency_code", foreignWalletAddressData.getCurrencyCode())
+				.bind("wallet_id", foreignWalletAddressData.getWalletId())
+				.bind("key_path", foreignWalletAddressData.getKeyPath())
+				.bind("address", foreignWalletAddressData.getAddress())
+				.bind("status", foreignWalletAddressData.getStatus())
+				.bind("updated_when", foreignWalletAddressData.getUpdatedWhen());
+
+		try {
+			saveHelper.execute(this.repository);
+
+			this.repository.delete("ForeignWalletAddressTransactions", "currency_code = ? AND wallet_id = ? AND key_path = ?",
+					foreignWalletAddressData.getCurrencyCode(), foreignWalletAddressData.getWalletId(), foreignWalletAddressData.getKeyPath());
+
+			if (!foreignWalletAddressData.getTxHashes().isEmpty()) {
+				String sql = "INSERT INTO ForeignWalletAddressTransactions (currency_code, wallet_id, key_path, tx_hash) VALUES (?, ?, ?, ?)";
+
+				List<Object[]> bindParamRows = new ArrayList<>();
+				for (String txHash : foreignWalletAddressData.getTxHashes())
+					bindParamRows.add(new Object[] { foreignWalletAddressData.getCurrencyCode(), foreignWalletAddressData.getWalletId(),
+							foreignWalletAddressData.getKeyPath(), txHash });
+
+				this.repository.executeCheckedBatchUpdate(sql, bindParamRows);
+			}
+		} catch (SQLException e) {
+			throw new DataException("Unable to save foreign wallet address into repository", e);
+		}
+	}
+
+	@Override
+	public int deleteAllForeignWalletAddresses() throws DataException {
+		try {
+			// Transactions are removed by cascade
+			return this.repository.delete("ForeignWalletAddresses");
+		} catch (SQLException e) {
+			throw new DataException("Unable to delete foreign wallet addresses from repository", e);
+		}
+	}
+
+}
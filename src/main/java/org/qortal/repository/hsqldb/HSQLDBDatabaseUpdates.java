@@ -1050,6 +1050,36 @@ public class HSQLDBDatabaseUpdates {
 					stmt.execute("UPDATE Accounts SET blocks_minted_penalty = -5000000 WHERE blocks_minted_penalty < 0");
 					break;
 
+				case 50:
+					// Inverted index of search tokens from QDN resources' name, identifier and metadata, so that
+					// searches don't need to scan ArbitraryResourcesCache using LIKE '%query%'.
+					// Like the caches it is built from, this must NOT be used for any consensus/validation code.
+					// Populated by ArbitraryDataCacheManager on startup, and kept updated as the caches are saved.
+					stmt.execute("CREATE TABLE ArbitrarySearchTokens (token VARCHAR(64) NOT NULL, service SMALLINT NOT NULL, "
+							+ "name RegisteredName NOT NULL, identifier VARCHAR(64), weight SMALLINT NOT NULL, "
+							+ "PRIMARY KEY (token, service, name, identifier), FOREIGN KEY (service, name, identifier) "
+							+ "REFERENCES ArbitraryResourcesCache (service, name, identifier) ON DELETE CASCADE)");
+					// For replacing a resource's tokens
+					stmt.execute("CREATE INDEX ArbitrarySearchTokensResourceIndex ON ArbitrarySearchTokens (service, name, identifier)");
+					// Use a separate table space as this table will be very large.
+					stmt.execute("SET TABLE ArbitrarySearchTokens NEW SPACE");
+					break;
+
+				case 51:
+					// Node-local cache of foreign blockchain HD wallet address activity, so that wallet scans only
+					// need to fetch history for addresses whose ElectrumX status hash has changed.
+					// Wallets are identified by a hash of their public key - keys themselves are never stored.
+					stmt.execute("CREATE TABLE ForeignWalletAddresses (currency_code VARCHAR(8) NOT NULL, "
+							+ "wallet_id VARBINARY(32) NOT NULL, key_path VARCHAR(64) NOT NULL, address VARCHAR(64) NOT NULL, "
+							+ "status VARCHAR(64), updated_when EpochMillis NOT NULL, "
+							+ "PRIMARY KEY (currency_code, wallet_id, key_path))");
+
+					stmt.execute("CREATE TABLE ForeignWalletAddressTransactions (currency_code VARCHAR(8) NOT NULL, "
+							+ "wallet_id VARBINARY(32) NOT NULL, key_path VARCHAR(64) NOT NULL, tx_hash VARCHAR(64) NOT NULL, "
+							+ "PRIMARY KEY (currency_code, wallet_id, key_path, tx_hash), FOREIGN KEY (currency_code, wallet_id, key_path) "
+							+ "REFERENCES ForeignWalletAddresses (currency_code, wallet_id, key_path) ON DELETE CASCADE)");
+					break;
+
 				default:
 					// nothing to do
 					return false;
@@ -0,0 +1,266 @@
+package org.qortal.repository.hsqldb;
+
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.utils.ByteArray;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * In-memory copy of the UnconfirmedTransactions table, indexed by creator, type and timestamp.
+ * <p>
+ * One instance is shared by all sessions of a repository factory and only ever reflects <b>committed</b> state.
+ * Each {@link HSQLDBRepository} session collects its own unconfirmed-transaction changes
+ * and applies them here once its COMMIT succeeds.
+ * <p>
+ * A transaction's deadline is its timestamp plus the fixed expiry period,
+ * so the timestamp index doubles as the expiry index.
+ */
+public class HSQLDBMempool {
+
+	private static class Entry {
+		private final byte[] signature;
+		private final TransactionType type;
+		private final ByteArray creator;
+		private final long timestamp;
+
+		private Entry(byte[] signature, TransactionType type, byte[] creatorPublicKey, long timestamp) {
+			this.signature = signature;
+			this.type = type;
+			this.creator = ByteArray.wrap(creatorPublicKey);
+			this.timestamp = timestamp;
+		}
+
+		/** Sorts before any real entry with same timestamp. */
+		private static Entry probe(long timestamp) {
+			return new Entry(new byte[0], null, new byte[0], timestamp);
+		}
+	}
+
+	/** Uncommitted change to the unconfirmed transactions pile, recorded by a repository session. */
+	/* package */ static class Change {
+		private final byte[] signature;
+		/** null if change is a removal */
+		private final Entry entry;
+
+		private Change(byte[] signature, Entry entry) {
+			this.signature = signature;
+			this.entry = entry;
+		}
+
+		/* package */ static Change add(TransactionData transactionData) {
+			Entry entry = new Entry(transactionData.getSignature(), transactionData.getType(),
+					transactionData.getCreatorPublicKey(), transactionData.getTimestamp());
+			return new Change(entry.signature, entry);
+		}
+
+		/* package */ static Change remove(byte[] signature) {
+			return new Change(signature, null);
+		}
+	}
+
+	/** Timestamp-else-signature order, matching UnconfirmedTransactionsIndex */
+	private static final Comparator<Entry> ENTRY_ORDER = Comparator.<Entry>comparingLong(entry -> entry.timestamp)
+			.thenComparing((a, b) -> Arrays.compareUnsigned(a.signature, b.signature));
+
+	private final Map<ByteArray, Entry> entriesBySignature = new HashMap<>();
+	private final NavigableSet<Entry> entriesByTimestamp = new TreeSet<>(ENTRY_ORDER);
+	private final Map<TransactionType, NavigableSet<Entry>> entriesByType = new EnumMap<>(TransactionType.class);
+	private final Map<ByteArray, Map<TransactionType, NavigableSet<Entry>>> entriesByCreator = new HashMap<>();
+
+	/* package */ HSQLDBMempool() {
+	}
+
+	/** Populates mempool from repository, typically on opening. */
+	/* package */ synchronized void load(Connection connection) throws SQLException {
+		String sql = "SELECT signature, type, creator, Transactions.created_when "
+				+ "FROM UnconfirmedTransactions JOIN Transactions USING (signature)";
+
+		try (Statement stmt = connection.createStatement()) {
+			if (!stmt.execute(sql))
+				return;
+
+			try (ResultSet resultSet = stmt.getResultSet()) {
+				while (resultSet.next()) {
+					byte[] signature = resultSet.getBytes(1);
+					TransactionType type = TransactionType.valueOf(resultSet.getInt(2));
+					byte[] creatorPublicKey = resultSet.getBytes(3);
+					long timestamp = resultSet.getLong(4);
+
+					this.add(new Entry(signature, type, creatorPublicKey, timestamp));
+				}
+			}
+		}
+	}
+
+	/** Applies committed changes, in the order they were made. */
+	/* package */ synchronized void apply(List<Change> changes) {
+		for (Change change : changes) {
+			this.remove(change.signature);
+
+			if (change.entry != null)
+				this.add(change.entry);
+		}
+	}
+
+	private void add(Entry entry) {
+		this.entriesBySignature.put(ByteArray.wrap(entry.signature), entry);
+		this.entriesByTimestamp.add(entry);
+		this.entriesByType.computeIfAbsent(entry.type, type -> new TreeSet<>(ENTRY_ORDER)).add(entry);
+		this.entriesByCreator.computeIfAbsent(entry.creator, creator -> new EnumMap<>(TransactionType.class))
+				.computeIfAbsent(entry.type, type -> new TreeSet<>(ENTRY_ORDER)).add(entry);
+	}
+
+	private void remove(byte[] signature) {
+		Entry entry = this.entriesBySignature.remove(ByteArray.wrap(signature));
+		if (entry == null)
+			return;
+
+		this.entriesByTimestamp.remove(entry);
+
+		NavigableSet<Entry> typeEntries = this.entriesByType.get(entry.type);
+		typeEntries.remove(entry);
+		if (typeEntries.isEmpty())
+			this.entriesByType.remove(entry.type);
+
+		Map<TransactionType, NavigableSet<Entry>> creatorEntries = this.entriesByCreator.get(entry.creator);
+		NavigableSet<Entry> creatorTypeEntries = creatorEntries.get(entry.type);
+		creatorTypeEntries.remove(entry);
+		if (creatorTypeEntries.isEmpty()) {
+			creatorEntries.remove(entry.type);
+
+			if (creatorEntries.isEmpty())
+				this.entriesByCreator.remove(entry.creator);
+		}
+	}
+
+	// Queries
+
+	public synchronized int size() {
+		return this.entriesBySignature.size();
+	}
+
+	/**
+	 * Returns signatures of unconfirmed transactions in timestamp-else-signature order.
+	 *
+	 * @param txTypes optional, only include these types
+	 * @param creatorPublicKey optional, only include transactions by this creator
+	 * @param limit optional, ignored if not positive
+	 * @param offset optional
+	 * @param reverse optional
+	 */
+	public synchronized List<byte[]> getSignatures(Collection<TransactionType> txTypes, byte[] creatorPublicKey,
+			Integer limit, Integer offset, Boolean reverse) {
+		NavigableSet<Entry> entries;
+
+		if (creatorPublicKey != null) {
+			Map<TransactionType, NavigableSet<Entry>> creatorEntries = this.entriesByCreator.get(ByteArray.wrap(creatorPublicKey));
+			if (creatorEntries == null)
+				return new ArrayList<>();
+
+			entries = merge(creatorEntries, txTypes);
+		} else if (txTypes != null && !txTypes.isEmpty()) {
+			entries = merge(this.entriesByType, txTypes);
+		} else {
+			entries = this.entriesByTimestamp;
+		}
+
+		if (reverse != null && reverse)
+			entries = entries.descendingSet();
+
+		int skip = offset != null ? offset : 0;
+		int maxCount = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+
+		List<byte[]> signatures = new ArrayList<>(Math.min(maxCount, Math.max(0, entries.size() - skip)));
+		for (Entry entry : entries) {
+			if (signatures.size() >= maxCount)
+				break;
+
+			if (skip > 0) {
+				--skip;
+				continue;
+			}
+
+			signatures.add(entry.signature);
+		}
+
+		return signatures;
+	}
+
+	/** Returns signatures of unconfirmed transactions created before <tt>timestamp</tt>, oldest first. */
+	public synchronized List<byte[]> getSignaturesCreatedBefore(long timestamp) {
+		List<byte[]> signatures = new ArrayList<>();
+
+		for (Entry entry : this.entriesByTimestamp.headSet(Entry.probe(timestamp), false))
+			signatures.add(entry.signature);
+
+		return signatures;
+	}
+
+	/** Returns number of unconfirmed transactions by creator, excluding passed types. */
+	public synchronized int countByCreator(byte[] creatorPublicKey, Set<TransactionType> excludedTxTypes) {
+		Map<TransactionType, NavigableSet<Entry>> creatorEntries = this.entriesByCreator.get(ByteArray.wrap(creatorPublicKey));
+		if (creatorEntries == null)
+			return 0;
+
+		int count = 0;
+		for (Map.Entry<TransactionType, NavigableSet<Entry>> typeEntries : creatorEntries.entrySet())
+			if (!excludedTxTypes.contains(typeEntries.getKey()))
+				count += typeEntries.getValue().size();
+
+		return count;
+	}
+
+	/** Returns number of unconfirmed transactions of given type by creator, with timestamp at least <tt>minTimestamp</tt>. */
+	public synchronized int countByCreator(byte[] creatorPublicKey, TransactionType txType, long minTimestamp) {
+		Map<TransactionType, NavigableSet<Entry>> creatorEntries = this.entriesByCreator.get(ByteArray.wrap(creatorPublicKey));
+		if (creatorEntries == null)
+			return 0;
+
+		NavigableSet<Entry> typeEntries = creatorEntries.get(txType);
+		if (typeEntries == null)
+			return 0;
+
+		return typeEntries.tailSet(Entry.probe(minTimestamp), true).size();
+	}
+
+	/** Returns entries of requested types, or all types if <tt>txTypes</tt> is null or empty. */
+	private static NavigableSet<Entry> merge(Map<TransactionType, NavigableSet<Entry>> entriesByType, Collection<TransactionType> txTypes) {
+		Collection<TransactionType> wantedTypes = txTypes != null && !txTypes.isEmpty() ? txTypes : entriesByType.keySet();
+
+		NavigableSet<Entry> merged = null;
+		for (TransactionType txType : wantedTypes) {
+			NavigableSet<Entry> typeEntries = entriesByType.get(txType);
+			if (typeEntries == null)
+				continue;
+
+			if (merged == null) {
+				// Common case of single type needs no copy
+				merged = typeEntries;
+				continue;
+			}
+
+			if (!(merged instanceof MergedSet))
+				merged = new MergedSet(merged);
+
+			merged.addAll(typeEntries);
+		}
+
+		return merged != null ? merged : Collections.emptyNavigableSet();
+	}
+
+	/** Copy of entries from multiple indexes, so shared index sets are never modified. */
+	private static class MergedSet extends TreeSet<Entry> {
+		private static final long serialVersionUID = 1L;
+
+		private MergedSet(NavigableSet<Entry> entries) {
+			super(ENTRY_ORDER);
+			this.addAll(entries);
+		}
+	}
+
+}
@@ -0,0 +1,278 @@
+package org.qortal.repository.hsqldb;
+
+import org.qortal.data.asset.OrderData;
+import org.qortal.utils.ByteArray;
+import org.qortal.utils.Pair;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * In-memory copy of open (not closed, not fulfilled) orders in the AssetOrders table,
+ * with one price-time ordered book per have/want asset pair.
+ * <p>
+ * One instance is shared by all sessions of a repository factory and only ever reflects <b>committed</b> state.
+ * Each {@link HSQLDBRepository} session collects its own order changes and applies them here once its COMMIT succeeds.
+ * Sessions with uncommitted order changes, e.g. during block processing, can overlay those changes
+ * on top of the committed book when matching orders.
+ */
+public class HSQLDBOrderBook {
+
+	private static class Entry {
+		private final byte[] orderId;
+		private final byte[] creatorPublicKey;
+		private final long haveAssetId;
+		private final long wantAssetId;
+		private final long amount;
+		private final long fulfilled;
+		private final long price;
+		private final long timestamp;
+
+		private Entry(byte[] orderId, byte[] creatorPublicKey, long haveAssetId, long wantAssetId,
+				long amount, long fulfilled, long price, long timestamp) {
+			this.orderId = orderId;
+			this.creatorPublicKey = creatorPublicKey;
+			this.haveAssetId = haveAssetId;
+			this.wantAssetId = wantAssetId;
+			this.amount = amount;
+			this.fulfilled = fulfilled;
+			this.price = price;
+			this.timestamp = timestamp;
+		}
+
+		/** Sorts before any real entry with same price. */
+		private static Entry probe(long price) {
+			return new Entry(new byte[0], null, 0L, 0L, 0L, 0L, price, Long.MIN_VALUE);
+		}
+
+		private OrderData toOrderData() {
+			// We don't need asset names so we can use simpler constructor
+			return new OrderData(this.orderId, this.creatorPublicKey, this.haveAssetId, this.wantAssetId,
+					this.amount, this.fulfilled, this.price, this.timestamp, false, false);
+		}
+	}
+
+	/** Uncommitted change to an order, recorded by a repository session. */
+	/* package */ static class Change {
+		private final byte[] orderId;
+		/** null if order was deleted, or is no longer open */
+		private final Entry entry;
+		private final long haveAssetId;
+		private final long wantAssetId;
+
+		private Change(byte[] orderId, Entry entry, long haveAssetId, long wantAssetId) {
+			this.orderId = orderId;
+			this.entry = entry;
+			this.haveAssetId = haveAssetId;
+			this.wantAssetId = wantAssetId;
+		}
+
+		/** Snapshot of saved order, as OrderData is mutable. */
+		/* package */ static Change save(OrderData orderData) {
+			Entry entry = null;
+			if (!orderData.getIsClosed() && !orderData.getIsFulfilled())
+				entry = new Entry(orderData.getOrderId(), orderData.getCreatorPublicKey(), orderData.getHaveAssetId(), orderData.getWantAssetId(),
+						orderData.getAmount(), orderData.getFulfilled(), orderData.getPrice(), orderData.getTimestamp());
+
+			return new Change(orderData.getOrderId(), entry, orderData.getHaveAssetId(), orderData.getWantAssetId());
+		}
+
+		/* package */ static Change delete(byte[] orderId) {
+			// Deleted order's asset pair is unknown, so this change applies to all books
+			return new Change(orderId, null, -1L, -1L);
+		}
+
+		private boolean affects(long haveAssetId, long wantAssetId) {
+			return this.haveAssetId == -1L || (this.haveAssetId == haveAssetId && this.wantAssetId == wantAssetId);
+		}
+	}
+
+	/** Price, then timestamp, then order ID order, matching AssetOrderMatchingIndex */
+	private static final Comparator<Entry> ENTRY_ORDER = Comparator.<Entry>comparingLong(entry -> entry.price)
+			.thenComparingLong(entry -> entry.timestamp)
+			.thenComparing((a, b) -> Arrays.compareUnsigned(a.orderId, b.orderId));
+
+	/** As ENTRY_ORDER but highest price first */
+	private static final Comparator<Entry> HIGHEST_PRICE_ENTRY_ORDER = Comparator.<Entry>comparingLong(entry -> entry.price).reversed()
+			.thenComparingLong(entry -> entry.timestamp)
+			.thenComparing((a, b) -> Arrays.compareUnsigned(a.orderId, b.orderId));
+
+	private final Map<ByteArray, Entry> entriesByOrderId = new HashMap<>();
+	private final Map<Pair<Long, Long>, NavigableSet<Entry>> books = new HashMap<>();
+
+	/* package */ HSQLDBOrderBook() {
+	}
+
+	/** Populates order book from repository, typically on opening. */
+	/* package */ synchronized void load(Connection connection) throws SQLException {
+		String sql = "SELECT asset_order_id, creator, have_asset_id, want_asset_id, amount, fulfilled, price, ordered_when "
+				+ "FROM AssetOrders WHERE NOT is_closed AND NOT is_fulfilled";
+
+		try (Statement stmt = connection.createStatement()) {
+			if (!stmt.execute(sql))
+				return;
+
+			try (ResultSet resultSet = stmt.getResultSet()) {
+				while (resultSet.next()) {
+					byte[] orderId = resultSet.getBytes(1);
+					byte[] creatorPublicKey = resultSet.getBytes(2);
+					long haveAssetId = resultSet.getLong(3);
+					long wantAssetId = resultSet.getLong(4);
+					long amount = resultSet.getLong(5);
+					long fulfilled = resultSet.getLong(6);
+					long price = resultSet.getLong(7);
+					long timestamp = resultSet.getLong(8);
+
+					this.add(new Entry(orderId, creatorPublicKey, haveAssetId, wantAssetId, amount, fulfilled, price, timestamp));
+				}
+			}
+		}
+	}
+
+	/** Applies committed changes, in the order they were made. */
+	/* package */ synchronized void apply(List<Change> changes) {
+		for (Change change : changes) {
+			this.remove(change.orderId);
+
+			if (change.entry != null)
+				this.add(change.entry);
+		}
+	}
+
+	private void add(Entry entry) {
+		this.entriesByOrderId.put(ByteArray.wrap(entry.orderId), entry);
+		this.books.computeIfAbsent(new Pair<>(entry.haveAssetId, entry.wantAssetId), pair -> new TreeSet<>(ENTRY_ORDER)).add(entry);
+	}
+
+	private void remove(byte[] orderId) {
+		Entry entry = this.entriesByOrderId.remove(ByteArray.wrap(orderId));
+		if (entry == null)
+			return;
+
+		Pair<Long, Long> pair = new Pair<>(entry.haveAssetId, entry.wantAssetId);
+		NavigableSet<Entry> book = this.books.get(pair);
+		book.remove(entry);
+		if (book.isEmpty())
+			this.books.remove(pair);
+	}
+
+	// Queries
+
+	public synchronized int size() {
+		return this.entriesByOrderId.size();
+	}
+
+	/**
+	 * Returns open orders with passed have/want assets, as used for matching a new order.
+	 * <p>
+	 * Semantics are as {@link org.qortal.repository.AssetRepository#getOpenOrdersForTrading(long, long, Long)}:
+	 * if <tt>minimumPrice</tt> is present then orders with a worse price are skipped
+	 * and orders are returned best-price first, otherwise lowest price first. Ties are oldest first.
+	 *
+	 * @param uncommittedChanges calling session's uncommitted order changes, to overlay on committed book
+	 */
+	/* package */ List<OrderData> getOpenOrdersForTrading(long haveAssetId, long wantAssetId, Long minimumPrice, List<Change> uncommittedChanges) {
+		// NOTE: haveAssetId and wantAssetId are for TARGET orders, so different from Order.process() caller
+		boolean isBestPriceHighest = minimumPrice != null && haveAssetId < wantAssetId;
+
+		NavigableSet<Entry> entries = new TreeSet<>(isBestPriceHighest ? HIGHEST_PRICE_ENTRY_ORDER : ENTRY_ORDER);
+
+		synchronized (this) {
+			NavigableSet<Entry> book = this.books.get(new Pair<>(haveAssetId, wantAssetId));
+
+			if (book != null) {
+				if (minimumPrice == null)
+					entries.addAll(book);
+				else if (isBestPriceHighest)
+					entries.addAll(book.tailSet(Entry.probe(minimumPrice), true));
+				else if (minimumPrice < Long.MAX_VALUE)
+					entries.addAll(book.headSet(Entry.probe(minimumPrice + 1), false));
+				else
+					entries.addAll(book);
+			}
+		}
+
+		if (!uncommittedChanges.isEmpty()) {
+			Map<ByteArray, Entry> entriesByOrderId = new HashMap<>();
+			for (Entry entry : entries)
+				entriesByOrderId.put(ByteArray.wrap(entry.orderId), entry);
+
+			for (Change change : uncommittedChanges) {
+				if (!change.affects(haveAssetId, wantAssetId))
+					continue;
+
+				Entry oldEntry = entriesByOrderId.remove(ByteArray.wrap(change.orderId));
+				if (oldEntry != null)
+					entries.remove(oldEntry);
+
+				Entry newEntry = change.entry;
+				if (newEntry == null)
+					continue;
+
+				if (minimumPrice != null && (isBestPriceHighest ? newEntry.price < minimumPrice : newEntry.price > minimumPrice))
+					continue;
+
+				entriesByOrderId.put(ByteArray.wrap(newEntry.orderId), newEntry);
+				entries.add(newEntry);
+			}
+		}
+
+		List<OrderData> orders = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			orders.add(entry.toOrderData());
+
+		return orders;
+	}
+
+	/**
+	 * Returns open orders with passed have/want assets aggregated by price,
+	 * as {@link org.qortal.repository.AssetRepository#getAggregatedOpenOrders(long, long, Integer, Integer, Boolean)}.
+	 * <p>
+	 * Each returned order's amount is total unfulfilled amount at that price,
+	 * and its timestamp is the newest of those orders' timestamps.
+	 */
+	public synchronized List<OrderData> getAggregatedOpenOrders(long haveAssetId, long wantAssetId, String haveAssetName, String wantAssetName,
+			Integer limit, Integer offset, Boolean reverse) {
+		List<OrderData> orders = new ArrayList<>();
+
+		NavigableSet<Entry> book = this.books.get(new Pair<>(haveAssetId, wantAssetId));
+		if (book == null)
+			return orders;
+
+		if (reverse != null && reverse)
+			book = book.descendingSet();
+
+		int skip = offset != null ? offset : 0;
+		int maxCount = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+
+		Iterator<Entry> iterator = book.iterator();
+		Entry entry = iterator.hasNext() ? iterator.next() : null;
+
+		while (entry != null && orders.size() < maxCount) {
+			long price = entry.price;
+			long totalUnfulfilled = 0L;
+			long timestamp = Long.MIN_VALUE;
+
+			while (entry != null && entry.price == price) {
+				totalUnfulfilled += entry.amount - entry.fulfilled;
+				timestamp = Math.max(timestamp, entry.timestamp);
+
+				entry = iterator.hasNext() ? iterator.next() : null;
+			}
+
+			if (skip > 0) {
+				--skip;
+				continue;
+			}
+
+			orders.add(new OrderData(null, null, haveAssetId, wantAssetId, totalUnfulfilled, 0L,
+					price, timestamp, false, false, haveAssetName, wantAssetName));
+		}
+
+		return orders;
+	}
+
+}
@@ -3,6 +3,8 @@ package org.qortal.repository.hsqldb;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qortal.crypto.Crypto;
+import org.qortal.data.asset.OrderData;
+import org.qortal.data.transaction.TransactionData;
 import org.qortal.globalization.Translator;
 import org.qortal.gui.SysTray;
 import org.qortal.repository.*;
@@ -28,7 +30,8 @@ public class HSQLDBRepository implements Repository {
 
 	private static final Logger LOGGER = LogManager.getLogger(HSQLDBRepository.class);
 
-	public static final Object CHECKPOINT_LOCK = new Object();
+	/** Lets statements run concurrently, but blocks new statements while checkpointing/backup/maintenance is in progress */
+	public static final HSQLDBCheckpointGate CHECKPOINT_GATE = new HSQLDBCheckpointGate();
 
 	// "serialization failure"
 	private static final Integer DEADLOCK_ERROR_CODE = Integer.valueOf(-4861);
@@ -43,6 +46,16 @@ public class HSQLDBRepository implements Repository {
 	// We want the same object corresponding to the actual DB
 	protected final Object trimHeightsLock = RepositoryManager.getRepositoryFactory();
 	protected final Object latestATStatesLock = RepositoryManager.getRepositoryFactory();
+	protected final HSQLDBMempool mempool;
+	/** Unconfirmed-transaction changes made in this session, applied to mempool on commit */
+	protected final List<HSQLDBMempool.Change> mempoolChanges = new ArrayList<>();
+	/** Size of mempoolChanges at each savepoint, in same order as savepoints */
+	protected final Deque<Integer> mempoolChangesSavepoints = new ArrayDeque<>(3);
+	protected final HSQLDBOrderBook orderBook;
+	/** Asset order changes made in this session, applied to order book on commit */
+	protected final List<HSQLDBOrderBook.Change> orderBookChanges = new ArrayList<>();
+	/** Size of orderBookChanges at each savepoint, in same order as savepoints */
+	protected final Deque<Integer> orderBookChangesSavepoints = new ArrayDeque<>(3);
 
 	private final ATRepository atRepository = new HSQLDBATRepository(this);
 	private final AccountRepository accountRepository = new HSQLDBAccountRepository(this);
@@ -62,8 +75,10 @@ public class HSQLDBRepository implements Repository {
 	// Constructors
 
 	// NB: no visibility modifier so only callable from within same package
-	/* package */ HSQLDBRepository(Connection connection) throws DataException {
+	/* package */ HSQLDBRepository(Connection connection, HSQLDBMempool mempool, HSQLDBOrderBook orderBook) throws DataException {
 		this.connection = connection;
+		this.mempool = mempool;
+		this.orderBook = orderBook;
 
 		this.slowQueryThreshold = Settings.getInstance().getSlowQueryThreshold();
 		if (this.slowQueryThreshold != null)
@@ -84,9 +99,12 @@ public class HSQLDBRepository implements Repository {
 			throw new DataException("Unable to fetch session ID from repository", e);
 		}
 
-		// synchronize to block new connections if checkpointing in progress 
-		synchronized (CHECKPOINT_LOCK) {
+		// block new connections if checkpointing in progress
+		CHECKPOINT_GATE.enterStatement();
+		try {
 			assertEmptyTransaction("connection creation");
+		} finally {
+			CHECKPOINT_GATE.exitStatement();
 		}
 	}
 
@@ -181,6 +199,12 @@ public class HSQLDBRepository implements Repository {
 		try {
 			this.connection.commit();
 
+			if (!this.mempoolChanges.isEmpty())
+				this.mempool.apply(this.mempoolChanges);
+
+			if (!this.orderBookChanges.isEmpty())
+				this.orderBook.apply(this.orderBookChanges);
+
 			if (this.slowQueryThreshold != null) {
 				long queryTime = System.currentTimeMillis() - beforeQuery;
 
@@ -194,6 +218,8 @@ public class HSQLDBRepository implements Repository {
 			throw new DataException("commit error", e);
 		} finally {
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearOrderBookChanges();
 
 			// Before clearing statements so we can log what led to assertion error
 			assertEmptyTransaction("transaction commit");
@@ -211,6 +237,8 @@ public class HSQLDBRepository implements Repository {
 			throw new DataException("rollback error", e);
 		} finally {
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearOrderBookChanges();
 
 			// Before clearing statements so we can log what led to assertion error
 			assertEmptyTransaction("transaction rollback");
@@ -229,6 +257,8 @@ public class HSQLDBRepository implements Repository {
 
 			Savepoint savepoint = this.connection.setSavepoint();
 			this.savepoints.push(savepoint);
+			this.mempoolChangesSavepoints.push(this.mempoolChanges.size());
+			this.orderBookChangesSavepoints.push(this.orderBookChanges.size());
 
 			// Update query log with savepoint ID
 			if (this.sqlStatements != null)
@@ -245,6 +275,14 @@ public class HSQLDBRepository implements Repository {
 
 		Savepoint savepoint = this.savepoints.pop();
 
+		// Forget mempool changes made since savepoint
+		int mempoolChangesSize = this.mempoolChangesSavepoints.pop();
+		this.mempoolChanges.subList(mempoolChangesSize, this.mempoolChanges.size()).clear();
+
+		// Likewise order book changes
+		int orderBookChangesSize = this.orderBookChangesSavepoints.pop();
+		this.orderBookChanges.subList(orderBookChangesSize, this.orderBookChanges.size()).clear();
+
 		try {
 			if (this.sqlStatements != null)
 				this.sqlStatements.add("ROLLBACK TO SAVEPOINT [" + savepoint.getSavepointId() + "]");
@@ -255,6 +293,77 @@ public class HSQLDBRepository implements Repository {
 		}
 	}
 
+	@Override
+	public void releaseSavepoint() throws DataException {
+		if (this.savepoints.isEmpty())
+			throw new DataException("no savepoint to release");
+
+		Savepoint savepoint = this.savepoints.pop();
+		this.mempoolChangesSavepoints.pop();
+		this.orderBookChangesSavepoints.pop();
+
+		try {
+			if (this.sqlStatements != null)
+				this.sqlStatements.add("RELEASE SAVEPOINT [" + savepoint.getSavepointId() + "]");
+
+			this.connection.releaseSavepoint(savepoint);
+		} catch (SQLException e) {
+			throw new DataException("savepoint release error", e);
+		}
+	}
+
+	// Mempool
+
+	/**
+	 * Returns shared in-memory index of unconfirmed transactions,
+	 * or null if this session has uncommitted changes to unconfirmed transactions that the index wouldn't include.
+	 */
+	public HSQLDBMempool getMempool() {
+		return this.mempoolChanges.isEmpty() ? this.mempool : null;
+	}
+
+	/** Records that transaction has been added to unconfirmed transactions pile in this session. */
+	public void onUnconfirmedTransactionAdded(TransactionData transactionData) {
+		this.mempoolChanges.add(HSQLDBMempool.Change.add(transactionData));
+	}
+
+	/** Records that transaction has been removed from unconfirmed transactions pile in this session. */
+	public void onUnconfirmedTransactionRemoved(byte[] signature) {
+		this.mempoolChanges.add(HSQLDBMempool.Change.remove(signature));
+	}
+
+	private void clearMempoolChanges() {
+		this.mempoolChanges.clear();
+		this.mempoolChangesSavepoints.clear();
+	}
+
+	// Order book
+
+	/** Returns shared in-memory index of committed open asset orders. */
+	public HSQLDBOrderBook getOrderBook() {
+		return this.orderBook;
+	}
+
+	/** Returns asset order changes made in this session but not yet committed, oldest first. */
+	public List<HSQLDBOrderBook.Change> getOrderBookChanges() {
+		return Collections.unmodifiableList(this.orderBookChanges);
+	}
+
+	/** Records that asset order has been saved in this session. */
+	public void onOrderSaved(OrderData orderData) {
+		this.orderBookChanges.add(HSQLDBOrderBook.Change.save(orderData));
+	}
+
+	/** Records that asset order has been deleted in this session. */
+	public void onOrderDeleted(byte[] orderId) {
+		this.orderBookChanges.add(HSQLDBOrderBook.Change.delete(orderId));
+	}
+
+	private void clearOrderBookChanges() {
+		this.orderBookChanges.clear();
+		this.orderBookChangesSavepoints.clear();
+	}
+
 	// Close / backup / rebuild / restore
 
 	@Override
@@ -272,6 +381,8 @@ public class HSQLDBRepository implements Repository {
 			this.preparedStatementCache.clear();
 			this.sqlStatements = null;
 			this.savepoints.clear();
+			this.clearMempoolChanges();
+			this.clearOrderBookChanges();
 
 			// If a checkpoint has been requested, we could perform that now
 			this.maybeCheckpoint();
@@ -285,8 +396,14 @@ public class HSQLDBRepository implements Repository {
 	}
 
 	private void maybeCheckpoint() throws DataException {
+		// Don't close the checkpoint gate unless there's actually a checkpoint request
+		if (RepositoryManager.getRequestedCheckpoint() == null)
+			return;
+
 		// To serialize checkpointing and to block new sessions when checkpointing in progress
-		synchronized (CHECKPOINT_LOCK) {
+		CHECKPOINT_GATE.enterExclusive();
+		try {
+			// Re-check, as another thread might have performed the checkpoint while we waited
 			Boolean quickCheckpointRequest = RepositoryManager.getRequestedCheckpoint();
 			if (quickCheckpointRequest == null)
 				return;
@@ -333,6 +450,8 @@ public class HSQLDBRepository implements Repository {
 			} catch (SQLException e) {
 				throw new DataException("Unable to check repository session status", e);
 			}
+		} finally {
+			CHECKPOINT_GATE.exitExclusive();
 		}
 	}
 
@@ -374,7 +493,8 @@ public class HSQLDBRepository implements Repository {
 
 	@Override
 	public void backup(boolean quick, String name, Long timeout) throws DataException, TimeoutException {
-		synchronized (CHECKPOINT_LOCK) {
+		CHECKPOINT_GATE.enterExclusive();
+		try {
 
 			// We can only perform a CHECKPOINT if no other HSQLDB session is mid-transaction,
 			// otherwise the CHECKPOINT blocks for COMMITs and other threads can't open HSQLDB sessions
@@ -436,12 +556,15 @@ public class HSQLDBRepository implements Repository {
 				throw new DataException("Unable to backup repository");
 			}
 
+		} finally {
+			CHECKPOINT_GATE.exitExclusive();
 		}
 	}
 
 	@Override
 	public void performPeriodicMaintenance(Long timeout) throws DataException, TimeoutException {
-		synchronized (CHECKPOINT_LOCK) {
+		CHECKPOINT_GATE.enterExclusive();
+		try {
 
 			// We can only perform a CHECKPOINT if no other HSQLDB session is mid-transaction,
 			// otherwise the CHECKPOINT blocks for COMMITs and other threads can't open HSQLDB sessions
@@ -459,6 +582,8 @@ public class HSQLDBRepository implements Repository {
 			} catch (SQLException e) {
 				throw new DataException("Unable to defrag repository");
 			}
+		} finally {
+			CHECKPOINT_GATE.exitExclusive();
 		}
 	}
 
@@ -654,10 +779,13 @@ public class HSQLDBRepository implements Repository {
 	private ResultSet checkedExecuteResultSet(PreparedStatement preparedStatement, Object... objects) throws SQLException {
 		bindStatementParams(preparedStatement, objects);
 
-		// synchronize to block new executions if checkpointing in progress
-		synchronized (CHECKPOINT_LOCK) {
+		// block new executions if checkpointing in progress
+		CHECKPOINT_GATE.enterStatement();
+		try {
 			if (!preparedStatement.execute())
 				throw new SQLException("Fetching from database produced no results");
+		} finally {
+			CHECKPOINT_GATE.exitStatement();
 		}
 
 		ResultSet resultSet = preparedStatement.getResultSet();
@@ -26,6 +26,8 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 	private final String connectionUrl;
 	private final HSQLDBPool connectionPool;
 	private final boolean wasPristine;
+	private final HSQLDBMempool mempool = new HSQLDBMempool();
+	private final HSQLDBOrderBook orderBook = new HSQLDBOrderBook();
 
 	/**
 	 * Constructs new RepositoryFactory using passed <tt>connectionUrl</tt>.
@@ -67,6 +69,12 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 		// Perform DB updates?
 		try (final Connection connection = this.connectionPool.getConnection()) {
 			this.wasPristine = HSQLDBDatabaseUpdates.updateDatabase(connection);
+
+			// Populate in-memory mempool before any sessions can modify unconfirmed transactions
+			this.mempool.load(connection);
+
+			// Likewise order book before any sessions can modify asset orders
+			this.orderBook.load(connection);
 		} catch (SQLException e) {
 			throw new DataException("Repository initialization error", e);
 		}
@@ -85,7 +93,7 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 	@Override
 	public Repository getRepository() throws DataException {
 		try {
-			return new HSQLDBRepository(this.getConnection());
+			return new HSQLDBRepository(this.getConnection(), this.mempool, this.orderBook);
 		} catch (SQLException e) {
 			throw new DataException("Repository instantiation error", e);
 		}
@@ -98,7 +106,7 @@ public class HSQLDBRepositoryFactory implements RepositoryFactory {
 			if (connection == null)
 				return null;
 
-			return new HSQLDBRepository(connection);
+			return new HSQLDBRepository(connection, this.mempool, this.orderBook);
 		} catch (SQLException e) {
 			throw new DataException("Repository instantiation error", e);
 		}
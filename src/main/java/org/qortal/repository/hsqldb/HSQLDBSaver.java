@@ -61,15 +61,16 @@ public class HSQLDBSaver {
 	public boolean execute(HSQLDBRepository repository) throws SQLException {
 		String sql = this.formatInsertWithPlaceholders();
 
-		synchronized (HSQLDBRepository.CHECKPOINT_LOCK) {
-			try {
-				PreparedStatement preparedStatement = repository.prepareStatement(sql);
-				this.bindValues(preparedStatement);
-
-				return preparedStatement.execute();
-			} catch (SQLException e) {
-				throw repository.examineException(e);
-			}
+		HSQLDBRepository.CHECKPOINT_GATE.enterStatement();
+		try {
+			PreparedStatement preparedStatement = repository.prepareStatement(sql);
+			this.bindValues(preparedStatement);
+
+			return preparedStatement.execute();
+		} catch (SQLException e) {
+			throw repository.examineException(e);
+		} finally {
+			HSQLDBRepository.CHECKPOINT_GATE.exitStatement();
 		}
 	}
 
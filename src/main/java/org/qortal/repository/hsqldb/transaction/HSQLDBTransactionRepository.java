@@ -12,6 +12,7 @@ import org.qortal.data.transaction.TransactionData;
 import org.qortal.data.transaction.TransferAssetTransactionData;
 import org.qortal.repository.DataException;
 import org.qortal.repository.TransactionRepository;
+import org.qortal.repository.hsqldb.HSQLDBMempool;
 import org.qortal.repository.hsqldb.HSQLDBRepository;
 import org.qortal.repository.hsqldb.HSQLDBSaver;
 import org.qortal.transaction.Transaction.ApprovalStatus;
@@ -1292,6 +1293,10 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 	@Override
 	public List<byte[]> getUnconfirmedTransactionSignatures() throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return mempool.getSignatures(null, null, null, null, true);
+
 		String sql = "SELECT signature FROM UnconfirmedTransactions ORDER by created_when DESC, signature DESC";
 
 		List<byte[]> signatures = new ArrayList<>();
@@ -1316,6 +1321,10 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 	@Override
 	public List<TransactionData> getUnconfirmedTransactions(List<TransactionType> txTypes, byte[] creatorPublicKey,
 															Integer limit, Integer offset, Boolean reverse) throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return this.fromMempoolSignatures(mempool.getSignatures(txTypes, creatorPublicKey, limit, offset, reverse));
+
 		List<String> whereClauses = new ArrayList<>();
 		List<Object> bindParams = new ArrayList<>();
 
@@ -1403,6 +1412,12 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		if (txType == null && creatorPublicKey == null)
 			throw new IllegalArgumentException("At least one of txType or creatorPublicKey must be non-null");
 
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null) {
+			List<TransactionType> txTypes = txType != null ? List.of(txType) : null;
+			return this.fromMempoolSignatures(mempool.getSignatures(txTypes, creatorPublicKey, null, null, false));
+		}
+
 		StringBuilder sql = new StringBuilder(1024);
 		sql.append("SELECT signature FROM UnconfirmedTransactions ");
 		sql.append("JOIN Transactions USING (signature) ");
@@ -1457,6 +1472,10 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 	@Override
 	public List<TransactionData> getUnconfirmedTransactions(EnumSet<TransactionType> excludedTxTypes, Integer limit) throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return this.fromMempoolSignatures(mempool.getSignatures(EnumSet.complementOf(excludedTxTypes), null, limit, null, false));
+
 		StringBuilder sql = new StringBuilder(1024);
 		List<Object> bindParams = new ArrayList<>();
 
@@ -1507,6 +1526,104 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		}
 	}
 
+	@Override
+	public List<TransactionData> getUnconfirmedTransactionsCreatedBefore(long timestamp) throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return this.fromMempoolSignatures(mempool.getSignaturesCreatedBefore(timestamp));
+
+		String sql = "SELECT signature FROM UnconfirmedTransactions WHERE created_when < ? ORDER BY created_when, signature";
+
+		List<TransactionData> transactions = new ArrayList<>();
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, timestamp)) {
+			if (resultSet == null)
+				return transactions;
+
+			do {
+				byte[] signature = resultSet.getBytes(1);
+
+				TransactionData transactionData = this.fromSignature(signature);
+
+				if (transactionData == null)
+					// Something inconsistent with the repository
+					throw new DataException(String.format("Unable to fetch unconfirmed transaction %s from repository?", Base58.encode(signature)));
+
+				transactions.add(transactionData);
+			} while (resultSet.next());
+
+			return transactions;
+		} catch (SQLException | DataException e) {
+			throw new DataException("Unable to fetch unconfirmed transactions from repository", e);
+		}
+	}
+
+	@Override
+	public int countUnconfirmedTransactionsByCreator(byte[] creatorPublicKey, EnumSet<TransactionType> excludedTxTypes) throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return mempool.countByCreator(creatorPublicKey, excludedTxTypes);
+
+		StringBuilder sql = new StringBuilder(256);
+		sql.append("SELECT COUNT(*) FROM UnconfirmedTransactions ");
+		sql.append("JOIN Transactions USING (signature) ");
+		sql.append("WHERE creator = ?");
+
+		if (!excludedTxTypes.isEmpty()) {
+			sql.append(" AND type NOT IN (");
+
+			boolean firstTxType = true;
+			for (TransactionType txType : excludedTxTypes) {
+				if (firstTxType)
+					firstTxType = false;
+				else
+					sql.append(", ");
+
+				sql.append(txType.value);
+			}
+
+			sql.append(")");
+		}
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), creatorPublicKey)) {
+			return resultSet.getInt(1);
+		} catch (SQLException e) {
+			throw new DataException("Unable to count unconfirmed transactions in repository", e);
+		}
+	}
+
+	@Override
+	public int countUnconfirmedTransactions(TransactionType txType, byte[] creatorPublicKey, long minTimestamp) throws DataException {
+		HSQLDBMempool mempool = this.repository.getMempool();
+		if (mempool != null)
+			return mempool.countByCreator(creatorPublicKey, txType, minTimestamp);
+
+		String sql = "SELECT COUNT(*) FROM UnconfirmedTransactions "
+				+ "JOIN Transactions USING (signature) "
+				+ "WHERE type = ? AND creator = ? AND UnconfirmedTransactions.created_when >= ?";
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, txType.value, creatorPublicKey, minTimestamp)) {
+			return resultSet.getInt(1);
+		} catch (SQLException e) {
+			throw new DataException("Unable to count unconfirmed transactions in repository", e);
+		}
+	}
+
+	/** Fetches transactions using signatures from mempool. */
+	private List<TransactionData> fromMempoolSignatures(List<byte[]> signatures) throws DataException {
+		List<TransactionData> transactions = new ArrayList<>(signatures.size());
+
+		for (byte[] signature : signatures) {
+			TransactionData transactionData = this.fromSignature(signature);
+
+			// Transaction might have been deleted by another session since mempool lookup
+			if (transactionData != null)
+				transactions.add(transactionData);
+		}
+
+		return transactions;
+	}
+
 	@Override
 	public void confirmTransaction(byte[] signature) throws DataException {
 		try {
@@ -1514,6 +1631,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
+
+		this.repository.onUnconfirmedTransactionRemoved(signature);
 	}
 
 	@Override
@@ -1566,6 +1685,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to add transaction to unconfirmed transactions repository", e);
 		}
+
+		this.repository.onUnconfirmedTransactionAdded(transactionData);
 	}
 
 	@Override
@@ -1619,6 +1740,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
 
+		this.repository.onUnconfirmedTransactionRemoved(transactionData.getSignature());
+
 		// If transaction subclass has a "delete" method - call that now
 		TransactionType type = transactionData.getType();
 		if (subclassInfos[type.value].deleteMethod != null) {
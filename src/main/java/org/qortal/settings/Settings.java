@@ -232,6 +232,10 @@ public class Settings {
 	private int maxBlocksPerRequest = 100;
 	/** Maximum number of blocks this node will serve in a single response */
 	private int maxBlocksPerResponse = 200;
+	/** Maximum number of block requests kept in flight, across sync peers, ahead of applying blocks during sync */
+	private int syncBlockPipelineDepth = 8;
+	/** Maximum estimated bytes of blocks fetched, or being fetched, ahead of applying them during sync */
+	private long syncBlockPipelineMemoryBudget = 32 * 1024 * 1024L; // bytes
 
 	// Which blockchains this node is running
 	private String blockchainConfig = null; // use default from resources
@@ -251,6 +255,9 @@ public class Settings {
 	/** Wallets path - used for storing encrypted wallet caches for coins that require them */
 	private String walletsPath = "wallets";
 
+	/** Foreign block headers path - used for storing recent block headers of Bitcoin-like chains */
+	private String foreignBlockHeadersPath = "foreign-headers";
+
 	private int arrrDefaultBirthday = 2000000;
 
 	// Repository related
@@ -865,6 +872,10 @@ public class Settings {
 		return this.walletsPath;
 	}
 
+	public String getForeignBlockHeadersPath() {
+		return this.foreignBlockHeadersPath;
+	}
+
 	public int getArrrDefaultBirthday() {
 		return this.arrrDefaultBirthday;
 	}
@@ -905,6 +916,10 @@ public class Settings {
 
 	public int getMaxBlocksPerResponse() { return this.maxBlocksPerResponse; }
 
+	public int getSyncBlockPipelineDepth() { return this.syncBlockPipelineDepth; }
+
+	public long getSyncBlockPipelineMemoryBudget() { return this.syncBlockPipelineMemoryBudget; }
+
 	public boolean isAutoUpdateEnabled() {
 		return this.autoUpdateEnabled;
 	}
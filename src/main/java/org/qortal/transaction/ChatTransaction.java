@@ -19,10 +19,8 @@ import org.qortal.transform.transaction.TransactionTransformer;
 import org.qortal.utils.ListUtils;
 import org.qortal.utils.NTP;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
 
 public class ChatTransaction extends Transaction {
 
@@ -214,7 +212,7 @@ public class ChatTransaction extends Transaction {
 			throw new RuntimeException("Unable to transform transaction to byte array for verification", e);
 		}
 
-		if (!Crypto.verify(this.transactionData.getCreatorPublicKey(), signature, transactionBytes))
+		if (!this.isCreatorSignatureValid(transactionBytes))
 			return false;
 
 		int nonce = this.chatTransactionData.getNonce();
@@ -234,22 +232,11 @@ public class ChatTransaction extends Transaction {
 	}
 
 	private int countRecentChatTransactionsByCreator(PublicKeyAccount creator) throws DataException {
-		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
 		final Long now = NTP.getTime();
 		long recentThreshold = Settings.getInstance().getRecentChatMessagesMaxAge();
 
 		// We only care about chat transactions, and only those that are considered 'recent'
-		Predicate<TransactionData> hasSameCreatorAndIsRecentChat = transactionData -> {
-			if (transactionData.getType() != TransactionType.CHAT)
-				return false;
-
-			if (transactionData.getTimestamp() < now - recentThreshold)
-				return false;
-
-			return Arrays.equals(creator.getPublicKey(), transactionData.getCreatorPublicKey());
-		};
-
-		return (int) unconfirmedTransactions.stream().filter(hasSameCreatorAndIsRecentChat).count();
+		return repository.getTransactionRepository().countUnconfirmedTransactions(TransactionType.CHAT, creator.getPublicKey(), now - recentThreshold);
 	}
 
 
@@ -229,7 +229,7 @@ public class PresenceTransaction extends Transaction {
 			throw new RuntimeException("Unable to transform transaction to byte array for verification", e);
 		}
 
-		if (!Crypto.verify(this.transactionData.getCreatorPublicKey(), signature, transactionBytes))
+		if (!this.isCreatorSignatureValid(transactionBytes))
 			return false;
 
 		int nonce = this.presenceTransactionData.getNonce();
@@ -8,8 +8,8 @@ import org.qortal.account.PublicKeyAccount;
 import org.qortal.asset.Asset;
 import org.qortal.block.BlockChain;
 import org.qortal.controller.Controller;
-import org.qortal.controller.TransactionImporter;
 import org.qortal.crypto.Crypto;
+import org.qortal.crypto.SignatureVerification;
 import org.qortal.data.block.BlockData;
 import org.qortal.data.group.GroupApprovalData;
 import org.qortal.data.group.GroupData;
@@ -30,7 +30,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Predicate;
 
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toMap;
@@ -274,6 +273,8 @@ public abstract class Transaction {
 	protected TransactionData transactionData;
 	/** Cached creator account. Use <tt>getCreator()</tt> to access. */
 	private PublicKeyAccount creator = null;
+	/** Cached result of verifying creator's Ed25519 signature. Use <tt>isCreatorSignatureValid()</tt> to access. */
+	private volatile SignatureVerification creatorSignatureVerification = null;
 
 	// Constructors
 
@@ -508,17 +509,46 @@ public abstract class Transaction {
 	}
 
 	public boolean isSignatureValid() {
-		byte[] signature = this.transactionData.getSignature();
-		if (signature == null)
+		return this.isCreatorSignatureValid();
+	}
+
+	/**
+	 * Returns whether creator's Ed25519 signature is valid, caching result.
+	 * <p>
+	 * Unlike {@link #isSignatureValid()}, this doesn't include any further checks
+	 * (e.g. nonces) that subclasses might perform, and which might depend on repository state.
+	 * Hence this is safe to call ahead of time, e.g. from other threads to verify a block's transactions in parallel,
+	 * leaving later calls to <tt>isSignatureValid()</tt> with only a cache lookup for the Ed25519 part.
+	 */
+	public boolean isCreatorSignatureValid() {
+		if (this.transactionData.getSignature() == null)
 			return false;
 
 		try {
-			return Crypto.verify(this.transactionData.getCreatorPublicKey(), signature, TransactionTransformer.toBytesForSigning(transactionData));
+			return this.isCreatorSignatureValid(TransactionTransformer.toBytesForSigning(transactionData));
 		} catch (TransformationException e) {
 			throw new RuntimeException("Unable to transform transaction to byte array for verification", e);
 		}
 	}
 
+	/** Returns whether creator's Ed25519 signature is valid for passed <tt>transactionBytes</tt>, caching result. */
+	protected boolean isCreatorSignatureValid(byte[] transactionBytes) {
+		byte[] signature = this.transactionData.getSignature();
+		if (signature == null)
+			return false;
+
+		// Only reuse result if neither signature nor signed bytes have changed since
+		SignatureVerification verification = this.creatorSignatureVerification;
+		if (verification != null && verification.isFor(signature, transactionBytes))
+			return verification.isValid();
+
+		boolean isValid = Crypto.verify(this.transactionData.getCreatorPublicKey(), signature, transactionBytes);
+
+		this.creatorSignatureVerification = new SignatureVerification(signature, transactionBytes, isValid);
+
+		return isValid;
+	}
+
 	/**
 	 * Returns whether transaction can be added to unconfirmed transactions.
 	 * 
@@ -618,21 +648,9 @@ public abstract class Transaction {
     }
 
 	private int countUnconfirmedByCreator(PublicKeyAccount creator) throws DataException {
-		List<TransactionData> unconfirmedTransactions = TransactionImporter.getInstance().unconfirmedTransactionsCache;
-		if (unconfirmedTransactions == null) {
-			unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-		}
-
 		// We exclude CHAT transactions as they never get included into blocks and
 		// have spam/DoS prevention by requiring proof of work
-		Predicate<TransactionData> hasSameCreatorButNotChat = transactionData -> {
-			if (transactionData.getType() == TransactionType.CHAT)
-				return false;
-
-			return Arrays.equals(creator.getPublicKey(), transactionData.getCreatorPublicKey());
-		};
-
-		return (int) unconfirmedTransactions.stream().filter(hasSameCreatorButNotChat).count();
+		return repository.getTransactionRepository().countUnconfirmedTransactionsByCreator(creator.getPublicKey(), EnumSet.of(TransactionType.CHAT));
 	}
 
 	/**
@@ -8,6 +8,8 @@ import org.qortal.arbitrary.ArbitraryDataFileChunk;
 import org.qortal.arbitrary.ArbitraryDataReader;
 import org.qortal.arbitrary.ArbitraryDataResource;
 import org.qortal.arbitrary.misc.Service;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageLedger;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
 import org.qortal.data.arbitrary.ArbitraryResourceStatus;
 import org.qortal.data.transaction.ArbitraryTransactionData;
 import org.qortal.data.transaction.TransactionData;
@@ -302,6 +304,7 @@ public class ArbitraryTransactionUtils {
                         LOGGER.info("Relocating chunk from {} to {}...", oldPath, newPath);
                         Files.createDirectories(newPath.getParent());
                         Files.move(oldPath, newPath, REPLACE_EXISTING);
+                        onFileRelocated(oldPath, newPath);
                         filesRelocatedCount++;
 
                         // Delete empty parent directories
@@ -320,6 +323,7 @@ public class ArbitraryTransactionUtils {
                 LOGGER.info("Relocating complete file from {} to {}...", oldPath, newPath);
                 Files.createDirectories(newPath.getParent());
                 Files.move(oldPath, newPath, REPLACE_EXISTING);
+                onFileRelocated(oldPath, newPath);
                 filesRelocatedCount++;
 
                 // Delete empty parent directories
@@ -337,6 +341,7 @@ public class ArbitraryTransactionUtils {
                 LOGGER.info("Relocating metadata file from {} to {}...", oldPath, newPath);
                 Files.createDirectories(newPath.getParent());
                 Files.move(oldPath, newPath, REPLACE_EXISTING);
+                onFileRelocated(oldPath, newPath);
                 filesRelocatedCount++;
 
                 // Delete empty parent directories
@@ -353,6 +358,7 @@ public class ArbitraryTransactionUtils {
                     Path parentDirectory = completeFile.getFilePath().getParent();
                     File file = Paths.get(parentDirectory.toString(), ".original").toFile();
                     file.createNewFile();
+                    ArbitraryDataStorageManager.getInstance().getStorageLedger().onFileWritten(file.toPath());
                 }
             }
         } catch (DataException | IOException e) {
@@ -363,6 +369,12 @@ public class ArbitraryTransactionUtils {
         return filesRelocatedCount;
     }
 
+    private static void onFileRelocated(Path oldPath, Path newPath) {
+        ArbitraryDataStorageLedger storageLedger = ArbitraryDataStorageManager.getInstance().getStorageLedger();
+        storageLedger.onFileDeleted(oldPath);
+        storageLedger.onFileWritten(newPath);
+    }
+
     public static List<ArbitraryTransactionData> limitOffsetTransactions(List<ArbitraryTransactionData> transactions,
                                                                          Integer limit, Integer offset) {
         if (limit != null && limit == 0) {
@@ -69,8 +69,11 @@ public abstract class ExecuteProduceConsume implements Runnable {
 	}
 
 	public StatsSnapshot getStatsSnapshot() {
-		StatsSnapshot snapshot = new StatsSnapshot();
+		return this.populateStatsSnapshot(new StatsSnapshot());
+	}
 
+	/** Fills in passed snapshot, which could be a subclass with extra stats. */
+	public <S extends StatsSnapshot> S populateStatsSnapshot(S snapshot) {
 		synchronized (this) {
 			snapshot.activeThreadCount = this.activeThreadCount;
 			snapshot.greatestActiveThreadCount = this.greatestActiveThreadCount;
@@ -0,0 +1,155 @@
+package org.qortal.utils;
+
+import java.util.*;
+
+/**
+ * Splits QDN resource fields into lowercase search tokens, for the ArbitrarySearchTokens inverted index.
+ * <p>
+ * Text is split on anything that isn't a letter or digit. Words made up of camelCase parts, or of letters and digits,
+ * are also indexed by each part, so "QortalWiki2" is found by "qortalwiki2", "qortal", "wiki" and "2".
+ * <p>
+ * Each token is weighted by the most important field it appears in, which is used for ranking search results.
+ */
+public abstract class SearchTokenizer {
+
+	/** Tokens are truncated to fit ArbitrarySearchTokens.token */
+	public static final int MAX_TOKEN_LENGTH = 64;
+
+	/** Query terms shorter than this would match too many tokens to be useful */
+	public static final int MIN_QUERY_TERM_LENGTH = 2;
+
+	/** Maximum number of terms used from a search query */
+	public static final int MAX_QUERY_TERMS = 8;
+
+	public static final int NAME_WEIGHT = 8;
+	public static final int TITLE_WEIGHT = 6;
+	public static final int IDENTIFIER_WEIGHT = 4;
+	public static final int TAG_WEIGHT = 4;
+	public static final int DESCRIPTION_WEIGHT = 1;
+
+	/** Returns distinct tokens in <tt>text</tt>, in order of appearance. */
+	public static Set<String> tokenize(String text) {
+		Set<String> tokens = new LinkedHashSet<>();
+		if (text == null)
+			return tokens;
+
+		for (String word : splitWords(text)) {
+			addToken(tokens, word);
+
+			List<String> parts = splitWordParts(word);
+			if (parts.size() > 1)
+				for (String part : parts)
+					addToken(tokens, part);
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Returns search tokens for a resource, each mapped to the weight of the most important field containing it.
+	 *
+	 * @param identifier resource identifier, or null for the default resource
+	 */
+	public static Map<String, Integer> tokenWeights(String name, String identifier, String title, String description, List<String> tags) {
+		Map<String, Integer> tokenWeights = new HashMap<>();
+
+		addTokenWeights(tokenWeights, name, NAME_WEIGHT);
+		addTokenWeights(tokenWeights, title, TITLE_WEIGHT);
+		addTokenWeights(tokenWeights, identifier, IDENTIFIER_WEIGHT);
+		if (tags != null)
+			for (String tag : tags)
+				addTokenWeights(tokenWeights, tag, TAG_WEIGHT);
+		addTokenWeights(tokenWeights, description, DESCRIPTION_WEIGHT);
+
+		return tokenWeights;
+	}
+
+	/** Returns distinct, lowercase terms from search query, each of which is to be matched as a token prefix. */
+	public static List<String> queryTerms(String query) {
+		List<String> terms = new ArrayList<>();
+		if (query == null)
+			return terms;
+
+		for (String word : splitWords(query)) {
+			String term = truncate(word.toLowerCase(Locale.ROOT));
+
+			if (term.length() < MIN_QUERY_TERM_LENGTH || terms.contains(term))
+				continue;
+
+			terms.add(term);
+
+			if (terms.size() >= MAX_QUERY_TERMS)
+				break;
+		}
+
+		return terms;
+	}
+
+	private static void addTokenWeights(Map<String, Integer> tokenWeights, String text, int weight) {
+		for (String token : tokenize(text))
+			tokenWeights.merge(token, weight, Math::max);
+	}
+
+	private static void addToken(Set<String> tokens, String word) {
+		if (!word.isEmpty())
+			tokens.add(truncate(word.toLowerCase(Locale.ROOT)));
+	}
+
+	private static String truncate(String token) {
+		return token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+	}
+
+	/** Splits text into runs of letters and digits. */
+	private static List<String> splitWords(String text) {
+		List<String> words = new ArrayList<>();
+
+		int start = -1;
+		for (int i = 0; i < text.length(); ) {
+			int codePoint = text.codePointAt(i);
+			boolean isWordChar = Character.isLetterOrDigit(codePoint);
+
+			if (isWordChar && start < 0)
+				start = i;
+			else if (!isWordChar && start >= 0) {
+				words.add(text.substring(start, i));
+				start = -1;
+			}
+
+			i += Character.charCount(codePoint);
+		}
+
+		if (start >= 0)
+			words.add(text.substring(start));
+
+		return words;
+	}
+
+	/** Splits word at lowercase-to-uppercase and letter/digit boundaries, e.g. "myApp2" into "my", "App", "2". */
+	private static List<String> splitWordParts(String word) {
+		List<String> parts = new ArrayList<>();
+
+		int start = 0;
+		int previous = -1;
+		for (int i = 0; i < word.length(); ) {
+			int codePoint = word.codePointAt(i);
+
+			if (previous >= 0) {
+				boolean camelBoundary = Character.isLowerCase(previous) && Character.isUpperCase(codePoint);
+				boolean digitBoundary = Character.isDigit(previous) != Character.isDigit(codePoint);
+
+				if (camelBoundary || digitBoundary) {
+					parts.add(word.substring(start, i));
+					start = i;
+				}
+			}
+
+			previous = codePoint;
+			i += Character.charCount(codePoint);
+		}
+
+		parts.add(word.substring(start));
+
+		return parts;
+	}
+
+}
@@ -33,6 +33,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -91,9 +92,20 @@ public class ZipUtils {
     }
 
     public static void unzip(String sourcePath, String destPath) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(sourcePath)) {
+            ZipUtils.unzip(inputStream, destPath);
+        }
+    }
+
+    /**
+     * Extracts zip data read from <tt>inputStream</tt> into <tt>destPath</tt>. Caller is responsible for closing <tt>inputStream</tt>.
+     * <p>
+     * Reading stops at the end of the last entry, so any trailing data, e.g. the central directory, may remain unread.
+     */
+    public static void unzip(InputStream inputStream, String destPath) throws IOException {
         final File destDir = new File(destPath);
         final byte[] buffer = new byte[1024];
-        final ZipInputStream zis = new ZipInputStream(new FileInputStream(sourcePath));
+        final ZipInputStream zis = new ZipInputStream(inputStream);
         ZipEntry zipEntry = zis.getNextEntry();
         while (zipEntry != null) {
             final File newFile = ZipUtils.newFile(destDir, zipEntry);
@@ -117,7 +129,6 @@ public class ZipUtils {
             zipEntry = zis.getNextEntry();
         }
         zis.closeEntry();
-        zis.close();
     }
 
     /**
@@ -0,0 +1,159 @@
+package org.qortal.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.api.websocket.ActiveChatsView;
+import org.qortal.block.BlockChain;
+import org.qortal.data.chat.ActiveChats;
+import org.qortal.data.chat.ActiveChats.DirectChat;
+import org.qortal.data.chat.ActiveChats.GroupChat;
+import org.qortal.data.naming.NameData;
+import org.qortal.data.transaction.BaseTransactionData;
+import org.qortal.data.transaction.ChatTransactionData;
+import org.qortal.group.Group;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.Common;
+import org.qortal.transaction.Transaction;
+import org.qortal.utils.Base58;
+
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+import static org.qortal.data.chat.ChatMessage.Encoding;
+
+public class ActiveChatsViewTests extends Common {
+
+	private static final int OTHER_GROUP_ID = 12345;
+
+	private long timestamp;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+		this.timestamp = System.currentTimeMillis();
+	}
+
+	@Test
+	public void testIncrementalUpdates() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+			PrivateKeyAccount chloe = Common.getTestAccount(repository, "chloe");
+
+			ActiveChatsView view = new ActiveChatsView(alice.getAddress(), Encoding.BASE58,
+					repository.getChatRepository().getActiveChats(alice.getAddress(), Encoding.BASE58));
+			assertConsistent(repository, alice, view);
+
+			// Direct message to us
+			ActiveChats changedChats = apply(repository, view, saveChat(repository, bob, alice.getAddress(), Group.NO_GROUP), true);
+			assertEquals(0, changedChats.getGroups().size());
+			assertEquals(1, changedChats.getDirect().size());
+			assertEquals(bob.getAddress(), changedChats.getDirect().get(0).getAddress());
+			assertConsistent(repository, alice, view);
+
+			// Direct message from us
+			apply(repository, view, saveChat(repository, alice, chloe.getAddress(), Group.NO_GROUP), true);
+			assertConsistent(repository, alice, view);
+
+			// Further message in existing conversation
+			apply(repository, view, saveChat(repository, alice, bob.getAddress(), Group.NO_GROUP), true);
+			assertConsistent(repository, alice, view);
+
+			// Group-less, recipient-less message is seen by everyone
+			changedChats = apply(repository, view, saveChat(repository, chloe, null, Group.NO_GROUP), true);
+			assertEquals(1, changedChats.getGroups().size());
+			assertEquals(Group.NO_GROUP, changedChats.getGroups().get(0).getGroupId());
+			assertEquals(0, changedChats.getDirect().size());
+			assertConsistent(repository, alice, view);
+
+			// Conversations not involving us, or in groups we're not in, don't affect view
+			apply(repository, view, saveChat(repository, bob, chloe.getAddress(), Group.NO_GROUP), false);
+			apply(repository, view, saveChat(repository, bob, null, OTHER_GROUP_ID), false);
+			assertConsistent(repository, alice, view);
+		}
+	}
+
+	@Test
+	public void testOlderMessageIgnored() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			ActiveChatsView view = new ActiveChatsView(alice.getAddress(), Encoding.BASE58,
+					repository.getChatRepository().getActiveChats(alice.getAddress(), Encoding.BASE58));
+
+			ChatTransactionData newerChat = saveChat(repository, bob, null, Group.NO_GROUP);
+			this.timestamp -= 10_000L;
+			ChatTransactionData olderChat = saveChat(repository, alice, null, Group.NO_GROUP);
+
+			assertNotNull(view.apply(newerChat, address -> null));
+			assertNull(view.apply(olderChat, address -> null));
+
+			// Same CHAT twice only produces one change
+			assertNull(view.apply(newerChat, address -> null));
+		}
+	}
+
+	private static ActiveChats apply(Repository repository, ActiveChatsView view, ChatTransactionData chatTransactionData, boolean expectChange) throws DataException {
+		assertEquals(expectChange, view.isAffectedBy(chatTransactionData));
+
+		ActiveChats changedChats = view.apply(chatTransactionData, address -> getName(repository, address));
+		assertEquals(expectChange, changedChats != null);
+
+		return changedChats;
+	}
+
+	/** Checks view matches full repository query. */
+	private static void assertConsistent(Repository repository, PrivateKeyAccount account, ActiveChatsView view) throws DataException {
+		ActiveChats expected = repository.getChatRepository().getActiveChats(account.getAddress(), Encoding.BASE58);
+		ActiveChats actual = view.getActiveChats();
+
+		assertEquals(describe(expected), describe(actual));
+	}
+
+	private static String describe(ActiveChats activeChats) {
+		TreeMap<String, String> chats = new TreeMap<>();
+
+		for (GroupChat groupChat : activeChats.getGroups())
+			chats.put("group " + groupChat.getGroupId(), String.join(",", groupChat.getGroupName(), String.valueOf(groupChat.getTimestamp()),
+					groupChat.getSender(), groupChat.getSenderName(),
+					groupChat.getSignature() != null ? Base58.encode(groupChat.getSignature()) : null, groupChat.getData()));
+
+		for (DirectChat directChat : activeChats.getDirect())
+			chats.put("direct " + directChat.getAddress(), String.join(",", directChat.getName(), String.valueOf(directChat.getTimestamp()),
+					directChat.getSender(), directChat.getSenderName()));
+
+		return chats.toString();
+	}
+
+	private static String getName(Repository repository, String address) throws DataException {
+		List<NameData> names = repository.getNameRepository().getNamesByOwner(address);
+		return names.isEmpty() ? null : names.get(0).getName();
+	}
+
+	/** Saves CHAT directly into repository, skipping proof-of-work and validation. */
+	private ChatTransactionData saveChat(Repository repository, PrivateKeyAccount sender, String recipient, int txGroupId) throws DataException {
+		this.timestamp += 1000L;
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(this.timestamp, txGroupId, sender.getLastReference(),
+				sender.getPublicKey(), BlockChain.getInstance().getUnitFeeAtTimestamp(this.timestamp), null);
+
+		byte[] data = new byte[32];
+		new Random().nextBytes(data);
+
+		ChatTransactionData chatTransactionData = new ChatTransactionData(baseTransactionData, sender.getAddress(), 0, recipient, null, data, true, false);
+		Transaction.fromData(repository, chatTransactionData).sign(sender);
+
+		repository.getTransactionRepository().save(chatTransactionData);
+		repository.getTransactionRepository().unconfirmTransaction(chatTransactionData);
+		repository.saveChanges();
+
+		return chatTransactionData;
+	}
+
+}
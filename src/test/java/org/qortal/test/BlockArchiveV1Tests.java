@@ -499,6 +499,10 @@ public class BlockArchiveV1Tests extends Common {
 	private void deleteArchiveDirectory() {
 		// Delete archive directory if exists
 		Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive").toAbsolutePath();
+
+		// Release mappings of archive files, so they can be deleted
+		BlockArchiveReader.getInstance().invalidateFileListCache();
+
 		try {
 			FileUtils.deleteDirectory(archivePath.toFile());
 		} catch (IOException e) {
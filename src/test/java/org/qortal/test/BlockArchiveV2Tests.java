@@ -20,11 +20,14 @@ import org.qortal.transaction.DeployAtTransaction;
 import org.qortal.transaction.Transaction;
 import org.qortal.transform.TransformationException;
 import org.qortal.transform.block.BlockTransformation;
+import org.qortal.transform.block.BlockTransformer;
 import org.qortal.utils.BlockArchiveUtils;
 import org.qortal.utils.NTP;
+import org.qortal.utils.Triple;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.SQLException;
@@ -257,6 +260,83 @@ public class BlockArchiveV2Tests extends Common {
 
 	}
 
+	@Test
+	public void testReaderSlicesAndCache() throws DataException, InterruptedException, TransformationException, IOException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+
+			// Mint some blocks so that we are able to archive them later
+			for (int i = 0; i < 1000; i++) {
+				BlockMinter.mintTestingBlock(repository, Common.getTestAccount(repository, "alice-reward-share"));
+			}
+
+			// 900 blocks are trimmed (this specifies the first untrimmed height)
+			repository.getBlockRepository().setOnlineAccountsSignaturesTrimHeight(901);
+			repository.getATRepository().setAtTrimHeight(901);
+
+			// Write blocks 2-900 to the archive
+			BlockArchiveWriter writer = new BlockArchiveWriter(0, BlockArchiveWriter.getMaxArchiveHeight(repository), repository);
+			writer.setShouldEnforceFileSizeTarget(false); // To avoid the need to pre-calculate file sizes
+			assertEquals(BlockArchiveWriter.BlockArchiveWriteResult.OK, writer.write());
+
+			BlockArchiveReader reader = BlockArchiveReader.getInstance();
+			assertEquals(900, reader.getHeightOfLastArchivedBlock());
+
+			// Repeated reads from mapping should return the same bytes, without disturbing each other
+			for (int height = 2; height <= 900; height += 100) {
+				Triple<byte[], Integer, Integer> serializedBytes = reader.fetchSerializedBlockBytesForHeight(height);
+				Triple<byte[], Integer, Integer> serializedBytesAgain = reader.fetchSerializedBlockBytesForHeight(height);
+
+				assertEquals(Integer.valueOf(2), serializedBytes.getB());
+				assertEquals(Integer.valueOf(height), serializedBytes.getC());
+				assertArrayEquals(serializedBytes.getA(), serializedBytesAgain.getA());
+			}
+
+			// Heights outside archive
+			assertNull(reader.fetchSerializedBlockBytesForHeight(1));
+			assertNull(reader.fetchBlockAtHeight(901));
+
+			// Full blocks are decoded afresh, so callers modifying what they're given don't affect each other
+			BlockTransformation firstBlockInfo = reader.fetchBlockAtHeight(500);
+			byte[] signature = firstBlockInfo.getBlockData().getSignature();
+			firstBlockInfo.getBlockData().setHeight(12345);
+
+			BlockTransformation secondBlockInfo = reader.fetchBlockAtHeight(500);
+			assertNotSame(firstBlockInfo, secondBlockInfo);
+			assertNotSame(firstBlockInfo.getTransactions(), secondBlockInfo.getTransactions());
+			assertEquals(500, secondBlockInfo.getBlockData().getHeight().intValue());
+			assertArrayEquals(signature, secondBlockInfo.getBlockData().getSignature());
+			assertArrayEquals(repository.getBlockRepository().fromHeight(500).getSignature(), signature);
+
+			// Cached block data should be unaffected too
+			BlockData firstBlockData = reader.fetchBlockDataAtHeight(500);
+			firstBlockData.setHeight(54321);
+			assertEquals(500, reader.fetchBlockDataAtHeight(500).getHeight().intValue());
+			assertArrayEquals(signature, reader.fetchBlockDataWithSignature(signature, repository).getSignature());
+
+			// Replacing archive directory swaps in new files
+			Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive");
+			Path rebuiltArchivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive-rebuild");
+			FileUtils.copyDirectory(archivePath.toFile(), rebuiltArchivePath.toFile());
+			reader.replaceArchive(rebuiltArchivePath);
+			assertFalse(rebuiltArchivePath.toFile().exists());
+			assertArrayEquals(signature, reader.fetchBlockAtHeight(500).getBlockData().getSignature());
+
+			// Bytes handed out are copies, so remain usable after mappings are released
+			byte[] serializedBytes = reader.fetchSerializedBlockBytesForHeight(500).getA();
+
+			// Mappings are released, so archive files can be deleted
+			reader.invalidateFileListCache();
+			FileUtils.deleteDirectory(archivePath.toFile());
+			assertFalse(archivePath.toFile().exists());
+
+			BlockTransformation blockInfo = BlockTransformer.fromByteBufferV2(ByteBuffer.wrap(serializedBytes));
+			assertArrayEquals(signature, blockInfo.getBlockData().getSignature());
+
+			assertNull(reader.fetchBlockAtHeight(500));
+			assertNull(reader.fetchBlockDataAtHeight(500));
+		}
+	}
+
 	@Test
 	public void testArchiveAndPrune() throws DataException, InterruptedException, TransformationException, IOException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
@@ -494,6 +574,10 @@ public class BlockArchiveV2Tests extends Common {
 	private void deleteArchiveDirectory() {
 		// Delete archive directory if exists
 		Path archivePath = Paths.get(Settings.getInstance().getRepositoryPath(), "archive").toAbsolutePath();
+
+		// Release mappings of archive files, so they can be deleted
+		BlockArchiveReader.getInstance().invalidateFileListCache();
+
 		try {
 			FileUtils.deleteDirectory(archivePath.toFile());
 		} catch (IOException e) {
@@ -0,0 +1,208 @@
+package org.qortal.test;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.asset.Asset;
+import org.qortal.block.Block;
+import org.qortal.block.Block.ValidationResult;
+import org.qortal.block.BlockChain;
+import org.qortal.data.account.AccountBalanceData;
+import org.qortal.data.at.ATData;
+import org.qortal.data.at.ATStateData;
+import org.qortal.data.block.BlockData;
+import org.qortal.data.transaction.MessageTransactionData;
+import org.qortal.data.transaction.PaymentTransactionData;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.data.transaction.TransferAssetTransactionData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.AssetUtils;
+import org.qortal.test.common.AtUtils;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.test.common.transaction.TestTransaction;
+import org.qortal.transaction.Transaction;
+import org.qortal.transform.TransformationException;
+import org.qortal.transform.block.BlockTransformation;
+import org.qortal.transform.block.BlockTransformer;
+import org.qortal.utils.Amounts;
+import org.qortal.utils.Base58;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/** Replays blocks, as if received during synchronization, comparing isValid() then process() with validateAndProcess(). */
+public class BlockReplayTests extends Common {
+
+	private static final int BLOCK_COUNT = 20;
+
+	@Before
+	public void beforeTest() throws DataException, IllegalAccessException {
+		// No reference checking, so each account can have several transactions per block
+		Common.useSettings("test-settings-v2-disable-reference.json");
+
+		// Batch reward distribution, so most blocks aren't reward-distribution blocks
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchStartHeight", 0, true);
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchSize", 1000, true);
+		FieldUtils.writeField(BlockChain.getInstance(), "blockRewardBatchAccountsBlockCount", 3, true);
+	}
+
+	@After
+	public void afterTest() throws DataException {
+		Common.orphanCheck();
+	}
+
+	@Test
+	public void testReplayMatchesTwoPassState() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			BlockUtils.mintBlock(repository);
+			final int startHeight = repository.getBlockRepository().getBlockchainHeight();
+
+			List<PrivateKeyAccount> accounts = Arrays.asList(
+					Common.getTestAccount(repository, "alice"),
+					Common.getTestAccount(repository, "bob"),
+					Common.getTestAccount(repository, "chloe"),
+					Common.getTestAccount(repository, "dilbert"));
+
+			// AT that runs every block, so replayed blocks have AT states
+			String atAddress = AtUtils.doDeployAT(repository, accounts.get(0), AtUtils.buildSimpleAT(), 1_00000000L).getATAccount().getAddress();
+
+			for (int i = 0; i < BLOCK_COUNT; ++i) {
+				for (int a = 0; a < accounts.size(); ++a) {
+					PrivateKeyAccount account = accounts.get(a);
+					String recipient = accounts.get((a + 1) % accounts.size()).getAddress();
+
+					long amount = (i + 1) * Amounts.MULTIPLIER;
+					List<TransactionData> transactions = Arrays.asList(
+							new PaymentTransactionData(TestTransaction.generateBase(account), recipient, amount),
+							new TransferAssetTransactionData(TestTransaction.generateBase(account), recipient, amount, Asset.QORT),
+							new MessageTransactionData(TestTransaction.generateBase(account), 4, 0, recipient, amount, Asset.QORT, "replay".getBytes(), true, false));
+
+					for (TransactionData transactionData : transactions)
+						TransactionUtils.signAndImportValid(repository, transactionData, account);
+				}
+
+				BlockUtils.mintBlock(repository);
+			}
+
+			final int endHeight = repository.getBlockRepository().getBlockchainHeight();
+
+			List<byte[]> blocksBytes = new ArrayList<>();
+			for (int height = startHeight + 1; height <= endHeight; ++height) {
+				BlockData blockData = repository.getBlockRepository().fromHeight(height);
+				blocksBytes.add(BlockTransformer.toBytes(new Block(repository, blockData)));
+			}
+
+			// Unoptimized replay
+			BlockUtils.orphanToBlock(repository, startHeight);
+			replayBlocks(repository, blocksBytes, startHeight, false);
+			List<String> twoPassState = describeState(repository, accounts, atAddress);
+
+			// Optimized replay, with an invalid block first
+			BlockUtils.orphanToBlock(repository, startHeight);
+			replayBlocks(repository, blocksBytes.subList(0, 1), startHeight, true);
+
+			List<String> stateBeforeInvalidBlock = describeState(repository, accounts, atAddress);
+
+			// Valid transactions followed by one that fails validation, so earlier test-processing must be rolled back
+			BlockTransformation blockInfo = BlockTransformer.fromBytes(blocksBytes.get(1));
+			BlockData blockData = blockInfo.getBlockData();
+			blockData.setHeight(startHeight + 2);
+
+			PrivateKeyAccount spender = accounts.get(accounts.size() - 1);
+			PaymentTransactionData overspendTransactionData = new PaymentTransactionData(TestTransaction.generateBase(spender),
+					accounts.get(0).getAddress(), 1_000_000_000L * Amounts.MULTIPLIER);
+			overspendTransactionData.setTimestamp(blockData.getTimestamp() - 1);
+			Transaction.fromData(repository, overspendTransactionData).sign(spender);
+
+			List<TransactionData> invalidTransactions = new ArrayList<>(blockInfo.getTransactions());
+			invalidTransactions.add(overspendTransactionData);
+			assertTrue(invalidTransactions.size() > 1);
+
+			Block invalidBlock = new Block(repository, blockData, invalidTransactions, blockInfo.getAtStates());
+			for (Transaction transaction : invalidBlock.getTransactions())
+				transaction.setInitialApprovalStatus();
+
+			invalidBlock.preProcess();
+			assertFalse(invalidBlock.validateAndProcess() == ValidationResult.OK);
+			repository.discardChanges();
+
+			assertEquals(stateBeforeInvalidBlock, describeState(repository, accounts, atAddress));
+			assertEquals(startHeight + 1, repository.getBlockRepository().getBlockchainHeight());
+
+			replayBlocks(repository, blocksBytes.subList(1, blocksBytes.size()), startHeight + 1, true);
+
+			assertEquals(twoPassState, describeState(repository, accounts, atAddress));
+		}
+	}
+
+	/** Applies serialized blocks, in the same way as Synchronizer. */
+	private static void replayBlocks(Repository repository, List<byte[]> blocksBytes, int startHeight, boolean singlePass) throws DataException, TransformationException {
+		int height = startHeight;
+		for (byte[] blockBytes : blocksBytes) {
+			BlockTransformation blockInfo = BlockTransformer.fromBytes(blockBytes);
+			BlockData blockData = blockInfo.getBlockData();
+			blockData.setHeight(++height);
+
+			Block block = new Block(repository, blockData, blockInfo.getTransactions(), blockInfo.getAtStates());
+
+			for (Transaction transaction : block.getTransactions())
+				transaction.setInitialApprovalStatus();
+
+			block.preProcess();
+
+			if (singlePass) {
+				assertEquals(ValidationResult.OK, block.validateAndProcess());
+			} else {
+				assertEquals(ValidationResult.OK, block.isValid());
+
+				for (Transaction transaction : block.getTransactions())
+					repository.getTransactionRepository().save(transaction.getTransactionData());
+
+				block.process();
+			}
+
+			repository.saveChanges();
+		}
+	}
+
+	/** Returns accounts' balances and last-references, and AT's balance and state, for comparison. */
+	private static List<String> describeState(Repository repository, List<PrivateKeyAccount> accounts, String atAddress) throws DataException {
+		List<String> state = new ArrayList<>();
+
+		for (PrivateKeyAccount account : accounts) {
+			byte[] lastReference = account.getLastReference();
+			state.add(account.getAddress() + " reference " + (lastReference != null ? Base58.encode(lastReference) : null));
+
+			for (long assetId : new long[] { Asset.QORT, AssetUtils.testAssetId, AssetUtils.otherAssetId })
+				state.add(describeBalance(repository, account.getAddress(), assetId));
+		}
+
+		state.add(describeBalance(repository, atAddress, Asset.QORT));
+
+		ATData atData = repository.getATRepository().fromATAddress(atAddress);
+		state.add(String.format("AT sleeping %s, finished %s, fatal error %s",
+				atData.getIsSleeping(), atData.getIsFinished(), atData.getHadFatalError()));
+
+		ATStateData atStateData = repository.getATRepository().getLatestATState(atAddress);
+		if (atStateData != null)
+			state.add(String.format("AT state at height %d: %s, fees %d",
+					atStateData.getHeight(), Base58.encode(atStateData.getStateHash()), atStateData.getFees()));
+
+		return state;
+	}
+
+	private static String describeBalance(Repository repository, String address, long assetId) throws DataException {
+		AccountBalanceData balanceData = repository.getAccountRepository().getBalance(address, assetId);
+		return String.format("%s asset %d: %d", address, assetId, balanceData != null ? balanceData.getBalance() : 0L);
+	}
+
+}
@@ -82,6 +82,46 @@ public class BlockTests extends Common {
 		}
 	}
 
+	@Test
+	public void testSignatureVerificationCache() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			Transaction transaction = Transaction.fromData(repository, transactionData);
+
+			transaction.sign(alice);
+			assertTrue(transaction.isCreatorSignatureValid());
+			assertTrue(transaction.isSignatureValid());
+
+			// Signature modified in place should not use cached result
+			transaction.getTransactionData().getSignature()[0] ^= 1;
+			assertFalse(transaction.isCreatorSignatureValid());
+			transaction.getTransactionData().getSignature()[0] ^= 1;
+			assertTrue(transaction.isCreatorSignatureValid());
+
+			// New signature, by wrong account, should not use cached result
+			transaction.sign(bob);
+			assertFalse(transaction.isCreatorSignatureValid());
+			assertFalse(transaction.isSignatureValid());
+
+			// Block's minter signature
+			Block block = BlockUtils.mintBlock(repository);
+			assertTrue(block.isMinterSignatureValid());
+
+			BlockData blockData = block.getBlockData();
+			blockData.setMinterSignature(Arrays.copyOf(blockData.getMinterSignature(), blockData.getMinterSignature().length));
+			blockData.getMinterSignature()[0] ^= 1;
+			assertFalse(block.isMinterSignatureValid());
+			assertFalse(block.isSignatureValid());
+
+			// Restored in place
+			blockData.getMinterSignature()[0] ^= 1;
+			assertTrue(block.isMinterSignatureValid());
+		}
+	}
+
 	@Test
 	@Ignore(value = "Doesn't work, to be fixed later")
 	public void testBlockSerialization() throws DataException, TransformationException {
@@ -272,6 +272,10 @@ public class BootstrapTests extends Common {
     private void deleteExportDirectory() {
         // Delete archive directory if exists
         Path archivePath = Paths.get(Settings.getInstance().getExportPath());
+
+        // Release mappings of archive files, so they can be deleted
+        BlockArchiveReader.getInstance().invalidateFileListCache();
+
         try {
             FileUtils.deleteDirectory(archivePath.toFile());
         } catch (IOException e) {
@@ -0,0 +1,234 @@
+package org.qortal.test;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.junit.After;
+import org.junit.Test;
+import org.qortal.controller.ChatNotifier;
+import org.qortal.data.transaction.BaseTransactionData;
+import org.qortal.data.transaction.ChatTransactionData;
+import org.qortal.group.Group;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ChatNotifierTests {
+
+	private static final String ALICE = "alice";
+	private static final String BOB = "bob";
+	private static final String CHLOE = "chloe";
+
+	/** Fake websocket session that only records close() calls */
+	private static class FakeSession {
+		private final Session session;
+		private final List<Integer> closeStatusCodes = Collections.synchronizedList(new ArrayList<>());
+		private final List<ChatTransactionData> received = Collections.synchronizedList(new ArrayList<>());
+
+		private FakeSession() {
+			this.session = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[] { Session.class }, (proxy, method, args) -> {
+				switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(proxy);
+
+					case "equals":
+						return proxy == args[0];
+
+					case "toString":
+						return "FakeSession";
+
+					case "close":
+						if (args != null && args.length > 0 && args[0] instanceof Integer)
+							this.closeStatusCodes.add((Integer) args[0]);
+						return null;
+
+					default:
+						return null;
+				}
+			});
+		}
+	}
+
+	private final List<FakeSession> fakeSessions = new ArrayList<>();
+	private long timestamp = System.currentTimeMillis();
+
+	@After
+	public void afterTest() {
+		for (FakeSession fakeSession : this.fakeSessions)
+			ChatNotifier.getInstance().deregister(fakeSession.session);
+	}
+
+	@Test
+	public void testRouting() throws InterruptedException {
+		FakeSession groupSession = this.register(List.of(5), Collections.emptyList());
+		FakeSession otherGroupSession = this.register(List.of(6), Collections.emptyList());
+		FakeSession aliceSession = this.register(Collections.emptyList(), List.of(ALICE));
+		FakeSession bobSession = this.register(Collections.emptyList(), List.of(BOB));
+		FakeSession bothSession = this.register(List.of(5), List.of(ALICE));
+		FakeSession noGroupSession = this.register(List.of(Group.NO_GROUP), Collections.emptyList());
+
+		// Direct message reaches sender and recipient subscribers only
+		ChatTransactionData directChat = this.chat(ALICE, BOB, Group.NO_GROUP);
+		ChatNotifier.getInstance().onNewChatTransaction(directChat);
+
+		// Group message reaches group subscribers only
+		ChatTransactionData groupChat = this.chat(CHLOE, null, 5);
+		ChatNotifier.getInstance().onNewChatTransaction(groupChat);
+
+		// Group 0 message reaches group 0 subscribers, but not sender's address subscribers
+		ChatTransactionData noGroupChat = this.chat(ALICE, null, Group.NO_GROUP);
+		ChatNotifier.getInstance().onNewChatTransaction(noGroupChat);
+
+		awaitReceived(aliceSession, 1);
+		awaitReceived(bobSession, 1);
+		awaitReceived(groupSession, 1);
+		awaitReceived(bothSession, 2);
+		awaitReceived(noGroupSession, 1);
+
+		// Give any misrouted deliveries a chance to show up
+		Thread.sleep(200L);
+
+		assertEquals(List.of(directChat), aliceSession.received);
+		assertEquals(List.of(directChat), bobSession.received);
+		assertEquals(List.of(groupChat), groupSession.received);
+		assertTrue(otherGroupSession.received.isEmpty());
+
+		// Direct messages don't reach group 0 subscribers
+		assertEquals(List.of(noGroupChat), noGroupSession.received);
+
+		// Subscriber to both group and address only receives each CHAT once
+		assertEquals(List.of(directChat, groupChat), bothSession.received);
+
+		// After changing groups, only new group's CHATs are received
+		ChatNotifier.getInstance().setGroupIds(otherGroupSession.session, List.of(5));
+		ChatNotifier.getInstance().onNewChatTransaction(this.chat(CHLOE, null, 6));
+		ChatNotifier.getInstance().onNewChatTransaction(groupChat);
+		awaitReceived(otherGroupSession, 1);
+		Thread.sleep(200L);
+		assertEquals(List.of(groupChat), otherGroupSession.received);
+	}
+
+	@Test
+	public void testGroupMembershipChange() throws InterruptedException {
+		AtomicInteger aliceNotifications = new AtomicInteger();
+		AtomicInteger bobNotifications = new AtomicInteger();
+
+		FakeSession aliceSession = new FakeSession();
+		FakeSession bobSession = new FakeSession();
+		this.fakeSessions.add(aliceSession);
+		this.fakeSessions.add(bobSession);
+
+		ChatNotifier.getInstance().register(aliceSession.session, membershipListener(aliceNotifications), Collections.emptyList(), List.of(ALICE));
+		ChatNotifier.getInstance().register(bobSession.session, membershipListener(bobNotifications), Collections.emptyList(), List.of(BOB));
+
+		ChatNotifier.getInstance().onGroupMembershipChange(Set.of(ALICE, CHLOE));
+
+		long deadline = System.currentTimeMillis() + 5000L;
+		while (aliceNotifications.get() == 0 && System.currentTimeMillis() < deadline)
+			Thread.sleep(10L);
+
+		Thread.sleep(200L);
+		assertEquals(1, aliceNotifications.get());
+		assertEquals(0, bobNotifications.get());
+	}
+
+	@Test
+	public void testDeliveryOrder() throws InterruptedException {
+		FakeSession fakeSession = this.register(Collections.emptyList(), List.of(ALICE));
+
+		List<ChatTransactionData> chats = new ArrayList<>();
+		for (int i = 0; i < 50; ++i) {
+			ChatTransactionData chat = this.chat(ALICE, BOB, Group.NO_GROUP);
+			chats.add(chat);
+			ChatNotifier.getInstance().onNewChatTransaction(chat);
+		}
+
+		awaitReceived(fakeSession, chats.size());
+		assertEquals(chats, fakeSession.received);
+	}
+
+	@Test
+	public void testSlowConsumerDisconnected() throws InterruptedException {
+		CountDownLatch stalled = new CountDownLatch(1);
+
+		FakeSession slowSession = new FakeSession();
+		this.fakeSessions.add(slowSession);
+		ChatNotifier.getInstance().register(slowSession.session, chatTransactionData -> {
+			// Simulate a client that has stopped reading
+			try {
+				stalled.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, Collections.emptyList(), List.of(ALICE));
+
+		FakeSession fastSession = this.register(Collections.emptyList(), List.of(ALICE));
+
+		// First notification is being delivered (and stalls), then queue fills, then overflows
+		int chatCount = ChatNotifier.MAX_QUEUED_NOTIFICATIONS + 5;
+		long before = System.currentTimeMillis();
+		for (int i = 0; i < chatCount; ++i)
+			ChatNotifier.getInstance().onNewChatTransaction(this.chat(ALICE, BOB, Group.NO_GROUP));
+
+		// Caller must not have been held up by stalled client
+		assertTrue(System.currentTimeMillis() - before < 2000L);
+
+		assertEquals(List.of(StatusCode.POLICY_VIOLATION), slowSession.closeStatusCodes);
+
+		// Other sessions are unaffected
+		awaitReceived(fastSession, chatCount);
+		assertTrue(fastSession.closeStatusCodes.isEmpty());
+
+		// Disconnected session no longer receives anything
+		stalled.countDown();
+		ChatNotifier.getInstance().onNewChatTransaction(this.chat(ALICE, BOB, Group.NO_GROUP));
+		awaitReceived(fastSession, chatCount + 1);
+		assertEquals(1, slowSession.closeStatusCodes.size());
+	}
+
+	private FakeSession register(Collection<Integer> groupIds, Collection<String> addresses) {
+		FakeSession fakeSession = new FakeSession();
+		this.fakeSessions.add(fakeSession);
+
+		ChatNotifier.getInstance().register(fakeSession.session, fakeSession.received::add, groupIds, addresses);
+
+		return fakeSession;
+	}
+
+	private static ChatNotifier.Listener membershipListener(AtomicInteger notificationCount) {
+		return new ChatNotifier.Listener() {
+			@Override
+			public void notify(ChatTransactionData chatTransactionData) {
+			}
+
+			@Override
+			public void notifyGroupMembershipChange(Set<String> addresses) {
+				notificationCount.incrementAndGet();
+			}
+		};
+	}
+
+	private static void awaitReceived(FakeSession fakeSession, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000L;
+
+		while (fakeSession.received.size() < count) {
+			assertTrue("Timed out waiting for notifications", System.currentTimeMillis() < deadline);
+			Thread.sleep(10L);
+		}
+	}
+
+	private ChatTransactionData chat(String sender, String recipient, int txGroupId) {
+		this.timestamp += 1000L;
+
+		byte[] signature = new byte[64];
+		new Random().nextBytes(signature);
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(this.timestamp, txGroupId, null, new byte[32], 0L, signature);
+		return new ChatTransactionData(baseTransactionData, sender, 0, recipient, null, new byte[0], true, false);
+	}
+
+}
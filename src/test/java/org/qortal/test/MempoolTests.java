@@ -0,0 +1,226 @@
+package org.qortal.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.block.BlockChain;
+import org.qortal.controller.Controller;
+import org.qortal.crypto.Crypto;
+import org.qortal.data.transaction.BaseTransactionData;
+import org.qortal.data.transaction.ChatTransactionData;
+import org.qortal.data.transaction.PaymentTransactionData;
+import org.qortal.data.transaction.PresenceTransactionData;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.group.Group;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.repository.TransactionRepository;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.test.common.transaction.TestTransaction;
+import org.qortal.transaction.PresenceTransaction.PresenceType;
+import org.qortal.transaction.Transaction;
+import org.qortal.transaction.Transaction.TransactionType;
+import org.qortal.utils.Base58;
+import org.qortal.utils.NTP;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class MempoolTests extends Common {
+
+	private static final EnumSet<TransactionType> EXCLUDE_CHAT = EnumSet.of(TransactionType.CHAT);
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testImportConfirmOrphan() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+			TransactionRepository transactionRepository = repository.getTransactionRepository();
+
+			TransactionUtils.signAndImportValid(repository, payment(alice, bob), alice);
+			TransactionUtils.signAndImportValid(repository, payment(bob, alice), bob);
+
+			assertEquals(1, transactionRepository.countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+			assertEquals(1, transactionRepository.countUnconfirmedTransactionsByCreator(bob.getPublicKey(), EXCLUDE_CHAT));
+			assertEquals(2, transactionRepository.getUnconfirmedTransactions(TransactionType.PAYMENT, null).size());
+			assertMatchesDatabase(repository);
+
+			// Confirmed transactions leave mempool
+			BlockUtils.mintBlock(repository);
+			assertEquals(0, transactionRepository.countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+			assertTrue(transactionRepository.getUnconfirmedTransactions().isEmpty());
+			assertMatchesDatabase(repository);
+
+			// Orphaned transactions return to mempool
+			BlockUtils.orphanLastBlock(repository);
+			assertEquals(1, transactionRepository.countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+			assertEquals(2, transactionRepository.getUnconfirmedTransactions().size());
+			assertMatchesDatabase(repository);
+		}
+	}
+
+	@Test
+	public void testUncommittedChanges() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			TransactionData transactionData = payment(alice, bob);
+			TransactionUtils.signAndImportValid(repository, transactionData, alice);
+
+			// Uncommitted delete is visible to this session only
+			repository.getTransactionRepository().delete(transactionData);
+			assertEquals(0, repository.getTransactionRepository().countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertEquals(1, otherRepository.getTransactionRepository().countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+			}
+
+			// Rolled-back delete never reaches mempool
+			repository.discardChanges();
+			assertEquals(1, repository.getTransactionRepository().countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+
+			// Savepoint rollback only forgets later changes
+			repository.setSavepoint();
+			repository.getTransactionRepository().delete(transactionData);
+			repository.rollbackToSavepoint();
+			repository.saveChanges();
+			assertEquals(1, repository.getTransactionRepository().countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+
+			// Committed delete is visible to all sessions
+			repository.getTransactionRepository().delete(transactionData);
+			repository.saveChanges();
+
+			try (final Repository otherRepository = RepositoryManager.getRepository()) {
+				assertEquals(0, otherRepository.getTransactionRepository().countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+			}
+		}
+	}
+
+	@Test
+	public void testRecentChatCount() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+			TransactionRepository transactionRepository = repository.getTransactionRepository();
+
+			long now = System.currentTimeMillis();
+			long[] timestamps = { now - 60_000L, now - 30_000L, now - 20_000L, now - 10_000L };
+			for (long timestamp : timestamps)
+				saveUnconfirmed(repository, chat(repository, alice, bob, timestamp), alice);
+
+			TransactionUtils.signAndImportValid(repository, payment(alice, bob), alice);
+
+			assertEquals(3, transactionRepository.countUnconfirmedTransactions(TransactionType.CHAT, alice.getPublicKey(), now - 30_000L));
+			assertEquals(4, transactionRepository.countUnconfirmedTransactions(TransactionType.CHAT, alice.getPublicKey(), now - 60_000L));
+			assertEquals(0, transactionRepository.countUnconfirmedTransactions(TransactionType.CHAT, bob.getPublicKey(), now - 60_000L));
+			assertEquals(1, transactionRepository.countUnconfirmedTransactionsByCreator(alice.getPublicKey(), EXCLUDE_CHAT));
+
+			// Expiry lookup
+			List<TransactionData> oldTransactions = transactionRepository.getUnconfirmedTransactionsCreatedBefore(now - 25_000L);
+			assertEquals(2, oldTransactions.size());
+			assertEquals(timestamps[0], oldTransactions.get(0).getTimestamp());
+
+			// Paging by type, newest first
+			List<TransactionData> chats = transactionRepository.getUnconfirmedTransactions(List.of(TransactionType.CHAT), alice.getPublicKey(), 2, 1, true);
+			assertEquals(2, chats.size());
+			assertEquals(timestamps[2], chats.get(0).getTimestamp());
+			assertEquals(timestamps[1], chats.get(1).getTimestamp());
+
+			assertEquals(1, transactionRepository.getUnconfirmedTransactions(EXCLUDE_CHAT, null).size());
+			assertMatchesDatabase(repository);
+		}
+	}
+
+	@Test
+	public void testExpiredPresenceDeleted() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			// Well within transaction expiry period, but past TRADE_BOT presence lifetime
+			long timestamp = NTP.getTime() - PresenceType.TRADE_BOT.getLifetime() - 60_000L;
+			TransactionData presenceTransactionData = presence(alice, timestamp);
+			saveUnconfirmed(repository, presenceTransactionData, alice);
+
+			TransactionData paymentTransactionData = payment(alice, bob);
+			TransactionUtils.signAndImportValid(repository, paymentTransactionData, alice);
+
+			Controller.getInstance().deleteExpiredTransactions();
+
+			List<String> unconfirmedSignatures = toBase58(repository.getTransactionRepository().getUnconfirmedTransactionSignatures());
+			assertFalse(unconfirmedSignatures.contains(Base58.encode(presenceTransactionData.getSignature())));
+			assertTrue(unconfirmedSignatures.contains(Base58.encode(paymentTransactionData.getSignature())));
+		}
+	}
+
+	/** Checks mempool answers match those from database, as used by sessions with uncommitted changes. */
+	private static void assertMatchesDatabase(Repository repository) throws DataException {
+		TransactionRepository transactionRepository = repository.getTransactionRepository();
+
+		List<String> mempoolSignatures = toBase58(transactionRepository.getUnconfirmedTransactionSignatures());
+		List<String> mempoolPayments = toBase58(transactionRepository.getUnconfirmedTransactions(TransactionType.PAYMENT, null));
+		List<String> mempoolNonChats = toBase58(transactionRepository.getUnconfirmedTransactions(EXCLUDE_CHAT, null));
+
+		// Harmless uncommitted change forces database lookups
+		byte[] randomSignature = new byte[64];
+		new Random().nextBytes(randomSignature);
+		transactionRepository.confirmTransaction(randomSignature);
+
+		assertEquals(toBase58(transactionRepository.getUnconfirmedTransactionSignatures()), mempoolSignatures);
+		assertEquals(toBase58(transactionRepository.getUnconfirmedTransactions(TransactionType.PAYMENT, null)), mempoolPayments);
+		assertEquals(toBase58(transactionRepository.getUnconfirmedTransactions(EXCLUDE_CHAT, null)), mempoolNonChats);
+
+		repository.discardChanges();
+	}
+
+	private static List<String> toBase58(List<?> signaturesOrTransactions) {
+		return signaturesOrTransactions.stream()
+				.map(item -> item instanceof TransactionData ? ((TransactionData) item).getSignature() : (byte[]) item)
+				.map(Base58::encode)
+				.collect(Collectors.toList());
+	}
+
+	private static TransactionData payment(PrivateKeyAccount sender, PrivateKeyAccount recipient) throws DataException {
+		return new PaymentTransactionData(TestTransaction.generateBase(sender), recipient.getAddress(), 100000L);
+	}
+
+	private static TransactionData chat(Repository repository, PrivateKeyAccount sender, PrivateKeyAccount recipient, long timestamp) throws DataException {
+		BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, Group.NO_GROUP, sender.getLastReference(),
+				sender.getPublicKey(), BlockChain.getInstance().getUnitFeeAtTimestamp(timestamp), null);
+
+		byte[] data = new byte[100];
+		new Random().nextBytes(data);
+
+		return new ChatTransactionData(baseTransactionData, Crypto.toAddress(sender.getPublicKey()), 0, recipient.getAddress(), null, data, true, false);
+	}
+
+	private static TransactionData presence(PrivateKeyAccount sender, long timestamp) throws DataException {
+		BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, Group.NO_GROUP, sender.getLastReference(),
+				sender.getPublicKey(), 0L, null);
+
+		return new PresenceTransactionData(baseTransactionData, 0, PresenceType.TRADE_BOT, new byte[64]);
+	}
+
+	/** Adds transaction to unconfirmed pile without validation, e.g. to avoid CHAT proof-of-work. */
+	private static void saveUnconfirmed(Repository repository, TransactionData transactionData, PrivateKeyAccount signingAccount) throws DataException {
+		Transaction.fromData(repository, transactionData).sign(signingAccount);
+
+		repository.getTransactionRepository().save(transactionData);
+		repository.getTransactionRepository().unconfirmTransaction(transactionData);
+		repository.saveChanges();
+	}
+
+}
@@ -514,6 +514,108 @@ public class RepositoryTests extends Common {
 		}
 	}
 
+	/** Check that concurrent queries don't wait on checkpoint gate while no maintenance is running. See RepositoryQueryBenchmark for throughput. */
+	@Test
+	public void testConcurrentQueriesUncontended() throws DataException, InterruptedException, TimeoutException {
+		final int threadCount = Runtime.getRuntime().availableProcessors();
+		final long durationMillis = 1000L;
+
+		try (final HSQLDBRepository hsqldb = (HSQLDBRepository) RepositoryManager.getRepository()) {
+			this.populateWithRandomData(hsqldb);
+		}
+
+		long contendedBefore = HSQLDBRepository.CHECKPOINT_GATE.getContendedStatementCount();
+		long queryCount = runQueryWorkers(threadCount, durationMillis);
+		long contended = HSQLDBRepository.CHECKPOINT_GATE.getContendedStatementCount() - contendedBefore;
+
+		assertTrue(queryCount > 0);
+
+		// No maintenance was running, so no statement should have waited
+		assertEquals(0L, contended);
+	}
+
+	/** Check that statements wait while maintenance holds the checkpoint gate, and resume afterwards. */
+	@Test
+	public void testCheckpointGateBlocksStatements() throws DataException, InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		HSQLDBRepository.CHECKPOINT_GATE.enterExclusive();
+		Future<Integer> future;
+		try {
+			future = executor.submit(() -> {
+				try (final Repository repository = RepositoryManager.getRepository()) {
+					return repository.getBlockRepository().getBlockchainHeight();
+				}
+			});
+
+			try {
+				future.get(1000L, TimeUnit.MILLISECONDS);
+				fail("Statement should have been blocked by checkpoint gate");
+			} catch (TimeoutException e) {
+				// Expected
+			}
+		} finally {
+			HSQLDBRepository.CHECKPOINT_GATE.exitExclusive();
+		}
+
+		try {
+			assertNotNull(future.get(5000L, TimeUnit.MILLISECONDS));
+		} catch (TimeoutException e) {
+			fail("Statement still blocked after checkpoint gate reopened");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Runs concurrent queries for <tt>durationMillis</tt>, rethrowing any worker's failure, returning number of queries run. */
+	private long runQueryWorkers(int threadCount, long durationMillis) throws DataException, InterruptedException, TimeoutException {
+		final String sql = "SELECT account, asset_id, balance FROM AccountBalances WHERE asset_id = ? ORDER BY balance DESC LIMIT 20";
+		final long endTime = System.currentTimeMillis() + durationMillis;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		List<Future<Long>> futures = new ArrayList<>();
+
+		for (int t = 0; t < threadCount; ++t)
+			futures.add(executor.submit(() -> {
+				long queryCount = 0;
+
+				try (final HSQLDBRepository hsqldb = (HSQLDBRepository) RepositoryManager.getRepository()) {
+					int assetId = 0;
+					while (System.currentTimeMillis() < endTime) {
+						try (ResultSet resultSet = hsqldb.checkedExecute(sql, assetId)) {
+							assertNotNull(resultSet);
+						}
+
+						assetId ^= 1;
+						++queryCount;
+					}
+				}
+
+				return queryCount;
+			}));
+
+		executor.shutdown();
+
+		long queryCount = 0;
+		try {
+			for (Future<Long> future : futures)
+				queryCount += future.get(durationMillis * 2, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			// Rethrow worker's failure on test thread
+			Throwable cause = e.getCause();
+			if (cause instanceof Error)
+				throw (Error) cause;
+			if (cause instanceof DataException)
+				throw (DataException) cause;
+
+			throw new DataException("Query worker failed", cause);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return queryCount;
+	}
+
 	private void populateWithRandomData(HSQLDBRepository repository) throws DataException {
 		Random random = new Random();
 
@@ -6,6 +6,7 @@ import com.google.common.primitives.Longs;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
 import org.junit.Test;
+import org.qortal.crypto.AggregatePublicKeyCache;
 import org.qortal.crypto.Qortal25519Extras;
 import org.qortal.data.network.OnlineAccountData;
 import org.qortal.test.common.AccountUtils;
@@ -13,6 +14,8 @@ import org.qortal.transform.Transformer;
 
 import java.math.BigInteger;
 import java.security.Security;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -164,4 +167,35 @@ public class SchnorrTests extends Qortal25519Extras {
         byte[] timestampBytes = Longs.toByteArray(timestamp);
         assertTrue(verifyAggregated(aggregatePublicKey, aggregateSignature, timestampBytes));
     }
+
+    @Test
+    public void testIncrementalAggregatePublicKey() {
+        List<byte[]> publicKeys = AccountUtils.generateOnlineAccounts(200).stream().map(OnlineAccountData::getPublicKey).collect(Collectors.toList());
+
+        AggregatePublicKeyCache cache = AggregatePublicKeyCache.getInstance();
+        cache.clear();
+
+        // Initial aggregate, built from scratch
+        List<byte[]> online = new ArrayList<>(publicKeys.subList(0, 150));
+        assertArrayEquals(aggregatePublicKeys(online), cache.aggregate(online));
+
+        // A few accounts go offline, others come online
+        online.subList(0, 5).clear();
+        online.addAll(publicKeys.subList(150, 160));
+        Collections.shuffle(online);
+        assertArrayEquals(aggregatePublicKeys(online), cache.aggregate(online));
+
+        // Same set again
+        assertArrayEquals(aggregatePublicKeys(online), cache.aggregate(online));
+
+        // Mostly different set, rebuilt from scratch
+        online = new ArrayList<>(publicKeys.subList(100, 200));
+        assertArrayEquals(aggregatePublicKeys(online), cache.aggregate(online));
+
+        // Single account
+        online = Collections.singletonList(publicKeys.get(0));
+        assertArrayEquals(publicKeys.get(0), cache.aggregate(online));
+
+        assertNull(cache.aggregate(Collections.emptyList()));
+    }
 }
@@ -0,0 +1,171 @@
+package org.qortal.test.arbitrary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.controller.arbitrary.ArbitraryDataFileSwarm;
+import org.qortal.controller.arbitrary.ArbitraryDataFileSwarm.ChunkRequest;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.repository.DataException;
+import org.qortal.test.common.Common;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ArbitraryDataFileSwarmTests extends Common {
+
+	private static final long NOW = 1_000_000L;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testRequestsSpreadAcrossPeers() {
+		ArbitraryDataFileSwarm swarm = new ArbitraryDataFileSwarm("signature");
+		List<String> hashes = hashes(12);
+
+		Peer peer1 = newPeer(1);
+		Peer peer2 = newPeer(2);
+		Peer peer3 = newPeer(3);
+		swarm.addHashes(peer1, hashes, 1, NOW);
+		swarm.addHashes(peer2, hashes, 1, NOW);
+		swarm.addHashes(peer3, hashes, 2, NOW);
+
+		Map<Peer, Integer> requestCounts = new HashMap<>();
+		Set<String> requestedHashes = new HashSet<>();
+		ChunkRequest request;
+		while ((request = swarm.nextRequest(NOW)) != null) {
+			requestCounts.merge(request.getPeer(), 1, Integer::sum);
+			assertTrue("chunk requested twice", requestedHashes.add(request.getHash58()));
+		}
+
+		// Each peer's window is full, and no chunk is requested twice while requests are young
+		assertEquals(3, requestCounts.size());
+		for (int count : requestCounts.values())
+			assertEquals(ArbitraryDataFileSwarm.PEER_WINDOW, count);
+
+		assertEquals(3 * ArbitraryDataFileSwarm.PEER_WINDOW, swarm.getOutstandingRequestCount());
+	}
+
+	@Test
+	public void testFailedChunkReassigned() {
+		ArbitraryDataFileSwarm swarm = new ArbitraryDataFileSwarm("signature");
+		List<String> hashes = hashes(1);
+
+		Peer peer1 = newPeer(1);
+		Peer peer2 = newPeer(2);
+		swarm.addHashes(peer1, hashes, 0, NOW);
+		swarm.addHashes(peer2, hashes, 1, NOW);
+
+		// Fewer hops preferred
+		ChunkRequest request = swarm.nextRequest(NOW);
+		assertSame(peer1, request.getPeer());
+		assertNull(swarm.nextRequest(NOW));
+
+		swarm.onResponse(request, -1, NOW);
+
+		// Failed peer isn't asked again for the same chunk
+		ChunkRequest retry = swarm.nextRequest(NOW);
+		assertNotNull(retry);
+		assertSame(peer2, retry.getPeer());
+		assertEquals(request.getHash58(), retry.getHash58());
+
+		swarm.onResponse(retry, 1000, NOW);
+		assertEquals(0, swarm.getRemainingChunkCount());
+		assertTrue(swarm.cleanup(NOW));
+	}
+
+	@Test
+	public void testSlowChunkDuplicated() {
+		ArbitraryDataFileSwarm swarm = new ArbitraryDataFileSwarm("signature");
+		List<String> hashes = hashes(1);
+
+		Peer peer1 = newPeer(1);
+		Peer peer2 = newPeer(2);
+		swarm.addHashes(peer1, hashes, 0, NOW);
+		swarm.addHashes(peer2, hashes, 1, NOW);
+
+		ChunkRequest request = swarm.nextRequest(NOW);
+		assertSame(peer1, request.getPeer());
+
+		// Not slow yet
+		assertNull(swarm.nextRequest(NOW + 1));
+
+		long later = NOW + ArbitraryDataFileSwarm.SLOW_REQUEST_THRESHOLD;
+		ChunkRequest duplicate = swarm.nextRequest(later);
+		assertNotNull(duplicate);
+		assertSame(peer2, duplicate.getPeer());
+
+		// Duplicate wins, then original request fails late
+		swarm.onResponse(duplicate, 1000, later);
+		assertFalse(swarm.cleanup(NOW));
+		swarm.onResponse(request, -1, later);
+
+		assertEquals(0, swarm.getRemainingChunkCount());
+		assertEquals(0, swarm.getOutstandingRequestCount());
+		assertTrue(swarm.cleanup(NOW));
+	}
+
+	@Test
+	public void testOnlyFirstResponseRecorded() {
+		ArbitraryDataFileSwarm swarm = new ArbitraryDataFileSwarm("signature");
+		List<String> hashes = hashes(2);
+
+		Peer peer = newPeer(1);
+		swarm.addHashes(peer, hashes, 0, NOW);
+
+		// Fallback failure after success is ignored
+		ChunkRequest request = swarm.nextRequest(NOW);
+		swarm.onResponse(request, 1000, NOW);
+		swarm.onResponse(request, -1, NOW);
+
+		assertEquals(1000, swarm.getTotalBytesReceived());
+		assertEquals(0, swarm.getOutstandingRequestCount());
+		assertEquals(1, swarm.getRemainingChunkCount());
+
+		// Failure reported repeatedly only counts once, otherwise peer would be dropped for failing too often
+		request = swarm.nextRequest(NOW);
+		assertNotNull(request);
+		for (int i = 0; i < 3; ++i)
+			swarm.onResponse(request, -1, NOW);
+
+		assertEquals(0, swarm.getOutstandingRequestCount());
+		assertEquals(1, swarm.getPeerCount());
+	}
+
+	@Test
+	public void testThroughput() {
+		ArbitraryDataFileSwarm swarm = new ArbitraryDataFileSwarm("signature");
+		List<String> hashes = hashes(4);
+
+		Peer peer = newPeer(1);
+		swarm.addHashes(peer, hashes, 0, NOW);
+
+		ChunkRequest request;
+		while ((request = swarm.nextRequest(NOW)) != null)
+			swarm.onResponse(request, 500 * 1024L, NOW);
+
+		assertEquals(4 * 500 * 1024L, swarm.getTotalBytesReceived());
+		assertTrue(swarm.getBytesPerSecond(NOW) > 0);
+
+		// Throughput drops away once nothing more is received
+		assertEquals(0, swarm.getBytesPerSecond(NOW + 60 * 1000L));
+	}
+
+	private static List<String> hashes(int count) {
+		List<String> hashes = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i)
+			hashes.add("hash" + i);
+
+		return hashes;
+	}
+
+	private static Peer newPeer(int index) {
+		return new Peer(new PeerData(PeerAddress.fromString("127.0.0." + index + ":12392")));
+	}
+
+}
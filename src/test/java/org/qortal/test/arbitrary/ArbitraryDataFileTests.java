@@ -3,9 +3,21 @@ package org.qortal.test.arbitrary;
 import org.junit.Before;
 import org.junit.Test;
 import org.qortal.arbitrary.ArbitraryDataFile;
+import org.qortal.arbitrary.ArbitraryDataFileChunk;
+import org.qortal.arbitrary.ArbitraryDataFileOutputStream;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageManager;
+import org.qortal.crypto.Crypto;
 import org.qortal.repository.DataException;
 import org.qortal.test.common.Common;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.*;
@@ -76,4 +88,105 @@ public class ArbitraryDataFileTests extends Common {
 		assertEquals(originalFileDigest, arbitraryDataFile.digest58());
 	}
 
+	@Test
+	public void testStreamingSplit() throws DataException, IOException {
+		final int chunkSize = 1000;
+		int[] fileSizes = new int[] { 1, chunkSize - 1, chunkSize, chunkSize + 1, 3 * chunkSize, 3 * chunkSize + 17 };
+
+		for (int fileSize : fileSizes) {
+			byte[] randomData = new byte[fileSize];
+			new Random().nextBytes(randomData);
+
+			// Split while writing, using awkward write sizes
+			Path tempFilePath = Files.createTempFile("streamingSplit", null);
+			ArbitraryDataFileOutputStream outputStream = new ArbitraryDataFileOutputStream(tempFilePath, chunkSize, null);
+			for (int offset = 0; offset < fileSize; offset += 333)
+				outputStream.write(randomData, offset, Math.min(333, fileSize - offset));
+			outputStream.close();
+
+			ArbitraryDataFile streamedFile = outputStream.getArbitraryDataFile();
+			assertNotNull(streamedFile);
+			assertFalse(Files.exists(tempFilePath));
+			assertArrayEquals(Crypto.digest(randomData), streamedFile.getHash());
+			assertArrayEquals(randomData, streamedFile.getBytes());
+			List<byte[]> streamedChunkHashes = streamedFile.getChunkHashes();
+
+			// Compare with splitting complete file
+			ArbitraryDataFile splitFile = new ArbitraryDataFile(randomData, null, false);
+			splitFile.save();
+			splitFile.split(chunkSize);
+
+			assertEquals(fileSize <= chunkSize ? 0 : (fileSize + chunkSize - 1) / chunkSize, streamedChunkHashes.size());
+			assertEquals(splitFile.chunkCount(), streamedChunkHashes.size());
+
+			for (int i = 0; i < streamedChunkHashes.size(); ++i) {
+				byte[] chunkData = Arrays.copyOfRange(randomData, i * chunkSize, Math.min(fileSize, (i + 1) * chunkSize));
+				assertArrayEquals(Crypto.digest(chunkData), streamedChunkHashes.get(i));
+				assertArrayEquals(splitFile.getChunkHashes().get(i), streamedChunkHashes.get(i));
+				assertArrayEquals(chunkData, streamedFile.getChunks().get(i).getBytes());
+			}
+
+			splitFile.deleteAll(true);
+		}
+	}
+
+	@Test
+	public void testStreamingSplitAborted() throws DataException, IOException {
+		final int chunkSize = 1000;
+		final int failureOffset = 3 * chunkSize + 500;
+
+		byte[] randomData = new byte[5 * chunkSize];
+		new Random().nextBytes(randomData);
+
+		long ledgerTotalSize = ArbitraryDataStorageManager.getInstance().getStorageLedger().getTotalSize();
+
+		// Source fails part-way through, after some chunks have been saved
+		InputStream failingInputStream = new ByteArrayInputStream(randomData) {
+			@Override
+			public synchronized int read(byte[] b, int off, int len) {
+				if (this.pos >= failureOffset)
+					throw new UncheckedIOException(new IOException("Injected failure"));
+
+				return super.read(b, off, Math.min(len, failureOffset - this.pos));
+			}
+		};
+
+		Path tempFilePath = Files.createTempFile("streamingSplitAborted", null);
+		ArbitraryDataFileOutputStream outputStream = new ArbitraryDataFileOutputStream(tempFilePath, chunkSize, null);
+		try {
+			byte[] buffer = new byte[333];
+			int bytesRead;
+			while ((bytesRead = failingInputStream.read(buffer, 0, buffer.length)) != -1)
+				outputStream.write(buffer, 0, bytesRead);
+
+			fail("Injected failure should have been thrown");
+		} catch (UncheckedIOException e) {
+			outputStream.abort();
+		}
+
+		// Closing after abort, e.g. by try-with-resources, does nothing
+		outputStream.close();
+		assertNull(outputStream.getArbitraryDataFile());
+
+		try {
+			outputStream.write(randomData, 0, 1);
+			fail("Write after abort should fail");
+		} catch (IOException e) {
+			// Expected
+		}
+
+		// Neither partial complete file nor saved chunks remain
+		assertFalse(Files.exists(tempFilePath));
+
+		for (int i = 0; i < 3; ++i) {
+			byte[] chunkData = Arrays.copyOfRange(randomData, i * chunkSize, (i + 1) * chunkSize);
+			assertFalse(ArbitraryDataFileChunk.fromHash(Crypto.digest(chunkData), null).exists());
+		}
+
+		byte[] partialData = Arrays.copyOfRange(randomData, 0, failureOffset);
+		assertFalse(ArbitraryDataFile.fromHash(Crypto.digest(partialData), null).exists());
+
+		assertEquals(ledgerTotalSize, ArbitraryDataStorageManager.getInstance().getStorageLedger().getTotalSize());
+	}
+
 }
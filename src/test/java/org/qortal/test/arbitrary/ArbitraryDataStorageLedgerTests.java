@@ -0,0 +1,200 @@
+package org.qortal.test.arbitrary;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.controller.arbitrary.ArbitraryDataStorageLedger;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.Common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ArbitraryDataStorageLedgerTests extends Common {
+
+	private static final String SIGNATURE1 = "3TGDqpBQpCu1msPPQf5SAsCBCRn2bW8UVoH5Yx2AFXXaZZfGbqSxN1KA7ZkKwvUTdmPNYgy6bMaeYTWYuNNrxf4A";
+	private static final String SIGNATURE2 = "4FmEaJgcAFFm3gZPgDqMqKsgRb9F6LgWrnVaVuPz3gE2Czh7UnYjGStmPDKsHJchZRrkRAGMR87TUHkBfR8wBfJc";
+
+	private Path dataPath;
+	private Path tempPath;
+
+	@Before
+	public void beforeTest() throws DataException, IOException {
+		Common.useDefaultSettings();
+
+		this.dataPath = Files.createTempDirectory("ledger-data");
+		this.tempPath = this.dataPath.resolve("_temp");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		FileUtils.deleteDirectory(this.dataPath.toFile());
+	}
+
+	@Test
+	public void testWriteAndDelete() throws IOException {
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+		assertEquals(0L, ledger.getTotalSize());
+
+		Path chunk1 = this.writeFile(SIGNATURE1, "chunk1", 100);
+		Path chunk2 = this.writeFile(SIGNATURE1, "chunk2", 50);
+		Path other = this.writeFile(SIGNATURE2, "chunk3", 10);
+		ledger.onFileWritten(chunk1);
+		ledger.onFileWritten(chunk2);
+		ledger.onFileWritten(other);
+
+		assertEquals(160L, ledger.getTotalSize());
+		assertEquals(150L, ledger.getSizeForSignature(SIGNATURE1));
+		assertEquals(10L, ledger.getSizeForSignature(SIGNATURE2));
+
+		// Rewriting a file replaces its size
+		Files.write(chunk2, new byte[20]);
+		ledger.onFileWritten(chunk2);
+		assertEquals(120L, ledger.getSizeForSignature(SIGNATURE1));
+
+		Files.delete(chunk1);
+		ledger.onFileDeleted(chunk1);
+		assertEquals(20L, ledger.getSizeForSignature(SIGNATURE1));
+
+		Map<String, Set<String>> hostedFilenames = ledger.getHostedFilenames();
+		assertEquals(2, hostedFilenames.size());
+		assertEquals(Set.of("chunk2"), hostedFilenames.get(SIGNATURE1));
+
+		// Deleting a parent directory removes everything within it
+		Path signatureDirectory = other.getParent();
+		FileUtils.deleteDirectory(signatureDirectory.getParent().toFile());
+		ledger.onDirectoryDeleted(signatureDirectory.getParent());
+		assertEquals(0L, ledger.getSizeForSignature(SIGNATURE2));
+		assertEquals(20L, ledger.getTotalSize());
+		assertFalse(ledger.getHostedFilenames().containsKey(SIGNATURE2));
+	}
+
+	@Test
+	public void testTempFilesIgnored() throws IOException {
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+
+		Path tempFile = this.tempPath.resolve("writer").resolve("file");
+		Files.createDirectories(tempFile.getParent());
+		Files.write(tempFile, new byte[100]);
+		ledger.onFileWritten(tempFile);
+
+		assertEquals(0L, ledger.getTotalSize());
+	}
+
+	@Test
+	public void testNames() throws DataException, IOException {
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+
+		ledger.onFileWritten(this.writeFile(SIGNATURE1, "chunk1", 100));
+		ledger.setTransactionDetails(SIGNATURE1, "Test", null, null);
+		ledger.onFileWritten(this.writeFile(SIGNATURE1, "chunk2", 50));
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			assertEquals(150L, ledger.getSizeForName(repository, "Test"));
+
+			// Unknown transaction, so not counted against any name
+			ledger.onFileWritten(this.writeFile(SIGNATURE2, "chunk3", 10));
+			assertEquals(150L, ledger.getSizeForName(repository, "Test"));
+			assertEquals(160L, ledger.getTotalSize());
+		}
+	}
+
+	@Test
+	public void testCompleteFileCountedOnceForName() throws DataException, IOException {
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+
+		ledger.onFileWritten(this.writeFile(SIGNATURE1, "complete", 100));
+		ledger.onFileWritten(this.writeFile(SIGNATURE1, "metadata", 5));
+		ledger.setTransactionDetails(SIGNATURE1, "Test", "complete", "metadata");
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			// No chunks, so complete file is counted
+			assertEquals(105L, ledger.getSizeForName(repository, "Test"));
+
+			// Chunks hold same data as complete file, so only chunks are counted
+			ledger.onFileWritten(this.writeFile(SIGNATURE1, "chunk1", 60));
+			ledger.onFileWritten(this.writeFile(SIGNATURE1, "chunk2", 40));
+			assertEquals(105L, ledger.getSizeForName(repository, "Test"));
+			assertEquals(205L, ledger.getTotalSize());
+
+			// Complete file deleted, chunks remain
+			Path completeFile = this.dataPath.resolve(SIGNATURE1.substring(0, 2).toLowerCase())
+					.resolve(SIGNATURE1.substring(2, 4).toLowerCase())
+					.resolve(SIGNATURE1).resolve("complete");
+			Files.delete(completeFile);
+			ledger.onFileDeleted(completeFile);
+			assertEquals(105L, ledger.getSizeForName(repository, "Test"));
+
+			// Details survive save and load
+			ledger.onFileWritten(this.writeFile(SIGNATURE1, "complete", 100));
+			ledger.saveIfDirty();
+
+			ArbitraryDataStorageLedger loadedLedger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+			assertEquals(105L, loadedLedger.getSizeForName(repository, "Test"));
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad() throws DataException, IOException {
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+		ledger.onFileWritten(this.writeFile(SIGNATURE1, "chunk1", 100));
+		ledger.setTransactionDetails(SIGNATURE1, "Test", null, null);
+		ledger.saveIfDirty();
+		assertTrue(Files.exists(this.dataPath.resolve(ArbitraryDataStorageLedger.LEDGER_FILENAME)));
+
+		// Saved ledger is used as-is, rather than walking the data directory
+		this.writeFile(SIGNATURE2, "unrecorded", 10);
+
+		ArbitraryDataStorageLedger loadedLedger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+		assertEquals(100L, loadedLedger.getTotalSize());
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			assertEquals(100L, loadedLedger.getSizeForName(repository, "Test"));
+		}
+
+		// Reconciliation picks up changes made behind the ledger's back
+		loadedLedger.rebuild(System.currentTimeMillis());
+		assertEquals(110L, loadedLedger.getTotalSize());
+		assertEquals(10L, loadedLedger.getSizeForSignature(SIGNATURE2));
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			assertEquals(100L, loadedLedger.getSizeForName(repository, "Test"));
+		}
+	}
+
+	@Test
+	public void testBuiltFromDataDirectory() throws IOException {
+		this.writeFile(SIGNATURE1, "chunk1", 100);
+		this.writeFile(SIGNATURE2, "chunk2", 10);
+
+		// Files outside signature directories are still counted
+		Path miscFile = this.dataPath.resolve("_misc").resolve("file");
+		Files.createDirectories(miscFile.getParent());
+		Files.write(miscFile, new byte[5]);
+
+		ArbitraryDataStorageLedger ledger = new ArbitraryDataStorageLedger(this.dataPath, this.tempPath);
+		assertEquals(115L, ledger.getTotalSize());
+		assertEquals(100L, ledger.getSizeForSignature(SIGNATURE1));
+		assertEquals(2, ledger.getHostedFilenames().size());
+	}
+
+	private Path writeFile(String signature58, String filename, int size) throws IOException {
+		Path directory = this.dataPath.resolve(signature58.substring(0, 2).toLowerCase())
+				.resolve(signature58.substring(2, 4).toLowerCase())
+				.resolve(signature58);
+		Files.createDirectories(directory);
+
+		Path path = directory.resolve(filename);
+		Files.write(path, new byte[size]);
+		return path;
+	}
+
+}
@@ -7,6 +7,7 @@ import org.qortal.account.PrivateKeyAccount;
 import org.qortal.arbitrary.ArbitraryDataDigest;
 import org.qortal.arbitrary.ArbitraryDataFile;
 import org.qortal.arbitrary.ArbitraryDataFile.ResourceIdType;
+import org.qortal.arbitrary.ArbitraryDataFileChunk;
 import org.qortal.arbitrary.ArbitraryDataReader;
 import org.qortal.arbitrary.exception.MissingDataException;
 import org.qortal.arbitrary.metadata.ArbitraryDataMetadataPatch;
@@ -478,4 +479,60 @@ public class ArbitraryDataTests extends Common {
         }
     }
 
+    @Test
+    public void testBuildFromChunks() throws DataException, IOException, MissingDataException {
+        try (final Repository repository = RepositoryManager.getRepository()) {
+            PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+            String publicKey58 = Base58.encode(alice.getPublicKey());
+            String name = "TEST"; // Can be anything for this test
+            String identifier = null; // Not used for this test
+            Service service = Service.ARBITRARY_DATA;
+            int chunkSize = 100;
+            int dataLength = 900; // Actual data length will be longer due to encryption
+
+            // Register the name to Alice
+            RegisterNameTransactionData transactionData = new RegisterNameTransactionData(TestTransaction.generateBase(alice), name, "");
+            transactionData.setFee(new RegisterNameTransaction(null, null).getUnitFee(transactionData.getTimestamp()));
+            TransactionUtils.signAndMint(repository, transactionData, alice);
+
+            // Create PUT transaction
+            Path path1 = ArbitraryUtils.generateRandomDataPath(dataLength);
+            ArbitraryDataFile arbitraryDataFile = ArbitraryUtils.createAndMintTxn(repository, publicKey58, path1, name, identifier, Method.PUT, service, alice, chunkSize);
+            assertTrue(arbitraryDataFile.chunkCount() > 1);
+
+            // Delete the complete file, leaving only the chunks
+            arbitraryDataFile.delete();
+            assertFalse(arbitraryDataFile.exists());
+
+            // Build directly from the chunks
+            ArbitraryDataReader arbitraryDataReader = new ArbitraryDataReader(name, ResourceIdType.NAME, service, identifier);
+            arbitraryDataReader.loadSynchronously(true);
+
+            // Its directory hash should match the original directory hash
+            ArbitraryDataDigest path1Digest = new ArbitraryDataDigest(path1);
+            path1Digest.compute();
+            ArbitraryDataDigest builtDigest = new ArbitraryDataDigest(arbitraryDataReader.getFilePath());
+            builtDigest.compute();
+            assertEquals(path1Digest.getHash58(), builtDigest.getHash58());
+
+            // Chunks shouldn't have been joined
+            assertFalse(arbitraryDataFile.exists());
+
+            // Corrupt the last chunk
+            ArbitraryDataFileChunk lastChunk = arbitraryDataFile.getChunks().get(arbitraryDataFile.chunkCount() - 1);
+            byte[] chunkData = Files.readAllBytes(lastChunk.getFilePath());
+            chunkData[0] ^= 0x01;
+            Files.write(lastChunk.getFilePath(), chunkData);
+
+            // Building should now fail
+            try {
+                arbitraryDataReader = new ArbitraryDataReader(name, ResourceIdType.NAME, service, identifier);
+                arbitraryDataReader.loadSynchronously(true);
+                fail("Building from corrupt chunk should fail");
+            } catch (DataException expectedException) {
+                // Expected
+            }
+        }
+    }
+
 }
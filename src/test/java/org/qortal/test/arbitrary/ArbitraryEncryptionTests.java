@@ -11,7 +11,10 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -130,4 +133,35 @@ public class ArbitraryEncryptionTests extends Common {
         }
     }
 
+    @Test
+    public void testEncryptingOutputStream() throws IOException, NoSuchAlgorithmException, InvalidAlgorithmParameterException, NoSuchPaddingException, IllegalBlockSizeException, BadPaddingException, InvalidKeyException {
+        String algorithm = "AES/CBC/PKCS5Padding";
+        SecretKey aesKey = AES.generateKey(256);
+        IvParameterSpec iv = AES.generateIv();
+
+        for (int size : new int[] { 1, 15, 16, 17, 1024, 100000 }) {
+            Path inputFilePath = Files.createTempFile("inputFile", null);
+            Path outputFilePath = Files.createTempFile("outputFile", null);
+            inputFilePath.toFile().deleteOnExit();
+            outputFilePath.toFile().deleteOnExit();
+
+            byte[] data = new byte[size];
+            new Random().nextBytes(data);
+            Files.write(inputFilePath, data);
+
+            // Encrypt file in one go
+            AES.encryptFile(algorithm, aesKey, iv, inputFilePath.toString(), outputFilePath.toString());
+
+            // Encrypt via stream, using awkward write sizes
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (OutputStream encryptedOutputStream = AES.encryptingOutputStream(algorithm, aesKey, iv, byteArrayOutputStream)) {
+                for (int offset = 0; offset < size; offset += 1000)
+                    encryptedOutputStream.write(data, offset, Math.min(1000, size - offset));
+            }
+
+            // Output should be identical
+            assertArrayEquals(Files.readAllBytes(outputFilePath), byteArrayOutputStream.toByteArray());
+        }
+    }
+
 }
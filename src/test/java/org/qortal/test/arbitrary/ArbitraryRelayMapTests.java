@@ -0,0 +1,109 @@
+package org.qortal.test.arbitrary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.controller.arbitrary.ArbitraryRelayMap;
+import org.qortal.data.arbitrary.ArbitraryRelayInfo;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.repository.DataException;
+import org.qortal.test.common.Common;
+
+import static org.junit.Assert.*;
+
+public class ArbitraryRelayMapTests extends Common {
+
+	private static final long TIMEOUT = 60 * 1000L;
+	private static final long NOW = 1_700_000_000_000L;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testOptimalHops() {
+		ArbitraryRelayMap relayMap = new ArbitraryRelayMap(TIMEOUT);
+		Peer peer1 = newPeer(1);
+		Peer peer2 = newPeer(2);
+		Peer peer3 = newPeer(3);
+
+		assertNull(relayMap.getOptimal("hash"));
+
+		// No hops, so random entry
+		ArbitraryRelayInfo noHops = new ArbitraryRelayInfo("hash", "sig", peer1, NOW, NOW, null);
+		relayMap.add(noHops);
+		assertSame(noHops, relayMap.getOptimal("hash"));
+
+		ArbitraryRelayInfo threeHops = new ArbitraryRelayInfo("hash", "sig", peer2, NOW, NOW, 3);
+		relayMap.add(threeHops);
+		assertSame(threeHops, relayMap.getOptimal("hash"));
+
+		ArbitraryRelayInfo oneHop = new ArbitraryRelayInfo("hash", "sig", peer3, NOW, NOW, 1);
+		relayMap.add(oneHop);
+		assertSame(oneHop, relayMap.getOptimal("hash"));
+		assertEquals(3, relayMap.size());
+
+		// Renewing peer3's entry with more hops makes peer2 optimal
+		relayMap.add(new ArbitraryRelayInfo("hash", "sig", peer3, NOW + 10 * 1000L, NOW, 5));
+		assertSame(threeHops, relayMap.getOptimal("hash"));
+		assertEquals(3, relayMap.size());
+
+		// Expiring optimal entry makes renewed peer3 optimal again
+		relayMap.expire(NOW + TIMEOUT + 2000L);
+		assertSame(peer3, relayMap.getOptimal("hash").getPeer());
+		assertEquals(1, relayMap.size());
+
+		// Other hashes unaffected
+		assertNull(relayMap.getOptimal("other-hash"));
+	}
+
+	@Test
+	public void testExpiry() {
+		ArbitraryRelayMap relayMap = new ArbitraryRelayMap(TIMEOUT);
+		Peer peer1 = newPeer(1);
+		Peer peer2 = newPeer(2);
+
+		relayMap.add(new ArbitraryRelayInfo("hash1", "sig", peer1, NOW, NOW, 1));
+		relayMap.add(new ArbitraryRelayInfo("hash2", "sig", peer2, NOW + 30 * 1000L, NOW, 1));
+
+		relayMap.expire(NOW + TIMEOUT - 1);
+		assertNotNull(relayMap.getOptimal("hash1"));
+		assertNotNull(relayMap.getOptimal("hash2"));
+
+		relayMap.expire(NOW + TIMEOUT + 2000L);
+		assertNull(relayMap.getOptimal("hash1"));
+		assertNotNull(relayMap.getOptimal("hash2"));
+		assertEquals(1, relayMap.size());
+
+		relayMap.expire(NOW + 30 * 1000L + TIMEOUT + 2000L);
+		assertNull(relayMap.getOptimal("hash2"));
+		assertEquals(0, relayMap.size());
+	}
+
+	@Test
+	public void testRenewedEntryNotExpired() {
+		ArbitraryRelayMap relayMap = new ArbitraryRelayMap(TIMEOUT);
+		Peer peer = newPeer(1);
+
+		relayMap.add(new ArbitraryRelayInfo("hash", "sig", peer, NOW, NOW, 1));
+		relayMap.expire(NOW);
+
+		// Renew before expiry
+		relayMap.add(new ArbitraryRelayInfo("hash", "sig", peer, NOW + 40 * 1000L, NOW, 1));
+
+		// Original entry's slot comes round, but renewed entry survives
+		relayMap.expire(NOW + TIMEOUT + 2000L);
+		assertNotNull(relayMap.getOptimal("hash"));
+		assertEquals(1, relayMap.size());
+
+		relayMap.expire(NOW + 40 * 1000L + TIMEOUT + 2000L);
+		assertNull(relayMap.getOptimal("hash"));
+	}
+
+	private static Peer newPeer(int index) {
+		return new Peer(new PeerData(PeerAddress.fromString("127.0.0." + index + ":12392")));
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.qortal.test.arbitrary;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.api.SearchMode;
+import org.qortal.arbitrary.misc.Service;
+import org.qortal.data.arbitrary.ArbitraryResourceData;
+import org.qortal.data.arbitrary.ArbitraryResourceMetadata;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.Common;
+import org.qortal.utils.SearchTokenizer;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ArbitrarySearchIndexTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testTokenize() {
+		Set<String> tokens = SearchTokenizer.tokenize("QortalWiki2 - the best_wiki!");
+		assertTrue(tokens.containsAll(Arrays.asList("qortalwiki2", "qortal", "wiki", "2", "the", "best", "wiki")));
+
+		assertEquals(Arrays.asList("hello", "world"), SearchTokenizer.queryTerms("Hello, WORLD hello a"));
+
+		Map<String, Integer> tokenWeights = SearchTokenizer.tokenWeights("wiki", "pages", "My Wiki", "about pages", null);
+		assertEquals(SearchTokenizer.NAME_WEIGHT, (int) tokenWeights.get("wiki"));
+		assertEquals(SearchTokenizer.IDENTIFIER_WEIGHT, (int) tokenWeights.get("pages"));
+		assertEquals(SearchTokenizer.DESCRIPTION_WEIGHT, (int) tokenWeights.get("about"));
+	}
+
+	@Test
+	public void testSearch() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			saveResource(repository, "QortalWiki", "default", "Qortal Wiki", "All about Qortal", Arrays.asList("docs"));
+			saveResource(repository, "alice", "recipes", "Cake recipes", "Mostly about wiki-style cake", null);
+			saveResource(repository, "bob", "holiday-photos", null, null, null);
+			repository.saveChanges();
+
+			// Prefix of camelCase part of name
+			assertEquals(Arrays.asList("QortalWiki"), searchNames(repository, "qort"));
+
+			// Name match ranks above description match
+			assertEquals(Arrays.asList("QortalWiki", "alice"), searchNames(repository, "wiki"));
+
+			// All terms must match
+			assertEquals(Arrays.asList("alice"), searchNames(repository, "wiki cake"));
+			assertTrue(searchNames(repository, "wiki holiday").isEmpty());
+
+			// Identifier
+			assertEquals(Arrays.asList("bob"), searchNames(repository, "photos"));
+
+			// Tags
+			assertEquals(Arrays.asList("QortalWiki"), searchNames(repository, "docs"));
+		}
+	}
+
+	@Test
+	public void testMetadataUpdates() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			saveResource(repository, "alice", "recipes", "Cake recipes", null, null);
+			assertEquals(Arrays.asList("alice"), searchNames(repository, "cake"));
+
+			// Replace metadata
+			saveMetadata(repository, resource("alice", "recipes"), "Bread recipes", null, null);
+			assertTrue(searchNames(repository, "cake").isEmpty());
+			assertEquals(Arrays.asList("alice"), searchNames(repository, "bread"));
+
+			// Remove metadata, keeping name and identifier
+			ArbitraryResourceMetadata metadata = new ArbitraryResourceMetadata();
+			metadata.setArbitraryResourceData(resource("alice", "recipes"));
+			repository.getArbitraryRepository().delete(metadata);
+			assertTrue(searchNames(repository, "bread").isEmpty());
+			assertEquals(Arrays.asList("alice"), searchNames(repository, "recipes"));
+
+			// Remove resource
+			repository.getArbitraryRepository().delete(resource("alice", "recipes"));
+			assertTrue(searchNames(repository, "recipes").isEmpty());
+		}
+	}
+
+	@Test
+	public void testRebuild() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			saveResource(repository, "QortalWiki", "default", "Qortal Wiki", null, null);
+			repository.saveChanges();
+
+			assertFalse(repository.getArbitraryRepository().needsSearchIndexRebuild());
+			List<String> expected = searchNames(repository, "wiki");
+
+			repository.getArbitraryRepository().rebuildSearchIndex();
+			assertEquals(expected, searchNames(repository, "wiki"));
+		}
+	}
+
+	private static ArbitraryResourceData resource(String name, String identifier) {
+		ArbitraryResourceData arbitraryResourceData = new ArbitraryResourceData();
+		arbitraryResourceData.service = Service.WEBSITE;
+		arbitraryResourceData.name = name;
+		arbitraryResourceData.identifier = identifier;
+		arbitraryResourceData.size = 100;
+		arbitraryResourceData.created = 1000L;
+		return arbitraryResourceData;
+	}
+
+	private static void saveResource(Repository repository, String name, String identifier, String title, String description, List<String> tags) throws DataException {
+		ArbitraryResourceData arbitraryResourceData = resource(name, identifier);
+		repository.getArbitraryRepository().save(arbitraryResourceData);
+
+		if (title != null || description != null || tags != null)
+			saveMetadata(repository, arbitraryResourceData, title, description, tags);
+	}
+
+	private static void saveMetadata(Repository repository, ArbitraryResourceData arbitraryResourceData, String title, String description, List<String> tags) throws DataException {
+		ArbitraryResourceMetadata metadata = new ArbitraryResourceMetadata();
+		metadata.setArbitraryResourceData(arbitraryResourceData);
+		metadata.setTitle(title);
+		metadata.setDescription(description);
+		metadata.setTags(tags);
+		repository.getArbitraryRepository().save(metadata);
+	}
+
+	private static List<String> searchNames(Repository repository, String query) throws DataException {
+		List<ArbitraryResourceData> resources = repository.getArbitraryRepository().searchArbitraryResources(Service.WEBSITE, query,
+				null, null, null, null, false, null, false, SearchMode.ALL, null, null, null, false, false,
+				null, null, null, null, false);
+
+		return resources.stream().map(resource -> resource.name).collect(Collectors.toList());
+	}
+
+}
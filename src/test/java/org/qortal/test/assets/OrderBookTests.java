@@ -0,0 +1,138 @@
+package org.qortal.test.assets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.data.asset.OrderData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.repository.hsqldb.HSQLDBAssetRepository;
+import org.qortal.test.common.AssetUtils;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.utils.Base58;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class OrderBookTests extends Common {
+
+	private static final long AMOUNT = 10_00000000L;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@After
+	public void afterTest() throws DataException {
+		Common.orphanCheck();
+	}
+
+	@Test
+	public void testProcessCancelOrphan() throws DataException {
+		try (Repository repository = RepositoryManager.getRepository()) {
+			AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, AMOUNT, 1_00000000L);
+			byte[] alicePricierOrderId = AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, AMOUNT, 1_50000000L);
+			AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, AMOUNT, 1_20000000L);
+			assertConsistent(repository);
+
+			// Best-priced orders first
+			List<OrderData> orders = repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, 1_10000000L);
+			assertEquals(2, orders.size());
+			assertArrayEquals(alicePricierOrderId, orders.get(0).getOrderId());
+
+			// Bob's order fully matches alice's best order and partly matches next
+			AssetUtils.createOrder(repository, "bob", AssetUtils.otherAssetId, AssetUtils.testAssetId, AMOUNT + AMOUNT / 2, 1_10000000L);
+			assertConsistent(repository);
+
+			orders = repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null);
+			assertEquals(2, orders.size());
+			assertEquals(AMOUNT / 2, orders.get(1).getFulfilled());
+
+			AssetUtils.cancelOrder(repository, "alice", orders.get(1).getOrderId());
+			assertConsistent(repository);
+			assertEquals(1, repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).size());
+
+			// Orphaning reopens, then unmatches, then removes orders
+			while (repository.getBlockRepository().getBlockchainHeight() > 1) {
+				BlockUtils.orphanLastBlock(repository);
+				assertConsistent(repository);
+			}
+
+			assertTrue(repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).isEmpty());
+		}
+	}
+
+	@Test
+	public void testUncommittedChanges() throws DataException {
+		try (Repository repository = RepositoryManager.getRepository()) {
+			byte[] aliceOrderId = AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, AMOUNT, 1_00000000L);
+
+			// Uncommitted close is visible to this session only
+			OrderData orderData = repository.getAssetRepository().fromOrderId(aliceOrderId);
+			orderData.setIsClosed(true);
+			repository.getAssetRepository().save(orderData);
+			assertTrue(repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).isEmpty());
+
+			try (Repository otherRepository = RepositoryManager.getRepository()) {
+				assertEquals(1, otherRepository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).size());
+			}
+
+			// Savepoint rollback only forgets later changes
+			repository.setSavepoint();
+			orderData.setIsClosed(false);
+			repository.getAssetRepository().save(orderData);
+			repository.rollbackToSavepoint();
+			assertTrue(repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).isEmpty());
+
+			// Rolled-back close never reaches order book
+			repository.discardChanges();
+			assertEquals(1, repository.getAssetRepository().getOpenOrdersForTrading(AssetUtils.testAssetId, AssetUtils.otherAssetId, null).size());
+			assertConsistent(repository);
+		}
+	}
+
+	/** Checks order book answers match those from database, in both directions. */
+	private static void assertConsistent(Repository repository) throws DataException {
+		assertConsistent(repository, AssetUtils.testAssetId, AssetUtils.otherAssetId);
+		assertConsistent(repository, AssetUtils.otherAssetId, AssetUtils.testAssetId);
+	}
+
+	private static void assertConsistent(Repository repository, long haveAssetId, long wantAssetId) throws DataException {
+		HSQLDBAssetRepository assetRepository = (HSQLDBAssetRepository) repository.getAssetRepository();
+
+		for (Long minimumPrice : new Long[] { null, 1_00000000L, 1_20000000L }) {
+			List<String> expected = describe(assetRepository.getOpenOrdersForTradingFromDatabase(haveAssetId, wantAssetId, minimumPrice));
+			List<String> actual = describe(assetRepository.getOpenOrdersForTrading(haveAssetId, wantAssetId, minimumPrice));
+			assertEquals(expected, actual);
+		}
+
+		for (Boolean reverse : new Boolean[] { false, true }) {
+			List<String> bookAggregated = describe(assetRepository.getAggregatedOpenOrders(haveAssetId, wantAssetId, null, null, reverse));
+
+			// Harmless uncommitted change forces database lookup
+			byte[] randomOrderId = new byte[64];
+			new Random().nextBytes(randomOrderId);
+			assetRepository.delete(randomOrderId);
+
+			assertEquals(describe(assetRepository.getAggregatedOpenOrders(haveAssetId, wantAssetId, null, null, reverse)), bookAggregated);
+
+			repository.discardChanges();
+		}
+	}
+
+	private static List<String> describe(List<OrderData> orders) {
+		return orders.stream()
+				.map(orderData -> String.join(",",
+						orderData.getOrderId() != null ? Base58.encode(orderData.getOrderId()) : "",
+						String.valueOf(orderData.getAmount()), String.valueOf(orderData.getFulfilled()),
+						String.valueOf(orderData.getPrice()), String.valueOf(orderData.getTimestamp())))
+				.collect(Collectors.toList());
+	}
+
+}
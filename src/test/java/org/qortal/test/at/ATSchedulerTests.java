@@ -0,0 +1,235 @@
+package org.qortal.test.at;
+
+import org.ciyam.at.CompilationException;
+import org.ciyam.at.FunctionCode;
+import org.ciyam.at.MachineState;
+import org.ciyam.at.OpCode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.asset.Asset;
+import org.qortal.at.AT;
+import org.qortal.at.ATScheduler;
+import org.qortal.at.QortalFunctionCode;
+import org.qortal.data.at.ATData;
+import org.qortal.data.block.BlockData;
+import org.qortal.data.transaction.BaseTransactionData;
+import org.qortal.data.transaction.DeployAtTransactionData;
+import org.qortal.data.transaction.MessageTransactionData;
+import org.qortal.data.transaction.TransactionData;
+import org.qortal.group.Group;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.test.common.TransactionUtils;
+import org.qortal.transaction.DeployAtTransaction;
+import org.qortal.transaction.MessageTransaction;
+import org.qortal.utils.Base58;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ATSchedulerTests extends Common {
+
+	private static final long SLEEP_BLOCKS = 3L;
+	private static final long fundingAmount = 1_00000000L;
+
+	private Repository repository = null;
+	private PrivateKeyAccount deployer;
+
+	@Before
+	public void before() throws DataException {
+		Common.useDefaultSettings();
+
+		this.repository = RepositoryManager.getRepository();
+		this.deployer = Common.getTestAccount(repository, "alice");
+	}
+
+	@After
+	public void after() throws DataException {
+		if (this.repository != null)
+			this.repository.close();
+
+		this.repository = null;
+	}
+
+	@Test
+	public void testDueATsMatchFullScan() throws DataException {
+		String heightSleeperAddress = doDeploy(repository, deployer, buildSleepForBlocksAT()).getATAccount().getAddress();
+		String messageSleeperAddress = doDeploy(repository, deployer, buildSleepUntilMessageAT()).getATAccount().getAddress();
+
+		int skippedHeightSleeperCount = 0;
+		int skippedMessageSleeperCount = 0;
+
+		for (int i = 0; i < 12; ++i) {
+			// Occasionally wake message-sleeping AT
+			if (i % 4 == 2)
+				sendMessage(repository, deployer, new byte[] { 0x44 }, messageSleeperAddress);
+
+			List<String> dueAddresses = assertDueATsMatchFullScan(repository);
+
+			if (!dueAddresses.contains(heightSleeperAddress))
+				++skippedHeightSleeperCount;
+
+			if (!dueAddresses.contains(messageSleeperAddress))
+				++skippedMessageSleeperCount;
+
+			BlockUtils.mintBlock(repository);
+		}
+
+		// Both kinds of sleeping AT should have been skipped at some point
+		assertTrue(skippedHeightSleeperCount > 0);
+		assertTrue(skippedMessageSleeperCount > 0);
+	}
+
+	/**
+	 * Checks ATs returned by scheduler execute exactly as running every executable AT would.
+	 *
+	 * @return addresses of ATs returned by scheduler
+	 */
+	private static List<String> assertDueATsMatchFullScan(Repository repository) throws DataException {
+		BlockData lastBlockData = repository.getBlockRepository().getLastBlock();
+		int blockHeight = lastBlockData.getHeight() + 1;
+		long blockTimestamp = lastBlockData.getTimestamp() + 60_000L;
+
+		List<ATData> allATs = repository.getATRepository().getAllExecutableATs();
+		List<ATData> dueATs = ATScheduler.getDueATs(repository, blockHeight, blockTimestamp);
+
+		List<String> dueAddresses = new ArrayList<>();
+		for (ATData atData : dueATs) {
+			dueAddresses.add(atData.getATAddress());
+
+			// Code bytes must be present, even if cached
+			ATData fullAtData = repository.getATRepository().fromATAddress(atData.getATAddress());
+			assertArrayEquals(fullAtData.getCodeBytes(), atData.getCodeBytes());
+		}
+
+		assertEquals(runATs(repository, allATs, blockHeight, blockTimestamp), runATs(repository, dueATs, blockHeight, blockTimestamp));
+
+		return dueAddresses;
+	}
+
+	/** Returns address and new state hash of each AT that executed. */
+	private static List<String> runATs(Repository repository, List<ATData> atDataList, int blockHeight, long blockTimestamp) throws DataException {
+		List<String> executed = new ArrayList<>();
+
+		for (ATData atData : atDataList) {
+			AT at = new AT(repository, atData);
+			at.run(blockHeight, blockTimestamp);
+
+			if (at.getATStateData() != null)
+				executed.add(atData.getATAddress() + ":" + Base58.encode(at.getATStateData().getStateHash()));
+		}
+
+		return executed;
+	}
+
+	/** AT that repeatedly sleeps for a few blocks. */
+	private static byte[] buildSleepForBlocksAT() {
+		ByteBuffer dataByteBuffer = ByteBuffer.allocate(MachineState.VALUE_SIZE);
+		ByteBuffer codeByteBuffer = ByteBuffer.allocate(512);
+
+		try {
+			codeByteBuffer.put(OpCode.SLP_VAL.compile(SLEEP_BLOCKS));
+			codeByteBuffer.put(OpCode.JMP_ADR.compile(0));
+		} catch (CompilationException e) {
+			throw new IllegalStateException("Unable to compile AT?", e);
+		}
+
+		return toCreationBytes(codeByteBuffer, dataByteBuffer);
+	}
+
+	/** AT that repeatedly sleeps until a message arrives. */
+	private static byte[] buildSleepUntilMessageAT() {
+		final int addrLastTxTimestamp = 0;
+
+		ByteBuffer dataByteBuffer = ByteBuffer.allocate(MachineState.VALUE_SIZE);
+		ByteBuffer codeByteBuffer = ByteBuffer.allocate(512);
+
+		try {
+			// Use AT creation 'timestamp' as starting point for finding transactions sent to AT
+			codeByteBuffer.put(OpCode.EXT_FUN_RET.compile(FunctionCode.GET_CREATION_TIMESTAMP, addrLastTxTimestamp));
+
+			// Set restart position to after this opcode
+			codeByteBuffer.put(OpCode.SET_PCS.compile());
+
+			codeByteBuffer.put(OpCode.EXT_FUN_DAT.compile(QortalFunctionCode.SLEEP_UNTIL_MESSAGE.value, addrLastTxTimestamp));
+
+			// Move past message that woke us
+			codeByteBuffer.put(OpCode.EXT_FUN_DAT.compile(FunctionCode.PUT_TX_AFTER_TIMESTAMP_INTO_A, addrLastTxTimestamp));
+			codeByteBuffer.put(OpCode.EXT_FUN_RET.compile(FunctionCode.GET_TIMESTAMP_FROM_TX_IN_A, addrLastTxTimestamp));
+
+			// Restart at SET_PCS position in next block
+			codeByteBuffer.put(OpCode.STP_IMD.compile());
+		} catch (CompilationException e) {
+			throw new IllegalStateException("Unable to compile AT?", e);
+		}
+
+		return toCreationBytes(codeByteBuffer, dataByteBuffer);
+	}
+
+	private static byte[] toCreationBytes(ByteBuffer codeByteBuffer, ByteBuffer dataByteBuffer) {
+		codeByteBuffer.flip();
+
+		byte[] codeBytes = new byte[codeByteBuffer.limit()];
+		codeByteBuffer.get(codeBytes);
+
+		final short ciyamAtVersion = 2;
+		final short numCallStackPages = 0;
+		final short numUserStackPages = 0;
+		final long minActivationAmount = 0L;
+
+		return MachineState.toCreationBytes(ciyamAtVersion, codeBytes, dataByteBuffer.array(), numCallStackPages, numUserStackPages, minActivationAmount);
+	}
+
+	private static DeployAtTransaction doDeploy(Repository repository, PrivateKeyAccount deployer, byte[] creationBytes) throws DataException {
+		long txTimestamp = System.currentTimeMillis();
+		byte[] lastReference = deployer.getLastReference();
+
+		Long fee = null;
+		String name = "Test AT";
+		String description = "Test AT";
+		String atType = "Test";
+		String tags = "TEST";
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(txTimestamp, Group.NO_GROUP, lastReference, deployer.getPublicKey(), fee, null);
+		TransactionData deployAtTransactionData = new DeployAtTransactionData(baseTransactionData, name, description, atType, tags, creationBytes, fundingAmount, Asset.QORT);
+
+		DeployAtTransaction deployAtTransaction = new DeployAtTransaction(repository, deployAtTransactionData);
+
+		fee = deployAtTransaction.calcRecommendedFee();
+		deployAtTransactionData.setFee(fee);
+
+		TransactionUtils.signAndMint(repository, deployAtTransactionData, deployer);
+
+		return deployAtTransaction;
+	}
+
+	private static void sendMessage(Repository repository, PrivateKeyAccount sender, byte[] data, String recipient) throws DataException {
+		long txTimestamp = System.currentTimeMillis();
+		byte[] lastReference = sender.getLastReference();
+
+		Long fee = null;
+		int version = 4;
+		int nonce = 0;
+		long amount = 0;
+		Long assetId = null; // because amount is zero
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(txTimestamp, Group.NO_GROUP, lastReference, sender.getPublicKey(), fee, null);
+		TransactionData messageTransactionData = new MessageTransactionData(baseTransactionData, version, nonce, recipient, amount, assetId, data, false, false);
+
+		MessageTransaction messageTransaction = new MessageTransaction(repository, messageTransactionData);
+
+		fee = messageTransaction.calcRecommendedFee();
+		messageTransactionData.setFee(fee);
+
+		TransactionUtils.signAndImportValid(repository, messageTransactionData, sender);
+	}
+
+}
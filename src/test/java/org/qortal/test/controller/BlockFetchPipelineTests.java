@@ -0,0 +1,129 @@
+package org.qortal.test.controller;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.block.Block;
+import org.qortal.controller.BlockFetchPipeline;
+import org.qortal.data.block.BlockData;
+import org.qortal.data.network.PeerData;
+import org.qortal.network.Peer;
+import org.qortal.network.PeerAddress;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.BlockUtils;
+import org.qortal.test.common.Common;
+import org.qortal.utils.ByteArray;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BlockFetchPipelineTests extends Common {
+
+	private static final int BLOCK_COUNT = 20;
+
+	private ExecutorService executor;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+		this.executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void afterTest() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testHelperPeerFailure() throws DataException, InterruptedException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			Map<ByteArray, Block> blocksBySignature = new HashMap<>();
+			List<byte[]> signatures = mintBlocks(repository, blocksBySignature);
+
+			Peer syncPeer = newPeer(1);
+			Peer badPeer = newPeer(2);
+
+			// Helper peer never supplies blocks
+			BlockFetchPipeline.BlockFetcher fetcher = (peer, signature) -> peer == badPeer ? null : blocksBySignature.get(ByteArray.wrap(signature));
+
+			try (BlockFetchPipeline pipeline = new BlockFetchPipeline(syncPeer, Collections.singletonList(badPeer), fetcher, this.executor, 4, Long.MAX_VALUE)) {
+				pipeline.prefetch(signatures);
+
+				for (byte[] signature : signatures) {
+					Block block = pipeline.take(signature);
+					assertNotNull(block);
+					assertArrayEquals(signature, block.getSignature());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMemoryBudget() throws DataException, InterruptedException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			Map<ByteArray, Block> blocksBySignature = new HashMap<>();
+			List<byte[]> signatures = mintBlocks(repository, blocksBySignature);
+
+			BlockFetchPipeline.BlockFetcher fetcher = (peer, signature) -> blocksBySignature.get(ByteArray.wrap(signature));
+
+			// Budget too small for even one block
+			try (BlockFetchPipeline pipeline = new BlockFetchPipeline(newPeer(1), Collections.emptyList(), fetcher, this.executor, 8, 1L)) {
+				pipeline.prefetch(signatures);
+
+				// Only one request allowed at a time
+				assertEquals(1, pipeline.getRequestCount());
+
+				for (byte[] signature : signatures) {
+					assertNotNull(pipeline.take(signature));
+					assertTrue(pipeline.getRequestCount() <= 1);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testUnexpectedSignature() throws DataException, InterruptedException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			Map<ByteArray, Block> blocksBySignature = new HashMap<>();
+			List<byte[]> signatures = mintBlocks(repository, blocksBySignature);
+
+			BlockFetchPipeline.BlockFetcher fetcher = (peer, signature) -> blocksBySignature.get(ByteArray.wrap(signature));
+
+			try (BlockFetchPipeline pipeline = new BlockFetchPipeline(newPeer(1), Collections.emptyList(), fetcher, this.executor, 4, Long.MAX_VALUE)) {
+				pipeline.prefetch(signatures.subList(0, 4));
+
+				// Asking for a block that wasn't prefetched abandons prefetching
+				byte[] lastSignature = signatures.get(signatures.size() - 1);
+				assertArrayEquals(lastSignature, pipeline.take(lastSignature).getSignature());
+				assertEquals(0, pipeline.getRequestCount());
+			}
+		}
+	}
+
+	private static List<byte[]> mintBlocks(Repository repository, Map<ByteArray, Block> blocksBySignature) throws DataException {
+		List<byte[]> signatures = new ArrayList<>();
+
+		for (int i = 0; i < BLOCK_COUNT; ++i) {
+			BlockData blockData = BlockUtils.mintBlock(repository).getBlockData();
+
+			// Load transactions now, as fetcher shouldn't use repository
+			Block block = new Block(repository, blockData);
+			block.getTransactions();
+
+			blocksBySignature.put(ByteArray.wrap(blockData.getSignature()), block);
+			signatures.add(blockData.getSignature());
+		}
+
+		return signatures;
+	}
+
+	private static Peer newPeer(int index) {
+		return new Peer(new PeerData(PeerAddress.fromString("127.0.0." + index + ":12392")));
+	}
+
+}
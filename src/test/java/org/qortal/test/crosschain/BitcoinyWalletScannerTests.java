@@ -0,0 +1,291 @@
+package org.qortal.test.crosschain;
+
+import cash.z.wallet.sdk.rpc.CompactFormats.CompactBlock;
+import com.google.common.hash.HashCode;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.crypto.DeterministicKey;
+import org.bitcoinj.crypto.HDKeyDerivation;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.script.Script.ScriptType;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.DeterministicKeyChain;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.crosschain.*;
+import org.qortal.repository.DataException;
+import org.qortal.settings.Settings;
+import org.qortal.test.common.Common;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class BitcoinyWalletScannerTests extends Common {
+
+	/** Provider with in-memory address histories, recording which addresses had their history fetched. */
+	private static class FakeProvider extends BitcoinyBlockchainProvider {
+		private final Map<String, List<TransactionHash>> historiesByScript = new ConcurrentHashMap<>();
+		private final List<String> historyRequests = Collections.synchronizedList(new ArrayList<>());
+
+		private void addTransaction(byte[] script, String txHash) {
+			this.historiesByScript.computeIfAbsent(HashCode.fromBytes(script).toString(), k -> new ArrayList<>())
+					.add(new TransactionHash(100, txHash));
+		}
+
+		@Override
+		public List<TransactionHash> getAddressTransactions(byte[] scriptPubKey, boolean includeUnconfirmed) {
+			String scriptHex = HashCode.fromBytes(scriptPubKey).toString();
+			this.historyRequests.add(scriptHex);
+
+			return new ArrayList<>(this.historiesByScript.getOrDefault(scriptHex, Collections.emptyList()));
+		}
+
+		@Override
+		public List<String> getAddressStatuses(List<byte[]> scriptPubKeys) {
+			List<String> statuses = new ArrayList<>(scriptPubKeys.size());
+
+			for (byte[] scriptPubKey : scriptPubKeys) {
+				List<TransactionHash> history = this.historiesByScript.get(HashCode.fromBytes(scriptPubKey).toString());
+				statuses.add(history == null ? null : String.valueOf(history.size()));
+			}
+
+			return statuses;
+		}
+
+		@Override
+		public void setBlockchain(Bitcoiny blockchain) {
+		}
+
+		@Override
+		public String getNetId() {
+			return "Fake-TEST3";
+		}
+
+		@Override
+		public int getCurrentHeight() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<CompactBlock> getCompactBlocks(int startHeight, int count) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<byte[]> getRawBlockHeaders(int startHeight, int count) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<Long> getBlockTimestamps(int startHeight, int count) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long getConfirmedBalance(byte[] scriptPubKey) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public long getConfirmedAddressBalance(String base58Address) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public byte[] getRawTransaction(String txHash) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public byte[] getRawTransaction(byte[] txHash) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public BitcoinyTransaction getTransaction(String txHash) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<BitcoinyTransaction> getAddressBitcoinyTransactions(String address, boolean includeUnconfirmed) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<UnspentOutput> getUnspentOutputs(String address, boolean includeUnconfirmed) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<UnspentOutput> getUnspentOutputs(byte[] scriptPubKey, boolean includeUnconfirmed) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void broadcastTransaction(byte[] rawTransaction) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Set<ChainableServer> getServers() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public List<ChainableServer> getRemainingServers() {
+			return Collections.emptyList();
+		}
+
+		@Override
+		public Set<ChainableServer> getUselessServers() {
+			return Collections.emptySet();
+		}
+
+		@Override
+		public ChainableServer getCurrentServer() {
+			return null;
+		}
+	}
+
+	private static class FakeBitcoiny extends Bitcoiny {
+		private FakeBitcoiny(FakeProvider provider) {
+			super(provider, new Context(TestNet3Params.get()), "FAKE", Coin.valueOf(10000L));
+		}
+
+		/** Returns addresses checked by original walk, one address at a time, in batches of 3 keys. */
+		private List<String> walkAddresses(String key58) throws ForeignBlockchainException {
+			Context.propagate(this.bitcoinjContext);
+
+			DeterministicKeyChain keyChain = this.walletFromDeterministicKey58(key58).getActiveKeyChain();
+
+			keyChain.setLookaheadSize(3);
+			keyChain.maybeLookAhead();
+
+			List<DeterministicKey> keys = new ArrayList<>(keyChain.getLeafKeys());
+			List<String> addresses = new ArrayList<>();
+
+			int unusedCounter = 0;
+			int ki = 0;
+			do {
+				boolean areAllKeysUnused = true;
+
+				for (; ki < keys.size(); ++ki) {
+					Address address = Address.fromKey(this.params, keys.get(ki), ScriptType.P2PKH);
+					addresses.add(address.toString());
+
+					if (!this.getAddressTransactions(ScriptBuilder.createOutputScript(address).getProgram(), false).isEmpty())
+						areAllKeysUnused = false;
+				}
+
+				if (areAllKeysUnused) {
+					if (unusedCounter >= Settings.getInstance().getGapLimit())
+						break;
+
+					unusedCounter += 3;
+				} else {
+					unusedCounter = 0;
+				}
+
+				keys.addAll(generateMoreKeys(keyChain));
+			} while (true);
+
+			return addresses;
+		}
+
+		private byte[] toScript(String address) {
+			return this.addressToScriptPubKey(address);
+		}
+
+		@Override
+		public long getP2shFee(Long timestamp) {
+			return 1000L;
+		}
+
+		@Override
+		public long getFeeCeiling() {
+			return 100000L;
+		}
+
+		@Override
+		public void setFeeCeiling(long fee) {
+		}
+	}
+
+	private FakeProvider provider;
+	private FakeBitcoiny bitcoiny;
+	private String xprv58;
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+
+		this.provider = new FakeProvider();
+		this.bitcoiny = new FakeBitcoiny(this.provider);
+
+		byte[] seed = new byte[32];
+		new Random(0L).nextBytes(seed);
+		this.xprv58 = HDKeyDerivation.createMasterPrivateKey(seed).serializePrivB58(TestNet3Params.get());
+	}
+
+	@Test
+	public void testGapLimitMatchesWalk() throws ForeignBlockchainException {
+		// Unused wallet
+		List<String> walkAddresses = this.bitcoiny.walkAddresses(this.xprv58);
+		assertEquals(new HashSet<>(walkAddresses), this.bitcoiny.getWalletAddresses(this.xprv58));
+
+		// Use an early address, then repeatedly use last address checked, so each scan has to go further
+		this.addTransaction(walkAddresses.get(1), "early");
+
+		for (int i = 0; i < 3; ++i) {
+			walkAddresses = this.bitcoiny.walkAddresses(this.xprv58);
+			this.addTransaction(walkAddresses.get(walkAddresses.size() - 1), "last" + i);
+
+			walkAddresses = this.bitcoiny.walkAddresses(this.xprv58);
+			assertEquals(new HashSet<>(walkAddresses), this.bitcoiny.getWalletAddresses(this.xprv58));
+		}
+	}
+
+	@Test
+	public void testRescanOnlyFetchesChangedHistory() throws ForeignBlockchainException {
+		List<String> walkAddresses = this.bitcoiny.walkAddresses(this.xprv58);
+		String firstUsedAddress = walkAddresses.get(0);
+		String secondUsedAddress = walkAddresses.get(walkAddresses.size() / 2);
+
+		this.addTransaction(firstUsedAddress, "tx0");
+		this.addTransaction(secondUsedAddress, "tx1");
+		Set<String> expectedAddresses = new HashSet<>(this.bitcoiny.walkAddresses(this.xprv58));
+
+		// First scan only fetches history of used addresses
+		this.provider.historyRequests.clear();
+		assertEquals(expectedAddresses, this.bitcoiny.getWalletAddresses(this.xprv58));
+		assertEquals(toScriptHexes(firstUsedAddress, secondUsedAddress), new HashSet<>(this.provider.historyRequests));
+
+		// Nothing changed, so no history is fetched
+		this.provider.historyRequests.clear();
+		assertEquals(expectedAddresses, this.bitcoiny.getWalletAddresses(this.xprv58));
+		assertTrue(this.provider.historyRequests.isEmpty());
+
+		// Only changed address' history is fetched
+		this.addTransaction(secondUsedAddress, "tx2");
+
+		this.provider.historyRequests.clear();
+		assertEquals(expectedAddresses, this.bitcoiny.getWalletAddresses(this.xprv58));
+		assertEquals(toScriptHexes(secondUsedAddress), new HashSet<>(this.provider.historyRequests));
+	}
+
+	private void addTransaction(String address, String txHash) {
+		this.provider.addTransaction(this.bitcoiny.toScript(address), txHash);
+	}
+
+	private Set<String> toScriptHexes(String... addresses) {
+		Set<String> scriptHexes = new HashSet<>();
+		for (String address : addresses)
+			scriptHexes.add(HashCode.fromBytes(this.bitcoiny.toScript(address)).toString());
+
+		return scriptHexes;
+	}
+
+}
@@ -0,0 +1,230 @@
+package org.qortal.test.crosschain;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.After;
+import org.junit.Test;
+import org.qortal.crosschain.ChainableServer.ConnectionType;
+import org.qortal.crosschain.ElectrumX;
+import org.qortal.crosschain.ElectrumXConnection;
+import org.qortal.crosschain.ResponseTimeHistogram;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ElectrumXConnectionTests {
+
+	/** Minimal JSON-RPC server that echoes each request's first param as its result */
+	private static class EchoServer implements Runnable {
+		private final ServerSocket serverSocket;
+		private final boolean supportsBatches;
+		private final boolean reverseOrder;
+		private final BlockingQueue<String> receivedLines = new LinkedBlockingQueue<>();
+		private volatile Socket socket;
+
+		private EchoServer(boolean supportsBatches, boolean reverseOrder) throws IOException {
+			this.serverSocket = new ServerSocket(0);
+			this.supportsBatches = supportsBatches;
+			this.reverseOrder = reverseOrder;
+
+			Thread thread = new Thread(this);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void run() {
+			try (Socket socket = this.serverSocket.accept()) {
+				this.socket = socket;
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+
+				List<JSONObject> unanswered = new ArrayList<>();
+				String line;
+				while ((line = reader.readLine()) != null) {
+					this.receivedLines.add(line);
+					Object requestObj = JSONValue.parse(line);
+
+					if (requestObj instanceof JSONArray) {
+						// Servers without batch support don't reply to batches at all
+						if (!this.supportsBatches)
+							continue;
+
+						JSONArray responses = new JSONArray();
+						for (Object request : (JSONArray) requestObj)
+							responses.add(echo((JSONObject) request));
+
+						writer.write(responses.toJSONString() + "\n");
+						writer.flush();
+						continue;
+					}
+
+					// Hold back pipelined requests in pairs, so responses can be sent out of order
+					unanswered.add((JSONObject) requestObj);
+					if (this.reverseOrder && unanswered.size() < 2)
+						continue;
+
+					if (this.reverseOrder)
+						Collections.reverse(unanswered);
+
+					for (JSONObject request : unanswered)
+						writer.write(echo(request).toJSONString() + "\n");
+					writer.flush();
+					unanswered.clear();
+				}
+			} catch (IOException e) {
+				// Test finished
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static JSONObject echo(JSONObject request) {
+			JSONObject response = new JSONObject();
+			response.put("jsonrpc", "2.0");
+			response.put("id", request.get("id"));
+
+			JSONArray params = (JSONArray) request.get("params");
+			response.put("result", params.isEmpty() ? null : params.get(0));
+			return response;
+		}
+
+		private void close() throws IOException {
+			if (this.socket != null)
+				this.socket.close();
+			this.serverSocket.close();
+		}
+	}
+
+	private EchoServer echoServer;
+	private ElectrumXConnection connection;
+
+	@After
+	public void afterTest() throws IOException {
+		if (this.connection != null)
+			this.connection.close();
+		if (this.echoServer != null)
+			this.echoServer.close();
+	}
+
+	@Test
+	public void testPipelinedResponsesMatchedById() throws Exception {
+		ElectrumX.Server server = this.connect(false, true);
+
+		assertFalse(this.connection.probeBatchSupport());
+
+		List<CompletableFuture<JSONObject>> futures = this.connection.send(List.of(request("first"), request("second")));
+		assertEquals("first", futures.get(0).get(5, TimeUnit.SECONDS).get("result"));
+		assertEquals("second", futures.get(1).get(5, TimeUnit.SECONDS).get("result"));
+
+		// Requests were sent individually, not as a batch
+		this.echoServer.receivedLines.clear();
+		futures = this.connection.send(List.of(request("third"), request("fourth")));
+		futures.get(1).get(5, TimeUnit.SECONDS);
+		assertFalse(this.echoServer.receivedLines.poll().startsWith("["));
+
+		assertEquals(0, this.connection.getPendingRequestCount());
+		assertEquals(4L, server.getResponseTimeHistogram().getTotalCount());
+		assertEquals(ResponseTimeHistogram.BUCKET_LIMITS.length + 1, server.getResponseTimeHistogram().getBuckets().size());
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		this.connect(true, false);
+
+		assertTrue(this.connection.probeBatchSupport());
+		this.echoServer.receivedLines.clear();
+
+		List<JSONObject> requests = new ArrayList<>();
+		for (int i = 0; i < 3; ++i)
+			requests.add(request("tx" + i));
+
+		List<CompletableFuture<JSONObject>> futures = this.connection.send(requests);
+		for (int i = 0; i < 3; ++i)
+			assertEquals("tx" + i, futures.get(i).get(5, TimeUnit.SECONDS).get("result"));
+
+		// All three went in a single batch
+		String line = this.echoServer.receivedLines.poll(5, TimeUnit.SECONDS);
+		assertTrue(line.startsWith("["));
+		assertEquals(3, ((JSONArray) JSONValue.parse(line)).size());
+		assertTrue(this.echoServer.receivedLines.isEmpty());
+	}
+
+	@Test
+	public void testCloseFailsPendingRequests() throws Exception {
+		this.connect(false, true);
+
+		// Server holds back a single pipelined request, waiting for a second
+		CompletableFuture<JSONObject> future = this.connection.send(List.of(request("lonely"))).get(0);
+		assertNotNull(this.echoServer.receivedLines.poll(5, TimeUnit.SECONDS));
+
+		this.echoServer.close();
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Request should fail when connection closes");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+
+		assertTrue(this.connection.isClosed());
+		assertEquals(0, this.connection.getPendingRequestCount());
+	}
+
+	@Test
+	public void testCloseWhenIdleLetsPendingRequestsComplete() throws Exception {
+		this.connect(false, true);
+
+		// Server holds back first pipelined request until second arrives
+		CompletableFuture<JSONObject> firstFuture = this.connection.send(List.of(request("first"))).get(0);
+		assertNotNull(this.echoServer.receivedLines.poll(5, TimeUnit.SECONDS));
+
+		this.connection.closeWhenIdle();
+		assertFalse(this.connection.isClosed());
+
+		CompletableFuture<JSONObject> secondFuture = this.connection.send(List.of(request("second"))).get(0);
+		assertEquals("first", firstFuture.get(5, TimeUnit.SECONDS).get("result"));
+		assertEquals("second", secondFuture.get(5, TimeUnit.SECONDS).get("result"));
+
+		// Closed once last response arrived
+		assertTrue(this.connection.isClosed());
+		assertEquals(0, this.connection.getPendingRequestCount());
+
+		try {
+			this.connection.send(List.of(request("third")));
+			fail("Closed connection should refuse requests");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	private ElectrumX.Server connect(boolean supportsBatches, boolean reverseOrder) throws IOException {
+		this.echoServer = new EchoServer(supportsBatches, reverseOrder);
+
+		ElectrumX.Server server = new ElectrumX.Server("127.0.0.1", ConnectionType.TCP, this.echoServer.serverSocket.getLocalPort());
+		this.connection = ElectrumXConnection.open(server);
+		return server;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONObject request(String param) {
+		JSONArray params = new JSONArray();
+		params.add(param);
+
+		JSONObject request = new JSONObject();
+		request.put("method", "echo");
+		request.put("params", params);
+		request.put("jsonrpc", "2.0");
+		return request;
+	}
+
+}
@@ -0,0 +1,224 @@
+package org.qortal.test.crosschain;
+
+import cash.z.wallet.sdk.rpc.CompactFormats.CompactBlock;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.crosschain.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ForeignBlockHeaderStoreTests {
+
+	private static final int BASE_TIMESTAMP = 1_600_000_000;
+	private static final int BLOCK_INTERVAL = 600;
+
+	/** Serves headers from an in-memory chain, counting requests */
+	private static class FakeProvider extends BitcoinyBlockchainProvider {
+		private final List<byte[]> chain = new ArrayList<>();
+		private int chainTipRequests = 0;
+		private int headersFetched = 0;
+
+		private FakeProvider(int length) {
+			this.extend(length, (byte) 0);
+		}
+
+		private void extend(int count, byte fork) {
+			for (int i = 0; i < count; ++i)
+				this.chain.add(header(this.chain.size(), fork));
+		}
+
+		private void reorg(int depth, byte fork) {
+			int height = this.chain.size() - depth;
+			this.chain.subList(height, this.chain.size()).clear();
+			this.extend(depth, fork);
+		}
+
+		private static byte[] header(int height, byte fork) {
+			ByteBuffer buffer = ByteBuffer.allocate(ForeignBlockHeaderStore.BLOCK_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(0, 1);
+			buffer.putInt(4, height);
+			buffer.put(8, fork);
+			// Timestamps vary a little, so median isn't simply the middle block
+			buffer.putInt(4 + 32 + 32, BASE_TIMESTAMP + height * BLOCK_INTERVAL + (height % 3) * 1000);
+			return buffer.array();
+		}
+
+		@Override
+		public ChainTip getChainTip() {
+			++this.chainTipRequests;
+			int height = this.chain.size() - 1;
+			return new ChainTip(height, this.chain.get(height));
+		}
+
+		@Override
+		public List<byte[]> getRawBlockHeaders(int startHeight, int count) {
+			int endHeight = Math.min(startHeight + count, this.chain.size());
+			List<byte[]> headers = new ArrayList<>(this.chain.subList(startHeight, endHeight));
+			this.headersFetched += headers.size();
+			return headers;
+		}
+
+		@Override public void setBlockchain(Bitcoiny blockchain) { }
+		@Override public String getNetId() { return "Fake"; }
+		@Override public int getCurrentHeight() { return this.chain.size() - 1; }
+		@Override public List<CompactBlock> getCompactBlocks(int startHeight, int count) { throw new UnsupportedOperationException(); }
+		@Override public List<Long> getBlockTimestamps(int startHeight, int count) { throw new UnsupportedOperationException(); }
+		@Override public long getConfirmedBalance(byte[] scriptPubKey) { throw new UnsupportedOperationException(); }
+		@Override public long getConfirmedAddressBalance(String base58Address) { throw new UnsupportedOperationException(); }
+		@Override public byte[] getRawTransaction(String txHash) { throw new UnsupportedOperationException(); }
+		@Override public byte[] getRawTransaction(byte[] txHash) { throw new UnsupportedOperationException(); }
+		@Override public BitcoinyTransaction getTransaction(String txHash) { throw new UnsupportedOperationException(); }
+		@Override public List<TransactionHash> getAddressTransactions(byte[] scriptPubKey, boolean includeUnconfirmed) { throw new UnsupportedOperationException(); }
+		@Override public List<BitcoinyTransaction> getAddressBitcoinyTransactions(String address, boolean includeUnconfirmed) { throw new UnsupportedOperationException(); }
+		@Override public List<UnspentOutput> getUnspentOutputs(String address, boolean includeUnconfirmed) { throw new UnsupportedOperationException(); }
+		@Override public List<UnspentOutput> getUnspentOutputs(byte[] scriptPubKey, boolean includeUnconfirmed) { throw new UnsupportedOperationException(); }
+		@Override public void broadcastTransaction(byte[] rawTransaction) { throw new UnsupportedOperationException(); }
+		@Override public Set<ChainableServer> getServers() { return Collections.emptySet(); }
+		@Override public List<ChainableServer> getRemainingServers() { return Collections.emptyList(); }
+		@Override public Set<ChainableServer> getUselessServers() { return Collections.emptySet(); }
+		@Override public ChainableServer getCurrentServer() { return null; }
+	}
+
+	private Path tempDir;
+	private Path storePath;
+
+	@Before
+	public void beforeTest() throws IOException {
+		this.tempDir = Files.createTempDirectory("qortal-tests");
+		this.storePath = this.tempDir.resolve("Fake.headers");
+	}
+
+	@After
+	public void afterTest() throws IOException {
+		FileUtils.deleteDirectory(this.tempDir.toFile());
+	}
+
+	@Test
+	public void testMedianBlockTime() throws ForeignBlockchainException {
+		FakeProvider provider = new FakeProvider(500);
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath);
+
+		assertEquals(499, store.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), store.getMedianBlockTime());
+		assertEquals(ForeignBlockHeaderStore.MAX_HEADERS, provider.headersFetched);
+
+		// Further lookups within refresh interval are answered locally
+		store.getMedianBlockTime();
+		store.getHeight();
+		assertEquals(1, provider.chainTipRequests);
+		assertEquals(ForeignBlockHeaderStore.MAX_HEADERS, provider.headersFetched);
+	}
+
+	@Test
+	public void testIncrementalUpdate() throws ForeignBlockchainException {
+		FakeProvider provider = new FakeProvider(500);
+		// Check chain tip on every lookup
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath, 0L);
+		store.getHeight();
+
+		// Unchanged tip needs no headers
+		store.getHeight();
+		assertEquals(ForeignBlockHeaderStore.MAX_HEADERS, provider.headersFetched);
+
+		provider.headersFetched = 0;
+		provider.extend(3, (byte) 0);
+
+		assertEquals(502, store.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), store.getMedianBlockTime());
+		assertEquals(ForeignBlockHeaderStore.REORG_CHECK_DEPTH + 3, provider.headersFetched);
+	}
+
+	@Test
+	public void testReorg() throws ForeignBlockchainException {
+		FakeProvider provider = new FakeProvider(500);
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath, 0L);
+		store.getHeight();
+
+		// Replace top 4 blocks with different ones, plus one more block
+		provider.reorg(4, (byte) 1);
+		provider.extend(1, (byte) 1);
+
+		assertEquals(500, store.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), store.getMedianBlockTime());
+
+		// Reload from file should give the same chain
+		FakeProvider sameProvider = new FakeProvider(0);
+		sameProvider.chain.addAll(provider.chain);
+		ForeignBlockHeaderStore reloadedStore = new ForeignBlockHeaderStore(sameProvider, this.storePath);
+		assertEquals(500, reloadedStore.getHeight());
+		assertEquals(0, sameProvider.headersFetched);
+		assertEquals(expectedMedianBlockTime(provider), reloadedStore.getMedianBlockTime());
+	}
+
+	@Test
+	public void testDeepReorg() throws ForeignBlockchainException {
+		FakeProvider provider = new FakeProvider(500);
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath, 0L);
+		store.getHeight();
+
+		provider.reorg(ForeignBlockHeaderStore.REORG_CHECK_DEPTH + 20, (byte) 2);
+
+		assertEquals(499, store.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), store.getMedianBlockTime());
+	}
+
+	@Test
+	public void testShorterChain() throws ForeignBlockchainException {
+		FakeProvider provider = new FakeProvider(500);
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath, 0L);
+		store.getHeight();
+
+		// Top 2 blocks orphaned, with no replacements yet
+		provider.chain.subList(498, 500).clear();
+
+		assertEquals(497, store.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), store.getMedianBlockTime());
+
+		// Reloaded store also ends at new tip
+		ForeignBlockHeaderStore reloadedStore = new ForeignBlockHeaderStore(provider, this.storePath);
+		assertEquals(497, reloadedStore.getHeight());
+	}
+
+	@Test
+	public void testCompaction() throws ForeignBlockchainException, IOException {
+		FakeProvider provider = new FakeProvider(500);
+		ForeignBlockHeaderStore store = new ForeignBlockHeaderStore(provider, this.storePath, 0L);
+		store.getHeight();
+
+		for (int i = 0; i < ForeignBlockHeaderStore.MAX_HEADERS * 5; ++i) {
+			provider.extend(1, (byte) 0);
+			store.getHeight();
+		}
+
+		long recordLength = 4 + ForeignBlockHeaderStore.BLOCK_HEADER_LENGTH;
+		assertTrue(Files.size(this.storePath) <= recordLength * ForeignBlockHeaderStore.MAX_HEADERS * 4);
+
+		ForeignBlockHeaderStore reloadedStore = new ForeignBlockHeaderStore(provider, this.storePath);
+		assertEquals(provider.chain.size() - 1, reloadedStore.getHeight());
+		assertEquals(expectedMedianBlockTime(provider), reloadedStore.getMedianBlockTime());
+	}
+
+	private static List<Integer> expectedTimestamps(FakeProvider provider, int startHeight, int count) {
+		return provider.chain.subList(startHeight, startHeight + count).stream()
+				.map(header -> ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).getInt(4 + 32 + 32))
+				.collect(Collectors.toList());
+	}
+
+	private static int expectedMedianBlockTime(FakeProvider provider) {
+		int height = provider.chain.size() - 1;
+		List<Integer> timestamps = expectedTimestamps(provider, height - 11, 11);
+		timestamps.sort(Comparator.reverseOrder());
+		return timestamps.get(5);
+	}
+
+}
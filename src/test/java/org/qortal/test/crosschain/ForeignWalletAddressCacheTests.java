@@ -0,0 +1,104 @@
+package org.qortal.test.crosschain;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.crypto.Crypto;
+import org.qortal.data.crosschain.ForeignWalletAddressData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.test.common.Common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ForeignWalletAddressCacheTests extends Common {
+
+	private static final byte[] WALLET_ID = Crypto.digest("wallet".getBytes(StandardCharsets.UTF_8));
+	private static final byte[] OTHER_WALLET_ID = Crypto.digest("other wallet".getBytes(StandardCharsets.UTF_8));
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testSaveAndLoad() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ForeignWalletAddressData usedAddress = new ForeignWalletAddressData("BTC", WALLET_ID, "M/0H/0/0", "address0",
+					"status0", new ArrayList<>(Arrays.asList("tx0", "tx1")), 1000L);
+			ForeignWalletAddressData unusedAddress = new ForeignWalletAddressData("BTC", WALLET_ID, "M/0H/0/1", "address1",
+					null, new ArrayList<>(), 1000L);
+			ForeignWalletAddressData otherWalletAddress = new ForeignWalletAddressData("BTC", OTHER_WALLET_ID, "M/0H/0/0", "otherAddress",
+					"otherStatus", new ArrayList<>(Arrays.asList("tx2")), 1000L);
+			ForeignWalletAddressData otherCoinAddress = new ForeignWalletAddressData("LTC", WALLET_ID, "M/0H/0/0", "ltcAddress",
+					"ltcStatus", new ArrayList<>(Arrays.asList("tx3")), 1000L);
+
+			for (ForeignWalletAddressData addressData : List.of(usedAddress, unusedAddress, otherWalletAddress, otherCoinAddress))
+				repository.getCrossChainRepository().save(addressData);
+			repository.saveChanges();
+
+			List<ForeignWalletAddressData> loadedAddresses = repository.getCrossChainRepository().getForeignWalletAddresses("BTC", WALLET_ID);
+			assertEquals(2, loadedAddresses.size());
+
+			ForeignWalletAddressData loadedUsedAddress = find(loadedAddresses, "M/0H/0/0");
+			assertEquals("address0", loadedUsedAddress.getAddress());
+			assertEquals("status0", loadedUsedAddress.getStatus());
+			assertTrue(loadedUsedAddress.isUsed());
+			assertEquals(1000L, loadedUsedAddress.getUpdatedWhen());
+			assertEquals(2, loadedUsedAddress.getTxHashes().size());
+			assertTrue(loadedUsedAddress.getTxHashes().containsAll(List.of("tx0", "tx1")));
+
+			ForeignWalletAddressData loadedUnusedAddress = find(loadedAddresses, "M/0H/0/1");
+			assertNull(loadedUnusedAddress.getStatus());
+			assertFalse(loadedUnusedAddress.isUsed());
+			assertTrue(loadedUnusedAddress.getTxHashes().isEmpty());
+		}
+	}
+
+	@Test
+	public void testUpdateReplacesTransactions() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			ForeignWalletAddressData addressData = new ForeignWalletAddressData("BTC", WALLET_ID, "M/0H/0/0", "address0",
+					"status0", new ArrayList<>(Arrays.asList("tx0", "tx1")), 1000L);
+			repository.getCrossChainRepository().save(addressData);
+			repository.saveChanges();
+
+			addressData.update("status1", new ArrayList<>(Arrays.asList("tx1", "tx2", "tx3")), 2000L);
+			repository.getCrossChainRepository().save(addressData);
+			repository.saveChanges();
+
+			List<ForeignWalletAddressData> loadedAddresses = repository.getCrossChainRepository().getForeignWalletAddresses("BTC", WALLET_ID);
+			assertEquals(1, loadedAddresses.size());
+
+			ForeignWalletAddressData loadedAddress = loadedAddresses.get(0);
+			assertEquals("status1", loadedAddress.getStatus());
+			assertEquals(2000L, loadedAddress.getUpdatedWhen());
+			assertEquals(3, loadedAddress.getTxHashes().size());
+			assertFalse(loadedAddress.getTxHashes().contains("tx0"));
+		}
+	}
+
+	@Test
+	public void testDeleteAll() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			repository.getCrossChainRepository().save(new ForeignWalletAddressData("BTC", WALLET_ID, "M/0H/0/0", "address0",
+					"status0", new ArrayList<>(Arrays.asList("tx0")), 1000L));
+			repository.saveChanges();
+
+			assertEquals(1, repository.getCrossChainRepository().deleteAllForeignWalletAddresses());
+			repository.saveChanges();
+
+			assertTrue(repository.getCrossChainRepository().getForeignWalletAddresses("BTC", WALLET_ID).isEmpty());
+		}
+	}
+
+	private static ForeignWalletAddressData find(List<ForeignWalletAddressData> addresses, String keyPath) {
+		return addresses.stream().filter(addressData -> addressData.getKeyPath().equals(keyPath)).findFirst().orElse(null);
+	}
+
+}
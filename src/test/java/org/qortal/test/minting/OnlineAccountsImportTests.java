@@ -0,0 +1,176 @@
+package org.qortal.test.minting;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.account.Account;
+import org.qortal.account.PrivateKeyAccount;
+import org.qortal.controller.OnlineAccountsManager;
+import org.qortal.crypto.MemoryPoW;
+import org.qortal.crypto.Qortal25519Extras;
+import org.qortal.data.account.RewardShareData;
+import org.qortal.data.network.OnlineAccountData;
+import org.qortal.repository.DataException;
+import org.qortal.repository.Repository;
+import org.qortal.repository.RepositoryManager;
+import org.qortal.settings.Settings;
+import org.qortal.test.common.AccountUtils;
+import org.qortal.test.common.Common;
+import org.qortal.utils.Base58;
+import org.qortal.utils.NTP;
+
+import java.security.SecureRandom;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class OnlineAccountsImportTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException, IllegalAccessException {
+		Common.useDefaultSettings();
+
+		// Testnet mempow difficulty, so we can compute nonces quickly
+		FieldUtils.writeField(Settings.getInstance(), "isTestNet", true, true);
+
+		OnlineAccountsManager.getInstance().removeAllOnlineAccounts();
+	}
+
+	@After
+	public void afterTest() throws IllegalAccessException {
+		OnlineAccountsManager.getInstance().removeAllOnlineAccounts();
+
+		FieldUtils.writeField(Settings.getInstance(), "isTestNet", false, true);
+	}
+
+	@Test
+	public void testImportMatchesSequentialValidation() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount aliceRewardShare = Common.getTestAccount(repository, "alice-reward-share");
+			PrivateKeyAccount dilbertRewardShare = new PrivateKeyAccount(repository, AccountUtils.rewardShare(repository, "dilbert", "dilbert", 0));
+
+			byte[] unknownPrivateKey = new byte[32];
+			new SecureRandom().nextBytes(unknownPrivateKey);
+			PrivateKeyAccount unknownAccount = new PrivateKeyAccount(repository, unknownPrivateKey);
+
+			final long timestamp = OnlineAccountsManager.getCurrentOnlineAccountTimestamp();
+			final long modulus = OnlineAccountsManager.getOnlineTimestampModulus();
+
+			List<OnlineAccountData> onlineAccounts = new ArrayList<>();
+
+			// Valid
+			onlineAccounts.add(onlineAccount(aliceRewardShare, timestamp));
+			onlineAccounts.add(onlineAccount(dilbertRewardShare, timestamp));
+			onlineAccounts.add(onlineAccount(aliceRewardShare, timestamp - modulus));
+
+			// Duplicate, only differing by signature
+			onlineAccounts.add(onlineAccount(aliceRewardShare, timestamp));
+
+			// Incorrect or missing nonce
+			Integer dilbertNonce = computeNonce(dilbertRewardShare.getPublicKey(), timestamp - modulus);
+			onlineAccounts.add(onlineAccount(dilbertRewardShare, timestamp - modulus, incorrectNonce(dilbertRewardShare.getPublicKey(), timestamp - modulus, dilbertNonce)));
+			onlineAccounts.add(onlineAccount(dilbertRewardShare, timestamp - modulus, null));
+
+			// Signature for different timestamp
+			byte[] wrongSignature = Qortal25519Extras.signForAggregation(aliceRewardShare.getPrivateKey(), Longs.toByteArray(timestamp));
+			onlineAccounts.add(new OnlineAccountData(timestamp + modulus, wrongSignature, aliceRewardShare.getPublicKey(),
+					computeNonce(aliceRewardShare.getPublicKey(), timestamp + modulus)));
+
+			// Not a reward-share
+			onlineAccounts.add(onlineAccount(unknownAccount, timestamp));
+
+			// Invalid timestamps
+			onlineAccounts.add(onlineAccount(dilbertRewardShare, timestamp + 1));
+			onlineAccounts.add(onlineAccount(dilbertRewardShare, timestamp - 3 * modulus));
+
+			Set<String> expectedAccepted = new HashSet<>();
+			for (OnlineAccountData onlineAccountData : new LinkedHashSet<>(onlineAccounts))
+				if (isValidSequentially(repository, onlineAccountData))
+					expectedAccepted.add(describe(onlineAccountData));
+
+			// Only the three valid, non-duplicate, entries
+			assertEquals(3, expectedAccepted.size());
+
+			OnlineAccountsManager.getInstance().importOnlineAccounts(onlineAccounts);
+
+			assertEquals(expectedAccepted, getAccepted(onlineAccounts));
+			assertEquals(0, OnlineAccountsManager.getInstance().getImportQueueSize());
+
+			// Already-validated entries are skipped, but new entries still checked
+			OnlineAccountData dilbertPreviousOnline = onlineAccount(dilbertRewardShare, timestamp - modulus, dilbertNonce);
+			onlineAccounts.add(dilbertPreviousOnline);
+
+			assertTrue(isValidSequentially(repository, dilbertPreviousOnline));
+			expectedAccepted.add(describe(dilbertPreviousOnline));
+
+			OnlineAccountsManager.getInstance().importOnlineAccounts(onlineAccounts);
+
+			assertEquals(expectedAccepted, getAccepted(onlineAccounts));
+			assertEquals(0, OnlineAccountsManager.getInstance().getImportQueueSize());
+		}
+	}
+
+	/** Checks online account on its own, as import queue did before batching, which import must still agree with. */
+	private static boolean isValidSequentially(Repository repository, OnlineAccountData onlineAccountData) throws DataException {
+		final long timestamp = onlineAccountData.getTimestamp();
+		final long modulus = OnlineAccountsManager.getOnlineTimestampModulus();
+		if (Math.abs(timestamp - NTP.getTime()) > modulus * 2 || timestamp % modulus != 0)
+			return false;
+
+		RewardShareData rewardShareData = repository.getAccountRepository().getRewardShare(onlineAccountData.getPublicKey());
+		if (rewardShareData == null || !new Account(repository, rewardShareData.getMinter()).canMint())
+			return false;
+
+		if (!Qortal25519Extras.verifyAggregated(onlineAccountData.getPublicKey(), onlineAccountData.getSignature(), Longs.toByteArray(timestamp)))
+			return false;
+
+		return OnlineAccountsManager.getInstance().verifyMemoryPoW(onlineAccountData, null);
+	}
+
+	private static Set<String> getAccepted(List<OnlineAccountData> onlineAccounts) {
+		Set<String> accepted = new HashSet<>();
+
+		onlineAccounts.stream()
+				.map(OnlineAccountData::getTimestamp)
+				.distinct()
+				.flatMap(timestamp -> OnlineAccountsManager.getInstance().getOnlineAccounts(timestamp).stream())
+				.map(OnlineAccountsImportTests::describe)
+				.forEach(accepted::add);
+
+		return accepted;
+	}
+
+	private static String describe(OnlineAccountData onlineAccountData) {
+		return String.format("%d %s nonce %s sig %s", onlineAccountData.getTimestamp(), Base58.encode(onlineAccountData.getPublicKey()),
+				onlineAccountData.getNonce(), Base58.encode(onlineAccountData.getSignature()));
+	}
+
+	private static OnlineAccountData onlineAccount(PrivateKeyAccount account, long timestamp) {
+		return onlineAccount(account, timestamp, computeNonce(account.getPublicKey(), timestamp));
+	}
+
+	private static OnlineAccountData onlineAccount(PrivateKeyAccount account, long timestamp, Integer nonce) {
+		byte[] signature = Qortal25519Extras.signForAggregation(account.getPrivateKey(), Longs.toByteArray(timestamp));
+		return new OnlineAccountData(timestamp, signature, account.getPublicKey(), nonce);
+	}
+
+	private static Integer computeNonce(byte[] publicKey, long timestamp) {
+		return MemoryPoW.compute2(mempowBytes(publicKey, timestamp), OnlineAccountsManager.POW_BUFFER_SIZE_TESTNET, OnlineAccountsManager.POW_DIFFICULTY_TESTNET);
+	}
+
+	private static Integer incorrectNonce(byte[] publicKey, long timestamp, int correctNonce) {
+		int nonce = correctNonce + 1;
+		while (MemoryPoW.verify2(mempowBytes(publicKey, timestamp), OnlineAccountsManager.POW_BUFFER_SIZE_TESTNET, OnlineAccountsManager.POW_DIFFICULTY_TESTNET, nonce))
+			++nonce;
+
+		return nonce;
+	}
+
+	private static byte[] mempowBytes(byte[] publicKey, long timestamp) {
+		return Bytes.concat(publicKey, Longs.toByteArray(timestamp));
+	}
+
+}
@@ -0,0 +1,116 @@
+package org.qortal.test.network;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qortal.network.message.*;
+import org.qortal.repository.DataException;
+import org.qortal.test.common.Common;
+import org.qortal.transform.Transformer;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MessageFrameDecoderTests extends Common {
+
+	private static final Random RANDOM = new Random();
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testByteAtATime() throws MessageException {
+		byte[] signature = randomBytes(Transformer.SIGNATURE_LENGTH);
+		byte[] data = randomBytes(1000);
+
+		byte[] messageBytes = new ArbitraryDataMessage(signature, data).toBytes();
+
+		ByteBuffer byteBuffer = ByteBuffer.allocate(messageBytes.length);
+		MessageFrameDecoder decoder = new MessageFrameDecoder();
+
+		Message message = null;
+		for (int i = 0; i < messageBytes.length; ++i) {
+			assertNull("Message decoded before all bytes received", message);
+
+			byteBuffer.put(messageBytes[i]);
+			message = decoder.decode(byteBuffer.asReadOnlyBuffer().flip());
+		}
+
+		assertNotNull(message);
+		assertArrayEquals(signature, ((ArbitraryDataMessage) message).getSignature());
+		assertArrayEquals(data, ((ArbitraryDataMessage) message).getData());
+	}
+
+	@Test
+	public void testConsecutiveMessages() throws MessageException {
+		byte[] firstBytes = new PingMessage().toBytes();
+		byte[] secondBytes = new ArbitraryDataMessage(randomBytes(Transformer.SIGNATURE_LENGTH), randomBytes(5000)).toBytes();
+
+		ByteBuffer readOnlyBuffer = ByteBuffer.allocate(firstBytes.length + secondBytes.length)
+				.put(firstBytes)
+				.put(secondBytes)
+				.asReadOnlyBuffer()
+				.flip();
+
+		MessageFrameDecoder decoder = new MessageFrameDecoder();
+
+		Message firstMessage = decoder.decode(readOnlyBuffer);
+		assertEquals(MessageType.PING, firstMessage.getType());
+		assertEquals(firstBytes.length, readOnlyBuffer.position());
+
+		Message secondMessage = decoder.decode(readOnlyBuffer.slice());
+		assertEquals(MessageType.ARBITRARY_DATA, secondMessage.getType());
+	}
+
+	@Test
+	public void testSharedOutgoingFrames() throws MessageException {
+		byte[] data = randomBytes(5000);
+		Message messageOut = new ArbitraryDataMessage(randomBytes(Transformer.SIGNATURE_LENGTH), data);
+
+		// Each call should return independent views onto the same bytes
+		ByteBuffer[] firstBuffers = messageOut.toByteBuffers();
+		ByteBuffer[] secondBuffers = messageOut.toByteBuffers();
+		assertEquals(3, firstBuffers.length);
+		assertTrue(firstBuffers[2].isReadOnly());
+
+		// Consume first set
+		ByteBuffer wire = ByteBuffer.allocate(data.length * 2);
+		for (ByteBuffer byteBuffer : firstBuffers)
+			wire.put(byteBuffer);
+
+		// Second set should be unaffected
+		assertEquals(firstBuffers[2].limit(), secondBuffers[2].remaining());
+
+		Message messageIn = new MessageFrameDecoder().decode(wire.asReadOnlyBuffer().flip());
+		assertEquals(MessageType.ARBITRARY_DATA, messageIn.getType());
+		assertFalse(messageIn.hasId());
+
+		// Changing ID should reframe header, but leave data alone
+		messageOut.setId(1234);
+		messageIn = new MessageFrameDecoder().decode(ByteBuffer.wrap(messageOut.toBytes()).asReadOnlyBuffer());
+		assertEquals(1234, messageIn.getId());
+		assertArrayEquals(data, ((ArbitraryDataMessage) messageIn).getData());
+	}
+
+	@Test
+	public void testBadMagic() {
+		ByteBuffer readOnlyBuffer = ByteBuffer.wrap(new byte[] { 'X', 'X', 'X', 'X' }).asReadOnlyBuffer();
+
+		try {
+			new MessageFrameDecoder().decode(readOnlyBuffer);
+			fail("Bad magic should be rejected");
+		} catch (MessageException e) {
+			// Expected
+		}
+	}
+
+	private static byte[] randomBytes(int length) {
+		byte[] bytes = new byte[length];
+		RANDOM.nextBytes(bytes);
+		return bytes;
+	}
+
+}
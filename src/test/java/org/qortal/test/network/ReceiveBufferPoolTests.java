@@ -0,0 +1,71 @@
+package org.qortal.test.network;
+
+import org.junit.Test;
+import org.qortal.network.ReceiveBufferPool;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ReceiveBufferPoolTests {
+
+	private static final int MAX_BUFFER_SIZE = 1024 * 1024 + 9;
+
+	@Test
+	public void testAcquireRelease() {
+		ReceiveBufferPool pool = new ReceiveBufferPool(MAX_BUFFER_SIZE);
+
+		ByteBuffer buffer = pool.acquire(ReceiveBufferPool.MIN_BUFFER_SIZE);
+		assertEquals(ReceiveBufferPool.MIN_BUFFER_SIZE, buffer.capacity());
+		assertEquals(1, pool.getInUseBufferCount());
+		assertEquals(ReceiveBufferPool.MIN_BUFFER_SIZE, pool.getInUseBytes());
+		assertEquals(0, pool.getPooledBytes());
+
+		pool.release(buffer);
+		assertEquals(0, pool.getInUseBufferCount());
+		assertEquals(0, pool.getInUseBytes());
+		assertEquals(1, pool.getPooledBufferCount());
+		assertEquals(ReceiveBufferPool.MIN_BUFFER_SIZE, pool.getPooledBytes());
+
+		// Same buffer should be reused
+		ByteBuffer reusedBuffer = pool.acquire(100);
+		assertSame(buffer, reusedBuffer);
+		assertEquals(0, reusedBuffer.position());
+		assertEquals(0, pool.getPooledBytes());
+	}
+
+	@Test
+	public void testGrowKeepsContents() {
+		ReceiveBufferPool pool = new ReceiveBufferPool(MAX_BUFFER_SIZE);
+
+		ByteBuffer buffer = pool.acquire(ReceiveBufferPool.MIN_BUFFER_SIZE);
+		for (int i = 0; i < 1000; ++i)
+			buffer.put((byte) i);
+
+		ByteBuffer grownBuffer = pool.grow(buffer, 100 * 1024);
+		assertTrue(grownBuffer.capacity() >= 100 * 1024);
+		assertEquals(1000, grownBuffer.position());
+
+		grownBuffer.flip();
+		for (int i = 0; i < 1000; ++i)
+			assertEquals((byte) i, grownBuffer.get());
+
+		// Old buffer should be back in pool, only grown buffer in use
+		assertEquals(1, pool.getInUseBufferCount());
+		assertEquals(grownBuffer.capacity(), pool.getInUseBytes());
+		assertEquals(ReceiveBufferPool.MIN_BUFFER_SIZE, pool.getPooledBytes());
+	}
+
+	@Test
+	public void testGrowCappedAtMaxSize() {
+		ReceiveBufferPool pool = new ReceiveBufferPool(MAX_BUFFER_SIZE);
+
+		ByteBuffer buffer = pool.acquire(ReceiveBufferPool.MIN_BUFFER_SIZE);
+		ByteBuffer grownBuffer = pool.grow(buffer, 10 * MAX_BUFFER_SIZE);
+		assertEquals(MAX_BUFFER_SIZE, grownBuffer.capacity());
+
+		// No further growth possible
+		assertSame(grownBuffer, pool.grow(grownBuffer, 10 * MAX_BUFFER_SIZE));
+	}
+
+}